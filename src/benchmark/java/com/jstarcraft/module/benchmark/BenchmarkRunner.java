@@ -0,0 +1,43 @@
+package com.jstarcraft.module.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * 基准测试启动器
+ *
+ * <pre>
+ * 所有基准测试统一测量吞吐量,并且通过{@link GCProfiler}记录分配速率(gc.alloc.rate与gc.alloc.rate.norm),
+ * 使性能的回退与改进都可以量化.
+ * 参数:
+ * args[0]:基准测试的正则(默认全部);
+ * args[1]:结果文件(可选,JSON格式,用于对比不同版本).
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] arguments) throws Exception {
+		String include = arguments.length > 0 ? arguments[0] : ".*";
+		ChainedOptionsBuilder builder = new OptionsBuilder();
+		builder.include(include);
+		builder.addProfiler(GCProfiler.class);
+		builder.forks(1);
+		builder.warmupIterations(3);
+		builder.warmupTime(TimeValue.seconds(2));
+		builder.measurementIterations(5);
+		builder.measurementTime(TimeValue.seconds(2));
+		if (arguments.length > 1) {
+			builder.resultFormat(ResultFormatType.JSON);
+			builder.result(arguments[1]);
+		}
+		new Runner(builder.build()).run();
+	}
+
+}
@@ -0,0 +1,173 @@
+package com.jstarcraft.module.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.jstarcraft.module.data.DataFeature;
+import com.jstarcraft.module.data.DataSpace;
+import com.jstarcraft.module.data.IntegerArray;
+import com.jstarcraft.module.data.accessor.AttributeMarker;
+import com.jstarcraft.module.data.accessor.InstanceAccessor;
+import com.jstarcraft.module.data.accessor.SampleAccessor;
+import com.jstarcraft.module.math.structure.MathCombiner;
+import com.jstarcraft.module.math.structure.matrix.MatrixBuilder;
+import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
+
+/**
+ * 交互生成器
+ *
+ * <pre>
+ * 按照幂律(Zipf)分布生成用户-物品-评分的交互,模拟真实数据集的长尾:
+ * 排名为r的用户/物品被抽中的概率与1/r^exponent成正比.
+ * 前max(userSize, itemSize)条交互保证每个用户与物品至少出现一次,使属性大小与参数一致.
+ * 相同的种子生成相同的数据,保证不同版本之间的基准测试可以对比.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class InteractionGenerator {
+
+	public static final String USER = "user";
+
+	public static final String ITEM = "item";
+
+	public static final String SCORE = "score";
+
+	private final int userSize;
+
+	private final int itemSize;
+
+	private final DataSpace space;
+
+	private final InstanceAccessor model;
+
+	private final SampleAccessor marker;
+
+	private final SparseMatrix scoreMatrix;
+
+	public InteractionGenerator(int userSize, int itemSize, int interactionSize, float exponent, long seed) {
+		if (userSize <= 0 || itemSize <= 0 || interactionSize < Math.max(userSize, itemSize)) {
+			throw new IllegalArgumentException();
+		}
+		this.userSize = userSize;
+		this.itemSize = itemSize;
+		Map<String, Class<?>> discreteDifinitions = new HashMap<>();
+		discreteDifinitions.put(USER, int.class);
+		discreteDifinitions.put(ITEM, int.class);
+		Set<String> continuousDifinitions = new HashSet<>();
+		continuousDifinitions.add(SCORE);
+		this.space = new DataSpace(discreteDifinitions, continuousDifinitions);
+		DataFeature<?> userFeature = space.makeFeature(USER, USER);
+		DataFeature<?> itemFeature = space.makeFeature(ITEM, ITEM);
+		DataFeature<?> scoreFeature = space.makeFeature(SCORE, SCORE);
+
+		Random random = new Random(seed);
+		double[] userProbabilities = getCumulation(userSize, exponent);
+		double[] itemProbabilities = getCumulation(itemSize, exponent);
+		// 排名与索引通过随机置换解耦,避免热门用户/物品集中在索引的头部
+		int[] users = getPermutation(userSize, random);
+		int[] items = getPermutation(itemSize, random);
+		MatrixBuilder builder = new MatrixBuilder(userSize, itemSize, MathCombiner.LAST, interactionSize);
+		int coverage = Math.max(userSize, itemSize);
+		for (int index = 0; index < interactionSize; index++) {
+			int user, item;
+			if (index < coverage) {
+				user = index % userSize;
+				item = index % itemSize;
+			} else {
+				user = users[sample(userProbabilities, random)];
+				item = items[sample(itemProbabilities, random)];
+			}
+			float score = 1 + random.nextInt(5);
+			userFeature.associate(user);
+			itemFeature.associate(item);
+			scoreFeature.associate(score);
+			builder.append(user, item, score);
+		}
+		this.model = space.makeModule("model", USER, ITEM, SCORE);
+		IntegerArray positions = new IntegerArray();
+		for (int position = 0, size = model.getSize(); position < size; position++) {
+			positions.associateData(position);
+		}
+		this.marker = new AttributeMarker(positions, model, SCORE);
+		this.scoreMatrix = builder.build();
+	}
+
+	private static double[] getCumulation(int size, float exponent) {
+		double[] cumulation = new double[size];
+		double sum = 0D;
+		for (int rank = 0; rank < size; rank++) {
+			sum += 1D / Math.pow(rank + 1, exponent);
+			cumulation[rank] = sum;
+		}
+		for (int rank = 0; rank < size; rank++) {
+			cumulation[rank] /= sum;
+		}
+		return cumulation;
+	}
+
+	private static int[] getPermutation(int size, Random random) {
+		int[] permutation = new int[size];
+		for (int index = 0; index < size; index++) {
+			permutation[index] = index;
+		}
+		for (int index = size - 1; index > 0; index--) {
+			int swap = random.nextInt(index + 1);
+			int value = permutation[index];
+			permutation[index] = permutation[swap];
+			permutation[swap] = value;
+		}
+		return permutation;
+	}
+
+	private static int sample(double[] cumulation, Random random) {
+		int rank = Arrays.binarySearch(cumulation, random.nextDouble());
+		rank = rank < 0 ? -rank - 1 : rank;
+		return Math.min(rank, cumulation.length - 1);
+	}
+
+	public int getUserSize() {
+		return userSize;
+	}
+
+	public int getItemSize() {
+		return itemSize;
+	}
+
+	public DataSpace getSpace() {
+		return space;
+	}
+
+	/**
+	 * 获取数据模型(用户,物品,评分)
+	 *
+	 * @return
+	 */
+	public InstanceAccessor getModel() {
+		return model;
+	}
+
+	/**
+	 * 获取覆盖所有交互的标记
+	 *
+	 * @return
+	 */
+	public SampleAccessor getMarker() {
+		return marker;
+	}
+
+	/**
+	 * 获取评分矩阵(用户*物品,重复的交互保留最后一次评分)
+	 *
+	 * @return
+	 */
+	public SparseMatrix getScoreMatrix() {
+		return scoreMatrix;
+	}
+
+}
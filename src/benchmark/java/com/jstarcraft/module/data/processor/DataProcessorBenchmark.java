@@ -0,0 +1,100 @@
+package com.jstarcraft.module.data.processor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jstarcraft.module.benchmark.InteractionGenerator;
+import com.jstarcraft.module.data.accessor.InstanceAccessor;
+import com.jstarcraft.module.environment.EnvironmentContext;
+
+/**
+ * 数据处理器基准测试
+ *
+ * <pre>
+ * 测量{@link DataMatcher}按照用户分页与{@link DataSorter}按照物品/全部特征排序的吞吐量.
+ * 排序的输入每次都从匹配结果复制,保证每次调用的工作量相同.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DataProcessorBenchmark {
+
+	@Param({ "10000" })
+	private int userSize;
+
+	@Param({ "5000" })
+	private int itemSize;
+
+	@Param({ "1000000" })
+	private int interactionSize;
+
+	private EnvironmentContext context;
+
+	private InstanceAccessor model;
+
+	private int userDimension, itemDimension;
+
+	private int[] matchPaginations, matchPositions;
+
+	private int[] sortPaginations, sortPositions;
+
+	@Setup(Level.Trial)
+	public void prepare() throws Exception {
+		context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		InteractionGenerator generator = new InteractionGenerator(userSize, itemSize, interactionSize, 1F, 0L);
+		model = generator.getModel();
+		userDimension = model.getDiscreteDimension(InteractionGenerator.USER);
+		itemDimension = model.getDiscreteDimension(InteractionGenerator.ITEM);
+		matchPaginations = new int[userSize + 1];
+		matchPositions = new int[model.getSize()];
+		DataMatcher.discreteOf(model, userDimension).match(matchPaginations, matchPositions);
+		sortPaginations = new int[userSize + 1];
+		sortPositions = new int[model.getSize()];
+	}
+
+	@Benchmark
+	public void match(Blackhole hole) throws Exception {
+		context.doTask(() -> {
+			int[] paginations = new int[userSize + 1];
+			int[] positions = new int[model.getSize()];
+			DataMatcher.discreteOf(model, userDimension).match(paginations, positions);
+			hole.consume(positions);
+		}).get();
+	}
+
+	@Benchmark
+	public void sortByItem(Blackhole hole) throws Exception {
+		context.doTask(() -> {
+			System.arraycopy(matchPaginations, 0, sortPaginations, 0, matchPaginations.length);
+			System.arraycopy(matchPositions, 0, sortPositions, 0, matchPositions.length);
+			DataSorter.discreteOf(model, itemDimension).sort(sortPaginations, sortPositions);
+			hole.consume(sortPositions);
+		}).get();
+	}
+
+	@Benchmark
+	public void sortByFeature(Blackhole hole) throws Exception {
+		context.doTask(() -> {
+			System.arraycopy(matchPaginations, 0, sortPaginations, 0, matchPaginations.length);
+			System.arraycopy(matchPositions, 0, sortPositions, 0, matchPositions.length);
+			DataSorter.featureOf(model).sort(sortPaginations, sortPositions);
+			hole.consume(sortPositions);
+		}).get();
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.jstarcraft.module.math.structure.matrix;
+
+import java.util.concurrent.TimeUnit;
+
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jstarcraft.module.benchmark.InteractionGenerator;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.math.structure.MathCalculator;
+
+/**
+ * 矩阵基准测试
+ *
+ * <pre>
+ * 对比{@link DenseMatrix},{@link SparseMatrix},{@link SymmetryMatrix},{@link Nd4jMatrix}在串行/并行模式下的
+ * dotProduct,iterateElement与mapValues.
+ * 稀疏矩阵来自{@link InteractionGenerator},其它矩阵为同样大小的随机矩阵.
+ * 所有操作在环境线程中执行(并行模式依赖环境上下文).
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MatrixBenchmark {
+
+	@Param({ "dense", "sparse", "symmetry", "nd4j" })
+	private String type;
+
+	@Param({ "SERIAL", "PARALLEL" })
+	private MathCalculator mode;
+
+	@Param({ "1000" })
+	private int dimension;
+
+	@Param({ "20" })
+	private int factorSize;
+
+	private EnvironmentContext context;
+
+	private MathMatrix matrix;
+
+	private DenseMatrix factorMatrix;
+
+	private DenseMatrix outputMatrix;
+
+	@Setup(Level.Trial)
+	public void prepare() throws Exception {
+		context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		context.doTask(() -> {
+			switch (type) {
+			case "dense": {
+				matrix = DenseMatrix.valueOf(dimension, dimension, MatrixMapper.RANDOM);
+				break;
+			}
+			case "sparse": {
+				// 平均每行50个元素
+				InteractionGenerator generator = new InteractionGenerator(dimension, dimension, dimension * 50, 1F, 0L);
+				matrix = generator.getScoreMatrix();
+				break;
+			}
+			case "symmetry": {
+				matrix = new SymmetryMatrix(dimension);
+				matrix.mapValues(MatrixMapper.RANDOM, null, MathCalculator.SERIAL);
+				break;
+			}
+			case "nd4j": {
+				matrix = new Nd4jMatrix(Nd4j.zeros(dimension, dimension, 'c'));
+				matrix.mapValues(MatrixMapper.RANDOM, null, MathCalculator.SERIAL);
+				break;
+			}
+			default: {
+				throw new IllegalArgumentException(type);
+			}
+			}
+			factorMatrix = DenseMatrix.valueOf(dimension, factorSize, MatrixMapper.RANDOM);
+			outputMatrix = DenseMatrix.valueOf(dimension, factorSize);
+		}).get();
+	}
+
+	@Benchmark
+	public void dotProduct(Blackhole hole) throws Exception {
+		context.doTask(() -> {
+			outputMatrix.dotProduct(matrix, false, factorMatrix, false, mode);
+			hole.consume(outputMatrix);
+		}).get();
+	}
+
+	@Benchmark
+	public void iterateElement(Blackhole hole) throws Exception {
+		context.doTask(() -> {
+			matrix.iterateElement(mode, (scalar) -> {
+				scalar.setValue(scalar.getValue() * 0.5F + 0.5F);
+			});
+			hole.consume(matrix);
+		}).get();
+	}
+
+	@Benchmark
+	public void mapValues(Blackhole hole) throws Exception {
+		context.doTask(() -> {
+			matrix.mapValues((row, column, value, message) -> {
+				return value * 0.5F + 0.5F;
+			}, null, mode);
+			hole.consume(matrix);
+		}).get();
+	}
+
+}
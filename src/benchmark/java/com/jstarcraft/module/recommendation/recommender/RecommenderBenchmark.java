@@ -0,0 +1,79 @@
+package com.jstarcraft.module.recommendation.recommender;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.jstarcraft.core.utility.RandomUtility;
+import com.jstarcraft.core.utility.ReflectionUtility;
+import com.jstarcraft.module.benchmark.InteractionGenerator;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.recommendation.configure.Configuration;
+import com.jstarcraft.module.recommendation.utility.DriverUtility;
+
+/**
+ * 推荐器基准测试
+ *
+ * <pre>
+ * 复用测试资源中每个推荐器的配置(rec/{profile}-test.properties),只把迭代次数改为1,
+ * 所以每次{@link Recommender#practice()}对应一个训练周期,吞吐量即每分钟的周期数.
+ * 模型在周期之间持续训练,不会重新初始化.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class RecommenderBenchmark {
+
+	@Param({ "collaborative/ranking/bpr", "collaborative/ranking/wrmf", "collaborative/ranking/slim", "collaborative/rating/biasedmf", "collaborative/rating/svdpp", "collaborative/rating/fmsgd" })
+	private String profile;
+
+	@Param({ "5000" })
+	private int userSize;
+
+	@Param({ "2000" })
+	private int itemSize;
+
+	@Param({ "200000" })
+	private int interactionSize;
+
+	private EnvironmentContext context;
+
+	private Recommender recommender;
+
+	@Setup(Level.Trial)
+	public void prepare() throws Exception {
+		context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		Properties properties = new Properties();
+		properties.load(RecommenderBenchmark.class.getClassLoader().getResourceAsStream("rec/" + profile + "-test.properties"));
+		properties.setProperty("rec.iterator.maximum", "1");
+		Configuration configuration = Configuration.valueOf(properties);
+		InteractionGenerator generator = new InteractionGenerator(userSize, itemSize, interactionSize, 1F, 0L);
+		RandomUtility.setSeed(0L);
+		recommender = (Recommender) ReflectionUtility.getInstance((Class<Recommender>) DriverUtility.getClass(configuration.getString("rec.recommender.class")));
+		context.doTask(() -> {
+			recommender.prepare(configuration, generator.getMarker(), generator.getModel(), generator.getSpace());
+		}).get();
+	}
+
+	@Benchmark
+	public void practice() throws Exception {
+		context.doTask(() -> {
+			recommender.practice();
+		}).get();
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.jstarcraft.module.recommendation.task;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jstarcraft.core.utility.KeyValue;
+import com.jstarcraft.core.utility.RandomUtility;
+import com.jstarcraft.module.benchmark.InteractionGenerator;
+import com.jstarcraft.module.data.accessor.AttributeMarker;
+import com.jstarcraft.module.data.accessor.InstanceAccessor;
+import com.jstarcraft.module.data.processor.DataMatcher;
+import com.jstarcraft.module.data.splitter.RandomSplitter;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.recommendation.configure.Configuration;
+import com.jstarcraft.module.recommendation.evaluator.Evaluator;
+
+/**
+ * 排序任务基准测试
+ *
+ * <pre>
+ * 测量{@link RankingTask}对所有测试用户执行TopN推荐与评估的吞吐量(每次调用评估全部用户).
+ * 任务的状态在准备阶段按照{@link AbstractTask#execute()}的方式直接装配(不经过配置文件与数据转换器),
+ * 推荐器使用测试资源中的配置(rec/{profile}-test.properties)预先训练5个周期,基准测试只包括{@link RankingTask#check(int)},{@link RankingTask#recommend}与评估器.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class RankingTaskBenchmark {
+
+	@Param({ "collaborative/ranking/bpr", "collaborative/ranking/wrmf", "benchmark/mostpopular" })
+	private String profile;
+
+	@Param({ "5000" })
+	private int userSize;
+
+	@Param({ "2000" })
+	private int itemSize;
+
+	@Param({ "200000" })
+	private int interactionSize;
+
+	@Param({ "10" })
+	private int topSize;
+
+	private EnvironmentContext context;
+
+	private RankingTask task;
+
+	private Collection<Evaluator> evaluators;
+
+	private static int[][] match(AttributeMarker marker, int dimension, int size) {
+		int[] paginations = new int[size + 1];
+		int[] positions = new int[marker.getSize()];
+		DataMatcher.discreteOf(marker, dimension).match(paginations, positions);
+		return new int[][] { paginations, positions };
+	}
+
+	@Setup(Level.Trial)
+	public void prepare() throws Exception {
+		context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		Properties properties = new Properties();
+		properties.load(RankingTaskBenchmark.class.getClassLoader().getResourceAsStream("rec/" + profile + "-test.properties"));
+		properties.setProperty("rec.recommender.ranking.topn", String.valueOf(topSize));
+		properties.setProperty("rec.iterator.maximum", "5");
+		Configuration configuration = Configuration.valueOf(properties);
+		InteractionGenerator generator = new InteractionGenerator(userSize, itemSize, interactionSize, 1F, 0L);
+		RandomUtility.setSeed(0L);
+		task = new RankingTask(configuration);
+
+		InstanceAccessor model = generator.getModel();
+		RandomSplitter splitter = new RandomSplitter(model, InteractionGenerator.USER, 0.8D);
+		AttributeMarker trainMarker = new AttributeMarker(splitter.getTrainReference(0), model, InteractionGenerator.SCORE);
+		AttributeMarker testMarker = new AttributeMarker(splitter.getTestReference(0), model, InteractionGenerator.SCORE);
+		task.userDimension = model.getDiscreteDimension(InteractionGenerator.USER);
+		task.itemDimension = model.getDiscreteDimension(InteractionGenerator.ITEM);
+		task.numberOfUsers = generator.getUserSize();
+		task.numberOfItems = generator.getItemSize();
+		task.trainMarker = trainMarker;
+		task.testMarker = testMarker;
+		int[][] train = match(trainMarker, task.userDimension, task.numberOfUsers);
+		task.trainPaginations = train[0];
+		task.trainPositions = train[1];
+		int[][] test = match(testMarker, task.userDimension, task.numberOfUsers);
+		task.testPaginations = test[0];
+		task.testPositions = test[1];
+		evaluators = task.getEvaluators(generator.getScoreMatrix());
+		context.doTask(() -> {
+			task.recommender.prepare(configuration, trainMarker, model, generator.getSpace());
+			task.recommender.practice();
+		}).get();
+	}
+
+	@Benchmark
+	public void evaluate(Blackhole hole) throws Exception {
+		context.doTask(() -> {
+			for (int userIndex = 0; userIndex < task.numberOfUsers; userIndex++) {
+				if (task.testPaginations[userIndex + 1] == task.testPaginations[userIndex]) {
+					continue;
+				}
+				Collection checkCollection = task.check(userIndex);
+				List<KeyValue<Integer, Float>> recommendList = task.recommend(task.recommender, userIndex);
+				for (Evaluator evaluator : evaluators) {
+					hole.consume(evaluator.evaluate(checkCollection, recommendList));
+				}
+			}
+		}).get();
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.jstarcraft.module.similarity;
+
+import java.util.concurrent.TimeUnit;
+
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jstarcraft.module.benchmark.InteractionGenerator;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
+
+/**
+ * 相似度基准测试
+ *
+ * <pre>
+ * 在幂律分布的评分矩阵上测量每个{@link Similarity}实现构建物品相似度矩阵与邻居矩阵的吞吐量.
+ * (相似度矩阵没有计算模式,mode只影响邻居矩阵.)
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+public class SimilarityBenchmark {
+
+	@Param({ "BinaryCosineSimilarity", "CoOccurrenceSimilarity", "CosineSimilarity", "CPCSimilarity", "DiceCoefficientSimilarity", "ExJaccardSimilarity", "JaccardSimilarity", "KRCCSimilarity", "MSDSimilarity", "MSESimilarity", "PCCSimilarity" })
+	private String name;
+
+	@Param({ "2000" })
+	private int userSize;
+
+	@Param({ "1000" })
+	private int itemSize;
+
+	@Param({ "100000" })
+	private int interactionSize;
+
+	@Param({ "SERIAL", "PARALLEL" })
+	private MathCalculator mode;
+
+	private EnvironmentContext context;
+
+	private Similarity similarity;
+
+	private SparseMatrix scoreMatrix;
+
+	@Setup(Level.Trial)
+	public void prepare() throws Exception {
+		context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		similarity = (Similarity) Class.forName(Similarity.class.getPackage().getName() + "." + name).newInstance();
+		InteractionGenerator generator = new InteractionGenerator(userSize, itemSize, interactionSize, 1F, 0L);
+		scoreMatrix = generator.getScoreMatrix();
+	}
+
+	@Benchmark
+	public void makeSimilarityMatrix(Blackhole hole) throws Exception {
+		context.doTask(() -> {
+			hole.consume(similarity.makeSimilarityMatrix(scoreMatrix, true, 0F));
+		}).get();
+	}
+
+	@Benchmark
+	public void makeNeighborMatrix(Blackhole hole) throws Exception {
+		context.doTask(() -> {
+			hole.consume(similarity.makeNeighborMatrix(scoreMatrix, true, 0F, 50, mode));
+		}).get();
+	}
+
+}
@@ -49,6 +49,22 @@ public class ContinuousAttribute implements DataAttribute<Float> {
 		return feature;
 	}
 
+	/**
+	 * 制作属性值(不需要转换)
+	 * 
+	 * @param feature
+	 * @return
+	 */
+	public float makeValue(float feature) {
+		if (feature > maximum) {
+			maximum = feature;
+		}
+		if (feature < minimum) {
+			minimum = feature;
+		}
+		return feature;
+	}
+
 	@Override
 	public Object[] getDatas() {
 		return new Object[] { minimum, maximum };
@@ -42,6 +42,20 @@ public class ContinuousFeature implements DataFeature<Float> {
 		current[position] = attribute.makeValue(data);
 	}
 
+	/**
+	 * 关联数值
+	 * 
+	 * @param value
+	 */
+	public void associateValue(float value) {
+		int position = size++ % capacity;
+		if (position == 0) {
+			current = new float[capacity];
+			values.add(current);
+		}
+		current[position] = attribute.makeValue(value);
+	}
+
 	@Override
 	public ContinuousAttribute getAttribute() {
 		return attribute;
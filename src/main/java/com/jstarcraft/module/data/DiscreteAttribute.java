@@ -1,13 +1,19 @@
 package com.jstarcraft.module.data;
 
-import java.util.HashMap;
-import java.util.Map.Entry;
-
 import com.jstarcraft.core.utility.ConversionUtility;
+import com.jstarcraft.module.data.dictionary.DataDictionary;
+import com.jstarcraft.module.data.dictionary.IntegerDictionary;
+import com.jstarcraft.module.data.dictionary.LongDictionary;
+import com.jstarcraft.module.data.dictionary.ObjectDictionary;
+import com.jstarcraft.module.data.dictionary.StringDictionary;
 
 /**
  * 离散属性
  * 
+ * <pre>
+ * 按照属性类型选择字典(int/long/String使用原始类型特化的字典),支持多线程同时制作属性值.
+ * </pre>
+ * 
  * @author Birdy
  *
  */
@@ -21,11 +27,20 @@ public class DiscreteAttribute implements DataAttribute<Integer> {
 	private Class<?> type;
 
 	/** 外部键-内部索引映射 */
-	private HashMap<Object, Integer> indexes = new HashMap<>();
+	private DataDictionary dictionary;
 
 	DiscreteAttribute(String name, Class<?> type) {
 		this.name = name;
 		this.type = type;
+		if (type == int.class || type == Integer.class) {
+			this.dictionary = new IntegerDictionary();
+		} else if (type == long.class || type == Long.class) {
+			this.dictionary = new LongDictionary();
+		} else if (type == String.class) {
+			this.dictionary = new StringDictionary();
+		} else {
+			this.dictionary = new ObjectDictionary();
+		}
 	}
 
 	@Override
@@ -41,25 +56,25 @@ public class DiscreteAttribute implements DataAttribute<Integer> {
 	@Override
 	public Integer makeValue(Object data) {
 		Object object = ConversionUtility.convert(data, type);
-		Integer index = indexes.get(object);
-		if (index == null) {
-			index = indexes.size();
-			indexes.put(object, index);
-		}
-		return index;
+		return dictionary.encode(object);
 	}
 
 	@Override
 	public Object[] getDatas() {
-		Object[] keys = new Object[indexes.size()];
-		for (Entry<Object, Integer> term : indexes.entrySet()) {
-			keys[term.getValue()] = term.getKey();
-		}
-		return keys;
+		return dictionary.getDatas();
+	}
+
+	/**
+	 * 获取字典(用于按照原始类型制作属性值)
+	 * 
+	 * @return
+	 */
+	public DataDictionary getDictionary() {
+		return dictionary;
 	}
 
 	public int getSize() {
-		return indexes.size();
+		return dictionary.getSize();
 	}
 
 }
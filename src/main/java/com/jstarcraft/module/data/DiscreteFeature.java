@@ -42,6 +42,20 @@ public class DiscreteFeature implements DataFeature<Integer> {
 		current[position] = attribute.makeValue(data);
 	}
 
+	/**
+	 * 关联索引(索引必须由属性制作)
+	 * 
+	 * @param index
+	 */
+	public void associateIndex(int index) {
+		int position = size++ % capacity;
+		if (position == 0) {
+			current = new int[capacity];
+			values.add(current);
+		}
+		current[position] = index;
+	}
+
 	@Override
 	public DiscreteAttribute getAttribute() {
 		return attribute;
@@ -0,0 +1,164 @@
+package com.jstarcraft.module.data.accessor;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.jstarcraft.core.utility.KeyValue;
+import com.jstarcraft.module.data.ContinuousAttribute;
+import com.jstarcraft.module.data.DataAccessor;
+import com.jstarcraft.module.data.DiscreteAttribute;
+
+/**
+ * 列式访问器
+ * 
+ * <pre>
+ * 每个特征对应一个列缓冲(通常由{@link java.nio.MappedByteBuffer}映射),数据不需要加载到堆.
+ * 只使用绝对位置读取,可以被多个线程并发访问.
+ * </pre>
+ * 
+ * @author Birdy
+ *
+ */
+public class ColumnAccessor implements DataAccessor<ColumnInstance> {
+
+	/** 离散属性 */
+	private DiscreteAttribute[] discreteAttributes;
+
+	/** 连续属性 */
+	private ContinuousAttribute[] continuousAttributes;
+
+	/** 离散特征 */
+	private IntBuffer[] discreteFeatures;
+
+	/** 连续特征 */
+	private FloatBuffer[] continuousFeatures;
+
+	/** 离散维度 */
+	private Map<String, Integer> discreteDimensions;
+
+	/** 连续维度 */
+	private Map<String, Integer> continuousDimensions;
+
+	/** 大小 */
+	private int size;
+
+	public ColumnAccessor(int size, LinkedHashMap<String, KeyValue<DiscreteAttribute, IntBuffer>> discreteColumns, LinkedHashMap<String, KeyValue<ContinuousAttribute, FloatBuffer>> continuousColumns) {
+		this.discreteAttributes = new DiscreteAttribute[discreteColumns.size()];
+		this.continuousAttributes = new ContinuousAttribute[continuousColumns.size()];
+		this.discreteFeatures = new IntBuffer[discreteColumns.size()];
+		this.continuousFeatures = new FloatBuffer[continuousColumns.size()];
+		this.discreteDimensions = new LinkedHashMap<>();
+		this.continuousDimensions = new LinkedHashMap<>();
+		this.size = size;
+		int index = 0;
+		for (Entry<String, KeyValue<DiscreteAttribute, IntBuffer>> term : discreteColumns.entrySet()) {
+			IntBuffer column = term.getValue().getValue();
+			if (column.limit() != size) {
+				throw new IllegalArgumentException("特征大小不一致");
+			}
+			this.discreteAttributes[index] = term.getValue().getKey();
+			this.discreteFeatures[index] = column;
+			this.discreteDimensions.put(term.getKey(), index++);
+		}
+		index = 0;
+		for (Entry<String, KeyValue<ContinuousAttribute, FloatBuffer>> term : continuousColumns.entrySet()) {
+			FloatBuffer column = term.getValue().getValue();
+			if (column.limit() != size) {
+				throw new IllegalArgumentException("特征大小不一致");
+			}
+			this.continuousAttributes[index] = term.getValue().getKey();
+			this.continuousFeatures[index] = column;
+			this.continuousDimensions.put(term.getKey(), index++);
+		}
+	}
+
+	@Override
+	public DiscreteAttribute getDiscreteAttribute(int dimension) {
+		return discreteAttributes[dimension];
+	}
+
+	@Override
+	public ContinuousAttribute getContinuousAttribute(int dimension) {
+		return continuousAttributes[dimension];
+	}
+
+	@Override
+	public Integer getDiscreteDimension(String name) {
+		return discreteDimensions.get(name);
+	}
+
+	@Override
+	public Integer getContinuousDimension(String name) {
+		return continuousDimensions.get(name);
+	}
+
+	@Override
+	public int getDiscreteFeature(int dimension, int position) {
+		return discreteFeatures[dimension].get(position);
+	}
+
+	@Override
+	public float getContinuousFeature(int dimension, int position) {
+		return continuousFeatures[dimension].get(position);
+	}
+
+	@Override
+	public Collection<String> getDiscreteFields() {
+		return discreteDimensions.keySet();
+	}
+
+	@Override
+	public Collection<String> getContinuousFields() {
+		return continuousDimensions.keySet();
+	}
+
+	@Override
+	public int getDiscreteOrder() {
+		return discreteAttributes.length;
+	}
+
+	@Override
+	public int getContinuousOrder() {
+		return continuousAttributes.length;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public Iterator<ColumnInstance> iterator() {
+		return new ColumnInstanceIterator();
+	}
+
+	private class ColumnInstanceIterator implements Iterator<ColumnInstance> {
+
+		private int cursor = 0;
+
+		private ColumnInstance instance = new ColumnInstance(discreteFeatures, continuousFeatures);
+
+		@Override
+		public boolean hasNext() {
+			return cursor < size;
+		}
+
+		@Override
+		public ColumnInstance next() {
+			instance.update(cursor++);
+			return instance;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+	}
+
+}
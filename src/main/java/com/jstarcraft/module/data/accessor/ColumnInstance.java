@@ -0,0 +1,56 @@
+package com.jstarcraft.module.data.accessor;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * 列式实例
+ * 
+ * <pre>
+ * 与{@link DataInstance}相同,只是特征从列缓冲按照绝对位置读取.
+ * </pre>
+ * 
+ * @author Birdy
+ *
+ */
+public class ColumnInstance {
+
+	/** 游标 */
+	private int cursor;
+
+	/** 离散特征 */
+	private IntBuffer[] discreteFeatures;
+
+	/** 连续特征 */
+	private FloatBuffer[] continuousFeatures;
+
+	ColumnInstance(IntBuffer[] discreteFeatures, FloatBuffer[] continuousFeatures) {
+		this.discreteFeatures = discreteFeatures;
+		this.continuousFeatures = continuousFeatures;
+	}
+
+	void update(int cursor) {
+		this.cursor = cursor;
+	}
+
+	/**
+	 * 获取离散特征
+	 * 
+	 * @param dimension
+	 * @return
+	 */
+	public int getDiscreteFeature(int dimension) {
+		return discreteFeatures[dimension].get(cursor);
+	}
+
+	/**
+	 * 获取连续特征
+	 * 
+	 * @param dimension
+	 * @return
+	 */
+	public float getContinuousFeature(int dimension) {
+		return continuousFeatures[dimension].get(cursor);
+	}
+
+}
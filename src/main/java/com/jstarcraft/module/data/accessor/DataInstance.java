@@ -9,7 +9,7 @@ package com.jstarcraft.module.data.accessor;
 public class DataInstance {
 
 	/** 游标 */
-	private Integer cursor;
+	private int cursor;
 
 	/** 离散特征 */
 	private int[][] discreteFeatures;
@@ -1,8 +1,13 @@
 package com.jstarcraft.module.data.convertor;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -32,6 +37,87 @@ public class ArffConvertor extends CsvConvertor {
 		super(name, CSVFormat.DEFAULT.getDelimiter(), path, fields);
 	}
 
+	/**
+	 * 解析元数据
+	 * 
+	 * @param line
+	 * @param features
+	 * @param attributeIndex
+	 * @return 下一个属性索引,进入数据部分时返回-1
+	 */
+	private int parseMeta(String line, Map<Integer, DataFeature<?>> features, int attributeIndex) {
+		if (StringUtility.isBlank(line) || line.startsWith("%")) {
+			return attributeIndex;
+		}
+		String[] datas = line.trim().split("[ \t]");
+		switch (datas[0].toUpperCase()) {
+		case "@RELATION": {
+			break;
+		}
+		case "@ATTRIBUTE": {
+			DataAttribute<?> attribute = features.get(attributeIndex++).getAttribute();
+			String attributeType = datas[2];
+			if (attributeType.startsWith("{") && attributeType.endsWith("}")) {
+				String nominals = attributeType.substring(1, attributeType.length() - 1);
+				for (String nominal : nominals.split(",")) {
+					attribute.makeValue(nominal);
+				}
+			}
+			break;
+		}
+		case "@DATA": {
+			return -1;
+		}
+		}
+		return attributeIndex;
+	}
+
+	/**
+	 * 按照字节解析元数据
+	 * 
+	 * @param file
+	 * @param charset
+	 * @param features
+	 * @return 数据部分的起始位置(字节),没有数据部分时返回-1
+	 * @throws IOException
+	 */
+	private long parseMeta(File file, Charset charset, Map<Integer, DataFeature<?>> features) throws IOException {
+		long offset = 0L;
+		int attributeIndex = 0;
+		try (FileInputStream stream = new FileInputStream(file); BufferedInputStream buffer = new BufferedInputStream(stream)) {
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			while (true) {
+				line.reset();
+				int data = buffer.read();
+				if (data == -1) {
+					return -1L;
+				}
+				// 与BufferedReader.readLine一致支持\n,\r\n与\r
+				while (data != -1) {
+					offset++;
+					if (data == '\n') {
+						break;
+					}
+					if (data == '\r') {
+						buffer.mark(1);
+						if (buffer.read() == '\n') {
+							offset++;
+						} else {
+							buffer.reset();
+						}
+						break;
+					}
+					line.write(data);
+					data = buffer.read();
+				}
+				attributeIndex = parseMeta(new String(line.toByteArray(), charset), features, attributeIndex);
+				if (attributeIndex < 0) {
+					return offset;
+				}
+			}
+		}
+	}
+
 	@Override
 	public int convert(DataSpace space) {
 		try {
@@ -40,40 +126,28 @@ public class ArffConvertor extends CsvConvertor {
 			for (Entry<String, Integer> term : fields.entrySet()) {
 				features.put(term.getValue(), space.getFeature(term.getKey()));
 			}
+			// 与FileReader一致使用默认字符集
+			Charset charset = Charset.defaultCharset();
+			ChunkParser parser = ChunkParser.isSupported(delimiter, charset, features) ? new ChunkParser(delimiter, charset, features) : null;
 			for (File file : files) {
-				boolean dataMark = false;
+				if (parser != null) {
+					long offset = parseMeta(file, charset, features);
+					if (offset >= 0L) {
+						count += parser.parse(file, offset);
+					}
+					continue;
+				}
 				int attributeIndex = 0;
 				try (FileReader reader = new FileReader(file); BufferedReader buffer = new BufferedReader(reader)) {
 					while (true) {
-						if (dataMark) {
+						String line = buffer.readLine();
+						if (line == null) {
+							break;
+						}
+						attributeIndex = parseMeta(line, features, attributeIndex);
+						if (attributeIndex < 0) {
 							count += parseData(buffer, features);
 							break;
-						} else {
-							String line = buffer.readLine();
-							if (StringUtility.isBlank(line) || line.startsWith("%")) {
-								continue;
-							}
-							String[] datas = line.trim().split("[ \t]");
-							switch (datas[0].toUpperCase()) {
-							case "@RELATION": {
-								break;
-							}
-							case "@ATTRIBUTE": {
-								DataAttribute<?> attribute = features.get(attributeIndex++).getAttribute();
-								String attributeType = datas[2];
-								if (attributeType.startsWith("{") && attributeType.endsWith("}")) {
-									String nominals = attributeType.substring(1, attributeType.length() - 1);
-									for (String nominal : nominals.split(",")) {
-										attribute.makeValue(nominal);
-									}
-								}
-								break;
-							}
-							case "@DATA": {
-								dataMark = true;
-								break;
-							}
-							}
 						}
 					}
 				}
@@ -85,4 +159,4 @@ public class ArffConvertor extends CsvConvertor {
 		}
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,546 @@
+package com.jstarcraft.module.data.convertor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.jstarcraft.core.utility.ConversionUtility;
+import com.jstarcraft.module.data.ContinuousFeature;
+import com.jstarcraft.module.data.DataFeature;
+import com.jstarcraft.module.data.DiscreteAttribute;
+import com.jstarcraft.module.data.DiscreteFeature;
+import com.jstarcraft.module.data.dictionary.DataDictionary;
+import com.jstarcraft.module.data.dictionary.IntegerDictionary;
+import com.jstarcraft.module.data.dictionary.LongDictionary;
+import com.jstarcraft.module.data.dictionary.StringDictionary;
+import com.jstarcraft.module.environment.EnvironmentContext;
+
+/**
+ * 分块解析器
+ *
+ * <pre>
+ * 按照行边界将文件切分为固定大小的分块,每个分块映射为{@link ByteBuffer}后由多个线程并行解析.
+ * 直接在字节上扫描分隔符,整型与浮点型字段直接解析,字符串字段按照字节片段编码到局部字典,都不创建字符串.
+ * 每个分块为每个离散属性维护局部字典(按照首次出现的顺序),分块按照文件顺序合并到全局{@link DiscreteAttribute},
+ * 所以属性索引的分配顺序与串行解析完全一致.
+ * 语义与{@link CsvConvertor}一致:不支持引号,空行与字段数量少于特征数量的行被忽略.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+final class ChunkParser {
+
+	/** 分块大小 */
+	static final int CHUNK_SIZE = 1 << 23;
+
+	/** 查找行边界的窗口大小 */
+	private static final int WINDOW_SIZE = 1 << 16;
+
+	/** 每批并行解析的分块数量(限制内存) */
+	private static final int BATCH_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+	/** 可以精确表示的10的幂 */
+	private static final float[] POWERS = { 1E0F, 1E1F, 1E2F, 1E3F, 1E4F, 1E5F, 1E6F, 1E7F, 1E8F, 1E9F, 1E10F };
+
+	/** 尾数乘以10再加9之后不超过2的24次方 */
+	private static final int MAXIMUM_MANTISSA = ((1 << 24) - 9) / 10;
+
+	private static final int INTEGER = 0, LONG = 1, OBJECT = 2, FLOAT = 3;
+
+	private final byte delimiter;
+
+	private final Charset charset;
+
+	/** 分块大小 */
+	private final int chunkSize;
+
+	/** 特征数量(字段数量少于此数量的行被忽略) */
+	private final int minimumSize;
+
+	/** 需要解析的最大字段数量 */
+	private final int width;
+
+	/** 特征对应的字段 */
+	private final int[] columns;
+
+	/** 特征 */
+	private final DataFeature<?>[] features;
+
+	/** 特征类型 */
+	private final int[] types;
+
+	/** 特征对应的局部字典 */
+	private final int[] dictionaries;
+
+	/** 离散属性(去重) */
+	private final DiscreteAttribute[] attributes;
+
+	ChunkParser(char delimiter, Charset charset, Map<Integer, DataFeature<?>> features) {
+		this(delimiter, charset, features, CHUNK_SIZE);
+	}
+
+	ChunkParser(char delimiter, Charset charset, Map<Integer, DataFeature<?>> features, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.delimiter = (byte) delimiter;
+		this.charset = charset;
+		this.chunkSize = chunkSize;
+		this.minimumSize = features.size();
+		this.columns = new int[features.size()];
+		this.features = new DataFeature<?>[features.size()];
+		this.types = new int[features.size()];
+		this.dictionaries = new int[features.size()];
+		ArrayList<DiscreteAttribute> attributes = new ArrayList<>();
+		int width = 0;
+		int index = 0;
+		// 与串行解析的关联顺序保持一致
+		for (Entry<Integer, DataFeature<?>> term : features.entrySet()) {
+			DataFeature<?> feature = term.getValue();
+			columns[index] = term.getKey();
+			width = Math.max(width, term.getKey() + 1);
+			this.features[index] = feature;
+			if (feature instanceof DiscreteFeature) {
+				DiscreteAttribute attribute = DiscreteFeature.class.cast(feature).getAttribute();
+				Class<?> type = attribute.getType();
+				if (type == int.class || type == Integer.class) {
+					types[index] = INTEGER;
+				} else if (type == long.class || type == Long.class) {
+					types[index] = LONG;
+				} else {
+					types[index] = OBJECT;
+				}
+				int dictionary = attributes.indexOf(attribute);
+				if (dictionary < 0) {
+					dictionary = attributes.size();
+					attributes.add(attribute);
+				}
+				dictionaries[index] = dictionary;
+			} else {
+				types[index] = FLOAT;
+				dictionaries[index] = -1;
+			}
+			index++;
+		}
+		this.width = width;
+		this.attributes = attributes.toArray(new DiscreteAttribute[attributes.size()]);
+	}
+
+	/**
+	 * 是否支持分块解析
+	 *
+	 * <pre>
+	 * 分隔符必须是单字节,字符集必须兼容ASCII,特征必须是{@link DiscreteFeature}或者{@link ContinuousFeature}.
+	 * </pre>
+	 *
+	 * @param delimiter
+	 * @param charset
+	 * @param features
+	 * @return
+	 */
+	static boolean isSupported(char delimiter, Charset charset, Map<Integer, DataFeature<?>> features) {
+		if (delimiter >= 0x80 || delimiter == '\n' || delimiter == '\r') {
+			return false;
+		}
+		if (!(StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset) || StandardCharsets.ISO_8859_1.equals(charset))) {
+			return false;
+		}
+		for (DataFeature<?> feature : features.values()) {
+			if (!(feature instanceof DiscreteFeature || feature instanceof ContinuousFeature)) {
+				return false;
+			}
+		}
+		return !features.isEmpty();
+	}
+
+	/**
+	 * 解析文件
+	 *
+	 * @param file
+	 * @param offset
+	 *            数据起始位置(字节)
+	 * @return 实例数量
+	 * @throws IOException
+	 */
+	int parse(File file, long offset) throws IOException {
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+			long[] boundaries = split(channel, offset);
+			int numberOfChunks = boundaries.length - 1;
+			int count = 0;
+			for (int batch = 0; batch < numberOfChunks; batch += BATCH_SIZE) {
+				int from = batch, to = Math.min(batch + BATCH_SIZE, numberOfChunks);
+				Chunk[] chunks = new Chunk[to - from];
+				EnvironmentContext.CPU.doStructureByRange(from, to, 1, (beginChunk, endChunk) -> {
+					for (int index = beginChunk; index < endChunk; index++) {
+						try {
+							ByteBuffer buffer = channel.map(MapMode.READ_ONLY, boundaries[index], boundaries[index + 1] - boundaries[index]);
+							chunks[index - from] = parseChunk(buffer);
+						} catch (IOException exception) {
+							throw new UncheckedIOException(exception);
+						}
+					}
+				});
+				for (Chunk chunk : chunks) {
+					count += mergeChunk(chunk);
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * 按照行边界切分分块
+	 *
+	 * @param channel
+	 * @param offset
+	 * @return
+	 * @throws IOException
+	 */
+	private long[] split(FileChannel channel, long offset) throws IOException {
+		long size = channel.size();
+		ArrayList<Long> boundaries = new ArrayList<>();
+		boundaries.add(offset);
+		ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE);
+		long boundary = offset;
+		while (boundary < size) {
+			long position = boundary + chunkSize;
+			if (position >= size) {
+				boundary = size;
+			} else {
+				// 分块在换行符之后结束
+				boundary = size;
+				while (position < size) {
+					window.clear();
+					int length = channel.read(window, position);
+					int index = 0;
+					for (; index < length; index++) {
+						if (window.get(index) == '\n') {
+							break;
+						}
+					}
+					if (index < length) {
+						boundary = position + index + 1;
+						break;
+					}
+					position += Math.max(length, 1);
+				}
+			}
+			boundaries.add(boundary);
+		}
+		long[] values = new long[boundaries.size()];
+		for (int index = 0; index < values.length; index++) {
+			values[index] = boundaries.get(index);
+		}
+		return values;
+	}
+
+	/**
+	 * 解析分块
+	 *
+	 * @param buffer
+	 * @return
+	 */
+	private Chunk parseChunk(ByteBuffer buffer) {
+		Chunk chunk = new Chunk(features.length);
+		int[] starts = new int[width];
+		int[] ends = new int[width];
+		byte[] bytes = new byte[64];
+		int limit = buffer.limit();
+		int position = 0;
+		while (position < limit) {
+			int numberOfFields = 0;
+			int begin = position;
+			int cursor = position;
+			for (; cursor < limit; cursor++) {
+				byte data = buffer.get(cursor);
+				if (data == '\n' || data == '\r') {
+					break;
+				}
+				if (data == delimiter) {
+					if (numberOfFields < width) {
+						starts[numberOfFields] = begin;
+						ends[numberOfFields] = cursor;
+					}
+					numberOfFields++;
+					begin = cursor + 1;
+				}
+			}
+			if (numberOfFields < width) {
+				starts[numberOfFields] = begin;
+				ends[numberOfFields] = cursor;
+			}
+			numberOfFields++;
+			boolean empty = cursor == position;
+			// 支持\n,\r\n与\r
+			if (cursor < limit) {
+				if (buffer.get(cursor) == '\r' && cursor + 1 < limit && buffer.get(cursor + 1) == '\n') {
+					cursor++;
+				}
+				cursor++;
+			}
+			position = cursor;
+			if (empty) {
+				// 与串行解析一致忽略空行
+				continue;
+			}
+			if (numberOfFields < minimumSize) {
+				// TODO 考虑改为异常或者日志.
+				continue;
+			}
+			for (int index = 0; index < features.length; index++) {
+				int column = columns[index];
+				if (column >= numberOfFields) {
+					throw new IllegalStateException("字段缺失:" + column);
+				}
+				int from = starts[column], to = ends[column];
+				if (types[index] == FLOAT) {
+					chunk.associateValue(index, parseFloat(buffer, from, to, bytes));
+				} else {
+					int dictionary = dictionaries[index];
+					int key;
+					switch (types[index]) {
+					case INTEGER: {
+						long value = parseLong(buffer, from, to);
+						if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+							// 由属性类型负责转换
+							value = ConversionUtility.<Number>convert(decode(buffer, from, to, bytes), attributes[dictionary].getType()).longValue();
+						}
+						key = LongDictionary.class.cast(chunk.dictionaries[dictionary]).encode(value);
+						break;
+					}
+					case LONG: {
+						long value = parseLong(buffer, from, to);
+						if (value == Long.MIN_VALUE) {
+							// 由属性类型负责转换
+							value = ConversionUtility.<Number>convert(decode(buffer, from, to, bytes), attributes[dictionary].getType()).longValue();
+						}
+						key = LongDictionary.class.cast(chunk.dictionaries[dictionary]).encode(value);
+						break;
+					}
+					default: {
+						key = StringDictionary.class.cast(chunk.dictionaries[dictionary]).encode(buffer, from, to);
+						break;
+					}
+					}
+					chunk.associateIndex(index, key);
+				}
+			}
+			chunk.size++;
+		}
+		return chunk;
+	}
+
+	/**
+	 * 按照文件顺序合并分块
+	 *
+	 * @param chunk
+	 * @return
+	 */
+	private int mergeChunk(Chunk chunk) {
+		int[][] mappings = new int[attributes.length][];
+		for (int dictionary = 0; dictionary < attributes.length; dictionary++) {
+			DiscreteAttribute attribute = attributes[dictionary];
+			DataDictionary global = attribute.getDictionary();
+			DataDictionary local = chunk.dictionaries[dictionary];
+			int[] mapping = new int[local.getSize()];
+			// 按照局部索引(首次出现的顺序)编码,保证全局索引与串行解析一致
+			if (local instanceof LongDictionary) {
+				LongDictionary keys = LongDictionary.class.cast(local);
+				for (int index = 0; index < mapping.length; index++) {
+					long key = keys.getKey(index);
+					if (global instanceof IntegerDictionary) {
+						mapping[index] = IntegerDictionary.class.cast(global).encode((int) key);
+					} else {
+						mapping[index] = LongDictionary.class.cast(global).encode(key);
+					}
+				}
+			} else {
+				StringDictionary keys = StringDictionary.class.cast(local);
+				for (int index = 0; index < mapping.length; index++) {
+					if (global instanceof StringDictionary) {
+						mapping[index] = StringDictionary.class.cast(global).encode(keys, index);
+					} else {
+						mapping[index] = attribute.makeValue(keys.getKey(index));
+					}
+				}
+			}
+			mappings[dictionary] = mapping;
+		}
+		for (int index = 0; index < features.length; index++) {
+			if (types[index] == FLOAT) {
+				ContinuousFeature feature = ContinuousFeature.class.cast(features[index]);
+				float[] values = chunk.values[index];
+				for (int position = 0; position < chunk.size; position++) {
+					feature.associateValue(values[position]);
+				}
+			} else {
+				DiscreteFeature feature = DiscreteFeature.class.cast(features[index]);
+				int[] mapping = mappings[dictionaries[index]];
+				int[] indexes = chunk.indexes[index];
+				for (int position = 0; position < chunk.size; position++) {
+					feature.associateIndex(mapping[indexes[position]]);
+				}
+			}
+		}
+		return chunk.size;
+	}
+
+	private String decode(ByteBuffer buffer, int from, int to, byte[] bytes) {
+		int length = to - from;
+		if (bytes.length < length) {
+			bytes = new byte[length];
+		}
+		for (int index = 0; index < length; index++) {
+			bytes[index] = buffer.get(from + index);
+		}
+		return new String(bytes, 0, length, charset);
+	}
+
+	/**
+	 * 解析整数
+	 *
+	 * @return 无法快速解析时返回{@link Long#MIN_VALUE}
+	 */
+	private static long parseLong(ByteBuffer buffer, int from, int to) {
+		if (from == to) {
+			return Long.MIN_VALUE;
+		}
+		boolean negative = false;
+		byte data = buffer.get(from);
+		if (data == '-' || data == '+') {
+			negative = data == '-';
+			if (++from == to) {
+				return Long.MIN_VALUE;
+			}
+		}
+		// 最多18位,保证不会溢出
+		if (to - from > 18) {
+			return Long.MIN_VALUE;
+		}
+		long value = 0L;
+		for (int index = from; index < to; index++) {
+			data = buffer.get(index);
+			if (data < '0' || data > '9') {
+				return Long.MIN_VALUE;
+			}
+			value = value * 10L + (data - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * 解析浮点数
+	 *
+	 * <pre>
+	 * 尾数小于2的24次方并且小数位数不超过10时,尾数与10的幂都可以用float精确表示,一次除法的结果与{@link Float#parseFloat}一致.
+	 * 其它情况由{@link ConversionUtility}转换.
+	 * </pre>
+	 */
+	private float parseFloat(ByteBuffer buffer, int from, int to, byte[] bytes) {
+		int cursor = from;
+		boolean negative = false;
+		if (cursor < to) {
+			byte data = buffer.get(cursor);
+			if (data == '-' || data == '+') {
+				negative = data == '-';
+				cursor++;
+			}
+		}
+		int mantissa = 0;
+		int digits = 0;
+		int scale = -1;
+		boolean fast = cursor < to;
+		for (; fast && cursor < to; cursor++) {
+			byte data = buffer.get(cursor);
+			if (data == '.' && scale < 0) {
+				scale = 0;
+				continue;
+			}
+			// 保证尾数不超过2的24次方
+			if (data < '0' || data > '9' || mantissa > MAXIMUM_MANTISSA) {
+				fast = false;
+				break;
+			}
+			mantissa = mantissa * 10 + (data - '0');
+			digits++;
+			if (scale >= 0) {
+				scale++;
+			}
+		}
+		if (fast && digits > 0 && scale <= 10) {
+			float value = scale > 0 ? mantissa / POWERS[scale] : mantissa;
+			return negative ? -value : value;
+		}
+		return ConversionUtility.convert(decode(buffer, from, to, bytes), Float.class);
+	}
+
+	/**
+	 * 分块
+	 */
+	private class Chunk {
+
+		/** 实例数量 */
+		private int size;
+
+		/** 离散特征的局部索引 */
+		private int[][] indexes;
+
+		/** 连续特征的值 */
+		private float[][] values;
+
+		/** 局部字典(局部索引按照首次出现的顺序分配) */
+		private DataDictionary[] dictionaries;
+
+		private Chunk(int numberOfFeatures) {
+			this.indexes = new int[numberOfFeatures][];
+			this.values = new float[numberOfFeatures][];
+			this.dictionaries = new DataDictionary[attributes.length];
+			for (int index = 0; index < attributes.length; index++) {
+				DataDictionary dictionary = attributes[index].getDictionary();
+				if (dictionary instanceof IntegerDictionary || dictionary instanceof LongDictionary) {
+					dictionaries[index] = new LongDictionary();
+				} else {
+					// 按照文件字符集保存原始字节
+					dictionaries[index] = new StringDictionary(charset);
+				}
+			}
+		}
+
+		private void associateIndex(int feature, int index) {
+			int[] data = indexes[feature];
+			if (data == null) {
+				data = new int[1024];
+				indexes[feature] = data;
+			} else if (data.length == size) {
+				data = Arrays.copyOf(data, size << 1);
+				indexes[feature] = data;
+			}
+			data[size] = index;
+		}
+
+		private void associateValue(int feature, float value) {
+			float[] data = values[feature];
+			if (data == null) {
+				data = new float[1024];
+				values[feature] = data;
+			} else if (data.length == size) {
+				data = Arrays.copyOf(data, size << 1);
+				values[feature] = data;
+			}
+			data[size] = value;
+		}
+
+	}
+
+}
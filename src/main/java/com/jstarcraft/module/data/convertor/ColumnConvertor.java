@@ -0,0 +1,289 @@
+package com.jstarcraft.module.data.convertor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.jstarcraft.core.utility.KeyValue;
+import com.jstarcraft.module.data.ContinuousAttribute;
+import com.jstarcraft.module.data.ContinuousFeature;
+import com.jstarcraft.module.data.DataFeature;
+import com.jstarcraft.module.data.DataSpace;
+import com.jstarcraft.module.data.DiscreteAttribute;
+import com.jstarcraft.module.data.DiscreteFeature;
+import com.jstarcraft.module.data.accessor.ColumnAccessor;
+import com.jstarcraft.module.recommendation.exception.RecommendationException;
+
+/**
+ * 列式转换器
+ *
+ * <pre>
+ * 二进制列式格式,由{@link #store(DataSpace)}一次性写入,之后通过{@link MappedByteBuffer}读取,不再解析文本.
+ * 每个特征一个列文件(列名称.column),每个离散属性一个字典文件(属性名称.dictionary).
+ * 列文件:魔数,类型,大小,最小值,最大值,保留(共24字节),之后为大小个int(离散索引)或者float(连续值).
+ * 字典文件:魔数,大小,之后为按照索引顺序的外部键(字符串).
+ * 字段映射:特征名称-列名称.
+ * 单个列文件受{@link MappedByteBuffer}限制,最多约5亿个实例.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class ColumnConvertor extends AbstractConvertor<String> {
+
+	/** 魔数 */
+	private static final int MAGIC = 0x4A53434C;
+
+	/** 离散列 */
+	private static final int DISCRETE = 0;
+
+	/** 连续列 */
+	private static final int CONTINUOUS = 1;
+
+	/** 列头大小 */
+	private static final int HEADER_SIZE = 24;
+
+	private static final String COLUMN_SUFFIX = ".column";
+
+	private static final String DICTIONARY_SUFFIX = ".dictionary";
+
+	/** 目录 */
+	protected File directory;
+
+	public ColumnConvertor(String name, String path, Map<String, String> fields) {
+		super(name, fields);
+		this.directory = new File(path);
+	}
+
+	private File getColumnFile(String column) {
+		return new File(directory, column + COLUMN_SUFFIX);
+	}
+
+	private File getDictionaryFile(DiscreteAttribute attribute) {
+		return new File(directory, attribute.getName() + DICTIONARY_SUFFIX);
+	}
+
+	/**
+	 * 映射列文件(跳过列头)
+	 *
+	 * @param column
+	 * @param type
+	 * @param header
+	 *            输出列头
+	 * @return
+	 * @throws IOException
+	 */
+	private ByteBuffer mapColumn(String column, int type, int[] header) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(getColumnFile(column), "r"); FileChannel channel = file.getChannel()) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			for (int index = 0; index < header.length; index++) {
+				header[index] = buffer.getInt();
+			}
+			if (header[0] != MAGIC || header[1] != type) {
+				throw new IllegalStateException("列格式错误:" + column);
+			}
+			if (channel.size() != HEADER_SIZE + header[2] * 4L) {
+				throw new IllegalStateException("列大小错误:" + column);
+			}
+			buffer.position(HEADER_SIZE);
+			return buffer.slice();
+		}
+	}
+
+	/**
+	 * 加载字典到离散属性
+	 *
+	 * <pre>
+	 * 按照索引顺序制作属性值,属性已经存在的键必须与字典索引一致.
+	 * </pre>
+	 *
+	 * @param attribute
+	 * @throws IOException
+	 */
+	private void loadDictionary(DiscreteAttribute attribute) throws IOException {
+		try (FileInputStream stream = new FileInputStream(getDictionaryFile(attribute)); DataInputStream input = new DataInputStream(new BufferedInputStream(stream))) {
+			if (input.readInt() != MAGIC) {
+				throw new IllegalStateException("字典格式错误:" + attribute.getName());
+			}
+			int size = input.readInt();
+			for (int index = 0; index < size; index++) {
+				if (attribute.makeValue(input.readUTF()) != index) {
+					throw new IllegalStateException("字典冲突:" + attribute.getName());
+				}
+			}
+		}
+	}
+
+	private void storeDictionary(DiscreteAttribute attribute) throws IOException {
+		Object[] datas = attribute.getDatas();
+		try (FileOutputStream stream = new FileOutputStream(getDictionaryFile(attribute)); DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+			output.writeInt(MAGIC);
+			output.writeInt(datas.length);
+			for (Object data : datas) {
+				output.writeUTF(String.valueOf(data));
+			}
+		}
+	}
+
+	/**
+	 * 将数据空间的特征写入列文件
+	 *
+	 * @param space
+	 * @return 实例数量
+	 */
+	public int store(DataSpace space) {
+		try {
+			directory.mkdirs();
+			int count = -1;
+			Map<String, DiscreteAttribute> attributes = new HashMap<>();
+			for (Entry<String, String> term : fields.entrySet()) {
+				DataFeature<?> feature = space.getFeature(term.getKey());
+				if (count < 0) {
+					count = feature.getSize();
+				} else if (count != feature.getSize()) {
+					throw new IllegalArgumentException("特征大小不一致");
+				}
+				try (FileOutputStream stream = new FileOutputStream(getColumnFile(term.getValue())); DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+					if (feature instanceof DiscreteFeature) {
+						DiscreteAttribute attribute = DiscreteFeature.class.cast(feature).getAttribute();
+						attributes.put(attribute.getName(), attribute);
+						output.writeInt(MAGIC);
+						output.writeInt(DISCRETE);
+						output.writeInt(feature.getSize());
+						output.writeInt(0);
+						output.writeInt(0);
+						output.writeInt(0);
+						for (int value : DiscreteFeature.class.cast(feature)) {
+							output.writeInt(value);
+						}
+					} else {
+						ContinuousAttribute attribute = ContinuousFeature.class.cast(feature).getAttribute();
+						Object[] datas = attribute.getDatas();
+						output.writeInt(MAGIC);
+						output.writeInt(CONTINUOUS);
+						output.writeInt(feature.getSize());
+						output.writeFloat((Float) datas[0]);
+						output.writeFloat((Float) datas[1]);
+						output.writeInt(0);
+						for (float value : ContinuousFeature.class.cast(feature)) {
+							output.writeFloat(value);
+						}
+					}
+				}
+			}
+			for (DiscreteAttribute attribute : attributes.values()) {
+				storeDictionary(attribute);
+			}
+			return Math.max(count, 0);
+		} catch (Exception exception) {
+			// TODO 处理日志.
+			throw new RecommendationException(exception);
+		}
+	}
+
+	/**
+	 * 将列文件加载到数据空间的特征
+	 */
+	@Override
+	public int convert(DataSpace space) {
+		try {
+			int count = -1;
+			Map<String, DiscreteAttribute> attributes = new HashMap<>();
+			int[] header = new int[HEADER_SIZE / 4];
+			for (Entry<String, String> term : fields.entrySet()) {
+				DataFeature<?> feature = space.getFeature(term.getKey());
+				if (feature instanceof DiscreteFeature) {
+					DiscreteFeature discreteFeature = DiscreteFeature.class.cast(feature);
+					DiscreteAttribute attribute = discreteFeature.getAttribute();
+					if (!attributes.containsKey(attribute.getName())) {
+						loadDictionary(attribute);
+						attributes.put(attribute.getName(), attribute);
+					}
+					// 字典已经加载,列中的索引可以直接关联
+					IntBuffer column = mapColumn(term.getValue(), DISCRETE, header).asIntBuffer();
+					for (int index = 0, size = column.limit(); index < size; index++) {
+						discreteFeature.associateIndex(column.get(index));
+					}
+				} else {
+					ContinuousFeature continuousFeature = ContinuousFeature.class.cast(feature);
+					FloatBuffer column = mapColumn(term.getValue(), CONTINUOUS, header).asFloatBuffer();
+					for (int index = 0, size = column.limit(); index < size; index++) {
+						continuousFeature.associateValue(column.get(index));
+					}
+				}
+				if (count < 0) {
+					count = header[2];
+				} else if (count != header[2]) {
+					throw new IllegalStateException("特征大小不一致");
+				}
+			}
+			return Math.max(count, 0);
+		} catch (Exception exception) {
+			// TODO 处理日志.
+			throw new RecommendationException(exception);
+		}
+	}
+
+	/**
+	 * 将列文件映射为访问器(数据保留在磁盘,由操作系统按需换页)
+	 *
+	 * @param space
+	 * @return
+	 */
+	public ColumnAccessor map(DataSpace space) {
+		try {
+			int count = -1;
+			Map<String, DiscreteAttribute> attributes = new HashMap<>();
+			LinkedHashMap<String, KeyValue<DiscreteAttribute, IntBuffer>> discreteColumns = new LinkedHashMap<>();
+			LinkedHashMap<String, KeyValue<ContinuousAttribute, FloatBuffer>> continuousColumns = new LinkedHashMap<>();
+			int[] header = new int[HEADER_SIZE / 4];
+			for (Entry<String, String> term : fields.entrySet()) {
+				DataFeature<?> feature = space.getFeature(term.getKey());
+				if (feature instanceof DiscreteFeature) {
+					DiscreteAttribute attribute = DiscreteFeature.class.cast(feature).getAttribute();
+					if (!attributes.containsKey(attribute.getName())) {
+						loadDictionary(attribute);
+						attributes.put(attribute.getName(), attribute);
+					}
+					IntBuffer column = mapColumn(term.getValue(), DISCRETE, header).asIntBuffer();
+					discreteColumns.put(feature.getName(), new KeyValue<>(attribute, column));
+				} else {
+					ContinuousAttribute attribute = ContinuousFeature.class.cast(feature).getAttribute();
+					FloatBuffer column = mapColumn(term.getValue(), CONTINUOUS, header).asFloatBuffer();
+					if (header[2] > 0) {
+						// 恢复属性的取值范围
+						attribute.makeValue(Float.intBitsToFloat(header[3]));
+						attribute.makeValue(Float.intBitsToFloat(header[4]));
+					}
+					continuousColumns.put(feature.getName(), new KeyValue<>(attribute, column));
+				}
+				if (count < 0) {
+					count = header[2];
+				} else if (count != header[2]) {
+					throw new IllegalStateException("特征大小不一致");
+				}
+			}
+			return new ColumnAccessor(Math.max(count, 0), discreteColumns, continuousColumns);
+		} catch (Exception exception) {
+			// TODO 处理日志.
+			throw new RecommendationException(exception);
+		}
+	}
+
+}
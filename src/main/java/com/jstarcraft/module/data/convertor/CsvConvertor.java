@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -20,6 +21,10 @@ import com.jstarcraft.module.recommendation.exception.RecommendationException;
 /**
  * Comma-Separated Values转换器
  * 
+ * <pre>
+ * 分隔符为单字节并且默认字符集兼容ASCII时,由{@link ChunkParser}分块并行解析.
+ * </pre>
+ * 
  * @author Birdy
  *
  */
@@ -39,6 +44,10 @@ public class CsvConvertor extends FileConvertor<Integer> {
 			Iterator<CSVRecord> iterator = parser.iterator();
 			while (iterator.hasNext()) {
 				CSVRecord values = iterator.next();
+				if (values.size() == 1 && values.get(0).isEmpty()) {
+					// 忽略空行
+					continue;
+				}
 				if (values.size() < features.size()) {
 					// TODO 考虑改为异常或者日志.
 					continue;
@@ -63,7 +72,14 @@ public class CsvConvertor extends FileConvertor<Integer> {
 			for (Entry<String, Integer> term : fields.entrySet()) {
 				features.put(term.getValue(), space.getFeature(term.getKey()));
 			}
+			// 与FileReader一致使用默认字符集
+			Charset charset = Charset.defaultCharset();
+			ChunkParser parser = ChunkParser.isSupported(delimiter, charset, features) ? new ChunkParser(delimiter, charset, features) : null;
 			for (File file : files) {
+				if (parser != null) {
+					count += parser.parse(file, 0L);
+					continue;
+				}
 				try (FileReader reader = new FileReader(file); BufferedReader buffer = new BufferedReader(reader)) {
 					count += parseData(buffer, features);
 				}
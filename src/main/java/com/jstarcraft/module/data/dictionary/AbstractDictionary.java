@@ -0,0 +1,101 @@
+package com.jstarcraft.module.data.dictionary;
+
+/**
+ * 抽象字典
+ *
+ * <pre>
+ * 键空间按照哈希值的高位切分为多个分段,每个分段是一个独立的开放寻址表,由分段自身的锁保护(锁分段).
+ * 只有分配新索引时才需要获取字典的锁,命中已有键时不同分段之间互不阻塞.
+ * 反向映射(索引-键)保存在连续数组,{@link #getDatas()}的结果按照大小缓存.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public abstract class AbstractDictionary implements DataDictionary {
+
+	/** 分段位数 */
+	protected static final int SEGMENT_BITS = 4;
+
+	/** 分段数量 */
+	protected static final int NUMBER_OF_SEGMENTS = 1 << SEGMENT_BITS;
+
+	/** 分段偏移(使用哈希值的高位选择分段) */
+	protected static final int SEGMENT_SHIFT = Integer.SIZE - SEGMENT_BITS;
+
+	/** 分段初始容量(必须为2的幂) */
+	protected static final int SEGMENT_CAPACITY = 16;
+
+	/** 反向映射初始容量 */
+	protected static final int INITIAL_CAPACITY = 64;
+
+	/** 键的数量(反向映射写入之后才更新) */
+	protected volatile int size;
+
+	/** 缓存的键数组 */
+	private volatile Object[] datas = new Object[0];
+
+	/**
+	 * 分段是否需要扩容(负载因子0.75)
+	 *
+	 * @param size
+	 * @param capacity
+	 * @return
+	 */
+	protected static boolean isFull(int size, int capacity) {
+		return size > capacity - (capacity >>> 2);
+	}
+
+	/**
+	 * 混合哈希值(MurmurHash3的fmix32)
+	 *
+	 * @param hash
+	 * @return
+	 */
+	protected static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		hash ^= hash >>> 16;
+		return hash;
+	}
+
+	/**
+	 * 混合哈希值(MurmurHash3的fmix64)
+	 *
+	 * @param hash
+	 * @return
+	 */
+	protected static int mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		hash ^= hash >>> 33;
+		return (int) hash;
+	}
+
+	@Override
+	public Object[] getDatas() {
+		Object[] datas = this.datas;
+		int size = this.size;
+		if (datas.length != size) {
+			// 索引只增不减,只需要补充新增的键
+			Object[] copy = new Object[size];
+			System.arraycopy(datas, 0, copy, 0, datas.length);
+			for (int index = datas.length; index < size; index++) {
+				copy[index] = getData(index);
+			}
+			datas = copy;
+			this.datas = copy;
+		}
+		return datas;
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.jstarcraft.module.data.dictionary;
+
+/**
+ * 数据字典
+ *
+ * <pre>
+ * 提供外部键(outer key)与内部索引(inner index)的双向映射,索引按照键首次编码的顺序从0开始连续分配.
+ * 所有实现都支持多线程同时编码.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public interface DataDictionary {
+
+	/**
+	 * 编码(键不存在时分配新索引)
+	 *
+	 * @param key
+	 *            已经转换为字典类型的键
+	 * @return 索引
+	 */
+	int encode(Object key);
+
+	/**
+	 * 获取索引对应的键
+	 *
+	 * @param index
+	 * @return
+	 */
+	Object getData(int index);
+
+	/**
+	 * 获取所有键(按照索引顺序)
+	 *
+	 * <pre>
+	 * 返回的数组会被缓存并共享,调用者不能修改.
+	 * </pre>
+	 *
+	 * @return
+	 */
+	Object[] getDatas();
+
+	/**
+	 * 获取键的数量
+	 *
+	 * @return
+	 */
+	int getSize();
+
+}
@@ -0,0 +1,155 @@
+package com.jstarcraft.module.data.dictionary;
+
+import java.util.Arrays;
+
+/**
+ * 整数字典
+ *
+ * <pre>
+ * int-int开放寻址(线性探测),键与索引保存在原始类型数组,不装箱.
+ * 每个键约占用16字节(分段表的键与索引,加上反向映射).
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class IntegerDictionary extends AbstractDictionary {
+
+	/** 分段 */
+	private final Segment[] segments;
+
+	/** 索引-键 */
+	private volatile int[] keys;
+
+	public IntegerDictionary() {
+		this.segments = new Segment[NUMBER_OF_SEGMENTS];
+		for (int index = 0; index < NUMBER_OF_SEGMENTS; index++) {
+			this.segments[index] = new Segment();
+		}
+		this.keys = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * 编码
+	 *
+	 * @param key
+	 * @return 索引
+	 */
+	public int encode(int key) {
+		int hash = mix(key);
+		Segment segment = segments[hash >>> SEGMENT_SHIFT];
+		synchronized (segment) {
+			int mask = segment.keys.length - 1;
+			int slot = hash & mask;
+			int index;
+			while ((index = segment.indexes[slot]) != 0) {
+				if (segment.keys[slot] == key) {
+					return index - 1;
+				}
+				slot = (slot + 1) & mask;
+			}
+			index = append(key);
+			// 0表示空槽,所以保存索引+1
+			segment.keys[slot] = key;
+			segment.indexes[slot] = index + 1;
+			if (isFull(++segment.size, segment.keys.length)) {
+				segment.expand();
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * 获取键对应的索引
+	 *
+	 * @param key
+	 * @return 不存在时返回-1
+	 */
+	public int getIndex(int key) {
+		int hash = mix(key);
+		Segment segment = segments[hash >>> SEGMENT_SHIFT];
+		synchronized (segment) {
+			int mask = segment.keys.length - 1;
+			int slot = hash & mask;
+			int index;
+			while ((index = segment.indexes[slot]) != 0) {
+				if (segment.keys[slot] == key) {
+					return index - 1;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * 获取索引对应的键
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getKey(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return keys[index];
+	}
+
+	private synchronized int append(int key) {
+		int index = size;
+		int[] keys = this.keys;
+		if (index == keys.length) {
+			keys = Arrays.copyOf(keys, index << 1);
+		}
+		keys[index] = key;
+		this.keys = keys;
+		size = index + 1;
+		return index;
+	}
+
+	@Override
+	public int encode(Object key) {
+		return encode(((Number) key).intValue());
+	}
+
+	@Override
+	public Object getData(int index) {
+		return getKey(index);
+	}
+
+	/**
+	 * 分段
+	 */
+	private static class Segment {
+
+		private int[] keys = new int[SEGMENT_CAPACITY];
+
+		/** 索引+1(0表示空槽) */
+		private int[] indexes = new int[SEGMENT_CAPACITY];
+
+		private int size;
+
+		private void expand() {
+			int[] oldKeys = keys;
+			int[] oldIndexes = indexes;
+			int capacity = oldKeys.length << 1;
+			int mask = capacity - 1;
+			keys = new int[capacity];
+			indexes = new int[capacity];
+			for (int position = 0; position < oldKeys.length; position++) {
+				int index = oldIndexes[position];
+				if (index == 0) {
+					continue;
+				}
+				int slot = mix(oldKeys[position]) & mask;
+				while (indexes[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[position];
+				indexes[slot] = index;
+			}
+		}
+
+	}
+
+}
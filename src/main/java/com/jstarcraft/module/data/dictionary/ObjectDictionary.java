@@ -0,0 +1,66 @@
+package com.jstarcraft.module.data.dictionary;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 对象字典
+ *
+ * <pre>
+ * 用于没有原始类型特化的键类型,每个分段是一个{@link HashMap}.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class ObjectDictionary extends AbstractDictionary {
+
+	/** 分段 */
+	private final HashMap<Object, Integer>[] segments;
+
+	/** 索引-键 */
+	private volatile Object[] keys;
+
+	@SuppressWarnings("unchecked")
+	public ObjectDictionary() {
+		this.segments = new HashMap[NUMBER_OF_SEGMENTS];
+		for (int index = 0; index < NUMBER_OF_SEGMENTS; index++) {
+			this.segments[index] = new HashMap<>();
+		}
+		this.keys = new Object[INITIAL_CAPACITY];
+	}
+
+	@Override
+	public int encode(Object key) {
+		HashMap<Object, Integer> segment = segments[mix(key.hashCode()) >>> SEGMENT_SHIFT];
+		synchronized (segment) {
+			Integer index = segment.get(key);
+			if (index == null) {
+				index = append(key);
+				segment.put(key, index);
+			}
+			return index;
+		}
+	}
+
+	private synchronized int append(Object key) {
+		int index = size;
+		Object[] keys = this.keys;
+		if (index == keys.length) {
+			keys = Arrays.copyOf(keys, index << 1);
+		}
+		keys[index] = key;
+		this.keys = keys;
+		size = index + 1;
+		return index;
+	}
+
+	@Override
+	public Object getData(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return keys[index];
+	}
+
+}
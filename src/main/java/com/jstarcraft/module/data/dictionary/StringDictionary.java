@@ -0,0 +1,234 @@
+package com.jstarcraft.module.data.dictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 字符串字典
+ *
+ * <pre>
+ * 以编码之后的字节片段作为键,所有键的字节连续保存在字节池,分段表只保存哈希值与索引.
+ * 按照字节片段编码时(例如直接来自映射文件的{@link ByteBuffer})只需要比较字节,不会创建{@link String}.
+ * 每个键约占用16字节加上键自身的字节.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class StringDictionary extends AbstractDictionary {
+
+	/** 字符集 */
+	private final Charset charset;
+
+	/** 分段 */
+	private final Segment[] segments;
+
+	/** 字节池 */
+	private volatile byte[] bytes;
+
+	/** 索引-字节池偏移(键的字节为[offsets[index], offsets[index + 1])) */
+	private volatile int[] offsets;
+
+	public StringDictionary() {
+		this(StandardCharsets.UTF_8);
+	}
+
+	public StringDictionary(Charset charset) {
+		this.charset = charset;
+		this.segments = new Segment[NUMBER_OF_SEGMENTS];
+		for (int index = 0; index < NUMBER_OF_SEGMENTS; index++) {
+			this.segments[index] = new Segment();
+		}
+		this.bytes = new byte[INITIAL_CAPACITY * 8];
+		this.offsets = new int[INITIAL_CAPACITY + 1];
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * 编码
+	 *
+	 * @param key
+	 * @return 索引
+	 */
+	public int encode(String key) {
+		byte[] data = key.getBytes(charset);
+		return encode(ByteBuffer.wrap(data), 0, data.length);
+	}
+
+	/**
+	 * 编码字节片段(字节必须使用字典的字符集)
+	 *
+	 * @param data
+	 * @param from
+	 * @param to
+	 * @return 索引
+	 */
+	public int encode(byte[] data, int from, int to) {
+		return encode(ByteBuffer.wrap(data), from, to);
+	}
+
+	/**
+	 * 编码字节片段(字节必须使用字典的字符集,只使用绝对位置读取,不修改缓冲区的状态)
+	 *
+	 * @param buffer
+	 * @param from
+	 * @param to
+	 * @return 索引
+	 */
+	public int encode(ByteBuffer buffer, int from, int to) {
+		int hash = hash(buffer, from, to);
+		Segment segment = segments[hash >>> SEGMENT_SHIFT];
+		synchronized (segment) {
+			int mask = segment.hashes.length - 1;
+			int slot = hash & mask;
+			int index;
+			while ((index = segment.indexes[slot]) != 0) {
+				if (segment.hashes[slot] == hash && equals(index - 1, buffer, from, to)) {
+					return index - 1;
+				}
+				slot = (slot + 1) & mask;
+			}
+			index = append(buffer, from, to);
+			// 0表示空槽,所以保存索引+1
+			segment.hashes[slot] = hash;
+			segment.indexes[slot] = index + 1;
+			if (isFull(++segment.size, segment.hashes.length)) {
+				segment.expand();
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * 编码另一个字典中指定索引的键
+	 *
+	 * <pre>
+	 * 字符集相同时直接比较字节,否则经过字符串转换.
+	 * </pre>
+	 *
+	 * @param dictionary
+	 * @param index
+	 * @return 索引
+	 */
+	public int encode(StringDictionary dictionary, int index) {
+		if (!charset.equals(dictionary.charset)) {
+			return encode(dictionary.getKey(index));
+		}
+		if (index < 0 || index >= dictionary.size) {
+			throw new IndexOutOfBoundsException();
+		}
+		int[] offsets = dictionary.offsets;
+		return encode(ByteBuffer.wrap(dictionary.bytes), offsets[index], offsets[index + 1]);
+	}
+
+	/**
+	 * 获取索引对应的键
+	 *
+	 * @param index
+	 * @return
+	 */
+	public String getKey(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		int[] offsets = this.offsets;
+		int from = offsets[index];
+		return new String(bytes, from, offsets[index + 1] - from, charset);
+	}
+
+	private boolean equals(int index, ByteBuffer buffer, int from, int to) {
+		int[] offsets = this.offsets;
+		int begin = offsets[index];
+		if (offsets[index + 1] - begin != to - from) {
+			return false;
+		}
+		byte[] bytes = this.bytes;
+		for (int position = from; position < to; position++) {
+			if (bytes[begin++] != buffer.get(position)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private synchronized int append(ByteBuffer buffer, int from, int to) {
+		int index = size;
+		int[] offsets = this.offsets;
+		if (index + 1 == offsets.length) {
+			offsets = Arrays.copyOf(offsets, index << 1);
+		}
+		byte[] bytes = this.bytes;
+		int begin = offsets[index];
+		int end = begin + to - from;
+		if (end > bytes.length) {
+			bytes = Arrays.copyOf(bytes, Math.max(end, bytes.length << 1));
+		}
+		for (int position = from; position < to; position++) {
+			bytes[begin++] = buffer.get(position);
+		}
+		offsets[index + 1] = end;
+		this.bytes = bytes;
+		this.offsets = offsets;
+		size = index + 1;
+		return index;
+	}
+
+	@Override
+	public int encode(Object key) {
+		return encode((String) key);
+	}
+
+	@Override
+	public Object getData(int index) {
+		return getKey(index);
+	}
+
+	private static int hash(ByteBuffer buffer, int from, int to) {
+		int hash = 0;
+		for (int position = from; position < to; position++) {
+			hash = 31 * hash + buffer.get(position);
+		}
+		return mix(hash);
+	}
+
+	/**
+	 * 分段
+	 */
+	private static class Segment {
+
+		private int[] hashes = new int[SEGMENT_CAPACITY];
+
+		/** 索引+1(0表示空槽) */
+		private int[] indexes = new int[SEGMENT_CAPACITY];
+
+		private int size;
+
+		private void expand() {
+			int[] oldHashes = hashes;
+			int[] oldIndexes = indexes;
+			int capacity = oldHashes.length << 1;
+			int mask = capacity - 1;
+			hashes = new int[capacity];
+			indexes = new int[capacity];
+			for (int position = 0; position < oldHashes.length; position++) {
+				int index = oldIndexes[position];
+				if (index == 0) {
+					continue;
+				}
+				int slot = oldHashes[position] & mask;
+				while (indexes[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				hashes[slot] = oldHashes[position];
+				indexes[slot] = index;
+			}
+		}
+
+	}
+
+}
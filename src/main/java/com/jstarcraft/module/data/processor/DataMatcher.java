@@ -21,9 +21,15 @@ public interface DataMatcher {
 			if (positions.length != size) {
 				throw new IllegalArgumentException();
 			}
+			// 特征只提取一次,然后计数排序分桶
+			int[] features = new int[size];
+			PaginationSorter.execute(size, (from, to) -> {
+				for (int index = from; index < to; index++) {
+					features[index] = accessor.getDiscreteFeature(dimension, index);
+				}
+			});
 			for (int index = 0; index < size; index++) {
-				int feature = accessor.getDiscreteFeature(dimension, index);
-				paginations[feature + 1]++;
+				paginations[features[index] + 1]++;
 			}
 			int cursor = size;
 			for (int index = paginations.length - 1; index > 0; index--) {
@@ -31,8 +37,7 @@ public interface DataMatcher {
 				paginations[index] = cursor;
 			}
 			for (int index = 0; index < size; index++) {
-				int feature = accessor.getDiscreteFeature(dimension, index);
-				positions[paginations[feature + 1]++] = index;
+				positions[paginations[features[index] + 1]++] = index;
 			}
 		};
 	}
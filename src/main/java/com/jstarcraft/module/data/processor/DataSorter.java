@@ -21,54 +21,24 @@ public interface DataSorter {
 	/**
 	 * 按照所有特征排序
 	 * 
+	 * <pre>
+	 * 先按照离散特征,再按照连续特征,按照维度顺序比较.
+	 * </pre>
+	 * 
 	 * @param accessor
 	 * @return
 	 */
 	public static DataSorter featureOf(DataAccessor<?> accessor) {
+		int[] discreteDimensions = new int[accessor.getDiscreteOrder()];
+		for (int dimension = 0; dimension < discreteDimensions.length; dimension++) {
+			discreteDimensions[dimension] = dimension;
+		}
+		int[] continuousDimensions = new int[accessor.getContinuousOrder()];
+		for (int dimension = 0; dimension < continuousDimensions.length; dimension++) {
+			continuousDimensions[dimension] = dimension;
+		}
 		return (paginations, positions) -> {
-			for (int index = 0, size = paginations.length - 1; index < size; index++) {
-				int from = paginations[index], to = paginations[index + 1];
-				for (int left = from; left < to - 1; left++) {
-					for (int right = left + 1; right < to; right++) {
-						// TODO 注意:此处存在0的情况.
-						boolean change = false;
-						for (int dimension = 0, order = accessor.getDiscreteOrder(); dimension < order; dimension++) {
-							int leftValue = accessor.getDiscreteFeature(dimension, positions[left]);
-							int rightValue = accessor.getDiscreteFeature(dimension, positions[right]);
-							int value = leftValue - rightValue;
-							if (value != 0) {
-								if (leftValue > rightValue) {
-									positions[left] ^= positions[right];
-									positions[right] ^= positions[left];
-									positions[left] ^= positions[right];
-								}
-								change = true;
-								break;
-							}
-						}
-						if (change) {
-							continue;
-						}
-						for (int dimension = 0, order = accessor.getContinuousOrder(); dimension < order; dimension++) {
-							double leftValue = accessor.getContinuousFeature(dimension, positions[left]);
-							double rightValue = accessor.getContinuousFeature(dimension, positions[right]);
-							double value = leftValue - rightValue;
-							if (value != 0D) {
-								if (leftValue > rightValue) {
-									positions[left] ^= positions[right];
-									positions[right] ^= positions[left];
-									positions[left] ^= positions[right];
-								}
-								change = true;
-								break;
-							}
-						}
-						if (change) {
-							continue;
-						}
-					}
-				}
-			}
+			PaginationSorter.sort(accessor, discreteDimensions, continuousDimensions, paginations, positions);
 		};
 	}
 
@@ -80,22 +50,10 @@ public interface DataSorter {
 	 * @return
 	 */
 	public static DataSorter discreteOf(DataAccessor<?> accessor, int dimension) {
+		int[] discreteDimensions = new int[] { dimension };
+		int[] continuousDimensions = new int[] {};
 		return (paginations, positions) -> {
-			for (int index = 0, size = paginations.length - 1; index < size; index++) {
-				int from = paginations[index], to = paginations[index + 1];
-				for (int left = from; left < to; left++) {
-					for (int right = left + 1; right < to; right++) {
-						// TODO 注意:此处存在0的情况.
-						int leftValue = accessor.getDiscreteFeature(dimension, positions[left]);
-						int rightValue = accessor.getDiscreteFeature(dimension, positions[right]);
-						if (leftValue > rightValue) {
-							positions[left] ^= positions[right];
-							positions[right] ^= positions[left];
-							positions[left] ^= positions[right];
-						}
-					}
-				}
-			}
+			PaginationSorter.sort(accessor, discreteDimensions, continuousDimensions, paginations, positions);
 		};
 	}
 
@@ -107,22 +65,10 @@ public interface DataSorter {
 	 * @return
 	 */
 	public static DataSorter continuousOf(DataAccessor<?> accessor, int dimension) {
+		int[] discreteDimensions = new int[] {};
+		int[] continuousDimensions = new int[] { dimension };
 		return (paginations, positions) -> {
-			for (int index = 0, size = paginations.length - 1; index < size; index++) {
-				int from = paginations[index], to = paginations[index + 1];
-				for (int left = from; left < to; left++) {
-					for (int right = left + 1; right < to; right++) {
-						// TODO 注意:此处存在0的情况.
-						double leftValue = accessor.getContinuousFeature(dimension, positions[left]);
-						double rightValue = accessor.getContinuousFeature(dimension, positions[right]);
-						if (leftValue > rightValue) {
-							positions[left] ^= positions[right];
-							positions[right] ^= positions[left];
-							positions[left] ^= positions[right];
-						}
-					}
-				}
-			}
+			PaginationSorter.sort(accessor, discreteDimensions, continuousDimensions, paginations, positions);
 		};
 	}
 
@@ -0,0 +1,378 @@
+package com.jstarcraft.module.data.processor;
+
+import java.util.Arrays;
+
+import com.jstarcraft.module.data.DataAccessor;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.environment.EnvironmentThread;
+import com.jstarcraft.module.environment.EnvironmentWorkerThread;
+import com.jstarcraft.module.environment.RangeCommand;
+
+/**
+ * 分页排序器
+ *
+ * <pre>
+ * 对(paginations, positions)的每个分页区间[paginations[index], paginations[index + 1])独立排序.
+ * 排序键一次性从{@link DataAccessor}提取到原始类型数组,比较过程不再访问数据.
+ * 离散键使用LSD基数排序,连续键使用稳定的归并排序,多个键按照从低到高的优先级依次稳定排序得到字典序.
+ * 分页内没有完全相同的键时,有序结果唯一,与原来的交换排序一致.
+ * 分页内存在相同的键时,交换排序对相同键的顺序既不稳定也没有简单的规律,所以对这些分页按照原始顺序重新执行交换排序(键仍然从原始类型数组读取).
+ * 在环境线程中各个分页区间由工作窃取线程池并行排序.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public final class PaginationSorter {
+
+	/** 小于此长度的区间使用插入排序 */
+	private static final int INSERTION_SIZE = 32;
+
+	/** 基数排序每轮的位数 */
+	private static final int RADIX_BITS = 8;
+
+	private static final int RADIX_SIZE = 1 << RADIX_BITS;
+
+	private static final int RADIX_MASK = RADIX_SIZE - 1;
+
+	private PaginationSorter() {
+	}
+
+	/**
+	 * 按照指定的离散维度与连续维度排序(先离散后连续,按照数组顺序比较)
+	 *
+	 * @param accessor
+	 * @param discreteDimensions
+	 * @param continuousDimensions
+	 * @param paginations
+	 * @param positions
+	 */
+	public static void sort(DataAccessor<?> accessor, int[] discreteDimensions, int[] continuousDimensions, int[] paginations, int[] positions) {
+		int size = positions.length;
+		int[] positionBuffer = new int[size];
+		int[] originalPositions = new int[size];
+		int[] discreteKeys = discreteDimensions.length == 0 ? null : new int[size];
+		int[] discreteBuffer = discreteDimensions.length == 0 ? null : new int[size];
+		float[] continuousKeys = continuousDimensions.length == 0 ? null : new float[size];
+		float[] continuousBuffer = continuousDimensions.length == 0 ? null : new float[size];
+		execute(paginations.length - 1, (beginPage, endPage) -> {
+			int[] counts = discreteDimensions.length == 0 ? null : new int[RADIX_SIZE];
+			for (int page = beginPage; page < endPage; page++) {
+				int from = paginations[page], to = paginations[page + 1];
+				if (to - from < 2) {
+					continue;
+				}
+				System.arraycopy(positions, from, originalPositions, from, to - from);
+				// 稳定排序从优先级最低的键开始
+				for (int index = continuousDimensions.length - 1; index >= 0; index--) {
+					int dimension = continuousDimensions[index];
+					for (int position = from; position < to; position++) {
+						continuousKeys[position] = accessor.getContinuousFeature(dimension, positions[position]);
+					}
+					mergeSort(continuousKeys, positions, continuousBuffer, positionBuffer, from, to);
+				}
+				for (int index = discreteDimensions.length - 1; index >= 0; index--) {
+					int dimension = discreteDimensions[index];
+					for (int position = from; position < to; position++) {
+						discreteKeys[position] = accessor.getDiscreteFeature(dimension, positions[position]);
+					}
+					radixSort(discreteKeys, positions, discreteBuffer, positionBuffer, counts, from, to);
+				}
+				if (hasTie(accessor, discreteDimensions, continuousDimensions, positions, from, to)) {
+					System.arraycopy(originalPositions, from, positions, from, to - from);
+					exchangeSort(accessor, discreteDimensions, continuousDimensions, positions, from, to);
+				}
+			}
+		});
+	}
+
+	/**
+	 * 判断有序区间内是否存在所有键都相同的相邻位置
+	 *
+	 * @param accessor
+	 * @param discreteDimensions
+	 * @param continuousDimensions
+	 * @param positions
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	static boolean hasTie(DataAccessor<?> accessor, int[] discreteDimensions, int[] continuousDimensions, int[] positions, int from, int to) {
+		next: for (int index = from + 1; index < to; index++) {
+			int left = positions[index - 1], right = positions[index];
+			for (int dimension : discreteDimensions) {
+				if (accessor.getDiscreteFeature(dimension, left) != accessor.getDiscreteFeature(dimension, right)) {
+					continue next;
+				}
+			}
+			for (int dimension : continuousDimensions) {
+				if (accessor.getContinuousFeature(dimension, left) != accessor.getContinuousFeature(dimension, right)) {
+					continue next;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 交换排序(与原来{@link DataSorter}的比较与交换过程完全相同)
+	 *
+	 * <pre>
+	 * 键按照区间内的原始顺序提取到原始类型数组,交换只作用于区间内的下标.
+	 * </pre>
+	 *
+	 * @param accessor
+	 * @param discreteDimensions
+	 * @param continuousDimensions
+	 * @param positions
+	 * @param from
+	 * @param to
+	 */
+	static void exchangeSort(DataAccessor<?> accessor, int[] discreteDimensions, int[] continuousDimensions, int[] positions, int from, int to) {
+		int size = to - from;
+		int discreteOrder = discreteDimensions.length, continuousOrder = continuousDimensions.length;
+		int[] discreteKeys = new int[size * discreteOrder];
+		float[] continuousKeys = new float[size * continuousOrder];
+		int[] indexes = new int[size];
+		for (int index = 0; index < size; index++) {
+			int position = positions[from + index];
+			for (int order = 0; order < discreteOrder; order++) {
+				discreteKeys[index * discreteOrder + order] = accessor.getDiscreteFeature(discreteDimensions[order], position);
+			}
+			for (int order = 0; order < continuousOrder; order++) {
+				continuousKeys[index * continuousOrder + order] = accessor.getContinuousFeature(continuousDimensions[order], position);
+			}
+			indexes[index] = index;
+		}
+		for (int left = 0; left < size - 1; left++) {
+			for (int right = left + 1; right < size; right++) {
+				int leftIndex = indexes[left], rightIndex = indexes[right];
+				boolean change = false;
+				boolean swap = false;
+				for (int order = 0; order < discreteOrder; order++) {
+					int leftValue = discreteKeys[leftIndex * discreteOrder + order];
+					int rightValue = discreteKeys[rightIndex * discreteOrder + order];
+					if (leftValue != rightValue) {
+						swap = leftValue > rightValue;
+						change = true;
+						break;
+					}
+				}
+				if (!change) {
+					for (int order = 0; order < continuousOrder; order++) {
+						// 与原来按照double相减比较相同(包括NaN只停止比较不交换)
+						float leftValue = continuousKeys[leftIndex * continuousOrder + order];
+						float rightValue = continuousKeys[rightIndex * continuousOrder + order];
+						if (leftValue != rightValue) {
+							swap = leftValue > rightValue;
+							break;
+						}
+					}
+				}
+				if (swap) {
+					indexes[left] = rightIndex;
+					indexes[right] = leftIndex;
+				}
+			}
+		}
+		int[] originals = Arrays.copyOfRange(positions, from, to);
+		for (int index = 0; index < size; index++) {
+			positions[from + index] = originals[indexes[index]];
+		}
+	}
+
+	/**
+	 * 执行区间指令(在环境线程中并行,否则串行)
+	 *
+	 * @param size
+	 * @param command
+	 */
+	static void execute(int size, RangeCommand command) {
+		if (size <= 0) {
+			return;
+		}
+		Thread thread = Thread.currentThread();
+		if (size > 1 && (thread instanceof EnvironmentThread || thread instanceof EnvironmentWorkerThread)) {
+			EnvironmentContext context = EnvironmentContext.getContext();
+			context.doStructureByRange(0, size, 0, command);
+		} else {
+			command.execute(0, size);
+		}
+	}
+
+	/**
+	 * 稳定的LSD基数排序
+	 *
+	 * <pre>
+	 * 按照区间内键的最小值偏移,只执行覆盖(最大值 - 最小值)所需的轮数,所有键相同的轮次直接跳过.
+	 * </pre>
+	 *
+	 * @param keys
+	 * @param positions
+	 * @param keyBuffer
+	 * @param positionBuffer
+	 * @param counts
+	 * @param from
+	 * @param to
+	 */
+	static void radixSort(int[] keys, int[] positions, int[] keyBuffer, int[] positionBuffer, int[] counts, int from, int to) {
+		int size = to - from;
+		if (size < INSERTION_SIZE) {
+			insertionSort(keys, positions, from, to);
+			return;
+		}
+		int minimum = keys[from], maximum = keys[from];
+		boolean sorted = true;
+		for (int index = from + 1; index < to; index++) {
+			int key = keys[index];
+			if (key < keys[index - 1]) {
+				sorted = false;
+			}
+			if (key < minimum) {
+				minimum = key;
+			} else if (key > maximum) {
+				maximum = key;
+			}
+		}
+		if (sorted) {
+			return;
+		}
+		// 按照无符号数处理,避免差值溢出
+		int range = maximum - minimum;
+		int[] fromKeys = keys, toKeys = keyBuffer;
+		int[] fromPositions = positions, toPositions = positionBuffer;
+		for (int shift = 0; shift < Integer.SIZE && (range >>> shift) != 0; shift += RADIX_BITS) {
+			Arrays.fill(counts, 0);
+			for (int index = from; index < to; index++) {
+				counts[((fromKeys[index] - minimum) >>> shift) & RADIX_MASK]++;
+			}
+			if (counts[((fromKeys[from] - minimum) >>> shift) & RADIX_MASK] == size) {
+				continue;
+			}
+			int cursor = from;
+			for (int digit = 0; digit < RADIX_SIZE; digit++) {
+				int count = counts[digit];
+				counts[digit] = cursor;
+				cursor += count;
+			}
+			for (int index = from; index < to; index++) {
+				int key = fromKeys[index];
+				int cursorOfDigit = counts[((key - minimum) >>> shift) & RADIX_MASK]++;
+				toKeys[cursorOfDigit] = key;
+				toPositions[cursorOfDigit] = fromPositions[index];
+			}
+			int[] keysSwap = fromKeys;
+			fromKeys = toKeys;
+			toKeys = keysSwap;
+			int[] positionsSwap = fromPositions;
+			fromPositions = toPositions;
+			toPositions = positionsSwap;
+		}
+		if (fromKeys != keys) {
+			System.arraycopy(fromKeys, from, keys, from, size);
+			System.arraycopy(fromPositions, from, positions, from, size);
+		}
+	}
+
+	/**
+	 * 稳定的归并排序
+	 *
+	 * <pre>
+	 * 先对固定长度的片段插入排序,再自底向上两两归并,相邻片段已经有序时直接复制.
+	 * </pre>
+	 *
+	 * @param keys
+	 * @param positions
+	 * @param keyBuffer
+	 * @param positionBuffer
+	 * @param from
+	 * @param to
+	 */
+	static void mergeSort(float[] keys, int[] positions, float[] keyBuffer, int[] positionBuffer, int from, int to) {
+		int size = to - from;
+		boolean sorted = true;
+		for (int index = from + 1; index < to; index++) {
+			if (keys[index] < keys[index - 1]) {
+				sorted = false;
+				break;
+			}
+		}
+		if (sorted) {
+			return;
+		}
+		for (int begin = from; begin < to; begin += INSERTION_SIZE) {
+			insertionSort(keys, positions, begin, Math.min(begin + INSERTION_SIZE, to));
+		}
+		float[] fromKeys = keys, toKeys = keyBuffer;
+		int[] fromPositions = positions, toPositions = positionBuffer;
+		for (int width = INSERTION_SIZE; width < size; width <<= 1) {
+			for (int begin = from; begin < to; begin += width << 1) {
+				int middle = Math.min(begin + width, to);
+				int end = Math.min(middle + width, to);
+				if (middle == end || !(fromKeys[middle] < fromKeys[middle - 1])) {
+					System.arraycopy(fromKeys, begin, toKeys, begin, end - begin);
+					System.arraycopy(fromPositions, begin, toPositions, begin, end - begin);
+					continue;
+				}
+				int left = begin, right = middle, cursor = begin;
+				while (left < middle && right < end) {
+					// 相等时优先取左侧,保持稳定
+					if (fromKeys[right] < fromKeys[left]) {
+						toKeys[cursor] = fromKeys[right];
+						toPositions[cursor++] = fromPositions[right++];
+					} else {
+						toKeys[cursor] = fromKeys[left];
+						toPositions[cursor++] = fromPositions[left++];
+					}
+				}
+				System.arraycopy(fromKeys, left, toKeys, cursor, middle - left);
+				System.arraycopy(fromPositions, left, toPositions, cursor, middle - left);
+				cursor += middle - left;
+				System.arraycopy(fromKeys, right, toKeys, cursor, end - right);
+				System.arraycopy(fromPositions, right, toPositions, cursor, end - right);
+			}
+			float[] keysSwap = fromKeys;
+			fromKeys = toKeys;
+			toKeys = keysSwap;
+			int[] positionsSwap = fromPositions;
+			fromPositions = toPositions;
+			toPositions = positionsSwap;
+		}
+		if (fromKeys != keys) {
+			System.arraycopy(fromKeys, from, keys, from, size);
+			System.arraycopy(fromPositions, from, positions, from, size);
+		}
+	}
+
+	private static void insertionSort(int[] keys, int[] positions, int from, int to) {
+		for (int index = from + 1; index < to; index++) {
+			int key = keys[index];
+			int position = positions[index];
+			int cursor = index - 1;
+			while (cursor >= from && keys[cursor] > key) {
+				keys[cursor + 1] = keys[cursor];
+				positions[cursor + 1] = positions[cursor];
+				cursor--;
+			}
+			keys[cursor + 1] = key;
+			positions[cursor + 1] = position;
+		}
+	}
+
+	private static void insertionSort(float[] keys, int[] positions, int from, int to) {
+		for (int index = from + 1; index < to; index++) {
+			float key = keys[index];
+			int position = positions[index];
+			int cursor = index - 1;
+			while (cursor >= from && keys[cursor] > key) {
+				keys[cursor + 1] = keys[cursor];
+				positions[cursor + 1] = positions[cursor];
+				cursor--;
+			}
+			keys[cursor + 1] = key;
+			positions[cursor + 1] = position;
+		}
+	}
+
+}
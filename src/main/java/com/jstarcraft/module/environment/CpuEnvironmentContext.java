@@ -3,9 +3,13 @@ package com.jstarcraft.module.environment;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.math3.util.FastMath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.jstarcraft.core.utility.HashUtility;
 
@@ -17,6 +21,8 @@ import com.jstarcraft.core.utility.HashUtility;
  */
 class CpuEnvironmentContext extends EnvironmentContext {
 
+	private final static Logger logger = LoggerFactory.getLogger(CpuEnvironmentContext.class);
+
 	static final CpuEnvironmentContext INSTANCE;
 
 	static {
@@ -41,6 +47,19 @@ class CpuEnvironmentContext extends EnvironmentContext {
 				INSTANCE.structureExecutors[threadIndex] = Executors.newSingleThreadExecutor(factory);
 			}
 		}
+		{
+			EnvironmentThreadFactory factory = new EnvironmentThreadFactory(INSTANCE);
+			INSTANCE.backgroundExecutor = Executors.newSingleThreadExecutor(factory);
+		}
+		{
+			String name = CpuEnvironmentContext.class.getName() + ":range:";
+			AtomicInteger number = new AtomicInteger();
+			INSTANCE.rangeExecutor = new ForkJoinPool(INSTANCE.numberOfThreads, (pool) -> {
+				EnvironmentWorkerThread thread = new EnvironmentWorkerThread(INSTANCE, pool);
+				thread.setName(name + number.getAndIncrement());
+				return thread;
+			}, null, false);
+		}
 	}
 
 	private int numberOfThreads;
@@ -51,44 +70,41 @@ class CpuEnvironmentContext extends EnvironmentContext {
 
 	private ExecutorService[] structureExecutors;
 
+	/** 后台线程(与计算重叠的装载) */
+	private ExecutorService backgroundExecutor;
+
+	/** 工作窃取线程池(区间指令) */
+	private ForkJoinPool rangeExecutor;
+
 	private CpuEnvironmentContext() {
 	}
 
 	@Override
 	public Future<?> doTask(Runnable command) {
 		Future<?> task = taskExecutor.submit(() -> {
-			int size = 1024 * 1024 * 10;
-			{
-				EnvironmentThread thread = EnvironmentThread.currentThread();
-				thread.createCache(size);
-			}
-			doAlgorithmByEvery(() -> {
-				EnvironmentThread thread = EnvironmentThread.currentThread();
-				thread.createCache(size);
-			});
-			doStructureByEvery(() -> {
-				EnvironmentThread thread = EnvironmentThread.currentThread();
-				thread.createCache(size);
-			});
-			command.run();
-			doStructureByEvery(() -> {
-				EnvironmentThread thread = EnvironmentThread.currentThread();
-				thread.deleteCache();
-			});
-			doAlgorithmByEvery(() -> {
-				EnvironmentThread thread = EnvironmentThread.currentThread();
-				thread.deleteCache();
-			});
-			{
-				EnvironmentThread thread = EnvironmentThread.currentThread();
-				thread.deleteCache();
+			// 暂存区按需增长,任务结束之后释放(不再预先分配缓存与强制垃圾回收)
+			try {
+				command.run();
+			} finally {
+				doStructureByEvery(CpuEnvironmentContext::release);
+				doAlgorithmByEvery(CpuEnvironmentContext::release);
+				release();
 			}
-			// 必须触发垃圾回收.
-			System.gc();
 		});
 		return task;
 	}
 
+	/**
+	 * 报告并且释放当前线程的暂存区
+	 */
+	private static void release() {
+		EnvironmentThread thread = EnvironmentThread.currentThread();
+		if (logger.isDebugEnabled()) {
+			logger.debug("线程{}的暂存区:{}", thread.getName(), thread.getArena());
+		}
+		thread.release();
+	}
+
 	@Override
 	public void doAlgorithmByAny(int code, Runnable command) {
 		int threadIndex = FastMath.abs(HashUtility.twNumberHash32(code)) % numberOfThreads;
@@ -130,4 +146,26 @@ class CpuEnvironmentContext extends EnvironmentContext {
 		}
 	}
 
+	@Override
+	public void doStructureByRange(int from, int to, int grain, RangeCommand command) {
+		int size = to - from;
+		if (size <= 0) {
+			return;
+		}
+		if (grain <= 0) {
+			// 自适应粒度:每个线程大约分到8个区间,以便工作窃取平衡负载
+			grain = Math.max(1, size / (numberOfThreads * 8));
+		}
+		if (size <= grain) {
+			command.execute(from, to);
+			return;
+		}
+		rangeExecutor.invoke(new RangeTask(from, to, grain, command));
+	}
+
+	@Override
+	public void doBackground(Runnable command) {
+		backgroundExecutor.execute(command);
+	}
+
 }
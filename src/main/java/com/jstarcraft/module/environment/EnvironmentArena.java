@@ -0,0 +1,236 @@
+package com.jstarcraft.module.environment;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * 环境暂存区
+ *
+ * <pre>
+ * 每个线程一个,用于热点代码借用临时的float/int空间,借用与归还都不会分配对象:
+ * 1.{@link #mark()}记录当前位置,{@link #reset(int)}归还标记之后的所有切片,标记可以嵌套;
+ * 2.{@link #allocateFloats(int)}/{@link #allocateIntegers(int)}返回切片在数组中的偏移,数组通过{@link #getFloats()}/{@link #getIntegers()}获取(必须在分配之后获取);
+ * 3.容量按需增长,扩容之后已经分配的切片仍然在旧数组中有效;
+ * 4.切片的内容没有初始化.
+ * 暂存区不是线程安全的,只能由所属线程使用.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class EnvironmentArena {
+
+	/** 初始容量 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/** 释放时保留的容量(超过时丢弃数组) */
+	public static final int RETAIN_CAPACITY = 1024 * 1024;
+
+	private static final float[] EMPTY_FLOATS = new float[0];
+
+	private static final int[] EMPTY_INTEGERS = new int[0];
+
+	/** 非环境线程使用的暂存区 */
+	private static final ThreadLocal<EnvironmentArena> ARENAS = ThreadLocal.withInitial(EnvironmentArena::new);
+
+	private float[] floats = EMPTY_FLOATS;
+
+	private int floatCursor;
+
+	private int[] integers = EMPTY_INTEGERS;
+
+	private int integerCursor;
+
+	/** 标记栈(每个标记占用两个位置) */
+	private int[] marks = new int[32];
+
+	private int depth;
+
+	/** 分配次数 */
+	private long allocateTimes;
+
+	/** 扩容次数 */
+	private long expandTimes;
+
+	/** 峰值 */
+	private int floatPeak, integerPeak;
+
+	/**
+	 * 标记当前位置
+	 *
+	 * @return 标记
+	 */
+	public int mark() {
+		int index = depth << 1;
+		if (index == marks.length) {
+			marks = Arrays.copyOf(marks, index << 1);
+		}
+		marks[index] = floatCursor;
+		marks[index + 1] = integerCursor;
+		return depth++;
+	}
+
+	/**
+	 * 归还到指定标记
+	 *
+	 * @param mark
+	 */
+	public void reset(int mark) {
+		if (mark < 0 || mark >= depth) {
+			throw new IllegalStateException();
+		}
+		int index = mark << 1;
+		floatCursor = marks[index];
+		integerCursor = marks[index + 1];
+		depth = mark;
+	}
+
+	private static int expand(int capacity, int minimum) {
+		return Math.max(minimum, Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1)));
+	}
+
+	/**
+	 * 分配float切片
+	 *
+	 * @param size
+	 * @return 切片在{@link #getFloats()}中的偏移
+	 */
+	public int allocateFloats(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException();
+		}
+		int offset = floatCursor;
+		int limit = offset + size;
+		if (limit > floats.length) {
+			floats = new float[expand(floats.length, limit)];
+			expandTimes++;
+		}
+		floatCursor = limit;
+		if (floatPeak < limit) {
+			floatPeak = limit;
+		}
+		allocateTimes++;
+		return offset;
+	}
+
+	/**
+	 * 分配int切片
+	 *
+	 * @param size
+	 * @return 切片在{@link #getIntegers()}中的偏移
+	 */
+	public int allocateIntegers(int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException();
+		}
+		int offset = integerCursor;
+		int limit = offset + size;
+		if (limit > integers.length) {
+			integers = new int[expand(integers.length, limit)];
+			expandTimes++;
+		}
+		integerCursor = limit;
+		if (integerPeak < limit) {
+			integerPeak = limit;
+		}
+		allocateTimes++;
+		return offset;
+	}
+
+	/**
+	 * 获取最近一次分配的float切片所在的数组
+	 *
+	 * @return
+	 */
+	public float[] getFloats() {
+		return floats;
+	}
+
+	/**
+	 * 获取最近一次分配的int切片所在的数组
+	 *
+	 * @return
+	 */
+	public int[] getIntegers() {
+		return integers;
+	}
+
+	/**
+	 * 释放空闲的暂存区
+	 *
+	 * <pre>
+	 * 只能在没有标记时调用,超过{@link #RETAIN_CAPACITY}的数组会被丢弃,下次使用时重新按需分配.
+	 * </pre>
+	 */
+	public void release() {
+		if (depth != 0) {
+			throw new IllegalStateException();
+		}
+		floatCursor = 0;
+		integerCursor = 0;
+		if (floats.length > RETAIN_CAPACITY) {
+			floats = EMPTY_FLOATS;
+		}
+		if (integers.length > RETAIN_CAPACITY) {
+			integers = EMPTY_INTEGERS;
+		}
+		floatPeak = 0;
+		integerPeak = 0;
+		allocateTimes = 0;
+		expandTimes = 0;
+	}
+
+	public int getFloatCapacity() {
+		return floats.length;
+	}
+
+	public int getIntegerCapacity() {
+		return integers.length;
+	}
+
+	public int getFloatPeak() {
+		return floatPeak;
+	}
+
+	public int getIntegerPeak() {
+		return integerPeak;
+	}
+
+	public long getAllocateTimes() {
+		return allocateTimes;
+	}
+
+	public long getExpandTimes() {
+		return expandTimes;
+	}
+
+	@Override
+	public String toString() {
+		ToStringBuilder string = new ToStringBuilder(this);
+		string.append("floatCapacity", floats.length);
+		string.append("floatPeak", floatPeak);
+		string.append("integerCapacity", integers.length);
+		string.append("integerPeak", integerPeak);
+		string.append("allocateTimes", allocateTimes);
+		string.append("expandTimes", expandTimes);
+		return string.toString();
+	}
+
+	/**
+	 * 获取当前线程的暂存区
+	 *
+	 * @return
+	 */
+	public static EnvironmentArena getArena() {
+		Thread thread = Thread.currentThread();
+		if (thread instanceof EnvironmentThread) {
+			return EnvironmentThread.class.cast(thread).getArena();
+		}
+		if (thread instanceof EnvironmentWorkerThread) {
+			return EnvironmentWorkerThread.class.cast(thread).getArena();
+		}
+		return ARENAS.get();
+	}
+
+}
@@ -55,9 +55,40 @@ public abstract class EnvironmentContext {
 	 */
 	abstract public void doStructureByEvery(Runnable command);
 
+	/**
+	 * 执行数据结构指令(区间拆分)
+	 * 
+	 * <pre>
+	 * 将[from, to)递归二分到不大于粒度的区间,由工作窃取线程池执行,阻塞直到所有区间完成.
+	 * 粒度小于等于0时根据区间大小与线程数量自适应.
+	 * 区间指令在工作线程执行,不能依赖{@link EnvironmentThread}的缓存.
+	 * </pre>
+	 * 
+	 * @param from
+	 * @param to
+	 * @param grain
+	 * @param command
+	 */
+	abstract public void doStructureByRange(int from, int to, int grain, RangeCommand command);
+
+	/**
+	 * 执行后台指令
+	 * 
+	 * <pre>
+	 * 后台线程独立于任务,算法与数据结构线程,适合与计算重叠的装载(例如预先装载下一个批次).
+	 * 后台指令不能等待算法或者数据结构指令,否则可能阻塞计算.
+	 * </pre>
+	 * 
+	 * @param command
+	 */
+	abstract public void doBackground(Runnable command);
+
 	public static EnvironmentContext getContext() {
-		EnvironmentThread thread = EnvironmentThread.currentThread();
-		return thread.getContext();
+		Thread thread = Thread.currentThread();
+		if (thread instanceof EnvironmentWorkerThread) {
+			return EnvironmentWorkerThread.class.cast(thread).getContext();
+		}
+		return EnvironmentThread.class.cast(thread).getContext();
 	}
 
 }
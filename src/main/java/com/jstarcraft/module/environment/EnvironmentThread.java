@@ -14,39 +14,67 @@ import org.nd4j.linalg.factory.Nd4j;
  */
 public class EnvironmentThread extends Thread {
 
+	/** ND4J工作空间的配置 */
+	private static final WorkspaceConfiguration SPACE_CONFIGURATION = WorkspaceConfiguration.builder().initialSize(0).policyAllocation(AllocationPolicy.OVERALLOCATE).policyLearning(LearningPolicy.FIRST_LOOP).build();
+
+	private static final String SPACE_NAME = "ND4J";
+
 	private EnvironmentContext context;
 
-	private float[] array;
+	/** 暂存区 */
+	private final EnvironmentArena arena;
 
+	/** ND4J工作空间(首次使用时创建,大小在第一次循环之后确定) */
 	private MemoryWorkspace space;
 
 	EnvironmentThread(EnvironmentContext context, ThreadGroup group, Runnable runnable, String name, long size) {
 		super(group, runnable, name, size);
 		this.context = context;
+		this.arena = new EnvironmentArena();
 	}
 
 	public EnvironmentContext getContext() {
 		return context;
 	}
 
-	void createCache(int size) {
-		array = new float[size];
-		WorkspaceConfiguration configuration = WorkspaceConfiguration.builder().initialSize(size).policyAllocation(AllocationPolicy.STRICT).policyLearning(LearningPolicy.NONE).build();
-		space = Nd4j.getWorkspaceManager().createNewWorkspace(configuration, "ND4J");
+	public EnvironmentArena getArena() {
+		return arena;
 	}
 
-	void deleteCache() {
-		array = null;
-		Nd4j.getWorkspaceManager().destroyWorkspace(space);
-		space = null;
+	public MemoryWorkspace getSpace() {
+		if (space == null) {
+			space = Nd4j.getWorkspaceManager().createNewWorkspace(SPACE_CONFIGURATION, SPACE_NAME);
+		}
+		return space.notifyScopeEntered();
 	}
 
-	public float[] getArray() {
-		return array;
+	/**
+	 * 释放空闲线程占用的暂存区与工作空间
+	 */
+	void release() {
+		arena.release();
+		if (space != null) {
+			Nd4j.getWorkspaceManager().destroyWorkspace(space);
+			space = null;
+		}
 	}
 
-	public MemoryWorkspace getSpace() {
-		return space.notifyScopeEntered();
+	/**
+	 * 进入当前线程的ND4J工作空间
+	 * 
+	 * <pre>
+	 * 环境线程使用自己的工作空间(空闲时释放);
+	 * 工作线程与非环境线程使用ND4J按照线程管理的工作空间.
+	 * </pre>
+	 * 
+	 * @return
+	 */
+	public static MemoryWorkspace getWorkspace() {
+		Thread thread = Thread.currentThread();
+		if (thread instanceof EnvironmentThread) {
+			return EnvironmentThread.class.cast(thread).getSpace();
+		}
+		return Nd4j.getWorkspaceManager().getAndActivateWorkspace(SPACE_CONFIGURATION, SPACE_NAME);
 	}
 
 	public static EnvironmentThread currentThread() {
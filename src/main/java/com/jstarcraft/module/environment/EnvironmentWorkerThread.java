@@ -0,0 +1,37 @@
+package com.jstarcraft.module.environment;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * 环境工作线程
+ * 
+ * <pre>
+ * 工作窃取线程池的线程,只用于执行区间指令.
+ * </pre>
+ * 
+ * @author Birdy
+ *
+ */
+public class EnvironmentWorkerThread extends ForkJoinWorkerThread {
+
+	private EnvironmentContext context;
+
+	/** 暂存区(空闲的工作线程被线程池回收时一并释放) */
+	private final EnvironmentArena arena;
+
+	EnvironmentWorkerThread(EnvironmentContext context, ForkJoinPool pool) {
+		super(pool);
+		this.context = context;
+		this.arena = new EnvironmentArena();
+	}
+
+	public EnvironmentContext getContext() {
+		return context;
+	}
+
+	public EnvironmentArena getArena() {
+		return arena;
+	}
+
+}
@@ -5,6 +5,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * GPU环境上下文
@@ -14,6 +16,8 @@ import org.nd4j.linalg.factory.Nd4j;
  */
 class GpuEnvironmentContext extends EnvironmentContext {
 
+	private final static Logger logger = LoggerFactory.getLogger(GpuEnvironmentContext.class);
+
 	static final GpuEnvironmentContext INSTANCE;
 
 	static {
@@ -31,18 +35,16 @@ class GpuEnvironmentContext extends EnvironmentContext {
 	@Override
 	public Future<?> doTask(Runnable command) {
 		Future<?> task = executor.submit(() -> {
-			int size = 1024 * 1024 * 10;
-			{
-				EnvironmentThread thread = EnvironmentThread.currentThread();
-				thread.createCache(size);
-			}
-			command.run();
-			{
+			// 暂存区按需增长,任务结束之后释放(不再预先分配缓存与强制垃圾回收)
+			try {
+				command.run();
+			} finally {
 				EnvironmentThread thread = EnvironmentThread.currentThread();
-				thread.deleteCache();
+				if (logger.isDebugEnabled()) {
+					logger.debug("线程{}的暂存区:{}", thread.getName(), thread.getArena());
+				}
+				thread.release();
 			}
-			// 必须触发垃圾回收.
-			System.gc();
 		});
 		return task;
 	}
@@ -67,4 +69,16 @@ class GpuEnvironmentContext extends EnvironmentContext {
 		command.run();
 	}
 
+	@Override
+	public void doStructureByRange(int from, int to, int grain, RangeCommand command) {
+		if (from < to) {
+			command.execute(from, to);
+		}
+	}
+
+	@Override
+	public void doBackground(Runnable command) {
+		command.run();
+	}
+
 }
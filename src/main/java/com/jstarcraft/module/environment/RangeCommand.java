@@ -0,0 +1,26 @@
+package com.jstarcraft.module.environment;
+
+/**
+ * 区间指令
+ * 
+ * <pre>
+ * 处理[from, to)区间内的所有索引.
+ * </pre>
+ * 
+ * @author Birdy
+ *
+ */
+@FunctionalInterface
+public interface RangeCommand {
+
+	/**
+	 * 执行区间
+	 * 
+	 * @param from
+	 *            起始索引(包含)
+	 * @param to
+	 *            结束索引(不包含)
+	 */
+	void execute(int from, int to);
+
+}
@@ -0,0 +1,57 @@
+package com.jstarcraft.module.environment;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 区间任务
+ * 
+ * <pre>
+ * 将区间递归二分直到不大于粒度,由工作窃取线程池执行.
+ * </pre>
+ * 
+ * @author Birdy
+ *
+ */
+class RangeTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int from, to, grain;
+
+	private final RangeCommand command;
+
+	/** 链接同一层级已分叉的任务 */
+	private RangeTask next;
+
+	RangeTask(int from, int to, int grain, RangeCommand command) {
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+		this.command = command;
+	}
+
+	@Override
+	protected void compute() {
+		int from = this.from, to = this.to;
+		// 先分叉右半区间,再在当前线程继续拆分左半区间
+		RangeTask next = null;
+		while (to - from > grain) {
+			int middle = (from + to) >>> 1;
+			RangeTask task = new RangeTask(middle, to, grain, command);
+			task.next = next;
+			task.fork();
+			next = task;
+			to = middle;
+		}
+		command.execute(from, to);
+		while (next != null) {
+			if (next.tryUnfork()) {
+				next.compute();
+			} else {
+				next.join();
+			}
+			next = next.next;
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package com.jstarcraft.module.math.algorithm;
 
+import java.util.Random;
+
 import com.jstarcraft.core.utility.RandomUtility;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.math.structure.vector.VectorMapper;
@@ -46,8 +48,7 @@ public class Probability {
 		return this;
 	}
 
-	public int random() {
-		double random = RandomUtility.randomDouble(sum);
+	private int search(double random) {
 		for (int index = random < median ? 0 : values.length / 2, size = values.length; index < size; index++) {
 			if (values[index] >= random) {
 				return index;
@@ -56,6 +57,21 @@ public class Probability {
 		throw new RecommendationException("概率范围超过随机范围,检查是否由于多线程修改导致.");
 	}
 
+	public int random() {
+		double random = RandomUtility.randomDouble(sum);
+		return search(random);
+	}
+
+	/**
+	 * 使用指定的随机数生成器(多线程各自持有)
+	 * 
+	 * @param random
+	 * @return
+	 */
+	public int random(Random random) {
+		return search(random.nextDouble() * sum);
+	}
+
 	/**
 	 * TODO 此算法比较慢,需要考虑优化.
 	 * 
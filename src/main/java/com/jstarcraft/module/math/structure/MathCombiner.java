@@ -0,0 +1,64 @@
+package com.jstarcraft.module.math.structure;
+
+/**
+ * 数学合并器
+ *
+ * <pre>
+ * 构建稀疏结构时,用于合并坐标相同的元素(按照追加的顺序).
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public enum MathCombiner {
+
+	/** 保留最先追加的值 */
+	FIRST {
+
+		@Override
+		public float combine(float oldValue, float newValue) {
+			return oldValue;
+		}
+
+	},
+
+	/** 保留最后追加的值 */
+	LAST {
+
+		@Override
+		public float combine(float oldValue, float newValue) {
+			return newValue;
+		}
+
+	},
+
+	/** 求和 */
+	SUM {
+
+		@Override
+		public float combine(float oldValue, float newValue) {
+			return oldValue + newValue;
+		}
+
+	},
+
+	/** 最大值 */
+	MAX {
+
+		@Override
+		public float combine(float oldValue, float newValue) {
+			return Math.max(oldValue, newValue);
+		}
+
+	};
+
+	/**
+	 * 合并
+	 *
+	 * @param oldValue
+	 * @param newValue
+	 * @return
+	 */
+	public abstract float combine(float oldValue, float newValue);
+
+}
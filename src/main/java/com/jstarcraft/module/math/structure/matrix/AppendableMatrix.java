@@ -0,0 +1,318 @@
+package com.jstarcraft.module.math.structure.matrix;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.jstarcraft.module.math.structure.vector.SparseVector;
+
+/**
+ * 可追加矩阵
+ *
+ * <pre>
+ * {@link SparseMatrix}的可变伴生结构,用于持续接收增量数据:
+ * 1.每行使用独立的原始类型缓冲(列索引递增),支持追加与覆盖(upsert),行列大小随索引自动增长;
+ * 2.通过{@link #getSnapshot()}发布不可变的{@link SparseMatrix}快照,没有变化时返回同一个快照;
+ * 3.只有值发生变化时,快照共享上一个快照的结构,只拷贝元素的值并且覆盖变化的行;
+ * 4.结构发生变化时,按行拼接缓冲(行主序)并且通过一次计数排序构建列索引,不经过{@link com.google.common.collect.Table}.
+ * 快照与追加可以在不同线程执行,快照不应该被修改.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class AppendableMatrix {
+
+	/** 行缓冲的初始容量 */
+	private static final int ROW_CAPACITY = 4;
+
+	/** 行列大小 */
+	private int rowSize, columnSize;
+
+	/** 元素数量 */
+	private int elementSize;
+
+	/** 每行的列索引(递增) */
+	private int[][] rowColumns;
+
+	/** 每行的值 */
+	private float[][] rowValues;
+
+	/** 每行的元素数量 */
+	private int[] rowScopes;
+
+	/** 快照 */
+	private SparseMatrix snapshot;
+
+	/** 快照每行的起始位置 */
+	private int[] snapshotPoints;
+
+	/** 快照的值 */
+	private float[] snapshotValues;
+
+	/** 结构是否变化(包括行列大小) */
+	private boolean structured;
+
+	/** 值发生变化的行 */
+	private final BitSet modifiedRows;
+
+	public AppendableMatrix(int rowSize, int columnSize) {
+		if (rowSize < 0 || columnSize < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.rowSize = rowSize;
+		this.columnSize = columnSize;
+		this.rowColumns = new int[Math.max(rowSize, ROW_CAPACITY)][];
+		this.rowValues = new float[rowColumns.length][];
+		this.rowScopes = new int[rowColumns.length];
+		this.structured = true;
+		this.modifiedRows = new BitSet();
+	}
+
+	/**
+	 * 根据稀疏矩阵构建可追加矩阵
+	 *
+	 * @param matrix
+	 * @return
+	 */
+	public static AppendableMatrix copyOf(SparseMatrix matrix) {
+		AppendableMatrix instance = new AppendableMatrix(matrix.getRowSize(), matrix.getColumnSize());
+		for (int rowIndex = 0, rowSize = matrix.getRowSize(); rowIndex < rowSize; rowIndex++) {
+			int scope = matrix.getRowScope(rowIndex);
+			if (scope == 0) {
+				continue;
+			}
+			SparseVector vector = matrix.getRowVector(rowIndex);
+			int[] columns = new int[scope];
+			float[] values = new float[scope];
+			for (int position = 0; position < scope; position++) {
+				columns[position] = vector.getIndex(position);
+				values[position] = vector.getValue(position);
+			}
+			instance.rowColumns[rowIndex] = columns;
+			instance.rowValues[rowIndex] = values;
+			instance.rowScopes[rowIndex] = scope;
+			instance.elementSize += scope;
+		}
+		return instance;
+	}
+
+	public synchronized int getRowSize() {
+		return rowSize;
+	}
+
+	public synchronized int getColumnSize() {
+		return columnSize;
+	}
+
+	public synchronized int getElementSize() {
+		return elementSize;
+	}
+
+	/**
+	 * 扩展行列大小(只增不减)
+	 *
+	 * @param rowSize
+	 * @param columnSize
+	 */
+	public synchronized void expand(int rowSize, int columnSize) {
+		if (rowSize > this.rowSize) {
+			if (rowSize > rowColumns.length) {
+				int capacity = Math.max(rowSize, rowColumns.length + (rowColumns.length >> 1));
+				rowColumns = Arrays.copyOf(rowColumns, capacity);
+				rowValues = Arrays.copyOf(rowValues, capacity);
+				rowScopes = Arrays.copyOf(rowScopes, capacity);
+			}
+			this.rowSize = rowSize;
+			structured = true;
+		}
+		if (columnSize > this.columnSize) {
+			this.columnSize = columnSize;
+			structured = true;
+		}
+	}
+
+	/**
+	 * 获取指定行的元素数量
+	 *
+	 * @param rowIndex
+	 * @return
+	 */
+	public synchronized int getRowScope(int rowIndex) {
+		return rowIndex < rowSize ? rowScopes[rowIndex] : 0;
+	}
+
+	/**
+	 * 获取指定行指定位置的列索引
+	 *
+	 * @param rowIndex
+	 * @param position
+	 * @return
+	 */
+	public synchronized int getTermColumn(int rowIndex, int position) {
+		if (position < 0 || position >= getRowScope(rowIndex)) {
+			throw new IndexOutOfBoundsException();
+		}
+		return rowColumns[rowIndex][position];
+	}
+
+	/**
+	 * 获取指定行指定位置的值
+	 *
+	 * @param rowIndex
+	 * @param position
+	 * @return
+	 */
+	public synchronized float getTermValue(int rowIndex, int position) {
+		if (position < 0 || position >= getRowScope(rowIndex)) {
+			throw new IndexOutOfBoundsException();
+		}
+		return rowValues[rowIndex][position];
+	}
+
+	/**
+	 * 是否存在指定元素
+	 *
+	 * @param rowIndex
+	 * @param columnIndex
+	 * @return
+	 */
+	public synchronized boolean contains(int rowIndex, int columnIndex) {
+		return rowIndex < rowSize && rowScopes[rowIndex] > 0 && Arrays.binarySearch(rowColumns[rowIndex], 0, rowScopes[rowIndex], columnIndex) >= 0;
+	}
+
+	/**
+	 * 获取指定元素的值
+	 *
+	 * @param rowIndex
+	 * @param columnIndex
+	 * @return 不存在时返回0
+	 */
+	public synchronized float getValue(int rowIndex, int columnIndex) {
+		if (rowIndex >= rowSize || rowScopes[rowIndex] == 0) {
+			return 0F;
+		}
+		int position = Arrays.binarySearch(rowColumns[rowIndex], 0, rowScopes[rowIndex], columnIndex);
+		return position < 0 ? 0F : rowValues[rowIndex][position];
+	}
+
+	/**
+	 * 设置指定元素的值(不存在时追加,存在时覆盖)
+	 *
+	 * @param rowIndex
+	 * @param columnIndex
+	 * @param value
+	 */
+	public synchronized void setValue(int rowIndex, int columnIndex, float value) {
+		int position = locate(rowIndex, columnIndex);
+		rowValues[rowIndex][position] = value;
+	}
+
+	/**
+	 * 累加指定元素的值(不存在时视为0)
+	 *
+	 * @param rowIndex
+	 * @param columnIndex
+	 * @param value
+	 */
+	public synchronized void shiftValue(int rowIndex, int columnIndex, float value) {
+		int position = locate(rowIndex, columnIndex);
+		rowValues[rowIndex][position] += value;
+	}
+
+	/**
+	 * 定位元素在行缓冲中的位置(不存在时插入值为0的元素)
+	 *
+	 * @param rowIndex
+	 * @param columnIndex
+	 * @return
+	 */
+	private int locate(int rowIndex, int columnIndex) {
+		if (rowIndex < 0 || columnIndex < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		expand(rowIndex + 1, columnIndex + 1);
+		int scope = rowScopes[rowIndex];
+		int[] columns = rowColumns[rowIndex];
+		if (scope > 0) {
+			int position = Arrays.binarySearch(columns, 0, scope, columnIndex);
+			if (position >= 0) {
+				modifiedRows.set(rowIndex);
+				return position;
+			}
+			position = -(position + 1);
+			float[] values = rowValues[rowIndex];
+			if (scope == columns.length) {
+				int capacity = scope + (scope >> 1) + 1;
+				columns = Arrays.copyOf(columns, capacity);
+				values = Arrays.copyOf(values, capacity);
+				rowColumns[rowIndex] = columns;
+				rowValues[rowIndex] = values;
+			}
+			// 大多数增量按照时间追加,通常位于行尾,移动的元素很少
+			System.arraycopy(columns, position, columns, position + 1, scope - position);
+			System.arraycopy(values, position, values, position + 1, scope - position);
+			columns[position] = columnIndex;
+			values[position] = 0F;
+			rowScopes[rowIndex] = scope + 1;
+			elementSize++;
+			structured = true;
+			return position;
+		}
+		if (columns == null) {
+			rowColumns[rowIndex] = columns = new int[ROW_CAPACITY];
+			rowValues[rowIndex] = new float[ROW_CAPACITY];
+		}
+		columns[0] = columnIndex;
+		rowValues[rowIndex][0] = 0F;
+		rowScopes[rowIndex] = 1;
+		elementSize++;
+		structured = true;
+		return 0;
+	}
+
+	/**
+	 * 获取快照
+	 *
+	 * <pre>
+	 * 没有变化时返回上一个快照.
+	 * </pre>
+	 *
+	 * @return
+	 */
+	public synchronized SparseMatrix getSnapshot() {
+		if (structured) {
+			int[] termRows = new int[elementSize];
+			int[] termColumns = new int[elementSize];
+			float[] termValues = new float[elementSize];
+			int[] points = new int[rowSize + 1];
+			int cursor = 0;
+			for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+				int scope = rowScopes[rowIndex];
+				points[rowIndex] = cursor;
+				if (scope == 0) {
+					continue;
+				}
+				Arrays.fill(termRows, cursor, cursor + scope, rowIndex);
+				System.arraycopy(rowColumns[rowIndex], 0, termColumns, cursor, scope);
+				System.arraycopy(rowValues[rowIndex], 0, termValues, cursor, scope);
+				cursor += scope;
+			}
+			points[rowSize] = cursor;
+			snapshot = SparseMatrix.valueOf(rowSize, columnSize, termRows, termColumns, termValues);
+			snapshotPoints = points;
+			snapshotValues = termValues;
+			structured = false;
+			modifiedRows.clear();
+		} else if (!modifiedRows.isEmpty()) {
+			float[] termValues = Arrays.copyOf(snapshotValues, snapshotValues.length);
+			for (int rowIndex = modifiedRows.nextSetBit(0); rowIndex >= 0; rowIndex = modifiedRows.nextSetBit(rowIndex + 1)) {
+				System.arraycopy(rowValues[rowIndex], 0, termValues, snapshotPoints[rowIndex], rowScopes[rowIndex]);
+			}
+			snapshot = SparseMatrix.copyOf(snapshot, termValues);
+			snapshotValues = termValues;
+			modifiedRows.clear();
+		}
+		return snapshot;
+	}
+
+}
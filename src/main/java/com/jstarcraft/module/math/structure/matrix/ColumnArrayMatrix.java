@@ -1,8 +1,6 @@
 package com.jstarcraft.module.math.structure.matrix;
 
 import java.util.Iterator;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Semaphore;
 
 import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.math.structure.MathAccessor;
@@ -35,12 +33,9 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 		}
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
-			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int cursor = 0; cursor < columnSize; cursor++) {
-				int columnIndex = cursor;
-				context.doStructureByAny(cursor, () -> {
-					ArrayMatrixScalar scalar = new ArrayMatrixScalar();
+			context.doStructureByRange(0, columnSize, 0, (from, to) -> {
+				ArrayMatrixScalar scalar = new ArrayMatrixScalar();
+				for (int columnIndex = from; columnIndex < to; columnIndex++) {
 					ArrayVector vector = vectors[columnIndex];
 					for (VectorScalar term : vector) {
 						scalar.update(term, term.getIndex(), columnIndex);
@@ -48,14 +43,8 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 							accessor.accessScalar(scalar);
 						}
 					}
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(columnSize);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -87,24 +76,16 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int cursor = 0; cursor < columnSize; cursor++) {
-				int columnIndex = cursor;
-				context.doStructureByAny(cursor, () -> {
-					T copy = storage.detachMessage(message);
+			context.doStructureByRange(0, columnSize, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int columnIndex = from; columnIndex < to; columnIndex++) {
 					ArrayVector vector = vectors[columnIndex];
 					vector.collectValues((index, value, information) -> {
 						collector.collect(index, columnIndex, value, copy);
 					}, message, MathCalculator.SERIAL);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(columnSize);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
@@ -126,24 +107,16 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int cursor = 0; cursor < columnSize; cursor++) {
-				int columnIndex = cursor;
-				context.doStructureByAny(cursor, () -> {
-					T copy = storage.detachMessage(message);
+			context.doStructureByRange(0, columnSize, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int columnIndex = from; columnIndex < to; columnIndex++) {
 					ArrayVector vector = vectors[columnIndex];
 					vector.mapValues((index, value, information) -> {
 						return mapper.map(index, columnIndex, value, copy);
 					}, message, MathCalculator.SERIAL);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(columnSize);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
@@ -191,6 +164,9 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 
 	@Override
 	public MathMatrix dotProduct(MathMatrix leftMatrix, boolean leftTranspose, MathMatrix rightMatrix, boolean rightTranspose, MathCalculator mode) {
+		if (MatrixKernel.product(this, leftMatrix, leftTranspose, rightMatrix, rightTranspose, false, mode)) {
+			return this;
+		}
 		// TODO 此处可以考虑性能优化.
 		// TODO 可能触发元素变更.
 		switch (mode) {
@@ -205,27 +181,18 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 			return this;
 		}
 		default: {
-			int size = this.getColumnSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (int index = 0; index < size; index++) {
-				int columnIndex = index;
-				MathVector columnVector = this.getColumnVector(index);
-				context.doStructureByAny(index, () -> {
+			context.doStructureByRange(0, this.getColumnSize(), 0, (from, to) -> {
+				for (int columnIndex = from; columnIndex < to; columnIndex++) {
+					MathVector columnVector = this.getColumnVector(columnIndex);
 					for (VectorScalar term : columnVector) {
 						int rowIndex = term.getIndex();
 						MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
 						MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 						term.dotProduct(leftVector, rightVector);
 					}
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -275,14 +242,12 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 			return this;
 		}
 		default: {
-			int size = columnVector.getElementSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (VectorScalar term : columnVector) {
-				float columnValue = term.getValue();
-				MathVector leftVector = this.getColumnVector(term.getIndex());
-				MathVector rightVector = rowVector;
-				context.doStructureByAny(term.getIndex(), () -> {
+			context.doStructureByRange(0, columnVector.getElementSize(), 0, (from, to) -> {
+				for (int position = from; position < to; position++) {
+					float columnValue = columnVector.getValue(position);
+					MathVector leftVector = this.getColumnVector(columnVector.getIndex(position));
+					MathVector rightVector = rowVector;
 					int leftIndex = 0, rightIndex = 0, leftSize = leftVector.getElementSize(), rightSize = rightVector.getElementSize();
 					if (leftSize != 0 && rightSize != 0) {
 						Iterator<VectorScalar> leftIterator = leftVector.iterator();
@@ -314,14 +279,8 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 							}
 						}
 					}
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -329,6 +288,9 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 
 	@Override
 	public MathMatrix accumulateProduct(MathMatrix leftMatrix, boolean leftTranspose, MathMatrix rightMatrix, boolean rightTranspose, MathCalculator mode) {
+		if (MatrixKernel.product(this, leftMatrix, leftTranspose, rightMatrix, rightTranspose, true, mode)) {
+			return this;
+		}
 		// TODO 此处可以考虑性能优化.
 		// TODO 可能触发元素变更.
 		switch (mode) {
@@ -343,27 +305,18 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 			return this;
 		}
 		default: {
-			int size = this.getColumnSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (int index = 0; index < size; index++) {
-				int columnIndex = index;
-				MathVector columnVector = this.getColumnVector(index);
-				context.doStructureByAny(index, () -> {
+			context.doStructureByRange(0, this.getColumnSize(), 0, (from, to) -> {
+				for (int columnIndex = from; columnIndex < to; columnIndex++) {
+					MathVector columnVector = this.getColumnVector(columnIndex);
 					for (VectorScalar term : columnVector) {
 						int rowIndex = term.getIndex();
 						MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
 						MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 						term.accumulateProduct(leftVector, rightVector);
 					}
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -413,14 +366,12 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 			return this;
 		}
 		default: {
-			int size = columnVector.getElementSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (VectorScalar term : columnVector) {
-				float columnValue = term.getValue();
-				MathVector leftVector = this.getColumnVector(term.getIndex());
-				MathVector rightVector = rowVector;
-				context.doStructureByAny(term.getIndex(), () -> {
+			context.doStructureByRange(0, columnVector.getElementSize(), 0, (from, to) -> {
+				for (int position = from; position < to; position++) {
+					float columnValue = columnVector.getValue(position);
+					MathVector leftVector = this.getColumnVector(columnVector.getIndex(position));
+					MathVector rightVector = rowVector;
 					int leftIndex = 0, rightIndex = 0, leftSize = leftVector.getElementSize(), rightSize = rightVector.getElementSize();
 					if (leftSize != 0 && rightSize != 0) {
 						Iterator<VectorScalar> leftIterator = leftVector.iterator();
@@ -452,14 +403,8 @@ public class ColumnArrayMatrix extends ArrayMatrix {
 							}
 						}
 					}
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
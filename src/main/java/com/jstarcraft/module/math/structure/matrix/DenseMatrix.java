@@ -1,7 +1,7 @@
 package com.jstarcraft.module.math.structure.matrix;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.concurrent.Semaphore;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -72,57 +72,18 @@ public class DenseMatrix implements MathMatrix {
 			return this;
 		}
 		default: {
-			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					context.doStructureByAny(index, () -> {
-						DenseMatrixScalar scalar = new DenseMatrixScalar();
-						for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
-							int cursor = rowIndex * columnSize + columnIndex;
-							scalar.update(cursor);
-							for (MathAccessor<MatrixScalar> accessor : accessors) {
-								accessor.accessScalar(scalar);
-							}
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				return this;
-			} else {
-				int size = rowSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					context.doStructureByAny(index, () -> {
-						DenseMatrixScalar scalar = new DenseMatrixScalar();
-						for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-							int cursor = rowIndex * columnSize + columnIndex;
-							scalar.update(cursor);
-							for (MathAccessor<MatrixScalar> accessor : accessors) {
-								accessor.accessScalar(scalar);
-							}
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
+			// 按数据的连续区间拆分,不受行列形状的影响
+			EnvironmentContext context = EnvironmentContext.getContext();
+			context.doStructureByRange(0, rowSize * columnSize, 0, (from, to) -> {
+				DenseMatrixScalar scalar = new DenseMatrixScalar();
+				for (int cursor = from; cursor < to; cursor++) {
+					scalar.update(cursor);
+					for (MathAccessor<MatrixScalar> accessor : accessors) {
+						accessor.accessScalar(scalar);
+					}
 				}
-				return this;
-			}
+			});
+			return this;
 		}
 		}
 	}
@@ -201,6 +162,19 @@ public class DenseMatrix implements MathMatrix {
 		return true;
 	}
 
+	/**
+	 * 获取数据(行主序)
+	 * 
+	 * <pre>
+	 * 返回内部数组的引用(不复制),用于内核直接运算.
+	 * </pre>
+	 * 
+	 * @return
+	 */
+	public float[] getValues() {
+		return values;
+	}
+
 	@Override
 	public float getValue(int rowIndex, int columnIndex) {
 		return values[rowIndex * columnSize + columnIndex];
@@ -234,53 +208,21 @@ public class DenseMatrix implements MathMatrix {
 			return this;
 		}
 		default: {
-			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
-							int cursor = rowIndex * columnSize + columnIndex;
-							collector.collect(rowIndex, columnIndex, values[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				return this;
-			} else {
-				int size = rowSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-							int cursor = rowIndex * columnSize + columnIndex;
-							collector.collect(rowIndex, columnIndex, values[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
+			EnvironmentContext context = EnvironmentContext.getContext();
+			MessageStorage storage = MathCalculator.getStorage();
+			context.doStructureByRange(0, rowSize * columnSize, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				int rowIndex = from / columnSize, columnIndex = from % columnSize;
+				for (int cursor = from; cursor < to; cursor++) {
+					collector.collect(rowIndex, columnIndex, values[cursor], copy);
+					if (++columnIndex == columnSize) {
+						columnIndex = 0;
+						rowIndex++;
+					}
 				}
-				return this;
-			}
+			});
+			storage.attachMessage(message);
+			return this;
 		}
 		}
 	}
@@ -298,53 +240,21 @@ public class DenseMatrix implements MathMatrix {
 			return this;
 		}
 		default: {
-			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
-							int cursor = rowIndex * columnSize + columnIndex;
-							values[cursor] = mapper.map(rowIndex, columnIndex, values[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				return this;
-			} else {
-				int size = rowSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-							int cursor = rowIndex * columnSize + columnIndex;
-							values[cursor] = mapper.map(rowIndex, columnIndex, values[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
+			EnvironmentContext context = EnvironmentContext.getContext();
+			MessageStorage storage = MathCalculator.getStorage();
+			context.doStructureByRange(0, rowSize * columnSize, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				int rowIndex = from / columnSize, columnIndex = from % columnSize;
+				for (int cursor = from; cursor < to; cursor++) {
+					values[cursor] = mapper.map(rowIndex, columnIndex, values[cursor], copy);
+					if (++columnIndex == columnSize) {
+						columnIndex = 0;
+						rowIndex++;
+					}
 				}
-				return this;
-			}
+			});
+			storage.attachMessage(message);
+			return this;
 		}
 		}
 	}
@@ -464,6 +374,24 @@ public class DenseMatrix implements MathMatrix {
 		}
 	}
 
+	@Override
+	public MathMatrix dotProduct(MathMatrix leftMatrix, boolean leftTranspose, MathMatrix rightMatrix, boolean rightTranspose, MathCalculator mode) {
+		if (MatrixKernel.product(this, leftMatrix, leftTranspose, rightMatrix, rightTranspose, false, mode)) {
+			return this;
+		} else {
+			return MathMatrix.super.dotProduct(leftMatrix, leftTranspose, rightMatrix, rightTranspose, mode);
+		}
+	}
+
+	@Override
+	public MathMatrix accumulateProduct(MathMatrix leftMatrix, boolean leftTranspose, MathMatrix rightMatrix, boolean rightTranspose, MathCalculator mode) {
+		if (MatrixKernel.product(this, leftMatrix, leftTranspose, rightMatrix, rightTranspose, true, mode)) {
+			return this;
+		} else {
+			return MathMatrix.super.accumulateProduct(leftMatrix, leftTranspose, rightMatrix, rightTranspose, mode);
+		}
+	}
+
 	@Override
 	public boolean equals(Object object) {
 		if (this == object)
@@ -583,6 +511,35 @@ public class DenseMatrix implements MathMatrix {
 		return instance;
 	}
 
+	/**
+	 * 扩展行(已有的行保持不变,新增的行由mapper设置)
+	 * 
+	 * <pre>
+	 * 底层数组按照1.5倍预留容量,容量足够时直接复用原数组.
+	 * </pre>
+	 * 
+	 * @param matrix
+	 * @param rowSize
+	 * @param mapper
+	 * @return
+	 */
+	public static DenseMatrix expandOf(DenseMatrix matrix, int rowSize, MatrixMapper<?> mapper) {
+		assert rowSize >= matrix.rowSize;
+		int columnSize = matrix.columnSize;
+		float[] data = matrix.values;
+		if (data.length < rowSize * columnSize) {
+			data = Arrays.copyOf(data, Math.max(rowSize, matrix.rowSize + (matrix.rowSize >> 1)) * columnSize);
+		}
+		DenseMatrix instance = new DenseMatrix(rowSize, columnSize, data);
+		for (int row = matrix.rowSize; row < rowSize; row++) {
+			for (int column = 0; column < columnSize; column++) {
+				int index = row * columnSize + column;
+				instance.values[index] = mapper.map(row, column, 0F, null);
+			}
+		}
+		return instance;
+	}
+
 	public static DenseMatrix valueOf(int rowSize, int columnSize) {
 		DenseMatrix instance = new DenseMatrix(rowSize, columnSize, new float[rowSize * columnSize]);
 		return instance;
@@ -1,7 +1,6 @@
 package com.jstarcraft.module.math.structure.matrix;
 
 import java.util.Iterator;
-import java.util.concurrent.CountDownLatch;
 
 import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.math.structure.MathCalculator;
@@ -384,50 +383,31 @@ public interface MathMatrix extends MathIterator<MatrixScalar> {
 			return this;
 		}
 		default: {
+			EnvironmentContext context = EnvironmentContext.getContext();
 			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = this.getColumnSize();
-				EnvironmentContext context = EnvironmentContext.getContext();
-				CountDownLatch latch = new CountDownLatch(size);
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					MathVector columnVector = this.getColumnVector(index);
-					context.doStructureByAny(index, () -> {
+				context.doStructureByRange(0, this.getColumnSize(), 0, (from, to) -> {
+					for (int columnIndex = from; columnIndex < to; columnIndex++) {
+						MathVector columnVector = this.getColumnVector(columnIndex);
+						MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 						for (VectorScalar term : columnVector) {
 							int rowIndex = term.getIndex();
 							MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
-							MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 							term.dotProduct(leftVector, rightVector);
 						}
-						latch.countDown();
-					});
-				}
-				try {
-					latch.await();
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
+					}
+				});
 			} else {
-				int size = this.getRowSize();
-				EnvironmentContext context = EnvironmentContext.getContext();
-				CountDownLatch latch = new CountDownLatch(size);
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					MathVector rowVector = this.getRowVector(index);
-					context.doStructureByAny(index, () -> {
+				context.doStructureByRange(0, this.getRowSize(), 0, (from, to) -> {
+					for (int rowIndex = from; rowIndex < to; rowIndex++) {
+						MathVector rowVector = this.getRowVector(rowIndex);
+						MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
 						for (VectorScalar term : rowVector) {
 							int columnIndex = term.getIndex();
-							MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
 							MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 							term.dotProduct(leftVector, rightVector);
 						}
-						latch.countDown();
-					});
-				}
-				try {
-					latch.await();
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
+					}
+				});
 			}
 			return this;
 		}
@@ -527,15 +507,13 @@ public interface MathMatrix extends MathIterator<MatrixScalar> {
 			return this;
 		}
 		default: {
+			EnvironmentContext context = EnvironmentContext.getContext();
 			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnVector.getElementSize();
-				EnvironmentContext context = EnvironmentContext.getContext();
-				CountDownLatch latch = new CountDownLatch(size);
-				for (VectorScalar term : columnVector) {
-					float columnValue = term.getValue();
-					MathVector leftVector = this.getColumnVector(term.getIndex());
-					MathVector rightVector = rowVector;
-					context.doStructureByAny(term.getIndex(), () -> {
+				context.doStructureByRange(0, columnVector.getElementSize(), 0, (from, to) -> {
+					for (int position = from; position < to; position++) {
+						float columnValue = columnVector.getValue(position);
+						MathVector leftVector = this.getColumnVector(columnVector.getIndex(position));
+						MathVector rightVector = rowVector;
 						int leftIndex = 0, rightIndex = 0, leftSize = leftVector.getElementSize(), rightSize = rightVector.getElementSize();
 						if (leftSize != 0 && rightSize != 0) {
 							Iterator<VectorScalar> leftIterator = leftVector.iterator();
@@ -567,23 +545,14 @@ public interface MathMatrix extends MathIterator<MatrixScalar> {
 								}
 							}
 						}
-						latch.countDown();
-					});
-				}
-				try {
-					latch.await();
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
+					}
+				});
 			} else {
-				int size = rowVector.getElementSize();
-				EnvironmentContext context = EnvironmentContext.getContext();
-				CountDownLatch latch = new CountDownLatch(size);
-				for (VectorScalar term : rowVector) {
-					float rowValue = term.getValue();
-					MathVector leftVector = this.getRowVector(term.getIndex());
-					MathVector rightVector = columnVector;
-					context.doStructureByAny(term.getIndex(), () -> {
+				context.doStructureByRange(0, rowVector.getElementSize(), 0, (from, to) -> {
+					for (int position = from; position < to; position++) {
+						float rowValue = rowVector.getValue(position);
+						MathVector leftVector = this.getRowVector(rowVector.getIndex(position));
+						MathVector rightVector = columnVector;
 						int leftIndex = 0, rightIndex = 0, leftSize = leftVector.getElementSize(), rightSize = rightVector.getElementSize();
 						if (leftSize != 0 && rightSize != 0) {
 							Iterator<VectorScalar> leftIterator = leftVector.iterator();
@@ -615,14 +584,8 @@ public interface MathMatrix extends MathIterator<MatrixScalar> {
 								}
 							}
 						}
-						latch.countDown();
-					});
-				}
-				try {
-					latch.await();
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
+					}
+				});
 			}
 			return this;
 		}
@@ -657,50 +620,31 @@ public interface MathMatrix extends MathIterator<MatrixScalar> {
 			return this;
 		}
 		default: {
+			EnvironmentContext context = EnvironmentContext.getContext();
 			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = this.getColumnSize();
-				EnvironmentContext context = EnvironmentContext.getContext();
-				CountDownLatch latch = new CountDownLatch(size);
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					MathVector columnVector = this.getColumnVector(index);
-					context.doStructureByAny(index, () -> {
+				context.doStructureByRange(0, this.getColumnSize(), 0, (from, to) -> {
+					for (int columnIndex = from; columnIndex < to; columnIndex++) {
+						MathVector columnVector = this.getColumnVector(columnIndex);
+						MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 						for (VectorScalar term : columnVector) {
 							int rowIndex = term.getIndex();
 							MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
-							MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 							term.accumulateProduct(leftVector, rightVector);
 						}
-						latch.countDown();
-					});
-				}
-				try {
-					latch.await();
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
+					}
+				});
 			} else {
-				int size = this.getRowSize();
-				EnvironmentContext context = EnvironmentContext.getContext();
-				CountDownLatch latch = new CountDownLatch(size);
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					MathVector rowVector = this.getRowVector(index);
-					context.doStructureByAny(index, () -> {
+				context.doStructureByRange(0, this.getRowSize(), 0, (from, to) -> {
+					for (int rowIndex = from; rowIndex < to; rowIndex++) {
+						MathVector rowVector = this.getRowVector(rowIndex);
+						MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
 						for (VectorScalar term : rowVector) {
 							int columnIndex = term.getIndex();
-							MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
 							MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 							term.accumulateProduct(leftVector, rightVector);
 						}
-						latch.countDown();
-					});
-				}
-				try {
-					latch.await();
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
+					}
+				});
 			}
 			return this;
 		}
@@ -800,15 +744,13 @@ public interface MathMatrix extends MathIterator<MatrixScalar> {
 			return this;
 		}
 		default: {
+			EnvironmentContext context = EnvironmentContext.getContext();
 			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnVector.getElementSize();
-				EnvironmentContext context = EnvironmentContext.getContext();
-				CountDownLatch latch = new CountDownLatch(size);
-				for (VectorScalar term : columnVector) {
-					float columnValue = term.getValue();
-					MathVector leftVector = this.getColumnVector(term.getIndex());
-					MathVector rightVector = rowVector;
-					context.doStructureByAny(term.getIndex(), () -> {
+				context.doStructureByRange(0, columnVector.getElementSize(), 0, (from, to) -> {
+					for (int position = from; position < to; position++) {
+						float columnValue = columnVector.getValue(position);
+						MathVector leftVector = this.getColumnVector(columnVector.getIndex(position));
+						MathVector rightVector = rowVector;
 						int leftIndex = 0, rightIndex = 0, leftSize = leftVector.getElementSize(), rightSize = rightVector.getElementSize();
 						if (leftSize != 0 && rightSize != 0) {
 							Iterator<VectorScalar> leftIterator = leftVector.iterator();
@@ -840,23 +782,14 @@ public interface MathMatrix extends MathIterator<MatrixScalar> {
 								}
 							}
 						}
-						latch.countDown();
-					});
-				}
-				try {
-					latch.await();
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
+					}
+				});
 			} else {
-				int size = rowVector.getElementSize();
-				EnvironmentContext context = EnvironmentContext.getContext();
-				CountDownLatch latch = new CountDownLatch(size);
-				for (VectorScalar term : rowVector) {
-					float rowValue = term.getValue();
-					MathVector leftVector = this.getRowVector(term.getIndex());
-					MathVector rightVector = columnVector;
-					context.doStructureByAny(term.getIndex(), () -> {
+				context.doStructureByRange(0, rowVector.getElementSize(), 0, (from, to) -> {
+					for (int position = from; position < to; position++) {
+						float rowValue = rowVector.getValue(position);
+						MathVector leftVector = this.getRowVector(rowVector.getIndex(position));
+						MathVector rightVector = columnVector;
 						int leftIndex = 0, rightIndex = 0, leftSize = leftVector.getElementSize(), rightSize = rightVector.getElementSize();
 						if (leftSize != 0 && rightSize != 0) {
 							Iterator<VectorScalar> leftIterator = leftVector.iterator();
@@ -888,14 +821,8 @@ public interface MathMatrix extends MathIterator<MatrixScalar> {
 								}
 							}
 						}
-						latch.countDown();
-					});
-				}
-				try {
-					latch.await();
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
+					}
+				});
 			}
 			return this;
 		}
@@ -0,0 +1,196 @@
+package com.jstarcraft.module.math.structure.matrix;
+
+import java.util.Arrays;
+
+import com.jstarcraft.module.math.structure.MathCombiner;
+
+/**
+ * 矩阵构建器
+ *
+ * <pre>
+ * 以坐标格式(COO)接收元素,行,列与值分别保存在原始类型数组,不装箱.
+ * 构建时先按照列再按照行执行两次稳定的计数排序得到行主序,坐标相同的元素按照追加的顺序通过{@link MathCombiner}合并,
+ * 然后通过{@link SparseMatrix#valueOf(int, int, int[], int[], float[])}构建行列索引.
+ * 用于代替{@link com.google.common.collect.Table},每个元素只占用12字节(构建时另外需要8字节的临时空间).
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class MatrixBuilder {
+
+	/** 默认容量 */
+	private static final int DEFAULT_CAPACITY = 1000;
+
+	/** 行列大小 */
+	private final int rowSize, columnSize;
+
+	/** 合并器 */
+	private final MathCombiner combiner;
+
+	/** 元素数量 */
+	private int size;
+
+	private int[] rows;
+
+	private int[] columns;
+
+	private float[] values;
+
+	public MatrixBuilder(int rowSize, int columnSize, MathCombiner combiner) {
+		this(rowSize, columnSize, combiner, DEFAULT_CAPACITY);
+	}
+
+	public MatrixBuilder(int rowSize, int columnSize, MathCombiner combiner, int capacity) {
+		if (rowSize < 0 || columnSize < 0 || capacity < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.rowSize = rowSize;
+		this.columnSize = columnSize;
+		this.combiner = combiner;
+		this.rows = new int[capacity];
+		this.columns = new int[capacity];
+		this.values = new float[capacity];
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > rows.length) {
+			capacity = Math.max(capacity, rows.length + (rows.length >> 1) + 1);
+			rows = Arrays.copyOf(rows, capacity);
+			columns = Arrays.copyOf(columns, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	/**
+	 * 追加元素
+	 *
+	 * @param row
+	 * @param column
+	 * @param value
+	 */
+	public void append(int row, int column, float value) {
+		if (row < 0 || row >= rowSize || column < 0 || column >= columnSize) {
+			throw new IndexOutOfBoundsException();
+		}
+		ensureCapacity(size + 1);
+		rows[size] = row;
+		columns[size] = column;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * 批量追加元素
+	 *
+	 * @param rows
+	 * @param columns
+	 * @param values
+	 */
+	public void append(int[] rows, int[] columns, float[] values) {
+		if (rows.length != columns.length || rows.length != values.length) {
+			throw new IllegalArgumentException();
+		}
+		int length = rows.length;
+		for (int index = 0; index < length; index++) {
+			if (rows[index] < 0 || rows[index] >= rowSize || columns[index] < 0 || columns[index] >= columnSize) {
+				throw new IndexOutOfBoundsException();
+			}
+		}
+		ensureCapacity(size + length);
+		System.arraycopy(rows, 0, this.rows, size, length);
+		System.arraycopy(columns, 0, this.columns, size, length);
+		System.arraycopy(values, 0, this.values, size, length);
+		size += length;
+	}
+
+	/**
+	 * 获取已经追加的元素数量(包括坐标重复的元素)
+	 *
+	 * @return
+	 */
+	public int getElementSize() {
+		return size;
+	}
+
+	public int getRowSize() {
+		return rowSize;
+	}
+
+	public int getColumnSize() {
+		return columnSize;
+	}
+
+	/**
+	 * 清理元素(保留容量)
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * 构建稀疏矩阵
+	 *
+	 * <pre>
+	 * 构建之后构建器仍然可用.
+	 * </pre>
+	 *
+	 * @return
+	 */
+	public SparseMatrix build() {
+		int[] buffer = new int[size];
+		int[] order = new int[size];
+		int[] points = new int[Math.max(rowSize, columnSize) + 1];
+		// 第一次计数排序(按照列)
+		for (int index = 0; index < size; index++) {
+			points[columns[index] + 1]++;
+		}
+		for (int point = 1; point <= columnSize; point++) {
+			points[point] += points[point - 1];
+		}
+		for (int index = 0; index < size; index++) {
+			buffer[points[columns[index]]++] = index;
+		}
+		// 第二次计数排序(按照行,稳定,所以行内的列递增,相同坐标保持追加的顺序)
+		Arrays.fill(points, 0);
+		for (int index = 0; index < size; index++) {
+			points[rows[index] + 1]++;
+		}
+		for (int point = 1; point <= rowSize; point++) {
+			points[point] += points[point - 1];
+		}
+		for (int position = 0; position < size; position++) {
+			int index = buffer[position];
+			order[points[rows[index]]++] = index;
+		}
+		buffer = null;
+		points = null;
+
+		// 合并相同坐标的元素
+		int[] termRows = new int[size];
+		int[] termColumns = new int[size];
+		float[] termValues = new float[size];
+		int cursor = -1;
+		for (int position = 0; position < size; position++) {
+			int index = order[position];
+			int row = rows[index];
+			int column = columns[index];
+			if (cursor >= 0 && termRows[cursor] == row && termColumns[cursor] == column) {
+				termValues[cursor] = combiner.combine(termValues[cursor], values[index]);
+			} else {
+				cursor++;
+				termRows[cursor] = row;
+				termColumns[cursor] = column;
+				termValues[cursor] = values[index];
+			}
+		}
+		cursor++;
+		if (cursor < size) {
+			termRows = Arrays.copyOf(termRows, cursor);
+			termColumns = Arrays.copyOf(termColumns, cursor);
+			termValues = Arrays.copyOf(termValues, cursor);
+		}
+		return SparseMatrix.valueOf(rowSize, columnSize, termRows, termColumns, termValues);
+	}
+
+}
@@ -0,0 +1,578 @@
+package com.jstarcraft.module.math.structure.matrix;
+
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.environment.RangeCommand;
+import com.jstarcraft.module.math.structure.MathCalculator;
+
+/**
+ * 矩阵内核
+ * 
+ * <pre>
+ * 通用矩阵乘法(GEMM):output = op(left) × op(right),所有数组均为行主序.
+ * 输出按(行块,列块)划分为分片,每个分片按深度块累加:
+ * 1.缓存分块:左矩阵打包为(行块×深度块),右矩阵打包为(深度块×列块),保证工作集驻留在L1/L2;
+ * 2.寄存器分块:每次处理4行,复用右矩阵的同一个元素;
+ * 3.最内层循环为连续数组上的乘加,由C2自动向量化.
+ * PARALLEL模式下分片由工作窃取线程执行.
+ * 
+ * 稀疏矩阵与稠密矩阵/向量的乘法(SpMM/SpMV)直接遍历SparseMatrix的CRS/CCS数组.
+ * 稠密矩阵与稠密向量的乘法(GEMV)直接遍历DenseMatrix的行主序数组.
+ * </pre>
+ * 
+ * @author Birdy
+ * 
+ */
+public final class MatrixKernel {
+
+	/** 缓存分块(行) */
+	private static final int ROW_BLOCK = 64;
+
+	/** 缓存分块(深度) */
+	private static final int DEPTH_BLOCK = 256;
+
+	/** 缓存分块(列) */
+	private static final int COLUMN_BLOCK = 512;
+
+	/** 寄存器分块(行) */
+	private static final int ROW_TILE = 4;
+
+	/** 稀疏内核的分区数量 */
+	private static final int PARTITION_SIZE = Runtime.getRuntime().availableProcessors() * 4;
+
+	/** 左矩阵打包缓存 */
+	private static final ThreadLocal<float[]> LEFT_CACHES = ThreadLocal.withInitial(() -> new float[ROW_BLOCK * DEPTH_BLOCK]);
+
+	/** 右矩阵打包缓存 */
+	private static final ThreadLocal<float[]> RIGHT_CACHES = ThreadLocal.withInitial(() -> new float[DEPTH_BLOCK * COLUMN_BLOCK]);
+
+	/** 输出分片缓存 */
+	private static final ThreadLocal<float[]> OUTPUT_CACHES = ThreadLocal.withInitial(() -> new float[ROW_BLOCK * COLUMN_BLOCK]);
+
+	private MatrixKernel() {
+	}
+
+	/**
+	 * 获取矩阵的稠密数据(行主序)
+	 * 
+	 * <pre>
+	 * DenseMatrix直接返回数据,满秩的ArrayMatrix展开为稠密数组,其它矩阵返回null.
+	 * </pre>
+	 * 
+	 * @param matrix
+	 * @return
+	 */
+	static float[] getValues(MathMatrix matrix) {
+		if (matrix instanceof DenseMatrix) {
+			return DenseMatrix.class.cast(matrix).getValues();
+		}
+		if (matrix instanceof ArrayMatrix && isFull(matrix)) {
+			int columnSize = matrix.getColumnSize();
+			float[] values = new float[matrix.getRowSize() * columnSize];
+			for (MatrixScalar term : matrix) {
+				values[term.getRow() * columnSize + term.getColumn()] = term.getValue();
+			}
+			return values;
+		}
+		return null;
+	}
+
+	/**
+	 * 是否所有元素都已知
+	 * 
+	 * @param matrix
+	 * @return
+	 */
+	static boolean isFull(MathMatrix matrix) {
+		return matrix.getElementSize() == matrix.getRowSize() * matrix.getColumnSize();
+	}
+
+	/**
+	 * 矩阵乘法
+	 * 
+	 * <pre>
+	 * 输出矩阵为DenseMatrix或者满秩的ArrayMatrix时使用内核:
+	 * 1.两个输入矩阵都能够展开为稠密数据,使用GEMM;
+	 * 2.一个输入矩阵为SparseMatrix,另外一个能够展开为稠密数据,使用SpMM.
+	 * 否则返回false由调用方回退到通用实现.
+	 * </pre>
+	 * 
+	 * @param outputMatrix
+	 * @param leftMatrix
+	 * @param leftTranspose
+	 * @param rightMatrix
+	 * @param rightTranspose
+	 * @param accumulate
+	 *            是否累加到输出
+	 * @param mode
+	 * @return
+	 */
+	static boolean product(MathMatrix outputMatrix, MathMatrix leftMatrix, boolean leftTranspose, MathMatrix rightMatrix, boolean rightTranspose, boolean accumulate, MathCalculator mode) {
+		if (!(outputMatrix instanceof DenseMatrix) && !(outputMatrix instanceof ArrayMatrix && isFull(outputMatrix))) {
+			return false;
+		}
+		if (outputMatrix == leftMatrix || outputMatrix == rightMatrix) {
+			return false;
+		}
+		if (leftMatrix instanceof SparseMatrix && rightMatrix instanceof SparseMatrix) {
+			return false;
+		}
+		float[] leftValues = leftMatrix instanceof SparseMatrix ? null : getValues(leftMatrix);
+		if (leftValues == null && !(leftMatrix instanceof SparseMatrix)) {
+			return false;
+		}
+		float[] rightValues = rightMatrix instanceof SparseMatrix ? null : getValues(rightMatrix);
+		if (rightValues == null && !(rightMatrix instanceof SparseMatrix)) {
+			return false;
+		}
+		int rowSize = outputMatrix.getRowSize();
+		int columnSize = outputMatrix.getColumnSize();
+		int depthSize = leftTranspose ? leftMatrix.getRowSize() : leftMatrix.getColumnSize();
+		assert rowSize == (leftTranspose ? leftMatrix.getColumnSize() : leftMatrix.getRowSize());
+		assert columnSize == (rightTranspose ? rightMatrix.getRowSize() : rightMatrix.getColumnSize());
+		assert depthSize == (rightTranspose ? rightMatrix.getColumnSize() : rightMatrix.getRowSize());
+		boolean dense = outputMatrix instanceof DenseMatrix;
+		float[] outputValues = dense ? DenseMatrix.class.cast(outputMatrix).getValues() : new float[rowSize * columnSize];
+		// 非稠密输出先计算到临时数组,再设置或者累加到已知元素
+		boolean accumulation = dense && accumulate;
+		if (leftMatrix instanceof SparseMatrix) {
+			if (rightTranspose) {
+				rightValues = transpose(rightValues, rightMatrix.getRowSize(), rightMatrix.getColumnSize());
+			}
+			multiply(SparseMatrix.class.cast(leftMatrix), leftTranspose, rightValues, outputValues, rowSize, columnSize, accumulation, mode);
+		} else if (rightMatrix instanceof SparseMatrix) {
+			multiply(leftValues, leftMatrix.getColumnSize(), leftTranspose, SparseMatrix.class.cast(rightMatrix), rightTranspose, outputValues, rowSize, columnSize, depthSize, accumulation, mode);
+		} else {
+			multiply(leftValues, leftMatrix.getColumnSize(), leftTranspose, rightValues, rightMatrix.getColumnSize(), rightTranspose, outputValues, rowSize, columnSize, depthSize, accumulation, mode);
+		}
+		if (!dense) {
+			for (MatrixScalar term : outputMatrix) {
+				float value = outputValues[term.getRow() * columnSize + term.getColumn()];
+				if (accumulate) {
+					term.shiftValue(value);
+				} else {
+					term.setValue(value);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 转置稠密数据(行主序)
+	 */
+	private static float[] transpose(float[] values, int rowSize, int columnSize) {
+		float[] transposes = new float[rowSize * columnSize];
+		for (int row = 0; row < rowSize; row++) {
+			int from = row * columnSize;
+			for (int column = 0; column < columnSize; column++) {
+				transposes[column * rowSize + row] = values[from + column];
+			}
+		}
+		return transposes;
+	}
+
+	/**
+	 * 矩阵乘法
+	 * 
+	 * @param leftValues
+	 *            左矩阵数据(行主序)
+	 * @param leftColumnSize
+	 *            左矩阵存储的列数
+	 * @param leftTranspose
+	 * @param rightValues
+	 *            右矩阵数据(行主序)
+	 * @param rightColumnSize
+	 *            右矩阵存储的列数
+	 * @param rightTranspose
+	 * @param outputValues
+	 *            输出矩阵数据(行主序)
+	 * @param rowSize
+	 *            输出矩阵的行数
+	 * @param columnSize
+	 *            输出矩阵的列数
+	 * @param depthSize
+	 *            乘法的深度
+	 * @param accumulate
+	 *            是否累加到输出
+	 * @param mode
+	 */
+	public static void multiply(float[] leftValues, int leftColumnSize, boolean leftTranspose, float[] rightValues, int rightColumnSize, boolean rightTranspose, float[] outputValues, int rowSize, int columnSize, int depthSize, boolean accumulate, MathCalculator mode) {
+		int rowBlocks = (rowSize + ROW_BLOCK - 1) / ROW_BLOCK;
+		int columnBlocks = (columnSize + COLUMN_BLOCK - 1) / COLUMN_BLOCK;
+		int size = rowBlocks * columnBlocks;
+		switch (mode) {
+		case SERIAL: {
+			for (int index = 0; index < size; index++) {
+				int rowFrom = (index / columnBlocks) * ROW_BLOCK;
+				int columnFrom = (index % columnBlocks) * COLUMN_BLOCK;
+				multiplyTile(leftValues, leftColumnSize, leftTranspose, rightValues, rightColumnSize, rightTranspose, outputValues, columnSize, depthSize, rowFrom, Math.min(rowFrom + ROW_BLOCK, rowSize), columnFrom, Math.min(columnFrom + COLUMN_BLOCK, columnSize), accumulate);
+			}
+			return;
+		}
+		default: {
+			if (size == 1) {
+				multiplyTile(leftValues, leftColumnSize, leftTranspose, rightValues, rightColumnSize, rightTranspose, outputValues, columnSize, depthSize, 0, rowSize, 0, columnSize, accumulate);
+				return;
+			}
+			EnvironmentContext context = EnvironmentContext.getContext();
+			context.doStructureByRange(0, size, 1, (from, to) -> {
+				for (int index = from; index < to; index++) {
+					int rowFrom = (index / columnBlocks) * ROW_BLOCK;
+					int columnFrom = (index % columnBlocks) * COLUMN_BLOCK;
+					multiplyTile(leftValues, leftColumnSize, leftTranspose, rightValues, rightColumnSize, rightTranspose, outputValues, columnSize, depthSize, rowFrom, Math.min(rowFrom + ROW_BLOCK, rowSize), columnFrom, Math.min(columnFrom + COLUMN_BLOCK, columnSize), accumulate);
+				}
+			});
+			return;
+		}
+		}
+	}
+
+	/**
+	 * 稀疏矩阵乘稠密矩阵(SpMM):output = op(sparse) × dense
+	 * 
+	 * <pre>
+	 * 直接遍历op(sparse)每行的CRS(转置时为CCS)数组,将稠密矩阵对应的行乘加到输出行.
+	 * PARALLEL模式下按非零元素数量均衡地划分行.
+	 * </pre>
+	 * 
+	 * @param sparseMatrix
+	 * @param sparseTranspose
+	 * @param denseValues
+	 *            稠密矩阵数据(行主序,depthSize×columnSize)
+	 * @param outputValues
+	 *            输出矩阵数据(行主序,rowSize×columnSize)
+	 * @param rowSize
+	 * @param columnSize
+	 * @param accumulate
+	 * @param mode
+	 */
+	public static void multiply(SparseMatrix sparseMatrix, boolean sparseTranspose, float[] denseValues, float[] outputValues, int rowSize, int columnSize, boolean accumulate, MathCalculator mode) {
+		int[] points = sparseTranspose ? sparseMatrix.getColumnPoints() : sparseMatrix.getRowPoints();
+		int[] indexes = sparseTranspose ? sparseMatrix.getColumnIndexes() : sparseMatrix.getRowIndexes();
+		int[] neighbors = sparseTranspose ? sparseMatrix.getTermRows() : sparseMatrix.getTermColumns();
+		float[] values = sparseMatrix.getTermValues();
+		int[] partitions = mode == MathCalculator.SERIAL ? new int[] { 0, rowSize } : getPartitions(points);
+		doPartitions(partitions, (from, to) -> {
+			for (int row = from; row < to; row++) {
+				int outputCursor = row * columnSize;
+				if (!accumulate) {
+					for (int column = 0; column < columnSize; column++) {
+						outputValues[outputCursor + column] = 0F;
+					}
+				}
+				for (int point = points[row], end = points[row + 1]; point < end; point++) {
+					int term = indexes[point];
+					float value = values[term];
+					int denseCursor = neighbors[term] * columnSize;
+					for (int column = 0; column < columnSize; column++) {
+						outputValues[outputCursor + column] += value * denseValues[denseCursor + column];
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * 稠密矩阵乘稀疏矩阵:output = op(dense) × op(sparse)
+	 * 
+	 * <pre>
+	 * 输出的每一行为op(dense)对应行的非零值与op(sparse)对应行的加权和,只访问稀疏矩阵的非零元素.
+	 * 常用于DenseMatrixᵀ × SparseMatrix.PARALLEL模式下按输出行划分.
+	 * </pre>
+	 * 
+	 * @param denseValues
+	 *            稠密矩阵数据(行主序)
+	 * @param denseColumnSize
+	 *            稠密矩阵存储的列数
+	 * @param denseTranspose
+	 * @param sparseMatrix
+	 * @param sparseTranspose
+	 * @param outputValues
+	 *            输出矩阵数据(行主序,rowSize×columnSize)
+	 * @param rowSize
+	 * @param columnSize
+	 * @param depthSize
+	 * @param accumulate
+	 * @param mode
+	 */
+	public static void multiply(float[] denseValues, int denseColumnSize, boolean denseTranspose, SparseMatrix sparseMatrix, boolean sparseTranspose, float[] outputValues, int rowSize, int columnSize, int depthSize, boolean accumulate, MathCalculator mode) {
+		int[] points = sparseTranspose ? sparseMatrix.getColumnPoints() : sparseMatrix.getRowPoints();
+		int[] indexes = sparseTranspose ? sparseMatrix.getColumnIndexes() : sparseMatrix.getRowIndexes();
+		int[] neighbors = sparseTranspose ? sparseMatrix.getTermRows() : sparseMatrix.getTermColumns();
+		float[] values = sparseMatrix.getTermValues();
+		int[] partitions = mode == MathCalculator.SERIAL ? new int[] { 0, rowSize } : getPartitions(rowSize);
+		doPartitions(partitions, (from, to) -> {
+			for (int row = from; row < to; row++) {
+				int outputCursor = row * columnSize;
+				if (!accumulate) {
+					for (int column = 0; column < columnSize; column++) {
+						outputValues[outputCursor + column] = 0F;
+					}
+				}
+				for (int depth = 0; depth < depthSize; depth++) {
+					float scale = denseTranspose ? denseValues[depth * denseColumnSize + row] : denseValues[row * denseColumnSize + depth];
+					if (scale == 0F) {
+						continue;
+					}
+					for (int point = points[depth], end = points[depth + 1]; point < end; point++) {
+						int term = indexes[point];
+						outputValues[outputCursor + neighbors[term]] += scale * values[term];
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * 稀疏矩阵乘稠密向量(SpMV):output[index] = op(sparse)[index,:] · input
+	 * 
+	 * @param sparseMatrix
+	 * @param sparseTranspose
+	 * @param inputValues
+	 * @param inputCursor
+	 * @param inputDelta
+	 * @param outputValues
+	 * @param outputCursor
+	 * @param outputDelta
+	 * @param mode
+	 */
+	public static void multiply(SparseMatrix sparseMatrix, boolean sparseTranspose, float[] inputValues, int inputCursor, int inputDelta, float[] outputValues, int outputCursor, int outputDelta, MathCalculator mode) {
+		int[] points = sparseTranspose ? sparseMatrix.getColumnPoints() : sparseMatrix.getRowPoints();
+		int[] indexes = sparseTranspose ? sparseMatrix.getColumnIndexes() : sparseMatrix.getRowIndexes();
+		int[] neighbors = sparseTranspose ? sparseMatrix.getTermRows() : sparseMatrix.getTermColumns();
+		float[] values = sparseMatrix.getTermValues();
+		int size = points.length - 1;
+		int[] partitions = mode == MathCalculator.SERIAL ? new int[] { 0, size } : getPartitions(points);
+		doPartitions(partitions, (from, to) -> {
+			for (int index = from; index < to; index++) {
+				float sum = 0F;
+				for (int point = points[index], end = points[index + 1]; point < end; point++) {
+					int term = indexes[point];
+					sum += values[term] * inputValues[inputCursor + neighbors[term] * inputDelta];
+				}
+				outputValues[outputCursor + index * outputDelta] = sum;
+			}
+		});
+	}
+
+	/**
+	 * 稠密矩阵乘稠密向量(GEMV):output[index] = op(dense)[index,:] · input
+	 * 
+	 * <pre>
+	 * 不转置时每个输出为一行与输入的点积;
+	 * 转置时按行扫描稠密矩阵,将每行按输入缩放后累加到输出区间,保证连续访问.
+	 * </pre>
+	 * 
+	 * @param denseMatrix
+	 * @param denseTranspose
+	 * @param inputValues
+	 * @param inputCursor
+	 * @param inputDelta
+	 * @param outputValues
+	 * @param outputCursor
+	 * @param outputDelta
+	 * @param mode
+	 */
+	public static void multiply(DenseMatrix denseMatrix, boolean denseTranspose, float[] inputValues, int inputCursor, int inputDelta, float[] outputValues, int outputCursor, int outputDelta, MathCalculator mode) {
+		float[] values = denseMatrix.getValues();
+		int rowSize = denseMatrix.getRowSize();
+		int columnSize = denseMatrix.getColumnSize();
+		int size = denseTranspose ? columnSize : rowSize;
+		int[] partitions = mode == MathCalculator.SERIAL ? new int[] { 0, size } : getPartitions(size);
+		doPartitions(partitions, (from, to) -> {
+			if (denseTranspose) {
+				for (int index = from; index < to; index++) {
+					outputValues[outputCursor + index * outputDelta] = 0F;
+				}
+				for (int row = 0; row < rowSize; row++) {
+					float scale = inputValues[inputCursor + row * inputDelta];
+					if (scale == 0F) {
+						continue;
+					}
+					for (int index = from, cursor = row * columnSize + from; index < to; index++, cursor++) {
+						outputValues[outputCursor + index * outputDelta] += scale * values[cursor];
+					}
+				}
+			} else {
+				for (int index = from; index < to; index++) {
+					float sum = 0F;
+					for (int column = 0, cursor = index * columnSize; column < columnSize; column++, cursor++) {
+						sum += values[cursor] * inputValues[inputCursor + column * inputDelta];
+					}
+					outputValues[outputCursor + index * outputDelta] = sum;
+				}
+			}
+		});
+	}
+
+	/**
+	 * 按数量均匀地划分区间
+	 */
+	private static int[] getPartitions(int size) {
+		int number = Math.max(1, Math.min(size, PARTITION_SIZE));
+		int[] partitions = new int[number + 1];
+		for (int index = 0; index <= number; index++) {
+			partitions[index] = (int) ((long) size * index / number);
+		}
+		return partitions;
+	}
+
+	/**
+	 * 按非零元素数量均衡地划分区间
+	 * 
+	 * @param points
+	 *            CRS/CCS指针
+	 * @return
+	 */
+	private static int[] getPartitions(int[] points) {
+		int size = points.length - 1;
+		int number = Math.max(1, Math.min(size, PARTITION_SIZE));
+		long total = points[size];
+		int[] partitions = new int[number + 1];
+		partitions[number] = size;
+		for (int index = 1; index < number; index++) {
+			// 二分查找第一个指针不小于目标元素数量的位置
+			long target = total * index / number;
+			int low = partitions[index - 1], high = size;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (points[middle] < target) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			partitions[index] = low;
+		}
+		return partitions;
+	}
+
+	/**
+	 * 执行分区
+	 * 
+	 * <pre>
+	 * 只有一个分区时在当前线程执行,否则由工作窃取线程执行.
+	 * </pre>
+	 */
+	private static void doPartitions(int[] partitions, RangeCommand command) {
+		int size = partitions.length - 1;
+		if (size == 1) {
+			command.execute(partitions[0], partitions[1]);
+			return;
+		}
+		EnvironmentContext context = EnvironmentContext.getContext();
+		context.doStructureByRange(0, size, 1, (from, to) -> {
+			for (int index = from; index < to; index++) {
+				if (partitions[index] < partitions[index + 1]) {
+					command.execute(partitions[index], partitions[index + 1]);
+				}
+			}
+		});
+	}
+
+	/**
+	 * 计算输出矩阵的一个分片
+	 */
+	private static void multiplyTile(float[] leftValues, int leftColumnSize, boolean leftTranspose, float[] rightValues, int rightColumnSize, boolean rightTranspose, float[] outputValues, int outputColumnSize, int depthSize, int rowFrom, int rowTo, int columnFrom, int columnTo, boolean accumulate) {
+		float[] leftCache = LEFT_CACHES.get();
+		float[] rightCache = RIGHT_CACHES.get();
+		float[] outputCache = OUTPUT_CACHES.get();
+		int rows = rowTo - rowFrom;
+		int columns = columnTo - columnFrom;
+		for (int position = 0, size = rows * columns; position < size; position++) {
+			outputCache[position] = 0F;
+		}
+		for (int depthFrom = 0; depthFrom < depthSize; depthFrom += DEPTH_BLOCK) {
+			int depths = Math.min(DEPTH_BLOCK, depthSize - depthFrom);
+			packLeft(leftValues, leftColumnSize, leftTranspose, rowFrom, rows, depthFrom, depths, leftCache);
+			packRight(rightValues, rightColumnSize, rightTranspose, depthFrom, depths, columnFrom, columns, rightCache);
+			multiplyBlock(leftCache, rightCache, outputCache, rows, depths, columns);
+		}
+		for (int row = 0; row < rows; row++) {
+			int from = row * columns;
+			int to = (rowFrom + row) * outputColumnSize + columnFrom;
+			if (accumulate) {
+				for (int column = 0; column < columns; column++) {
+					outputValues[to + column] += outputCache[from + column];
+				}
+			} else {
+				System.arraycopy(outputCache, from, outputValues, to, columns);
+			}
+		}
+	}
+
+	/**
+	 * 打包op(left)[rowFrom:rowFrom+rows, depthFrom:depthFrom+depths]为连续的行主序块
+	 */
+	private static void packLeft(float[] values, int columnSize, boolean transpose, int rowFrom, int rows, int depthFrom, int depths, float[] cache) {
+		if (transpose) {
+			// op(left)[row][depth] = left[depth][row]
+			for (int depth = 0; depth < depths; depth++) {
+				int from = (depthFrom + depth) * columnSize + rowFrom;
+				for (int row = 0; row < rows; row++) {
+					cache[row * depths + depth] = values[from + row];
+				}
+			}
+		} else {
+			for (int row = 0; row < rows; row++) {
+				System.arraycopy(values, (rowFrom + row) * columnSize + depthFrom, cache, row * depths, depths);
+			}
+		}
+	}
+
+	/**
+	 * 打包op(right)[depthFrom:depthFrom+depths, columnFrom:columnFrom+columns]为连续的行主序块
+	 */
+	private static void packRight(float[] values, int columnSize, boolean transpose, int depthFrom, int depths, int columnFrom, int columns, float[] cache) {
+		if (transpose) {
+			// op(right)[depth][column] = right[column][depth]
+			for (int column = 0; column < columns; column++) {
+				int from = (columnFrom + column) * columnSize + depthFrom;
+				for (int depth = 0; depth < depths; depth++) {
+					cache[depth * columns + column] = values[from + depth];
+				}
+			}
+		} else {
+			for (int depth = 0; depth < depths; depth++) {
+				System.arraycopy(values, (depthFrom + depth) * columnSize + columnFrom, cache, depth * columns, columns);
+			}
+		}
+	}
+
+	/**
+	 * 打包块的乘加:output[rows×columns] += left[rows×depths] × right[depths×columns]
+	 */
+	private static void multiplyBlock(float[] left, float[] right, float[] output, int rows, int depths, int columns) {
+		int row = 0;
+		for (; row + ROW_TILE <= rows; row += ROW_TILE) {
+			int left0 = row * depths, left1 = left0 + depths, left2 = left1 + depths, left3 = left2 + depths;
+			int output0 = row * columns, output1 = output0 + columns, output2 = output1 + columns, output3 = output2 + columns;
+			for (int depth = 0; depth < depths; depth++) {
+				float value0 = left[left0 + depth];
+				float value1 = left[left1 + depth];
+				float value2 = left[left2 + depth];
+				float value3 = left[left3 + depth];
+				int cursor = depth * columns;
+				for (int column = 0; column < columns; column++) {
+					float value = right[cursor + column];
+					output[output0 + column] += value0 * value;
+					output[output1 + column] += value1 * value;
+					output[output2 + column] += value2 * value;
+					output[output3 + column] += value3 * value;
+				}
+			}
+		}
+		for (; row < rows; row++) {
+			int leftCursor = row * depths;
+			int outputCursor = row * columns;
+			for (int depth = 0; depth < depths; depth++) {
+				float value0 = left[leftCursor + depth];
+				int cursor = depth * columns;
+				for (int column = 0; column < columns; column++) {
+					output[outputCursor + column] += value0 * right[cursor + column];
+				}
+			}
+		}
+	}
+
+}
@@ -12,6 +12,7 @@ import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 
+import com.jstarcraft.module.environment.EnvironmentArena;
 import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.environment.EnvironmentThread;
 import com.jstarcraft.module.math.structure.MathMessage;
@@ -79,8 +80,11 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 
 		private float[] data;
 
-		private Nd4jArrayScalar(float[] data) {
+		private int offset;
+
+		private Nd4jArrayScalar(float[] data, int offset) {
 			this.data = data;
+			this.offset = offset;
 		}
 
 		private void update(int cursor) {
@@ -99,22 +103,22 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 
 		@Override
 		public float getValue() {
-			return data[cursor];
+			return data[offset + cursor];
 		}
 
 		@Override
 		public void scaleValue(float value) {
-			data[cursor] *= value;
+			data[offset + cursor] *= value;
 		}
 
 		@Override
 		public void setValue(float value) {
-			data[cursor] = value;
+			data[offset + cursor] = value;
 		}
 
 		@Override
 		public void shiftValue(float value) {
-			data[cursor] += value;
+			data[offset + cursor] += value;
 		}
 
 	}
@@ -124,82 +128,88 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 		// 保证内存与显存同步
 		manager.ensureLocation(matrix, Location.HOST);
 		manager.tagLocation(matrix, Location.HOST);
-		EnvironmentThread thread = EnvironmentThread.currentThread();
-		data = thread.getArray();
+		EnvironmentArena arena = EnvironmentArena.getArena();
+		int mark = arena.mark();
+		int offset = arena.allocateFloats(rowSize * columnSize);
+		float[] data = arena.getFloats();
 		FloatPointer pointer = (FloatPointer) matrix.data().pointer();
-		pointer.get(data, 0, rowSize * columnSize);
+		pointer.get(data, offset, rowSize * columnSize);
 		int rowSize = matrix.rows();
 		int columnSize = matrix.columns();
-		switch (mode) {
-		case SERIAL: {
-			Nd4jArrayScalar scalar = new Nd4jArrayScalar(data);
-			for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
-				for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-					int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
-					scalar.update(cursor);
-					for (MathAccessor<MatrixScalar> accessor : accessors) {
-						accessor.accessScalar(scalar);
+		try {
+			switch (mode) {
+			case SERIAL: {
+				Nd4jArrayScalar scalar = new Nd4jArrayScalar(data, offset);
+				for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+					for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+						int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
+						scalar.update(cursor);
+						for (MathAccessor<MatrixScalar> accessor : accessors) {
+							accessor.accessScalar(scalar);
+						}
 					}
 				}
+				pointer.put(data, offset, rowSize * columnSize);
+				return this;
 			}
-			pointer.put(data, 0, rowSize * columnSize);
-			return this;
-		}
-		default: {
-			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnSize;
-				EnvironmentContext context = thread.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					context.doStructureByAny(index, () -> {
-						Nd4jArrayScalar scalar = new Nd4jArrayScalar(data);
-						for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
-							int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
-							scalar.update(cursor);
-							for (MathAccessor<MatrixScalar> accessor : accessors) {
-								accessor.accessScalar(scalar);
+			default: {
+				if (this.getColumnSize() <= this.getRowSize()) {
+					int size = columnSize;
+					EnvironmentContext context = EnvironmentContext.getContext();
+					MessageStorage storage = MathCalculator.getStorage();
+					Semaphore semaphore = storage.getSemaphore();
+					for (int index = 0; index < size; index++) {
+						int columnIndex = index;
+						context.doStructureByAny(index, () -> {
+							Nd4jArrayScalar scalar = new Nd4jArrayScalar(data, offset);
+							for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+								int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
+								scalar.update(cursor);
+								for (MathAccessor<MatrixScalar> accessor : accessors) {
+									accessor.accessScalar(scalar);
+								}
 							}
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				pointer.put(data, 0, rowSize * columnSize);
-				return this;
-			} else {
-				int size = rowSize;
-				EnvironmentContext context = thread.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					context.doStructureByAny(index, () -> {
-						Nd4jArrayScalar scalar = new Nd4jArrayScalar(data);
-						for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-							int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
-							scalar.update(cursor);
-							for (MathAccessor<MatrixScalar> accessor : accessors) {
-								accessor.accessScalar(scalar);
+							semaphore.release();
+						});
+					}
+					try {
+						semaphore.acquire(size);
+					} catch (Exception exception) {
+						throw new RuntimeException(exception);
+					}
+					pointer.put(data, offset, rowSize * columnSize);
+					return this;
+				} else {
+					int size = rowSize;
+					EnvironmentContext context = EnvironmentContext.getContext();
+					MessageStorage storage = MathCalculator.getStorage();
+					Semaphore semaphore = storage.getSemaphore();
+					for (int index = 0; index < size; index++) {
+						int rowIndex = index;
+						context.doStructureByAny(index, () -> {
+							Nd4jArrayScalar scalar = new Nd4jArrayScalar(data, offset);
+							for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+								int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
+								scalar.update(cursor);
+								for (MathAccessor<MatrixScalar> accessor : accessors) {
+									accessor.accessScalar(scalar);
+								}
 							}
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
+							semaphore.release();
+						});
+					}
+					try {
+						semaphore.acquire(size);
+					} catch (Exception exception) {
+						throw new RuntimeException(exception);
+					}
+					pointer.put(data, offset, rowSize * columnSize);
+					return this;
 				}
-				pointer.put(data, 0, rowSize * columnSize);
-				return this;
 			}
-		}
+			}
+		} finally {
+			arena.reset(mark);
 		}
 	}
 
@@ -280,71 +290,77 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 		// 保证内存与显存同步
 		manager.ensureLocation(matrix, Location.HOST);
 		manager.tagLocation(matrix, Location.HOST);
-		EnvironmentThread thread = EnvironmentThread.currentThread();
-		data = thread.getArray();
+		EnvironmentArena arena = EnvironmentArena.getArena();
+		int mark = arena.mark();
+		int offset = arena.allocateFloats(rowSize * columnSize);
+		float[] data = arena.getFloats();
 		FloatPointer pointer = (FloatPointer) matrix.data().pointer();
-		pointer.get(data, 0, rowSize * columnSize);
+		pointer.get(data, offset, rowSize * columnSize);
 		int rowSize = matrix.rows();
 		int columnSize = matrix.columns();
-		switch (mode) {
-		case SERIAL: {
-			for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
-				for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-					int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
-					collector.collect(rowIndex, columnIndex, data[cursor], message);
-				}
-			}
-			return this;
-		}
-		default: {
-			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnSize;
-				EnvironmentContext context = thread.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
-							int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
-							collector.collect(rowIndex, columnIndex, data[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
+		try {
+			switch (mode) {
+			case SERIAL: {
+				for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+					for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+						int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
+						collector.collect(rowIndex, columnIndex, data[offset + cursor], message);
+					}
 				}
 				return this;
-			} else {
-				int size = rowSize;
-				EnvironmentContext context = thread.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-							int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
-							collector.collect(rowIndex, columnIndex, data[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
+			}
+			default: {
+				if (this.getColumnSize() <= this.getRowSize()) {
+					int size = columnSize;
+					EnvironmentContext context = EnvironmentContext.getContext();
+					MessageStorage storage = MathCalculator.getStorage();
+					Semaphore semaphore = storage.getSemaphore();
+					for (int index = 0; index < size; index++) {
+						int columnIndex = index;
+						context.doStructureByAny(index, () -> {
+							T copy = storage.detachMessage(message);
+							for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+								int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
+								collector.collect(rowIndex, columnIndex, data[offset + cursor], copy);
+							}
+							semaphore.release();
+						});
+					}
+					try {
+						semaphore.acquire(size);
+						storage.attachMessage(message);
+					} catch (Exception exception) {
+						throw new RuntimeException(exception);
+					}
+					return this;
+				} else {
+					int size = rowSize;
+					EnvironmentContext context = EnvironmentContext.getContext();
+					MessageStorage storage = MathCalculator.getStorage();
+					Semaphore semaphore = storage.getSemaphore();
+					for (int index = 0; index < size; index++) {
+						int rowIndex = index;
+						context.doStructureByAny(index, () -> {
+							T copy = storage.detachMessage(message);
+							for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+								int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
+								collector.collect(rowIndex, columnIndex, data[offset + cursor], copy);
+							}
+							semaphore.release();
+						});
+					}
+					try {
+						semaphore.acquire(size);
+						storage.attachMessage(message);
+					} catch (Exception exception) {
+						throw new RuntimeException(exception);
+					}
+					return this;
 				}
-				return this;
 			}
-		}
+			}
+		} finally {
+			arena.reset(mark);
 		}
 	}
 
@@ -353,82 +369,87 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 		// 保证内存与显存同步
 		manager.ensureLocation(matrix, Location.HOST);
 		manager.tagLocation(matrix, Location.HOST);
-		EnvironmentThread thread = EnvironmentThread.currentThread();
-		data = thread.getArray();
+		EnvironmentArena arena = EnvironmentArena.getArena();
+		int mark = arena.mark();
+		int offset = arena.allocateFloats(rowSize * columnSize);
+		float[] data = arena.getFloats();
 		FloatPointer pointer = (FloatPointer) matrix.data().pointer();
-		pointer.get(data, 0, rowSize * columnSize);
+		pointer.get(data, offset, rowSize * columnSize);
 		int rowSize = matrix.rows();
 		int columnSize = matrix.columns();
-		switch (mode) {
-		case SERIAL: {
-			for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
-				for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-					int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
-					data[cursor] = (float) mapper.map(rowIndex, columnIndex, data[cursor], message);
-				}
-			}
-			pointer.put(data, 0, rowSize * columnSize);
-			return this;
-		}
-		default: {
-			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnSize;
-				EnvironmentContext context = thread.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
-							int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
-							data[cursor] = (float) mapper.map(rowIndex, columnIndex, data[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
+		try {
+			switch (mode) {
+			case SERIAL: {
+				for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+					for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+						int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
+						data[offset + cursor] = (float) mapper.map(rowIndex, columnIndex, data[offset + cursor], message);
+					}
 				}
-				pointer.put(data, 0, rowSize * columnSize);
+				pointer.put(data, offset, rowSize * columnSize);
 				return this;
-			} else {
-				int size = rowSize;
-				EnvironmentContext context = thread.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
-							int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
-							data[cursor] = (float) mapper.map(rowIndex, columnIndex, data[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
+			}
+			default: {
+				if (this.getColumnSize() <= this.getRowSize()) {
+					int size = columnSize;
+					EnvironmentContext context = EnvironmentContext.getContext();
+					MessageStorage storage = MathCalculator.getStorage();
+					Semaphore semaphore = storage.getSemaphore();
+					for (int index = 0; index < size; index++) {
+						int columnIndex = index;
+						context.doStructureByAny(index, () -> {
+							T copy = storage.detachMessage(message);
+							for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+								int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
+								data[offset + cursor] = (float) mapper.map(rowIndex, columnIndex, data[offset + cursor], copy);
+							}
+							semaphore.release();
+						});
+					}
+					try {
+						semaphore.acquire(size);
+						storage.attachMessage(message);
+					} catch (Exception exception) {
+						throw new RuntimeException(exception);
+					}
+					pointer.put(data, offset, rowSize * columnSize);
+					return this;
+				} else {
+					int size = rowSize;
+					EnvironmentContext context = EnvironmentContext.getContext();
+					MessageStorage storage = MathCalculator.getStorage();
+					Semaphore semaphore = storage.getSemaphore();
+					for (int index = 0; index < size; index++) {
+						int rowIndex = index;
+						context.doStructureByAny(index, () -> {
+							T copy = storage.detachMessage(message);
+							for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+								int cursor = order == 'c' ? rowIndex * columnSize + columnIndex : columnIndex * rowSize + rowIndex;
+								data[offset + cursor] = (float) mapper.map(rowIndex, columnIndex, data[offset + cursor], copy);
+							}
+							semaphore.release();
+						});
+					}
+					try {
+						semaphore.acquire(size);
+						storage.attachMessage(message);
+					} catch (Exception exception) {
+						throw new RuntimeException(exception);
+					}
+					pointer.put(data, offset, rowSize * columnSize);
+					return this;
 				}
-				pointer.put(data, 0, rowSize * columnSize);
-				return this;
 			}
-		}
+			}
+		} finally {
+			arena.reset(mark);
 		}
 	}
 
 	@Override
 	public MathMatrix addMatrix(MathMatrix matrix, boolean transpose) {
 		if (matrix instanceof Nd4jMatrix) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jMatrix.class.cast(matrix).getArray();
 				thisArray.addi(transpose ? thatArray.transposei() : thatArray);
@@ -442,8 +463,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix subtractMatrix(MathMatrix matrix, boolean transpose) {
 		if (matrix instanceof Nd4jMatrix) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jMatrix.class.cast(matrix).getArray();
 				thisArray.subi(transpose ? thatArray.transposei() : thatArray);
@@ -457,8 +477,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix multiplyMatrix(MathMatrix matrix, boolean transpose) {
 		if (matrix instanceof Nd4jMatrix) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jMatrix.class.cast(matrix).getArray();
 				thisArray.muli(transpose ? thatArray.transposei() : thatArray);
@@ -472,8 +491,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix divideMatrix(MathMatrix matrix, boolean transpose) {
 		if (matrix instanceof Nd4jMatrix) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jMatrix.class.cast(matrix).getArray();
 				thisArray.divi(transpose ? thatArray.transposei() : thatArray);
@@ -487,8 +505,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix copyMatrix(MathMatrix matrix, boolean transpose) {
 		if (matrix instanceof Nd4jMatrix) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jMatrix.class.cast(matrix).getArray();
 				thisArray.assign(transpose ? thatArray.transposei() : thatArray);
@@ -502,8 +519,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix addRowVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.addiRowVector(thatArray);
@@ -517,8 +533,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix subtractRowVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.subiRowVector(thatArray);
@@ -532,8 +547,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix multiplyRowVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.muliRowVector(thatArray);
@@ -547,8 +561,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix divideRowVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.diviRowVector(thatArray);
@@ -562,8 +575,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix copyRowVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.putiRowVector(thatArray);
@@ -577,8 +589,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix addColumnVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.addiColumnVector(thatArray);
@@ -592,8 +603,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix subtractColumnVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.subiColumnVector(thatArray);
@@ -607,8 +617,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix multiplyColumnVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.muliColumnVector(thatArray);
@@ -622,8 +631,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix divideColumnVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.diviColumnVector(thatArray);
@@ -637,8 +645,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix copyColumnVector(MathVector vector) {
 		if (vector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray thisArray = this.getArray();
 				INDArray thatArray = Nd4jVector.class.cast(vector).getArray();
 				thisArray.putiColumnVector(thatArray);
@@ -652,8 +659,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix dotProduct(MathMatrix leftMatrix, boolean leftTranspose, MathMatrix rightMatrix, boolean rightTranspose, MathCalculator mode) {
 		if (leftMatrix instanceof Nd4jMatrix && rightMatrix instanceof Nd4jMatrix) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray leftArray = leftTranspose ? Nd4jMatrix.class.cast(leftMatrix).getArray().transpose() : Nd4jMatrix.class.cast(leftMatrix).getArray();
 				INDArray rightArray = rightTranspose ? Nd4jMatrix.class.cast(rightMatrix).getArray().transpose() : Nd4jMatrix.class.cast(rightMatrix).getArray();
 				INDArray dataArray = this.getArray();
@@ -668,8 +674,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix dotProduct(MathVector rowVector, MathVector columnVector, MathCalculator mode) {
 		if (rowVector instanceof Nd4jVector && columnVector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray leftArray = Nd4jVector.class.cast(rowVector).getArray();
 				// TODO 此处需要想方案优化,可能存在性能问题.
 				if (leftArray.isView()) {
@@ -699,8 +704,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix accumulateProduct(MathMatrix leftMatrix, boolean leftTranspose, MathMatrix rightMatrix, boolean rightTranspose, MathCalculator mode) {
 		if (leftMatrix instanceof Nd4jMatrix && rightMatrix instanceof Nd4jMatrix) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray leftArray = leftTranspose ? Nd4jMatrix.class.cast(leftMatrix).getArray().transpose() : Nd4jMatrix.class.cast(leftMatrix).getArray();
 				INDArray rightArray = rightTranspose ? Nd4jMatrix.class.cast(rightMatrix).getArray().transpose() : Nd4jMatrix.class.cast(rightMatrix).getArray();
 				INDArray dataArray = this.getArray();
@@ -717,8 +721,7 @@ public class Nd4jMatrix implements MathMatrix, ModelCycle {
 	@Override
 	public MathMatrix accumulateProduct(MathVector rowVector, MathVector columnVector, MathCalculator mode) {
 		if (rowVector instanceof Nd4jVector && columnVector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray leftArray = Nd4jVector.class.cast(rowVector).getArray();
 				// TODO 此处需要想方案优化,否则存在性能问题.
 				if (leftArray.isView()) {
@@ -1,8 +1,6 @@
 package com.jstarcraft.module.math.structure.matrix;
 
 import java.util.Iterator;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Semaphore;
 
 import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.math.structure.MathAccessor;
@@ -35,12 +33,9 @@ public class RowArrayMatrix extends ArrayMatrix {
 		}
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
-			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int cursor = 0; cursor < rowSize; cursor++) {
-				int rowIndex = cursor;
-				context.doStructureByAny(cursor, () -> {
-					ArrayMatrixScalar scalar = new ArrayMatrixScalar();
+			context.doStructureByRange(0, rowSize, 0, (from, to) -> {
+				ArrayMatrixScalar scalar = new ArrayMatrixScalar();
+				for (int rowIndex = from; rowIndex < to; rowIndex++) {
 					ArrayVector vector = vectors[rowIndex];
 					for (VectorScalar term : vector) {
 						scalar.update(term, rowIndex, term.getIndex());
@@ -48,14 +43,8 @@ public class RowArrayMatrix extends ArrayMatrix {
 							accessor.accessScalar(scalar);
 						}
 					}
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(rowSize);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -87,24 +76,16 @@ public class RowArrayMatrix extends ArrayMatrix {
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int cursor = 0; cursor < rowSize; cursor++) {
-				int rowIndex = cursor;
-				context.doStructureByAny(cursor, () -> {
-					T copy = storage.detachMessage(message);
+			context.doStructureByRange(0, rowSize, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int rowIndex = from; rowIndex < to; rowIndex++) {
 					ArrayVector vector = vectors[rowIndex];
 					vector.collectValues((index, value, information) -> {
 						collector.collect(rowIndex, index, value, copy);
 					}, message, MathCalculator.SERIAL);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(columnSize);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
@@ -126,24 +107,16 @@ public class RowArrayMatrix extends ArrayMatrix {
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int cursor = 0; cursor < rowSize; cursor++) {
-				int rowIndex = cursor;
-				context.doStructureByAny(cursor, () -> {
-					T copy = storage.detachMessage(message);
+			context.doStructureByRange(0, rowSize, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int rowIndex = from; rowIndex < to; rowIndex++) {
 					ArrayVector vector = vectors[rowIndex];
 					vector.mapValues((index, value, information) -> {
 						return mapper.map(rowIndex, index, value, copy);
 					}, message, MathCalculator.SERIAL);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(rowSize);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
@@ -191,6 +164,9 @@ public class RowArrayMatrix extends ArrayMatrix {
 
 	@Override
 	public MathMatrix dotProduct(MathMatrix leftMatrix, boolean leftTranspose, MathMatrix rightMatrix, boolean rightTranspose, MathCalculator mode) {
+		if (MatrixKernel.product(this, leftMatrix, leftTranspose, rightMatrix, rightTranspose, false, mode)) {
+			return this;
+		}
 		// TODO 此处可以考虑性能优化.
 		// TODO 可能触发元素变更.
 		switch (mode) {
@@ -205,27 +181,18 @@ public class RowArrayMatrix extends ArrayMatrix {
 			return this;
 		}
 		default: {
-			int size = this.getRowSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (int index = 0; index < size; index++) {
-				int rowIndex = index;
-				MathVector rowVector = this.getRowVector(index);
-				context.doStructureByAny(index, () -> {
+			context.doStructureByRange(0, this.getRowSize(), 0, (from, to) -> {
+				for (int rowIndex = from; rowIndex < to; rowIndex++) {
+					MathVector rowVector = this.getRowVector(rowIndex);
 					for (VectorScalar term : rowVector) {
 						int columnIndex = term.getIndex();
 						MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
 						MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 						term.dotProduct(leftVector, rightVector);
 					}
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -275,14 +242,12 @@ public class RowArrayMatrix extends ArrayMatrix {
 			return this;
 		}
 		default: {
-			int size = rowVector.getElementSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (VectorScalar term : rowVector) {
-				float rowValue = term.getValue();
-				MathVector leftVector = this.getRowVector(term.getIndex());
-				MathVector rightVector = columnVector;
-				context.doStructureByAny(term.getIndex(), () -> {
+			context.doStructureByRange(0, rowVector.getElementSize(), 0, (from, to) -> {
+				for (int position = from; position < to; position++) {
+					float rowValue = rowVector.getValue(position);
+					MathVector leftVector = this.getRowVector(rowVector.getIndex(position));
+					MathVector rightVector = columnVector;
 					int leftIndex = 0, rightIndex = 0, leftSize = leftVector.getElementSize(), rightSize = rightVector.getElementSize();
 					if (leftSize != 0 && rightSize != 0) {
 						Iterator<VectorScalar> leftIterator = leftVector.iterator();
@@ -314,14 +279,8 @@ public class RowArrayMatrix extends ArrayMatrix {
 							}
 						}
 					}
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -329,6 +288,9 @@ public class RowArrayMatrix extends ArrayMatrix {
 
 	@Override
 	public MathMatrix accumulateProduct(MathMatrix leftMatrix, boolean leftTranspose, MathMatrix rightMatrix, boolean rightTranspose, MathCalculator mode) {
+		if (MatrixKernel.product(this, leftMatrix, leftTranspose, rightMatrix, rightTranspose, true, mode)) {
+			return this;
+		}
 		// TODO 此处可以考虑性能优化.
 		// TODO 可能触发元素变更.
 		switch (mode) {
@@ -343,27 +305,18 @@ public class RowArrayMatrix extends ArrayMatrix {
 			return this;
 		}
 		default: {
-			int size = this.getRowSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (int index = 0; index < size; index++) {
-				int rowIndex = index;
-				MathVector rowVector = this.getRowVector(index);
-				context.doStructureByAny(index, () -> {
+			context.doStructureByRange(0, this.getRowSize(), 0, (from, to) -> {
+				for (int rowIndex = from; rowIndex < to; rowIndex++) {
+					MathVector rowVector = this.getRowVector(rowIndex);
 					for (VectorScalar term : rowVector) {
 						int columnIndex = term.getIndex();
 						MathVector leftVector = leftTranspose ? leftMatrix.getColumnVector(rowIndex) : leftMatrix.getRowVector(rowIndex);
 						MathVector rightVector = rightTranspose ? rightMatrix.getRowVector(columnIndex) : rightMatrix.getColumnVector(columnIndex);
 						term.accumulateProduct(leftVector, rightVector);
 					}
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -413,14 +366,12 @@ public class RowArrayMatrix extends ArrayMatrix {
 			return this;
 		}
 		default: {
-			int size = rowVector.getElementSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (VectorScalar term : rowVector) {
-				float rowValue = term.getValue();
-				MathVector leftVector = this.getRowVector(term.getIndex());
-				MathVector rightVector = columnVector;
-				context.doStructureByAny(term.getIndex(), () -> {
+			context.doStructureByRange(0, rowVector.getElementSize(), 0, (from, to) -> {
+				for (int position = from; position < to; position++) {
+					float rowValue = rowVector.getValue(position);
+					MathVector leftVector = this.getRowVector(rowVector.getIndex(position));
+					MathVector rightVector = columnVector;
 					int leftIndex = 0, rightIndex = 0, leftSize = leftVector.getElementSize(), rightSize = rightVector.getElementSize();
 					if (leftSize != 0 && rightSize != 0) {
 						Iterator<VectorScalar> leftIterator = leftVector.iterator();
@@ -452,14 +403,8 @@ public class RowArrayMatrix extends ArrayMatrix {
 							}
 						}
 					}
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
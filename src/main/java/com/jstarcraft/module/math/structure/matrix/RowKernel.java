@@ -0,0 +1,277 @@
+package com.jstarcraft.module.math.structure.matrix;
+
+import java.util.Arrays;
+
+/**
+ * 行内核
+ *
+ * <pre>
+ * 直接在DenseMatrix的行主序数组上按行运算,不分配对象,用于随机梯度下降的逐样本更新.
+ * 所有参与运算的矩阵列数必须一致.
+ * 逐元素运算按4路展开,由C2自动向量化.
+ * 点积按照索引顺序串行累加(不重排浮点加法),结果与逐个元素累加完全一致.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public final class RowKernel {
+
+	private RowKernel() {
+	}
+
+	/**
+	 * 点积
+	 *
+	 * @param leftMatrix
+	 * @param leftRow
+	 * @param rightMatrix
+	 * @param rightRow
+	 * @return Σ left[k] * right[k]
+	 */
+	public static float dot(DenseMatrix leftMatrix, int leftRow, DenseMatrix rightMatrix, int rightRow) {
+		return dot(0F, leftMatrix, leftRow, rightMatrix, rightRow);
+	}
+
+	/**
+	 * 点积(带初始值)
+	 *
+	 * @param value
+	 * @param leftMatrix
+	 * @param leftRow
+	 * @param rightMatrix
+	 * @param rightRow
+	 * @return value + Σ left[k] * right[k]
+	 */
+	public static float dot(float value, DenseMatrix leftMatrix, int leftRow, DenseMatrix rightMatrix, int rightRow) {
+		int size = leftMatrix.getColumnSize();
+		float[] leftValues = leftMatrix.getValues();
+		float[] rightValues = rightMatrix.getValues();
+		int leftCursor = leftRow * size;
+		int rightCursor = rightRow * size;
+		int index = 0;
+		for (int limit = size - 3; index < limit; index += 4) {
+			value += leftValues[leftCursor + index] * rightValues[rightCursor + index];
+			value += leftValues[leftCursor + index + 1] * rightValues[rightCursor + index + 1];
+			value += leftValues[leftCursor + index + 2] * rightValues[rightCursor + index + 2];
+			value += leftValues[leftCursor + index + 3] * rightValues[rightCursor + index + 3];
+		}
+		for (; index < size; index++) {
+			value += leftValues[leftCursor + index] * rightValues[rightCursor + index];
+		}
+		return value;
+	}
+
+	/**
+	 * 复制
+	 *
+	 * @param fromMatrix
+	 * @param fromRow
+	 * @param toMatrix
+	 * @param toRow
+	 */
+	public static void copy(DenseMatrix fromMatrix, int fromRow, DenseMatrix toMatrix, int toRow) {
+		int size = fromMatrix.getColumnSize();
+		System.arraycopy(fromMatrix.getValues(), fromRow * size, toMatrix.getValues(), toRow * size, size);
+	}
+
+	/**
+	 * 置零
+	 *
+	 * @param matrix
+	 * @param row
+	 */
+	public static void zero(DenseMatrix matrix, int row) {
+		int size = matrix.getColumnSize();
+		Arrays.fill(matrix.getValues(), row * size, row * size + size, 0F);
+	}
+
+	/**
+	 * 缩放
+	 *
+	 * @param matrix
+	 * @param row
+	 * @param alpha
+	 *            row[k] *= alpha
+	 */
+	public static void scale(DenseMatrix matrix, int row, float alpha) {
+		int size = matrix.getColumnSize();
+		float[] values = matrix.getValues();
+		int cursor = row * size;
+		int index = 0;
+		for (int limit = size - 3; index < limit; index += 4) {
+			values[cursor + index] *= alpha;
+			values[cursor + index + 1] *= alpha;
+			values[cursor + index + 2] *= alpha;
+			values[cursor + index + 3] *= alpha;
+		}
+		for (; index < size; index++) {
+			values[cursor + index] *= alpha;
+		}
+	}
+
+	/**
+	 * 乘加(AXPY)
+	 *
+	 * @param alpha
+	 * @param xMatrix
+	 * @param xRow
+	 * @param yMatrix
+	 * @param yRow
+	 *            y[k] += alpha * x[k]
+	 */
+	public static void axpy(float alpha, DenseMatrix xMatrix, int xRow, DenseMatrix yMatrix, int yRow) {
+		int size = xMatrix.getColumnSize();
+		float[] xValues = xMatrix.getValues();
+		float[] yValues = yMatrix.getValues();
+		int xCursor = xRow * size;
+		int yCursor = yRow * size;
+		int index = 0;
+		for (int limit = size - 3; index < limit; index += 4) {
+			yValues[yCursor + index] += alpha * xValues[xCursor + index];
+			yValues[yCursor + index + 1] += alpha * xValues[xCursor + index + 1];
+			yValues[yCursor + index + 2] += alpha * xValues[xCursor + index + 2];
+			yValues[yCursor + index + 3] += alpha * xValues[xCursor + index + 3];
+		}
+		for (; index < size; index++) {
+			yValues[yCursor + index] += alpha * xValues[xCursor + index];
+		}
+	}
+
+	/**
+	 * 缩放相加
+	 *
+	 * @param yMatrix
+	 * @param yRow
+	 * @param alpha
+	 * @param aMatrix
+	 * @param aRow
+	 * @param beta
+	 * @param bMatrix
+	 * @param bRow
+	 *            y[k] += alpha * a[k] + beta * b[k]
+	 */
+	public static void add(DenseMatrix yMatrix, int yRow, float alpha, DenseMatrix aMatrix, int aRow, float beta, DenseMatrix bMatrix, int bRow) {
+		int size = yMatrix.getColumnSize();
+		float[] yValues = yMatrix.getValues();
+		float[] aValues = aMatrix.getValues();
+		float[] bValues = bMatrix.getValues();
+		int yCursor = yRow * size;
+		int aCursor = aRow * size;
+		int bCursor = bRow * size;
+		int index = 0;
+		for (int limit = size - 3; index < limit; index += 4) {
+			yValues[yCursor + index] += alpha * aValues[aCursor + index] + beta * bValues[bCursor + index];
+			yValues[yCursor + index + 1] += alpha * aValues[aCursor + index + 1] + beta * bValues[bCursor + index + 1];
+			yValues[yCursor + index + 2] += alpha * aValues[aCursor + index + 2] + beta * bValues[bCursor + index + 2];
+			yValues[yCursor + index + 3] += alpha * aValues[aCursor + index + 3] + beta * bValues[bCursor + index + 3];
+		}
+		for (; index < size; index++) {
+			yValues[yCursor + index] += alpha * aValues[aCursor + index] + beta * bValues[bCursor + index];
+		}
+	}
+
+	/**
+	 * 梯度更新(梯度 + L2正则 + 学习率)
+	 *
+	 * @param matrix
+	 * @param row
+	 * @param gradient
+	 * @param directionMatrix
+	 * @param directionRow
+	 * @param regularization
+	 * @param learnRate
+	 *            x[k] += learnRate * (gradient * d[k] - regularization * x[k])
+	 */
+	public static void update(DenseMatrix matrix, int row, float gradient, DenseMatrix directionMatrix, int directionRow, float regularization, float learnRate) {
+		int size = matrix.getColumnSize();
+		float[] values = matrix.getValues();
+		float[] directionValues = directionMatrix.getValues();
+		int cursor = row * size;
+		int directionCursor = directionRow * size;
+		int index = 0;
+		for (int limit = size - 3; index < limit; index += 4) {
+			values[cursor + index] += learnRate * (gradient * directionValues[directionCursor + index] - regularization * values[cursor + index]);
+			values[cursor + index + 1] += learnRate * (gradient * directionValues[directionCursor + index + 1] - regularization * values[cursor + index + 1]);
+			values[cursor + index + 2] += learnRate * (gradient * directionValues[directionCursor + index + 2] - regularization * values[cursor + index + 2]);
+			values[cursor + index + 3] += learnRate * (gradient * directionValues[directionCursor + index + 3] - regularization * values[cursor + index + 3]);
+		}
+		for (; index < size; index++) {
+			values[cursor + index] += learnRate * (gradient * directionValues[directionCursor + index] - regularization * values[cursor + index]);
+		}
+	}
+
+	/**
+	 * 梯度更新(方向为两行之差,用于成对排序)
+	 *
+	 * @param matrix
+	 * @param row
+	 * @param gradient
+	 * @param positiveMatrix
+	 * @param positiveRow
+	 * @param negativeMatrix
+	 * @param negativeRow
+	 * @param regularization
+	 * @param learnRate
+	 *            x[k] += learnRate * (gradient * (p[k] - n[k]) - regularization * x[k])
+	 */
+	public static void update(DenseMatrix matrix, int row, float gradient, DenseMatrix positiveMatrix, int positiveRow, DenseMatrix negativeMatrix, int negativeRow, float regularization, float learnRate) {
+		int size = matrix.getColumnSize();
+		float[] values = matrix.getValues();
+		float[] positiveValues = positiveMatrix.getValues();
+		float[] negativeValues = negativeMatrix.getValues();
+		int cursor = row * size;
+		int positiveCursor = positiveRow * size;
+		int negativeCursor = negativeRow * size;
+		int index = 0;
+		for (int limit = size - 3; index < limit; index += 4) {
+			values[cursor + index] += learnRate * (gradient * (positiveValues[positiveCursor + index] - negativeValues[negativeCursor + index]) - regularization * values[cursor + index]);
+			values[cursor + index + 1] += learnRate * (gradient * (positiveValues[positiveCursor + index + 1] - negativeValues[negativeCursor + index + 1]) - regularization * values[cursor + index + 1]);
+			values[cursor + index + 2] += learnRate * (gradient * (positiveValues[positiveCursor + index + 2] - negativeValues[negativeCursor + index + 2]) - regularization * values[cursor + index + 2]);
+			values[cursor + index + 3] += learnRate * (gradient * (positiveValues[positiveCursor + index + 3] - negativeValues[negativeCursor + index + 3]) - regularization * values[cursor + index + 3]);
+		}
+		for (; index < size; index++) {
+			values[cursor + index] += learnRate * (gradient * (positiveValues[positiveCursor + index] - negativeValues[negativeCursor + index]) - regularization * values[cursor + index]);
+		}
+	}
+
+	/**
+	 * 成对梯度更新(两行互为方向,使用更新之前的值)
+	 *
+	 * @param leftMatrix
+	 * @param leftRow
+	 * @param leftRegularization
+	 * @param rightMatrix
+	 * @param rightRow
+	 * @param rightRegularization
+	 * @param gradient
+	 * @param learnRate
+	 *            left[k] += learnRate * (gradient * right[k] - leftRegularization * left[k]),
+	 *            right[k] += learnRate * (gradient * left[k] - rightRegularization * right[k])
+	 */
+	public static void update(DenseMatrix leftMatrix, int leftRow, float leftRegularization, DenseMatrix rightMatrix, int rightRow, float rightRegularization, float gradient, float learnRate) {
+		int size = leftMatrix.getColumnSize();
+		float[] leftValues = leftMatrix.getValues();
+		float[] rightValues = rightMatrix.getValues();
+		int leftCursor = leftRow * size;
+		int rightCursor = rightRow * size;
+		int index = 0;
+		for (int limit = size - 3; index < limit; index += 4) {
+			update(leftValues, leftCursor + index, leftRegularization, rightValues, rightCursor + index, rightRegularization, gradient, learnRate);
+			update(leftValues, leftCursor + index + 1, leftRegularization, rightValues, rightCursor + index + 1, rightRegularization, gradient, learnRate);
+			update(leftValues, leftCursor + index + 2, leftRegularization, rightValues, rightCursor + index + 2, rightRegularization, gradient, learnRate);
+			update(leftValues, leftCursor + index + 3, leftRegularization, rightValues, rightCursor + index + 3, rightRegularization, gradient, learnRate);
+		}
+		for (; index < size; index++) {
+			update(leftValues, leftCursor + index, leftRegularization, rightValues, rightCursor + index, rightRegularization, gradient, learnRate);
+		}
+	}
+
+	private static void update(float[] leftValues, int leftPosition, float leftRegularization, float[] rightValues, int rightPosition, float rightRegularization, float gradient, float learnRate) {
+		float left = leftValues[leftPosition];
+		float right = rightValues[rightPosition];
+		leftValues[leftPosition] = left + learnRate * (gradient * right - leftRegularization * left);
+		rightValues[rightPosition] = right + learnRate * (gradient * left - rightRegularization * right);
+	}
+
+}
@@ -2,7 +2,6 @@ package com.jstarcraft.module.math.structure.matrix;
 
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.concurrent.Semaphore;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -84,59 +83,18 @@ public class SparseMatrix implements MathMatrix {
 			return this;
 		}
 		default: {
-			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					context.doStructureByAny(index, () -> {
-						SparseMatrixScalar scalar = new SparseMatrixScalar();
-						int beginPoint = columnPoints[columnIndex], endPoint = columnPoints[columnIndex + 1];
-						for (; beginPoint < endPoint; beginPoint++) {
-							int cursor = columnIndexes[beginPoint];
-							scalar.update(cursor);
-							for (MathAccessor<MatrixScalar> accessor : accessors) {
-								accessor.accessScalar(scalar);
-							}
-						}
-						semaphore.release();
-					});
+			// 按CRS的位置拆分区间,使得每个区间的元素数量均衡
+			EnvironmentContext context = EnvironmentContext.getContext();
+			context.doStructureByRange(0, termValues.length, 0, (from, to) -> {
+				SparseMatrixScalar scalar = new SparseMatrixScalar();
+				for (int point = from; point < to; point++) {
+					scalar.update(rowIndexes[point]);
+					for (MathAccessor<MatrixScalar> accessor : accessors) {
+						accessor.accessScalar(scalar);
+					}
 				}
-				try {
-					semaphore.acquire(size);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				return this;
-			} else {
-				int size = rowSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					context.doStructureByAny(index, () -> {
-						SparseMatrixScalar scalar = new SparseMatrixScalar();
-						int beginPoint = rowPoints[rowIndex], endPoint = rowPoints[rowIndex + 1];
-						for (; beginPoint < endPoint; beginPoint++) {
-							int cursor = rowIndexes[beginPoint];
-							scalar.update(cursor);
-							for (MathAccessor<MatrixScalar> accessor : accessors) {
-								accessor.accessScalar(scalar);
-							}
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				return this;
-			}
+			});
+			return this;
 		}
 		}
 	}
@@ -237,55 +195,17 @@ public class SparseMatrix implements MathMatrix {
 			return this;
 		}
 		default: {
-			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						int beginPoint = columnPoints[columnIndex], endPoint = columnPoints[columnIndex + 1];
-						for (; beginPoint < endPoint; beginPoint++) {
-							int cursor = columnIndexes[beginPoint];
-							collector.collect(termRows[cursor], termColumns[cursor], termValues[cursor], copy);
-						}
-						semaphore.release();
-					});
+			EnvironmentContext context = EnvironmentContext.getContext();
+			MessageStorage storage = MathCalculator.getStorage();
+			context.doStructureByRange(0, termValues.length, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int point = from; point < to; point++) {
+					int cursor = rowIndexes[point];
+					collector.collect(termRows[cursor], termColumns[cursor], termValues[cursor], copy);
 				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				return this;
-			} else {
-				int size = rowSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						int beginPoint = rowPoints[rowIndex], endPoint = rowPoints[rowIndex + 1];
-						for (; beginPoint < endPoint; beginPoint++) {
-							int cursor = rowIndexes[beginPoint];
-							collector.collect(termRows[cursor], termColumns[cursor], termValues[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				return this;
-			}
+			});
+			storage.attachMessage(message);
+			return this;
 		}
 		}
 	}
@@ -300,59 +220,92 @@ public class SparseMatrix implements MathMatrix {
 			return this;
 		}
 		default: {
-			if (this.getColumnSize() <= this.getRowSize()) {
-				int size = columnSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int columnIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						int beginPoint = columnPoints[columnIndex], endPoint = columnPoints[columnIndex + 1];
-						for (; beginPoint < endPoint; beginPoint++) {
-							int cursor = columnIndexes[beginPoint];
-							termValues[cursor] = mapper.map(termRows[cursor], termColumns[cursor], termValues[cursor], copy);
-						}
-						semaphore.release();
-					});
+			EnvironmentContext context = EnvironmentContext.getContext();
+			MessageStorage storage = MathCalculator.getStorage();
+			context.doStructureByRange(0, termValues.length, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int point = from; point < to; point++) {
+					int cursor = rowIndexes[point];
+					termValues[cursor] = mapper.map(termRows[cursor], termColumns[cursor], termValues[cursor], copy);
 				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				return this;
-			} else {
-				int size = rowSize;
-				EnvironmentContext context = EnvironmentContext.getContext();
-				MessageStorage storage = MathCalculator.getStorage();
-				Semaphore semaphore = storage.getSemaphore();
-				for (int index = 0; index < size; index++) {
-					int rowIndex = index;
-					context.doStructureByAny(index, () -> {
-						T copy = storage.detachMessage(message);
-						int beginPoint = rowPoints[rowIndex], endPoint = rowPoints[rowIndex + 1];
-						for (; beginPoint < endPoint; beginPoint++) {
-							int cursor = rowIndexes[beginPoint];
-							termValues[cursor] = mapper.map(termRows[cursor], termColumns[cursor], termValues[cursor], copy);
-						}
-						semaphore.release();
-					});
-				}
-				try {
-					semaphore.acquire(size);
-					storage.attachMessage(message);
-				} catch (Exception exception) {
-					throw new RuntimeException(exception);
-				}
-				return this;
-			}
+			});
+			storage.attachMessage(message);
+			return this;
 		}
 		}
 	}
 
+	/**
+	 * 获取行指针(CRS)
+	 * 
+	 * <pre>
+	 * 第rowIndex行的元素位置范围为[rowPoints[rowIndex], rowPoints[rowIndex + 1]).
+	 * </pre>
+	 * 
+	 * @return
+	 */
+	public int[] getRowPoints() {
+		return rowPoints;
+	}
+
+	/**
+	 * 获取行位置到元素的索引(CRS)
+	 * 
+	 * @return
+	 */
+	public int[] getRowIndexes() {
+		return rowIndexes;
+	}
+
+	/**
+	 * 获取列指针(CCS)
+	 * 
+	 * <pre>
+	 * 第columnIndex列的元素位置范围为[columnPoints[columnIndex], columnPoints[columnIndex + 1]).
+	 * </pre>
+	 * 
+	 * @return
+	 */
+	public int[] getColumnPoints() {
+		return columnPoints;
+	}
+
+	/**
+	 * 获取列位置到元素的索引(CCS)
+	 * 
+	 * @return
+	 */
+	public int[] getColumnIndexes() {
+		return columnIndexes;
+	}
+
+	/**
+	 * 获取元素的行
+	 * 
+	 * @return
+	 */
+	public int[] getTermRows() {
+		return termRows;
+	}
+
+	/**
+	 * 获取元素的列
+	 * 
+	 * @return
+	 */
+	public int[] getTermColumns() {
+		return termColumns;
+	}
+
+	/**
+	 * 获取元素的值
+	 * 
+	 * @return
+	 */
+	public float[] getTermValues() {
+		return termValues;
+	}
+
 	public int getRowScope(int rowIndex) {
 		return rowPoints[rowIndex + 1] - rowPoints[rowIndex];
 	}
@@ -509,6 +462,79 @@ public class SparseMatrix implements MathMatrix {
 		return instance;
 	}
 
+	/**
+	 * 共享结构,替换元素的值
+	 * 
+	 * @param matrix
+	 * @param termValues
+	 *            按照矩阵的元素顺序
+	 * @return
+	 */
+	static SparseMatrix copyOf(SparseMatrix matrix, float[] termValues) {
+		assert matrix.termValues.length == termValues.length;
+		SparseMatrix instance = new SparseMatrix();
+		instance.rowSize = matrix.rowSize;
+		instance.columnSize = matrix.columnSize;
+		instance.copyCRS(matrix.rowPoints, matrix.rowIndexes);
+		instance.copyCCS(matrix.columnPoints, matrix.columnIndexes);
+		instance.termRows = matrix.termRows;
+		instance.termColumns = matrix.termColumns;
+		instance.termValues = termValues;
+		return instance;
+	}
+
+	/**
+	 * 按照行主序的元素构建
+	 * 
+	 * <pre>
+	 * 元素必须按照(行,列)递增排列并且不能重复.
+	 * 行索引直接使用元素顺序,列索引由一次计数排序得到(稳定,所以每列内的行递增).
+	 * 数组直接作为矩阵的存储,不会拷贝.
+	 * </pre>
+	 * 
+	 * @param rowSize
+	 * @param columnSize
+	 * @param termRows
+	 * @param termColumns
+	 * @param termValues
+	 * @return
+	 */
+	public static SparseMatrix valueOf(int rowSize, int columnSize, int[] termRows, int[] termColumns, float[] termValues) {
+		assert termRows.length == termColumns.length && termRows.length == termValues.length;
+		SparseMatrix instance = new SparseMatrix();
+		instance.rowSize = rowSize;
+		instance.columnSize = columnSize;
+		int size = termValues.length;
+
+		// CRS
+		instance.rowPoints = new int[rowSize + 1];
+		instance.rowIndexes = new int[size];
+		// CCS
+		instance.columnPoints = new int[columnSize + 1];
+		instance.columnIndexes = new int[size];
+
+		instance.termRows = termRows;
+		instance.termColumns = termColumns;
+		instance.termValues = termValues;
+
+		for (int index = 0; index < size; index++) {
+			instance.rowPoints[termRows[index] + 1]++;
+			instance.columnPoints[termColumns[index] + 1]++;
+			instance.rowIndexes[index] = index;
+		}
+		for (int point = 1; point <= rowSize; point++) {
+			instance.rowPoints[point] += instance.rowPoints[point - 1];
+		}
+		for (int point = 1; point <= columnSize; point++) {
+			instance.columnPoints[point] += instance.columnPoints[point - 1];
+		}
+		int[] cursors = Arrays.copyOf(instance.columnPoints, columnSize);
+		for (int index = 0; index < size; index++) {
+			instance.columnIndexes[cursors[termColumns[index]]++] = index;
+		}
+		return instance;
+	}
+
 	public static SparseMatrix valueOf(int rowSize, int columnSize, Table<Integer, Integer, Float> dataTable) {
 		SparseMatrix instance = new SparseMatrix();
 		instance.rowSize = rowSize;
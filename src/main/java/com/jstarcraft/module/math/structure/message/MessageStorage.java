@@ -1,12 +1,10 @@
 package com.jstarcraft.module.math.structure.message;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.Semaphore;
 
 import com.jstarcraft.core.utility.KeyValue;
-import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.math.structure.MathMessage;
 
 public class MessageStorage {
@@ -19,29 +17,42 @@ public class MessageStorage {
 	private Semaphore semaphore;
 
 	public MessageStorage() {
-		globalKeyValues = new LinkedList<>();
+		globalKeyValues = new ArrayList<>();
 		localKeyValues = new ThreadLocal<>();
 		semaphore = new Semaphore(0);
+	}
 
-		EnvironmentContext context = EnvironmentContext.getContext();
-		context.doStructureByEvery(() -> {
-			KeyValue<Boolean, MathMessage> keyValue = new KeyValue<>(false, null);
+	/**
+	 * 获取当前线程的消息槽
+	 * 
+	 * <pre>
+	 * 结构线程与工作窃取线程都在首次分离消息时注册.
+	 * </pre>
+	 * 
+	 * @return
+	 */
+	private KeyValue<Boolean, MathMessage> getKeyValue() {
+		KeyValue<Boolean, MathMessage> keyValue = localKeyValues.get();
+		if (keyValue == null) {
+			keyValue = new KeyValue<>(false, null);
 			localKeyValues.set(keyValue);
 			synchronized (globalKeyValues) {
 				globalKeyValues.add(keyValue);
 			}
-		});
-		globalKeyValues = new ArrayList<>(globalKeyValues);
+		}
+		return keyValue;
 	}
 
 	public <T extends MathMessage> T attachMessage(T message) {
 		if (message == null) {
 			return null;
 		} else {
-			for (KeyValue<Boolean, MathMessage> keyValue : globalKeyValues) {
-				if (keyValue.getKey()) {
-					message.attach(keyValue.getValue());
-					keyValue.setKey(false);
+			synchronized (globalKeyValues) {
+				for (KeyValue<Boolean, MathMessage> keyValue : globalKeyValues) {
+					if (keyValue.getKey()) {
+						message.attach(keyValue.getValue());
+						keyValue.setKey(false);
+					}
 				}
 			}
 			return message;
@@ -52,7 +63,7 @@ public class MessageStorage {
 		if (message == null) {
 			return null;
 		} else {
-			KeyValue<Boolean, MathMessage> keyValue = localKeyValues.get();
+			KeyValue<Boolean, MathMessage> keyValue = getKeyValue();
 			MathMessage copy;
 			if (keyValue.getKey()) {
 				copy = keyValue.getValue();
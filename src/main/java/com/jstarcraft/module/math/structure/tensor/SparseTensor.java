@@ -1,17 +1,14 @@
 package com.jstarcraft.module.math.structure.tensor;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
-import java.util.TreeMap;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.math.structure.MathAccessor;
 import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.MathCombiner;
 import com.jstarcraft.module.math.structure.MathIterator;
 import com.jstarcraft.module.math.structure.MathMessage;
+import com.jstarcraft.module.math.structure.matrix.MatrixBuilder;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 
@@ -155,15 +152,11 @@ public class SparseTensor implements MathTensor {
 	// TODO 考虑取消(整合到SparseMatrix)
 	@Deprecated
 	public SparseMatrix toMatrix(int rowDimension, int columnDimension) {
-		Table<Integer, Integer, Float> dataTable = HashBasedTable.create();
 		int size = values.length;
-		for (int position = 0; position < size; position++) {
-			int rowIndex = indexes[rowDimension][position];
-			int columnIndex = indexes[columnDimension][position];
-			// TODO 处理冲突
-			dataTable.put(rowIndex, columnIndex, values[position]);
-		}
-		return SparseMatrix.valueOf(dimensions[rowDimension], dimensions[columnDimension], dataTable);
+		// TODO 处理冲突(暂时保留最后的元素)
+		MatrixBuilder builder = new MatrixBuilder(dimensions[rowDimension], dimensions[columnDimension], MathCombiner.LAST, size);
+		builder.append(indexes[rowDimension], indexes[columnDimension], values);
+		return builder.build();
 	}
 
 	@Override
@@ -172,66 +165,29 @@ public class SparseTensor implements MathTensor {
 	}
 
 	public static <T> SparseTensor valueOf(int[] dimensions, Iterable<T> iterator, TensorTransformer<T> transformer) {
-		List<int[][]> globalIndexes = new ArrayList<>(100);
-		List<float[]> globalValues = new ArrayList<>(100);
-		// 保证排序与唯一
-		TreeMap<Integer, Integer> positions = new TreeMap<>((left, right) -> {
-			int[][] leftIndexes = globalIndexes.get(left / DEFAULT_CAPACITY);
-			int[][] rightIndexes = globalIndexes.get(right / DEFAULT_CAPACITY);
-			int value = 0;
-			for (int dimension = 0; dimension < dimensions.length; dimension++) {
-				value = leftIndexes[dimension][left % DEFAULT_CAPACITY] - rightIndexes[dimension][right % DEFAULT_CAPACITY];
-				if (value != 0) {
-					break;
-				}
-			}
-			return value;
-		});
-		int[][] localIndexes = new int[dimensions.length][DEFAULT_CAPACITY];
-		float[] localValues = new float[DEFAULT_CAPACITY];
-		globalIndexes.add(localIndexes);
-		globalValues.add(localValues);
+		// 保证排序与唯一(坐标相同时保留最先出现的元素)
+		TensorBuilder builder = new TensorBuilder(dimensions, MathCombiner.FIRST, DEFAULT_CAPACITY);
 		KeyValue<int[], Float> keyValue = new KeyValue<>(new int[dimensions.length], null);
-		int newPosition = 0;
 		for (T instance : iterator) {
-			int cursor = newPosition % DEFAULT_CAPACITY;
 			transformer.transform(keyValue, instance);
-			for (int dimension = 0; dimension < dimensions.length; dimension++) {
-				localIndexes[dimension][cursor] = keyValue.getKey()[dimension];
-			}
-			localValues[cursor] = keyValue.getValue();
-
-			Integer oldPosition = positions.get(newPosition);
-			if (oldPosition == null) {
-				positions.put(newPosition, newPosition);
-				newPosition++;
-				if (newPosition % DEFAULT_CAPACITY == 0) {
-					localIndexes = new int[dimensions.length][DEFAULT_CAPACITY];
-					globalIndexes.add(localIndexes);
-					localValues = new float[DEFAULT_CAPACITY];
-					globalValues.add(localValues);
-				}
-			} else {
-				// TODO 处理冲突
-				System.out.println("覆盖数据" + oldPosition + " " + newPosition);
-			}
+			builder.append(keyValue.getKey(), keyValue.getValue());
 		}
+		return builder.build();
+	}
 
+	/**
+	 * 按照字典序的元素构建(由{@link TensorBuilder}保证排序与唯一,数组不会拷贝)
+	 * 
+	 * @param dimensions
+	 * @param indexes
+	 * @param values
+	 * @return
+	 */
+	static SparseTensor valueOf(int[] dimensions, int[][] indexes, float[] values) {
 		SparseTensor tensor = new SparseTensor();
 		tensor.dimensions = dimensions;
-		tensor.indexes = new int[dimensions.length][newPosition];
-		tensor.values = new float[newPosition];
-		newPosition = 0;
-		for (int oldPosition : positions.keySet()) {
-			int cursor = oldPosition % DEFAULT_CAPACITY;
-			localIndexes = globalIndexes.get(oldPosition / DEFAULT_CAPACITY);
-			localValues = globalValues.get(oldPosition / DEFAULT_CAPACITY);
-			for (int order = 0; order < dimensions.length; order++) {
-				tensor.indexes[order][newPosition] = localIndexes[order][cursor];
-			}
-			tensor.values[newPosition] = localValues[cursor];
-			newPosition++;
-		}
+		tensor.indexes = indexes;
+		tensor.values = values;
 		return tensor;
 	}
 
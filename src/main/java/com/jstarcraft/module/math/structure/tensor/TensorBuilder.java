@@ -0,0 +1,176 @@
+package com.jstarcraft.module.math.structure.tensor;
+
+import java.util.Arrays;
+
+import com.jstarcraft.module.math.structure.MathCombiner;
+
+/**
+ * 张量构建器
+ *
+ * <pre>
+ * {@link com.jstarcraft.module.math.structure.matrix.MatrixBuilder}的N维版本.
+ * 每个维度的索引与值分别保存在原始类型数组,不装箱.
+ * 构建时从最后一个维度到第一个维度依次执行稳定的计数排序(LSD),得到字典序并且合并相同坐标的元素.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class TensorBuilder {
+
+	/** 默认容量 */
+	private static final int DEFAULT_CAPACITY = 1000;
+
+	/** 维度 */
+	private final int[] dimensions;
+
+	/** 合并器 */
+	private final MathCombiner combiner;
+
+	/** 元素数量 */
+	private int size;
+
+	/** 索引 */
+	private int[][] indexes;
+
+	/** 值 */
+	private float[] values;
+
+	public TensorBuilder(int[] dimensions, MathCombiner combiner) {
+		this(dimensions, combiner, DEFAULT_CAPACITY);
+	}
+
+	public TensorBuilder(int[] dimensions, MathCombiner combiner, int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException();
+		}
+		for (int dimension : dimensions) {
+			if (dimension < 0) {
+				throw new IllegalArgumentException();
+			}
+		}
+		this.dimensions = dimensions;
+		this.combiner = combiner;
+		this.indexes = new int[dimensions.length][capacity];
+		this.values = new float[capacity];
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > values.length) {
+			capacity = Math.max(capacity, values.length + (values.length >> 1) + 1);
+			for (int order = 0; order < dimensions.length; order++) {
+				indexes[order] = Arrays.copyOf(indexes[order], capacity);
+			}
+			values = Arrays.copyOf(values, capacity);
+		}
+	}
+
+	/**
+	 * 追加元素
+	 *
+	 * @param keys
+	 *            每个维度的索引(会被拷贝)
+	 * @param value
+	 */
+	public void append(int[] keys, float value) {
+		if (keys.length != dimensions.length) {
+			throw new IllegalArgumentException();
+		}
+		for (int order = 0; order < dimensions.length; order++) {
+			if (keys[order] < 0 || keys[order] >= dimensions[order]) {
+				throw new IndexOutOfBoundsException();
+			}
+		}
+		ensureCapacity(size + 1);
+		for (int order = 0; order < dimensions.length; order++) {
+			indexes[order][size] = keys[order];
+		}
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * 获取已经追加的元素数量(包括坐标重复的元素)
+	 *
+	 * @return
+	 */
+	public int getElementSize() {
+		return size;
+	}
+
+	/**
+	 * 清理元素(保留容量)
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * 构建稀疏张量
+	 *
+	 * @return
+	 */
+	public SparseTensor build() {
+		int orderSize = dimensions.length;
+		int[] order = new int[size];
+		for (int index = 0; index < size; index++) {
+			order[index] = index;
+		}
+		int[] buffer = new int[size];
+		int maximum = 0;
+		for (int dimension : dimensions) {
+			maximum = Math.max(maximum, dimension);
+		}
+		int[] points = new int[maximum + 1];
+		for (int dimension = orderSize - 1; dimension >= 0; dimension--) {
+			int[] keys = indexes[dimension];
+			int length = dimensions[dimension];
+			Arrays.fill(points, 0);
+			for (int index = 0; index < size; index++) {
+				points[keys[index] + 1]++;
+			}
+			for (int point = 1; point <= length; point++) {
+				points[point] += points[point - 1];
+			}
+			for (int position = 0; position < size; position++) {
+				int index = order[position];
+				buffer[points[keys[index]]++] = index;
+			}
+			int[] swap = order;
+			order = buffer;
+			buffer = swap;
+		}
+		buffer = null;
+		points = null;
+
+		// 合并相同坐标的元素
+		int[][] termIndexes = new int[orderSize][size];
+		float[] termValues = new float[size];
+		int cursor = -1;
+		for (int position = 0; position < size; position++) {
+			int index = order[position];
+			boolean same = cursor >= 0;
+			for (int dimension = 0; same && dimension < orderSize; dimension++) {
+				same = termIndexes[dimension][cursor] == indexes[dimension][index];
+			}
+			if (same) {
+				termValues[cursor] = combiner.combine(termValues[cursor], values[index]);
+			} else {
+				cursor++;
+				for (int dimension = 0; dimension < orderSize; dimension++) {
+					termIndexes[dimension][cursor] = indexes[dimension][index];
+				}
+				termValues[cursor] = values[index];
+			}
+		}
+		cursor++;
+		if (cursor < size) {
+			for (int dimension = 0; dimension < orderSize; dimension++) {
+				termIndexes[dimension] = Arrays.copyOf(termIndexes[dimension], cursor);
+			}
+			termValues = Arrays.copyOf(termValues, cursor);
+		}
+		return SparseTensor.valueOf(dimensions, termIndexes, termValues);
+	}
+
+}
@@ -2,7 +2,6 @@ package com.jstarcraft.module.math.structure.vector;
 
 import java.util.Iterator;
 import java.util.WeakHashMap;
-import java.util.concurrent.Semaphore;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -70,24 +69,15 @@ public class ArrayVector implements MathVector {
 		}
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
-			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int position = 0; position < size; position++) {
-				int index = position;
-				context.doStructureByAny(position, () -> {
-					ArrayVectorScalar scalar = new ArrayVectorScalar();
-					scalar.update(index);
+			context.doStructureByRange(0, size, 0, (from, to) -> {
+				ArrayVectorScalar scalar = new ArrayVectorScalar();
+				for (int position = from; position < to; position++) {
+					scalar.update(position);
 					for (MathAccessor<VectorScalar> accessor : accessors) {
 						accessor.accessScalar(scalar);
 					}
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(size);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -184,21 +174,13 @@ public class ArrayVector implements MathVector {
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int position = 0; position < size; position++) {
-				int index = position;
-				context.doStructureByAny(position, () -> {
-					T copy = storage.detachMessage(message);
-					collector.collect(indexes[index], values[index], copy);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(size);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+			context.doStructureByRange(0, size, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int position = from; position < to; position++) {
+					collector.collect(indexes[position], values[position], copy);
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
@@ -216,21 +198,13 @@ public class ArrayVector implements MathVector {
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int position = 0; position < size; position++) {
-				int index = position;
-				context.doStructureByAny(position, () -> {
-					T copy = storage.detachMessage(message);
-					values[index] = mapper.map(indexes[index], values[index], copy);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(size);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+			context.doStructureByRange(0, size, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int position = from; position < to; position++) {
+					values[position] = mapper.map(indexes[position], values[position], copy);
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
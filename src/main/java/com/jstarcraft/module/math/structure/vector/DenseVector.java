@@ -1,7 +1,7 @@
 package com.jstarcraft.module.math.structure.vector;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.concurrent.Semaphore;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -12,6 +12,10 @@ import com.jstarcraft.module.math.structure.MathAccessor;
 import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.MathIterator;
 import com.jstarcraft.module.math.structure.MathMessage;
+import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.math.structure.matrix.MatrixKernel;
+import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.math.structure.message.MessageStorage;
 
 /**
@@ -69,25 +73,16 @@ public class DenseVector implements MathVector {
 		}
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
-			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int index = 0; index < size; index++) {
-				int elementIndex = index;
-				int position = cursor + index * delta;
-				context.doStructureByAny(position, () -> {
-					DenseVectorScalar scalar = new DenseVectorScalar();
-					scalar.update(position, elementIndex);
+			context.doStructureByRange(0, size, 0, (from, to) -> {
+				DenseVectorScalar scalar = new DenseVectorScalar();
+				for (int index = from; index < to; index++) {
+					int position = cursor + index * delta;
+					scalar.update(position, index);
 					for (MathAccessor<VectorScalar> accessor : accessors) {
 						accessor.accessScalar(scalar);
 					}
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(size);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -178,22 +173,14 @@ public class DenseVector implements MathVector {
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int index = 0; index < size; index++) {
-				int elementIndex = index;
-				int position = cursor + index * delta;
-				context.doStructureByAny(position, () -> {
-					T copy = storage.detachMessage(message);
-					collector.collect(elementIndex, values[position], copy);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(size);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+			context.doStructureByRange(0, size, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int index = from; index < to; index++) {
+					int position = cursor + index * delta;
+					collector.collect(index, values[position], copy);
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
@@ -212,22 +199,14 @@ public class DenseVector implements MathVector {
 		default: {
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int index = 0; index < size; index++) {
-				int elementIndex = index;
-				int position = cursor + index * delta;
-				context.doStructureByAny(position, () -> {
-					T copy = storage.detachMessage(message);
-					values[position] = mapper.map(elementIndex, values[position], copy);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(size);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+			context.doStructureByRange(0, size, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int index = from; index < to; index++) {
+					int position = cursor + index * delta;
+					values[position] = mapper.map(index, values[position], copy);
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
@@ -250,6 +229,37 @@ public class DenseVector implements MathVector {
 		return this;
 	}
 
+	@Override
+	public MathVector dotProduct(MathMatrix leftMatrix, boolean transpose, MathVector rightVector, MathCalculator mode) {
+		if (leftMatrix instanceof SparseMatrix && rightVector instanceof DenseVector) {
+			DenseVector that = DenseVector.class.cast(rightVector);
+			MatrixKernel.multiply(SparseMatrix.class.cast(leftMatrix), transpose, that.values, that.cursor, that.delta, this.values, this.cursor, this.delta, mode);
+			return this;
+		} else if (leftMatrix instanceof DenseMatrix && rightVector instanceof DenseVector) {
+			DenseVector that = DenseVector.class.cast(rightVector);
+			MatrixKernel.multiply(DenseMatrix.class.cast(leftMatrix), transpose, that.values, that.cursor, that.delta, this.values, this.cursor, this.delta, mode);
+			return this;
+		} else {
+			return MathVector.super.dotProduct(leftMatrix, transpose, rightVector, mode);
+		}
+	}
+
+	@Override
+	public MathVector dotProduct(MathVector leftVector, MathMatrix rightMatrix, boolean transpose, MathCalculator mode) {
+		if (rightMatrix instanceof SparseMatrix && leftVector instanceof DenseVector) {
+			// leftVector × op(rightMatrix)等价于op(rightMatrix)ᵀ × leftVector
+			DenseVector that = DenseVector.class.cast(leftVector);
+			MatrixKernel.multiply(SparseMatrix.class.cast(rightMatrix), !transpose, that.values, that.cursor, that.delta, this.values, this.cursor, this.delta, mode);
+			return this;
+		} else if (rightMatrix instanceof DenseMatrix && leftVector instanceof DenseVector) {
+			DenseVector that = DenseVector.class.cast(leftVector);
+			MatrixKernel.multiply(DenseMatrix.class.cast(rightMatrix), !transpose, that.values, that.cursor, that.delta, this.values, this.cursor, this.delta, mode);
+			return this;
+		} else {
+			return MathVector.super.dotProduct(leftVector, rightMatrix, transpose, mode);
+		}
+	}
+
 	@Override
 	public boolean equals(Object object) {
 		if (this == object)
@@ -364,6 +374,40 @@ public class DenseVector implements MathVector {
 		return instance;
 	}
 
+	/**
+	 * 扩展向量(已有的元素保持不变,新增的元素由mapper设置)
+	 * 
+	 * <pre>
+	 * 连续存储的向量按照1.5倍预留容量,容量足够时直接复用原数组.
+	 * </pre>
+	 * 
+	 * @param vector
+	 * @param size
+	 * @param mapper
+	 * @return
+	 */
+	public static DenseVector expandOf(DenseVector vector, int size, VectorMapper<?> mapper) {
+		assert size >= vector.size;
+		int capacity = Math.max(size, vector.size + (vector.size >> 1));
+		float[] data;
+		if (vector.cursor == 0 && vector.delta == 1) {
+			data = vector.values;
+			if (data.length < size) {
+				data = Arrays.copyOf(data, capacity);
+			}
+		} else {
+			data = new float[capacity];
+			for (int index = 0; index < vector.size; index++) {
+				data[index] = vector.getValue(index);
+			}
+		}
+		DenseVector instance = new DenseVector(data, 0, 1, size);
+		for (int index = vector.size; index < size; index++) {
+			instance.values[index] = mapper.map(index, 0F, null);
+		}
+		return instance;
+	}
+
 	public static DenseVector valueOf(int size) {
 		DenseVector instance = new DenseVector(new float[size], 0, 1, size);
 		return instance;
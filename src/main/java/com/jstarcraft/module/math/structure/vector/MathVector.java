@@ -1,6 +1,5 @@
 package com.jstarcraft.module.math.structure.vector;
 
-import java.util.concurrent.CountDownLatch;
 
 import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.math.structure.MathCalculator;
@@ -190,25 +189,16 @@ public interface MathVector extends MathIterator<VectorScalar> {
 			return this;
 		}
 		default: {
-			int size = this.getElementSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (int position = 0; position < size; position++) {
-				int index = this.getIndex(position);
-				int cursor = position;
-				context.doStructureByAny(position, () -> {
+			context.doStructureByRange(0, this.getElementSize(), 0, (from, to) -> {
+				DefaultScalar scalar = DefaultScalar.getInstance();
+				for (int position = from; position < to; position++) {
+					int index = this.getIndex(position);
 					MathVector leftVector = transpose ? leftMatrix.getColumnVector(index) : leftMatrix.getRowVector(index);
-					DefaultScalar scalar = DefaultScalar.getInstance();
 					float value = scalar.dotProduct(leftVector, rightVector).getValue();
-					this.setValue(cursor, value);
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+					this.setValue(position, value);
+				}
+			});
 			return this;
 		}
 		}
@@ -234,25 +224,16 @@ public interface MathVector extends MathIterator<VectorScalar> {
 			return this;
 		}
 		default: {
-			int size = this.getElementSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (int position = 0; position < size; position++) {
-				int index = this.getIndex(position);
-				int cursor = position;
-				context.doStructureByAny(position, () -> {
+			context.doStructureByRange(0, this.getElementSize(), 0, (from, to) -> {
+				DefaultScalar scalar = DefaultScalar.getInstance();
+				for (int position = from; position < to; position++) {
+					int index = this.getIndex(position);
 					MathVector rightVector = transpose ? rightMatrix.getRowVector(index) : rightMatrix.getColumnVector(index);
-					DefaultScalar scalar = DefaultScalar.getInstance();
 					float value = scalar.dotProduct(leftVector, rightVector).getValue();
-					this.setValue(cursor, value);
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+					this.setValue(position, value);
+				}
+			});
 			return this;
 		}
 		}
@@ -278,25 +259,16 @@ public interface MathVector extends MathIterator<VectorScalar> {
 			return this;
 		}
 		default: {
-			int size = this.getElementSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (int position = 0; position < size; position++) {
-				int index = this.getIndex(position);
-				int cursor = position;
-				context.doStructureByAny(position, () -> {
+			context.doStructureByRange(0, this.getElementSize(), 0, (from, to) -> {
+				DefaultScalar scalar = DefaultScalar.getInstance();
+				for (int position = from; position < to; position++) {
+					int index = this.getIndex(position);
 					MathVector leftVector = transpose ? leftMatrix.getColumnVector(index) : leftMatrix.getRowVector(index);
-					DefaultScalar scalar = DefaultScalar.getInstance();
 					float value = scalar.dotProduct(leftVector, rightVector).getValue();
-					this.shiftValue(cursor, value);
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+					this.shiftValue(position, value);
+				}
+			});
 			return this;
 		}
 		}
@@ -322,25 +294,16 @@ public interface MathVector extends MathIterator<VectorScalar> {
 			return this;
 		}
 		default: {
-			int size = this.getElementSize();
 			EnvironmentContext context = EnvironmentContext.getContext();
-			CountDownLatch latch = new CountDownLatch(size);
-			for (int position = 0; position < size; position++) {
-				int index = this.getIndex(position);
-				int cursor = position;
-				context.doStructureByAny(position, () -> {
+			context.doStructureByRange(0, this.getElementSize(), 0, (from, to) -> {
+				DefaultScalar scalar = DefaultScalar.getInstance();
+				for (int position = from; position < to; position++) {
+					int index = this.getIndex(position);
 					MathVector rightVector = transpose ? rightMatrix.getRowVector(index) : rightMatrix.getColumnVector(index);
-					DefaultScalar scalar = DefaultScalar.getInstance();
 					float value = scalar.dotProduct(leftVector, rightVector).getValue();
-					this.shiftValue(cursor, value);
-					latch.countDown();
-				});
-			}
-			try {
-				latch.await();
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+					this.shiftValue(position, value);
+				}
+			});
 			return this;
 		}
 		}
@@ -389,8 +389,7 @@ public class Nd4jVector implements MathVector, ModelCycle {
 	@Override
 	public MathVector dotProduct(MathMatrix leftMatrix, boolean transpose, MathVector rightVector, MathCalculator mode) {
 		if (leftMatrix instanceof Nd4jMatrix && rightVector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray leftArray = transpose ? Nd4jMatrix.class.cast(leftMatrix).getArray().transpose() : Nd4jMatrix.class.cast(leftMatrix).getArray();
 				INDArray rightArray = Nd4jVector.class.cast(rightVector).getArray();
 				INDArray dataArray = this.getArray();
@@ -405,8 +404,7 @@ public class Nd4jVector implements MathVector, ModelCycle {
 	@Override
 	public MathVector dotProduct(MathVector leftVector, MathMatrix rightMatrix, boolean transpose, MathCalculator mode) {
 		if (leftVector instanceof Nd4jVector && rightMatrix instanceof Nd4jMatrix) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray leftArray = Nd4jVector.class.cast(leftVector).getArray();
 				if (leftArray.isView()) {
 					// 此处执行复制是由于gemm不支持视图向量.
@@ -430,8 +428,7 @@ public class Nd4jVector implements MathVector, ModelCycle {
 	@Override
 	public MathVector accumulateProduct(MathMatrix leftMatrix, boolean transpose, MathVector rightVector, MathCalculator mode) {
 		if (leftMatrix instanceof Nd4jMatrix && rightVector instanceof Nd4jVector) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray leftArray = transpose ? Nd4jMatrix.class.cast(leftMatrix).getArray().transpose() : Nd4jMatrix.class.cast(leftMatrix).getArray();
 				INDArray rightArray = Nd4jVector.class.cast(rightVector).getArray();
 				INDArray dataArray = this.getArray();
@@ -448,8 +445,7 @@ public class Nd4jVector implements MathVector, ModelCycle {
 	@Override
 	public MathVector accumulateProduct(MathVector leftVector, MathMatrix rightMatrix, boolean transpose, MathCalculator mode) {
 		if (leftVector instanceof Nd4jVector && rightMatrix instanceof Nd4jMatrix) {
-			EnvironmentThread thread = EnvironmentThread.currentThread();
-			try (MemoryWorkspace workspace = thread.getSpace()) {
+			try (MemoryWorkspace workspace = EnvironmentThread.getWorkspace()) {
 				INDArray leftArray = Nd4jVector.class.cast(leftVector).getArray();
 				if (leftArray.isView()) {
 					// 此处执行复制是由于gemm不支持视图向量.
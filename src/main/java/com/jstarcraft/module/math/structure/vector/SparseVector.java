@@ -2,7 +2,6 @@ package com.jstarcraft.module.math.structure.vector;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.concurrent.Semaphore;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -64,26 +63,16 @@ public class SparseVector implements MathVector, Iterable<VectorScalar> {
 			return this;
 		}
 		default: {
-			int size = endIndex - beginIndex;
 			EnvironmentContext context = EnvironmentContext.getContext();
-			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int position = beginIndex; position < endIndex; position++) {
-				int cursor = position;
-				context.doStructureByAny(position, () -> {
-					SparseVectorScalar scalar = new SparseVectorScalar();
-					scalar.update(cursor);
+			context.doStructureByRange(beginIndex, endIndex, 0, (from, to) -> {
+				SparseVectorScalar scalar = new SparseVectorScalar();
+				for (int position = from; position < to; position++) {
+					scalar.update(position);
 					for (MathAccessor<VectorScalar> accessor : accessors) {
 						accessor.accessScalar(scalar);
 					}
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(size);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
 			return this;
 		}
 		}
@@ -173,25 +162,17 @@ public class SparseVector implements MathVector, Iterable<VectorScalar> {
 			return this;
 		}
 		default: {
-			int size = endIndex - beginIndex;
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int position = beginIndex; position < endIndex; position++) {
-				int cursor = points[position];
-				int index = indexes[cursor];
-				context.doStructureByAny(position, () -> {
-					T copy = storage.detachMessage(message);
+			context.doStructureByRange(beginIndex, endIndex, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int position = from; position < to; position++) {
+					int cursor = points[position];
+					int index = indexes[cursor];
 					collector.collect(index, values[cursor], copy);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(size);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
@@ -209,25 +190,17 @@ public class SparseVector implements MathVector, Iterable<VectorScalar> {
 			return this;
 		}
 		default: {
-			int size = endIndex - beginIndex;
 			EnvironmentContext context = EnvironmentContext.getContext();
 			MessageStorage storage = MathCalculator.getStorage();
-			Semaphore semaphore = storage.getSemaphore();
-			for (int position = beginIndex; position < endIndex; position++) {
-				int cursor = points[position];
-				int index = indexes[cursor];
-				context.doStructureByAny(position, () -> {
-					T copy = storage.detachMessage(message);
+			context.doStructureByRange(beginIndex, endIndex, 0, (from, to) -> {
+				T copy = storage.detachMessage(message);
+				for (int position = from; position < to; position++) {
+					int cursor = points[position];
+					int index = indexes[cursor];
 					values[cursor] = mapper.map(index, values[cursor], copy);
-					semaphore.release();
-				});
-			}
-			try {
-				semaphore.acquire(size);
-				storage.attachMessage(message);
-			} catch (Exception exception) {
-				throw new RuntimeException(exception);
-			}
+				}
+			});
+			storage.attachMessage(message);
 			return this;
 		}
 		}
@@ -0,0 +1,279 @@
+package com.jstarcraft.module.neuralnetwork;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.jstarcraft.core.utility.RandomUtility;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
+import com.jstarcraft.module.math.structure.matrix.Nd4jMatrix;
+
+/**
+ * 批次迭代器
+ *
+ * <pre>
+ * 按照(可选打乱的)顺序把数据集切分为固定大小的批次,供{@link Graph}小批量训练与预测.
+ * 迭代器持有两组预先分配的缓冲:当前批次的缓冲绑定到计算图,下一个批次在后台线程({@link EnvironmentContext#doBackground})装载到另一组缓冲,
+ * 切换批次时只复制缓冲,所以装载与当前批次的正向/反向传播重叠,内存只与批次大小相关.
+ * 最后一个批次不足时保持缓冲的形状不变,多余的行置0并且样本索引为-1,
+ * 计算图根据有效行数({@link #getSize()})忽略这些行的梯度与损失.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class BatchIterator {
+
+	/** 数据集的样本数量 */
+	private int numberOfSamples;
+
+	/** 批次大小 */
+	private int batchSize;
+
+	/** 批次数量 */
+	private int numberOfBatches;
+
+	/** 是否打乱顺序 */
+	private boolean shuffle;
+
+	/** 样本顺序 */
+	private int[] orders;
+
+	/** 当前批次的有效行数,样本索引与缓冲(绑定到计算图) */
+	private int size;
+
+	private int[] indexes;
+
+	private MathMatrix[] samples, labels;
+
+	/** 下一个批次的有效行数,样本索引与缓冲(后台装载) */
+	private int nextSize;
+
+	private int[] nextIndexes;
+
+	private MathMatrix[] nextSamples, nextLabels;
+
+	private BatchLoader loader;
+
+	/** 批次游标 */
+	private int cursor;
+
+	/** 后台装载 */
+	private CountDownLatch latch;
+
+	private RuntimeException exception;
+
+	/**
+	 *
+	 * @param numberOfSamples
+	 * @param batchSize
+	 * @param shuffle
+	 * @param factory
+	 * @param sampleDimensions
+	 *            每个样本矩阵的列数
+	 * @param labelDimensions
+	 *            每个标签矩阵的列数
+	 * @param loader
+	 */
+	public BatchIterator(int numberOfSamples, int batchSize, boolean shuffle, MatrixFactory factory, int[] sampleDimensions, int[] labelDimensions, BatchLoader loader) {
+		if (numberOfSamples <= 0 || batchSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.numberOfSamples = numberOfSamples;
+		this.batchSize = Math.min(batchSize, numberOfSamples);
+		this.numberOfBatches = (numberOfSamples + this.batchSize - 1) / this.batchSize;
+		this.shuffle = shuffle;
+		this.orders = new int[numberOfSamples];
+		for (int index = 0; index < numberOfSamples; index++) {
+			orders[index] = index;
+		}
+		this.indexes = new int[this.batchSize];
+		this.nextIndexes = new int[this.batchSize];
+		this.samples = new MathMatrix[sampleDimensions.length];
+		this.nextSamples = new MathMatrix[sampleDimensions.length];
+		for (int index = 0; index < sampleDimensions.length; index++) {
+			samples[index] = factory.makeCache(this.batchSize, sampleDimensions[index]);
+			nextSamples[index] = factory.makeCache(this.batchSize, sampleDimensions[index]);
+		}
+		this.labels = new MathMatrix[labelDimensions.length];
+		this.nextLabels = new MathMatrix[labelDimensions.length];
+		for (int index = 0; index < labelDimensions.length; index++) {
+			labels[index] = factory.makeCache(this.batchSize, labelDimensions[index]);
+			nextLabels[index] = factory.makeCache(this.batchSize, labelDimensions[index]);
+		}
+		this.loader = loader;
+		this.cursor = numberOfBatches;
+	}
+
+	private void load(int batch) {
+		int from = batch * batchSize;
+		nextSize = Math.min(batchSize, numberOfSamples - from);
+		for (int row = 0; row < nextSize; row++) {
+			int index = orders[from + row];
+			nextIndexes[row] = index;
+			loader.load(row, index, nextSamples, nextLabels);
+		}
+		// 不足的部分置0(不对应任何样本)
+		for (int row = nextSize; row < batchSize; row++) {
+			nextIndexes[row] = -1;
+			for (MathMatrix matrix : nextSamples) {
+				matrix.getRowVector(row).setValues(0F);
+			}
+			for (MathMatrix matrix : nextLabels) {
+				matrix.getRowVector(row).setValues(0F);
+			}
+		}
+	}
+
+	/**
+	 * 在后台装载指定批次
+	 *
+	 * @param batch
+	 */
+	private void prefetch(int batch) {
+		latch = new CountDownLatch(1);
+		// 不能使用算法线程,否则装载会与计算图的节点互相排队
+		EnvironmentContext context = EnvironmentContext.getContext();
+		context.doBackground(() -> {
+			try {
+				load(batch);
+			} catch (RuntimeException exception) {
+				this.exception = exception;
+			} finally {
+				latch.countDown();
+			}
+		});
+	}
+
+	/**
+	 * 等待后台装载
+	 */
+	private void await() {
+		if (latch == null) {
+			return;
+		}
+		try {
+			latch.await();
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(exception);
+		} finally {
+			latch = null;
+		}
+		if (exception != null) {
+			RuntimeException throwable = exception;
+			exception = null;
+			throw throwable;
+		}
+	}
+
+	private static void copy(MathMatrix from, MathMatrix to) {
+		if (from instanceof DenseMatrix && to instanceof DenseMatrix) {
+			float[] values = DenseMatrix.class.cast(from).getValues();
+			System.arraycopy(values, 0, DenseMatrix.class.cast(to).getValues(), 0, values.length);
+		} else if (from instanceof Nd4jMatrix && to instanceof Nd4jMatrix) {
+			Nd4jMatrix.class.cast(to).getArray().assign(Nd4jMatrix.class.cast(from).getArray());
+		} else {
+			to.mapValues(MatrixMapper.copyOf(from), null, MathCalculator.PARALLEL);
+		}
+	}
+
+	/**
+	 * 开始新的周期(按需打乱顺序,并且在后台装载第一个批次)
+	 */
+	public void reset() {
+		await();
+		// 只有一个批次时打乱顺序没有意义
+		if (shuffle && numberOfBatches > 1) {
+			RandomUtility.shuffle(orders, 0, numberOfSamples);
+		}
+		cursor = 0;
+		prefetch(cursor);
+	}
+
+	/**
+	 * 本周期是否还有批次
+	 *
+	 * @return
+	 */
+	public boolean hasNext() {
+		return cursor < numberOfBatches;
+	}
+
+	/**
+	 * 切换到下一个批次
+	 *
+	 * <pre>
+	 * 等待后台装载完成并且复制到当前批次的缓冲,然后在后台装载再下一个批次.
+	 * </pre>
+	 */
+	public void next() {
+		if (!hasNext()) {
+			throw new IllegalStateException();
+		}
+		await();
+		size = nextSize;
+		System.arraycopy(nextIndexes, 0, indexes, 0, batchSize);
+		for (int index = 0; index < samples.length; index++) {
+			copy(nextSamples[index], samples[index]);
+		}
+		for (int index = 0; index < labels.length; index++) {
+			copy(nextLabels[index], labels[index]);
+		}
+		cursor++;
+		if (hasNext()) {
+			prefetch(cursor);
+		}
+	}
+
+	public int getNumberOfSamples() {
+		return numberOfSamples;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public int getNumberOfBatches() {
+		return numberOfBatches;
+	}
+
+	/**
+	 * 获取当前批次的有效行数(只有最后一个批次可能小于批次大小,之后的行不对应任何样本)
+	 *
+	 * @return
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * 获取当前批次每行对应的样本索引(内容随批次切换更新,无效的行为-1)
+	 *
+	 * @return
+	 */
+	public int[] getIndexes() {
+		return indexes;
+	}
+
+	/**
+	 * 获取当前批次的样本缓冲(内容随批次切换更新)
+	 *
+	 * @return
+	 */
+	public MathMatrix[] getSamples() {
+		return samples;
+	}
+
+	/**
+	 * 获取当前批次的标签缓冲(内容随批次切换更新)
+	 *
+	 * @return
+	 */
+	public MathMatrix[] getLabels() {
+		return labels;
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.jstarcraft.module.neuralnetwork;
+
+import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+
+/**
+ * 批次装载器
+ *
+ * <pre>
+ * 把数据集(例如SampleAccessor或者SparseMatrix)的单个样本装载到批次缓冲的指定行.
+ * 缓冲会被重复使用,所以装载器必须覆盖整行(包括置0).
+ * 装载在后台线程执行,只能使用串行运算.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public interface BatchLoader {
+
+	/**
+	 * 装载样本
+	 *
+	 * @param row
+	 *            缓冲的行
+	 * @param index
+	 *            数据集的样本索引
+	 * @param samples
+	 * @param labels
+	 */
+	void load(int row, int index, MathMatrix[] samples, MathMatrix[] labels);
+
+}
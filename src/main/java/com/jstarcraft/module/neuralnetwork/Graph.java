@@ -36,6 +36,7 @@ import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.core.utility.StringUtility;
 import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.model.ModelCycle;
@@ -62,6 +63,9 @@ public class Graph implements ModelCycle {
 
 	private int numberOfSamples;
 
+	/** 有效样本数量(小批量训练的最后一个批次可能少于numberOfSamples,之后的行被忽略) */
+	private int numberOfValids;
+
 	/** 节点映射(索引,名称,实例) */
 	private Vertex[] vertices;
 	/** 输入节点 */
@@ -140,6 +144,7 @@ public class Graph implements ModelCycle {
 
 	public void doCache(MathMatrix[] samples, MathMatrix[] labels) {
 		numberOfSamples = samples[0].getRowSize();
+		numberOfValids = numberOfSamples;
 		for (int index = 1, size = samples.length; index < size; index++) {
 			// 检查数量
 			if (samples[index].getRowSize() != numberOfSamples) {
@@ -255,23 +260,13 @@ public class Graph implements ModelCycle {
 	}
 
 	/**
-	 * 训练
+	 * 获取所有层的参数,梯度与稀疏行
 	 * 
-	 * @param samples
-	 * @param labels
+	 * @param parameters
+	 * @param gradients
+	 * @param sparses
 	 */
-	public float practice(int numberOfIterations, MathMatrix[] samples, MathMatrix[] labels) {
-		doCache(samples, labels);
-		for (int index = 0, size = labels.length; index < size; index++) {
-			// 检查数量
-			if (labels[index].getRowSize() != numberOfSamples) {
-				throw new IllegalArgumentException();
-			}
-		}
-
-		// TODO 获取所有层的梯度与参数
-		Map<String, MathMatrix> parameters = new HashMap<>();
-		Map<String, MathMatrix> gradients = new HashMap<>();
+	private void collect(Map<String, MathMatrix> parameters, Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses) {
 		for (KeyValue<String, Layer> term : layers) {
 			String name = term.getKey();
 			Layer layer = term.getValue();
@@ -285,8 +280,19 @@ public class Graph implements ModelCycle {
 					throw new RuntimeException(StringUtility.format("Layer参数名称{}冲突", name));
 				}
 			}
+			for (Entry<String, SparseRows> sparse : layer.getSparseRows().entrySet()) {
+				sparses.put(name + ":" + sparse.getKey(), sparse.getValue());
+			}
 		}
+	}
 
+	/**
+	 * 获取评分器(正向传播,目标函数,反向传播)
+	 * 
+	 * @param labels
+	 * @return
+	 */
+	private Callable<Float> getScorer(MathMatrix[] labels) {
 		Callable<Float> scorer = () -> {
 			if (monitor != null) {
 				monitor.beforeForward();
@@ -304,7 +310,11 @@ public class Graph implements ModelCycle {
 				KeyValue<MathMatrix, MathMatrix> keyValue = vertex.getOutputKeyValue();
 				// TODO 考虑computeGradient与computeScore整合,避免重复迭代.
 				lossFunction.computeGradient(labels[index], keyValue.getKey(), null, keyValue.getValue());
-				score += lossFunction.computeScore(labels[index], keyValue.getKey(), null);
+				if (numberOfValids < numberOfSamples) {
+					score += computeValidScore(lossFunction, labels[index], keyValue);
+				} else {
+					score += lossFunction.computeScore(labels[index], keyValue.getKey(), null);
+				}
 				if (logger.isDebugEnabled()) {
 					logger.debug(StringUtility.format("{}目标函数计算耗时{}毫秒", lossFunction.getClass().getSimpleName(), System.currentTimeMillis() - time));
 				}
@@ -320,37 +330,137 @@ public class Graph implements ModelCycle {
 				Layer layer = term.getValue();
 				score += (layer.calculateL1Norm() + layer.calculateL2Norm());
 			}
-			score /= numberOfSamples;
+			score /= numberOfValids;
 			return score;
 		};
+		return scorer;
+	}
 
-		optimizer.doCache(scorer, gradients, parameters);
+	/**
+	 * 忽略无效的行(梯度置0,只计算有效行的损失)
+	 * 
+	 * @param lossFunction
+	 * @param tests
+	 * @param keyValue
+	 * @return
+	 */
+	private float computeValidScore(LossFunction lossFunction, MathMatrix tests, KeyValue<MathMatrix, MathMatrix> keyValue) {
+		int numberOfValids = this.numberOfValids;
+		keyValue.getValue().mapValues((row, column, value, message) -> {
+			return row < numberOfValids ? value : 0F;
+		}, null, MathCalculator.SERIAL);
+		MathMatrix trains = keyValue.getKey();
+		MathMatrix validTests = DenseMatrix.valueOf(numberOfValids, tests.getColumnSize(), MatrixMapper.copyOf(tests));
+		MathMatrix validTrains = DenseMatrix.valueOf(numberOfValids, trains.getColumnSize(), MatrixMapper.copyOf(trains));
+		return lossFunction.computeScore(validTests, validTrains, null);
+	}
+
+	/**
+	 * 迭代一次(评分,正则化,按照样本数量缩放梯度,优化)
+	 * 
+	 * @param scorer
+	 * @param gradients
+	 * @param sparses
+	 * @return
+	 */
+	private float doIteration(Callable<Float> scorer, Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses) {
+		try {
+			float score = scorer.call();
+
+			for (KeyValue<String, Layer> term : layers) {
+				Layer layer = term.getValue();
+				layer.regularize();
+			}
+
+			// 按照样本数量缩放梯度比例
+			float scale = 1F / numberOfValids;
+			for (Entry<String, MathMatrix> term : gradients.entrySet()) {
+				MathMatrix gradient = term.getValue();
+				SparseRows rows = sparses.get(term.getKey());
+				// TODO 此处应该判断是否由于scale导致NaN或者无穷
+				if (rows == null) {
+					gradient.scaleValues(scale);
+				} else {
+					rows.scaleValues(gradient, scale);
+				}
+			}
+
+			if (optimizer.optimize(score)) {
+				// TODO 收敛条件(termination)
+			}
+			return score;
+		} catch (Exception exception) {
+			logger.error("exception", exception);
+			throw new RuntimeException(exception);
+		}
+	}
+
+	/**
+	 * 训练
+	 * 
+	 * @param samples
+	 * @param labels
+	 */
+	public float practice(int numberOfIterations, MathMatrix[] samples, MathMatrix[] labels) {
+		doCache(samples, labels);
+		for (int index = 0, size = labels.length; index < size; index++) {
+			// 检查数量
+			if (labels[index].getRowSize() != numberOfSamples) {
+				throw new IllegalArgumentException();
+			}
+		}
+
+		Map<String, MathMatrix> parameters = new HashMap<>();
+		Map<String, MathMatrix> gradients = new HashMap<>();
+		Map<String, SparseRows> sparses = new HashMap<>();
+		collect(parameters, gradients, sparses);
+		Callable<Float> scorer = getScorer(labels);
+		optimizer.doCache(scorer, gradients, parameters, sparses);
 
 		// 迭代
 		float score = 0F;
-		// 按照样本数量缩放梯度比例
-		float scale = 1F / numberOfSamples;
 		for (int iteration = 0; iteration < numberOfIterations; iteration++) {
-			try {
-				score = scorer.call();
+			score = doIteration(scorer, gradients, sparses);
+		}
+		return score;
+	}
 
-				for (KeyValue<String, Layer> term : layers) {
-					Layer layer = term.getValue();
-					layer.regularize();
-				}
+	/**
+	 * 小批量训练
+	 * 
+	 * <pre>
+	 * 计算图只绑定迭代器的当前批次缓冲(调用一次doCache),每个批次迭代一次.
+	 * 下一个批次在当前批次的正向/反向传播期间由迭代器在后台装载.
+	 * 最后一个批次不足时只有有效行参与损失与梯度,并且按照有效行数缩放梯度.
+	 * </pre>
+	 * 
+	 * @param numberOfEpochs
+	 * @param iterator
+	 * @return 最后一个周期所有批次的平均分数
+	 */
+	public float practice(int numberOfEpochs, BatchIterator iterator) {
+		MathMatrix[] samples = iterator.getSamples();
+		MathMatrix[] labels = iterator.getLabels();
+		doCache(samples, labels);
 
-				for (MathMatrix gradient : gradients.values()) {
-					// TODO 此处应该判断是否由于scale导致NaN或者无穷
-					gradient.scaleValues(scale);
-				}
+		Map<String, MathMatrix> parameters = new HashMap<>();
+		Map<String, MathMatrix> gradients = new HashMap<>();
+		Map<String, SparseRows> sparses = new HashMap<>();
+		collect(parameters, gradients, sparses);
+		Callable<Float> scorer = getScorer(labels);
+		optimizer.doCache(scorer, gradients, parameters, sparses);
 
-				if (optimizer.optimize(score)) {
-					// TODO 收敛条件(termination)
-				}
-			} catch (Exception exception) {
-				logger.error("exception", exception);
-				throw new RuntimeException(exception);
+		float score = 0F;
+		for (int epoch = 0; epoch < numberOfEpochs; epoch++) {
+			score = 0F;
+			iterator.reset();
+			while (iterator.hasNext()) {
+				iterator.next();
+				numberOfValids = iterator.getSize();
+				score += doIteration(scorer, gradients, sparses);
 			}
+			numberOfValids = numberOfSamples;
+			score /= iterator.getNumberOfBatches();
 		}
 		return score;
 	}
@@ -378,6 +488,34 @@ public class Graph implements ModelCycle {
 		}
 	}
 
+	/**
+	 * 小批量预测
+	 * 
+	 * <pre>
+	 * 每个批次的输出按照迭代器的样本索引复制到outputs对应的行.
+	 * </pre>
+	 * 
+	 * @param iterator
+	 * @param outputs
+	 *            行数为数据集的样本数量
+	 */
+	public void predict(BatchIterator iterator, MathMatrix[] outputs) {
+		doCache(iterator.getSamples(), iterator.getLabels());
+		int[] indexes = iterator.getIndexes();
+		iterator.reset();
+		while (iterator.hasNext()) {
+			iterator.next();
+			doForward();
+			for (int index = 0, size = outputVertices.length; index < size; index++) {
+				Vertex vertex = outputVertices[index];
+				MathMatrix outputData = vertex.getOutputKeyValue().getKey();
+				for (int row = 0, size = iterator.getSize(); row < size; row++) {
+					outputs[index].getRowVector(indexes[row]).copyVector(outputData.getRowVector(row));
+				}
+			}
+		}
+	}
+
 	@Override
 	public void beforeSave() {
 	}
@@ -0,0 +1,128 @@
+package com.jstarcraft.module.neuralnetwork;
+
+import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.math.structure.vector.MathVector;
+
+/**
+ * 稀疏行
+ *
+ * <pre>
+ * 记录梯度中被触及的行(例如嵌入层一次迭代查询的索引).
+ * 约定未被触及的行梯度恒为0,所以学习器,标准器,正则化与步进函数只需要处理被触及的行(惰性更新).
+ * 惰性更新会改变正则化与学习器状态的语义,所以只有通过WeightLayer.setLazy开启的层才会提供稀疏行.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class SparseRows {
+
+	/** 行是否被触及 */
+	private boolean[] marks;
+
+	/** 被触及的行(按照触及的顺序) */
+	private int[] rows;
+
+	private int size;
+
+	public SparseRows(int capacity) {
+		this.marks = new boolean[capacity];
+		this.rows = new int[capacity];
+		this.size = 0;
+	}
+
+	/**
+	 * 标记指定的行
+	 *
+	 * @param row
+	 */
+	public void mark(int row) {
+		if (!marks[row]) {
+			marks[row] = true;
+			rows[size++] = row;
+		}
+	}
+
+	/**
+	 * 清除所有标记
+	 */
+	public void clear() {
+		for (int index = 0; index < size; index++) {
+			marks[rows[index]] = false;
+		}
+		size = 0;
+	}
+
+	public boolean isMarked(int row) {
+		return marks[row];
+	}
+
+	public int getRow(int index) {
+		return rows[index];
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getCapacity() {
+		return marks.length;
+	}
+
+	/**
+	 * 设置矩阵被触及的行
+	 *
+	 * @param matrix
+	 * @param value
+	 */
+	public void setValues(MathMatrix matrix, float value) {
+		for (int index = 0; index < size; index++) {
+			matrix.getRowVector(rows[index]).setValues(value);
+		}
+	}
+
+	/**
+	 * 缩放矩阵被触及的行
+	 *
+	 * @param matrix
+	 * @param value
+	 */
+	public void scaleValues(MathMatrix matrix, float value) {
+		for (int index = 0; index < size; index++) {
+			matrix.getRowVector(rows[index]).scaleValues(value);
+		}
+	}
+
+	/**
+	 * 获取矩阵被触及的行的绝对值之和
+	 *
+	 * @param matrix
+	 * @return
+	 */
+	public float getAbsoluteSum(MathMatrix matrix) {
+		float sum = 0F;
+		for (int index = 0; index < size; index++) {
+			sum += matrix.getRowVector(rows[index]).getSum(true);
+		}
+		return sum;
+	}
+
+	/**
+	 * 获取矩阵被触及的行的平方之和
+	 *
+	 * @param matrix
+	 * @return
+	 */
+	public float getSquareSum(MathMatrix matrix) {
+		float sum = 0F;
+		for (int index = 0; index < size; index++) {
+			MathVector vector = matrix.getRowVector(rows[index]);
+			for (int position = 0, length = vector.getElementSize(); position < length; position++) {
+				float value = vector.getValue(position);
+				sum += value * value;
+			}
+		}
+		return sum;
+	}
+
+}
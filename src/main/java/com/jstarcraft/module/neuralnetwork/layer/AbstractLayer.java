@@ -30,8 +30,10 @@ import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.CompositeMatrix;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.math.structure.vector.MathVector;
 import com.jstarcraft.module.model.ModelDefinition;
 import com.jstarcraft.module.neuralnetwork.MatrixFactory;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.activation.ActivationFunction;
 
 /**
@@ -68,11 +70,15 @@ public abstract class AbstractLayer implements Layer {
 	/** 参数与梯度 */
 	protected Map<String, MathMatrix> parameters, gradients;
 
+	/** 稀疏梯度的行(只有开启惰性更新的层才会在doCache中创建,不参与持久化) */
+	protected Map<String, SparseRows> sparses;
+
 	protected Mode mode;
 
 	protected ActivationFunction function;
 
 	protected AbstractLayer() {
+		this.sparses = new HashMap<>();
 	}
 
 	protected AbstractLayer(int numberOfInputs, int numberOfOutputs, Map<String, ParameterConfigurator> configurators, Mode mode, ActivationFunction function) {
@@ -83,6 +89,7 @@ public abstract class AbstractLayer implements Layer {
 		this.configurators = configurators;
 		this.parameters = new HashMap<>();
 		this.gradients = new HashMap<>();
+		this.sparses = new HashMap<>();
 	}
 
 	@Override
@@ -133,7 +140,33 @@ public abstract class AbstractLayer implements Layer {
 			float l2Regularization = configurator.getL2Regularization();
 			MathMatrix parameter = parameters.get(term.getKey());
 			MathMatrix gradient = gradients.get(term.getKey());
-
+			SparseRows rows = sparses.get(term.getKey());
+
+			if (rows != null && parameter != null && gradient != null) {
+				// 惰性正则化(由层按需开启):只惩罚被触及的行,保持未被触及的行梯度为0
+				// 与稠密正则化相同,先累加L2再累加L1
+				if (l2Regularization > 0D) {
+					for (int index = 0, size = rows.getSize(); index < size; index++) {
+						int row = rows.getRow(index);
+						MathVector parameterVector = parameter.getRowVector(row);
+						MathVector gradientVector = gradient.getRowVector(row);
+						for (int position = 0, length = gradientVector.getElementSize(); position < length; position++) {
+							gradientVector.shiftValue(position, parameterVector.getValue(position) * l2Regularization);
+						}
+					}
+				}
+				if (l1Regularization > 0D) {
+					for (int index = 0, size = rows.getSize(); index < size; index++) {
+						int row = rows.getRow(index);
+						MathVector parameterVector = parameter.getRowVector(row);
+						MathVector gradientVector = gradient.getRowVector(row);
+						for (int position = 0, length = gradientVector.getElementSize(); position < length; position++) {
+							gradientVector.shiftValue(position, FastMath.signum(parameterVector.getValue(position)) * l1Regularization);
+						}
+					}
+				}
+				continue;
+			}
 			if (l2Regularization > 0D && parameter != null && gradient != null) {
 				// TODO 此处可以优化性能
 				gradient.mapValues((row, column, value, message) -> {
@@ -161,6 +194,11 @@ public abstract class AbstractLayer implements Layer {
 		return gradients;
 	}
 
+	@Override
+	public Map<String, SparseRows> getSparseRows() {
+		return sparses;
+	}
+
 	@Override
 	public void setMode(Mode mode) {
 		this.mode = mode;
@@ -27,6 +27,7 @@ import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.vector.MathVector;
 import com.jstarcraft.module.model.ModelCycle;
 import com.jstarcraft.module.neuralnetwork.MatrixFactory;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.activation.ActivationFunction;
 
 /**
@@ -80,6 +81,12 @@ public class EmbedLayer extends WeightLayer implements ModelCycle {
 		outputKeyValue.setKey(outputData);
 		MathMatrix innerError = factory.makeCache(rowSize, numberOfOutputs);
 		outputKeyValue.setValue(innerError);
+
+		// 每次迭代只会触及部分嵌入,惰性更新时权重梯度按照稀疏行处理
+		if (lazy && !sparses.containsKey(WEIGHT_KEY)) {
+			gradients.get(WEIGHT_KEY).setValues(0F);
+			sparses.put(WEIGHT_KEY, new SparseRows(numberOfInputs));
+		}
 	}
 
 	@Override
@@ -154,6 +161,7 @@ public class EmbedLayer extends WeightLayer implements ModelCycle {
 		MathMatrix biasParameters = parameters.get(BIAS_KEY);
 		MathMatrix weightGradients = gradients.get(WEIGHT_KEY);
 		MathMatrix biasGradients = gradients.get(BIAS_KEY);
+		SparseRows weightRows = sparses.get(WEIGHT_KEY);
 
 		MathMatrix innerError = getMatrix(outputKeyValue.getValue());
 		MathMatrix middleError = getMatrix(middleKeyValue.getValue());
@@ -167,12 +175,21 @@ public class EmbedLayer extends WeightLayer implements ModelCycle {
 		function.backward(middleData, innerError, middleError);
 
 		// inputData.transposeProductThat(middleError, weightGradients);
-		weightGradients.setValues(0F);
+		if (weightRows == null) {
+			weightGradients.setValues(0F);
+		} else {
+			// 只需要清理上次触及的行(其它行的梯度恒为0)
+			weightRows.setValues(weightGradients, 0F);
+			weightRows.clear();
+		}
 		int rowSize = middleData.getRowSize();
 		for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
 			// TODO 此处可以想办法支持并发,得注意根据index同步.
 			int index = (int) inputData.getValue(rowIndex, 0);
 			if (index >= 0) {
+				if (weightRows != null) {
+					weightRows.mark(index);
+				}
 				KeyValue<MathVector, MathVector> keyValue = weightReferences[index];
 				keyValue.getValue().addVector(middleError.getRowVector(rowIndex));
 			}
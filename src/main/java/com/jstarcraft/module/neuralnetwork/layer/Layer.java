@@ -24,6 +24,7 @@ import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.neuralnetwork.MatrixFactory;
 import com.jstarcraft.module.neuralnetwork.Model;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.activation.ActivationFunction;
 
 /**
@@ -102,6 +103,13 @@ public interface Layer extends Model {
 
 	Map<String, MathMatrix> getGradients();
 
+	/**
+	 * 获取稀疏梯度的行(键与梯度一致,不存在的键代表梯度为稠密)
+	 * 
+	 * @return
+	 */
+	Map<String, SparseRows> getSparseRows();
+
 	void setMode(Mode mode);
 
 	Mode getMode();
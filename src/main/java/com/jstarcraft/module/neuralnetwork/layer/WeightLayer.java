@@ -11,6 +11,7 @@ import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.Nd4jMatrix;
 import com.jstarcraft.module.neuralnetwork.MatrixFactory;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.activation.ActivationFunction;
 
 public class WeightLayer extends AbstractLayer {
@@ -19,6 +20,9 @@ public class WeightLayer extends AbstractLayer {
 
 	public final static String BIAS_KEY = "bias";
 
+	/** 是否按照稀疏行惰性更新(默认关闭,不参与持久化) */
+	protected boolean lazy;
+
 	protected WeightLayer() {
 		super();
 	}
@@ -46,14 +50,32 @@ public class WeightLayer extends AbstractLayer {
 		}
 	}
 
+	/**
+	 * 设置是否按照稀疏行惰性更新
+	 * 
+	 * <pre>
+	 * 只对记录被触及的行的层(例如EmbedLayer)生效,必须在doCache之前设置.
+	 * 开启以后正则化,学习器与标准器只处理被触及的行,未被触及的行不会被惩罚,学习器的状态也不会衰减,所以结果与默认的稠密更新不同.
+	 * </pre>
+	 * 
+	 * @param lazy
+	 */
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+
 	@Override
 	public float calculateL1Norm() {
 		float l1Sum = 0F;
 
 		Float weightRegularization = configurators.get(WEIGHT_KEY).getL1Regularization();
 		MathMatrix weightParameters = parameters.get(WEIGHT_KEY);
+		SparseRows weightRows = sparses.get(WEIGHT_KEY);
 		if (weightRegularization != null && weightParameters != null) {
-			if (weightParameters instanceof Nd4jMatrix) {
+			if (weightRows != null) {
+				float norm = weightRows.getAbsoluteSum(weightParameters);
+				l1Sum += weightRegularization * norm;
+			} else if (weightParameters instanceof Nd4jMatrix) {
 				INDArray array = Nd4jMatrix.class.cast(weightParameters).getArray();
 				float norm = array.norm1Number().floatValue();
 				l1Sum += weightRegularization * norm;
@@ -93,8 +115,12 @@ public class WeightLayer extends AbstractLayer {
 
 		Float weightRegularization = configurators.get(WEIGHT_KEY).getL2Regularization();
 		MathMatrix weightParameters = parameters.get(WEIGHT_KEY);
+		SparseRows weightRows = sparses.get(WEIGHT_KEY);
 		if (weightRegularization != null && weightParameters != null) {
-			if (weightParameters instanceof Nd4jMatrix) {
+			if (weightRows != null) {
+				float norm = weightRows.getSquareSum(weightParameters);
+				l2Sum += 0.5F * weightRegularization * norm;
+			} else if (weightParameters instanceof Nd4jMatrix) {
 				INDArray array = Nd4jMatrix.class.cast(weightParameters).getArray();
 				float norm = array.norm2Number().floatValue();
 				l2Sum += 0.5F * weightRegularization * norm;
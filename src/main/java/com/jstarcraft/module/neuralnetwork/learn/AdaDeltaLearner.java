@@ -19,6 +19,7 @@
 
 package com.jstarcraft.module.neuralnetwork.learn;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -32,6 +33,7 @@ import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.model.ModelCycle;
 import com.jstarcraft.module.model.ModelDefinition;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 
 /**
  * http://www.matthewzeiler.com/pubs/googleTR2012/googleTR2012.pdf
@@ -81,6 +83,11 @@ public class AdaDeltaLearner implements Learner, ModelCycle {
 
 	@Override
 	public void learn(Map<String, MathMatrix> gradients, int iteration, int epoch) {
+		learn(gradients, Collections.emptyMap(), iteration, epoch);
+	}
+
+	@Override
+	public void learn(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses, int iteration, int epoch) {
 		if (msgs.isEmpty() || msdxes.isEmpty()) {
 			throw new IllegalStateException("Updater has not been initialized with view state");
 		}
@@ -89,6 +96,25 @@ public class AdaDeltaLearner implements Learner, ModelCycle {
 			MathMatrix gradient = term.getValue();
 			DenseMatrix msg = msgs.get(term.getKey());
 			DenseMatrix msdx = msdxes.get(term.getKey());
+			SparseRows rows = sparses.get(term.getKey());
+
+			if (gradient instanceof DenseMatrix) {
+				// 融合Algorithm 1的E[g^2],更新量与E[delta x^2]为一次遍历(未被触及的行不衰减)
+				float[] gradientValues = DenseMatrix.class.cast(gradient).getValues();
+				float[] msgValues = msg.getValues();
+				float[] msdxValues = msdx.getValues();
+				LearnKernel.execute(DenseMatrix.class.cast(gradient), rows, (from, to) -> {
+					for (int cursor = from; cursor < to; cursor++) {
+						float delta = gradientValues[cursor];
+						float square = msgValues[cursor] * rho + delta * delta * (1F - rho);
+						msgValues[cursor] = square;
+						delta = (float) (delta * (FastMath.sqrt(msdxValues[cursor] + epsilon) / FastMath.sqrt(square + epsilon)));
+						gradientValues[cursor] = delta;
+						msdxValues[cursor] = msdxValues[cursor] * rho + delta * delta * (1F - rho);
+					}
+				});
+				continue;
+			}
 
 			// Line 4 of Algorithm 1: https://arxiv.org/pdf/1212.5701v1.pdf
 			// E[g^2]_t = rho * E[g^2]_{t−1} + (1-rho)*g^2_t
@@ -115,6 +141,9 @@ public class AdaDeltaLearner implements Learner, ModelCycle {
 				value = value * rho + delta * delta * (1F - rho);
 				return value;
 			}, null, MathCalculator.PARALLEL);
+			if (rows != null) {
+				LearnKernel.clear(gradient, rows);
+			}
 		}
 	}
 
@@ -19,6 +19,7 @@
 
 package com.jstarcraft.module.neuralnetwork.learn;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -33,6 +34,7 @@ import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.model.ModelCycle;
 import com.jstarcraft.module.model.ModelDefinition;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.schedule.ConstantSchedule;
 import com.jstarcraft.module.neuralnetwork.schedule.Schedule;
 
@@ -78,13 +80,49 @@ public class AdaGradLearner implements Learner, ModelCycle {
 
 	@Override
 	public void learn(Map<String, MathMatrix> gradients, int iteration, int epoch) {
+		learn(gradients, Collections.emptyMap(), iteration, epoch);
+	}
+
+	@Override
+	public void learn(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses, int iteration, int epoch) {
 		if (historicalGradients.isEmpty()) {
 			throw new IllegalStateException("Updater has not been initialized with view state");
 		}
 		for (Entry<String, MathMatrix> term : gradients.entrySet()) {
 			MathMatrix gradient = term.getValue();
 			DenseMatrix historicalGradient = historicalGradients.get(term.getKey());
+			SparseRows rows = sparses.get(term.getKey());
 			double learnRatio = learnSchedule.valueAt(iteration, epoch);
+
+			if (gradient instanceof DenseMatrix) {
+				// 融合历史梯度与步长为一次遍历(未被触及的行梯度为0,惰性更新与稠密更新等价)
+				float[] gradientValues = DenseMatrix.class.cast(gradient).getValues();
+				float[] historyValues = historicalGradient.getValues();
+				LearnKernel.execute(DenseMatrix.class.cast(gradient), rows, (from, to) -> {
+					for (int cursor = from; cursor < to; cursor++) {
+						float delta = gradientValues[cursor];
+						float history = historyValues[cursor] + delta * delta;
+						historyValues[cursor] = history;
+						gradientValues[cursor] = (float) (delta * (learnRatio / (FastMath.sqrt(history) + epsilon)));
+					}
+				});
+				continue;
+			}
+
+			if (rows != null) {
+				// 未被触及的行梯度为0,历史梯度不变,所以惰性更新与稠密更新等价
+				for (int index = 0, size = rows.getSize(); index < size; index++) {
+					int row = rows.getRow(index);
+					for (int column = 0, columnSize = gradient.getColumnSize(); column < columnSize; column++) {
+						float delta = gradient.getValue(row, column);
+						float history = historicalGradient.getValue(row, column) + delta * delta;
+						historicalGradient.setValue(row, column, history);
+						gradient.setValue(row, column, (float) (delta * (learnRatio / (FastMath.sqrt(history) + epsilon))));
+					}
+				}
+				continue;
+			}
+
 			historicalGradient.mapValues((row, column, value, message) -> {
 				float delta = gradient.getValue(row, column);
 				value = value + delta * delta;
@@ -1,5 +1,6 @@
 package com.jstarcraft.module.neuralnetwork.learn;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -13,6 +14,7 @@ import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.model.ModelCycle;
 import com.jstarcraft.module.model.ModelDefinition;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.schedule.ConstantSchedule;
 import com.jstarcraft.module.neuralnetwork.schedule.Schedule;
 
@@ -66,14 +68,47 @@ public class AdaMaxLearner implements Learner, ModelCycle {
 
 	@Override
 	public void learn(Map<String, MathMatrix> gradients, int iteration, int epoch) {
+		learn(gradients, Collections.emptyMap(), iteration, epoch);
+	}
+
+	@Override
+	public void learn(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses, int iteration, int epoch) {
 		if (ms.isEmpty() || us.isEmpty()) {
 			throw new IllegalStateException("Updater has not been initialized with view state");
 		}
 
+		float beta1t = (float) FastMath.pow(beta1, iteration + 1);
+		float learnRatio = learnSchedule.valueAt(iteration, epoch);
+		float alphat = learnRatio / (1F - beta1t);
+		if (Double.isNaN(alphat) || Double.isInfinite(alphat) || alphat == 0F) {
+			alphat = epsilon;
+		}
+		float alpha = alphat;
+
 		for (Entry<String, MathMatrix> term : gradients.entrySet()) {
 			MathMatrix gradient = term.getValue();
 			DenseMatrix m = ms.get(term.getKey());
 			DenseMatrix u = us.get(term.getKey());
+			SparseRows rows = sparses.get(term.getKey());
+
+			if (gradient instanceof DenseMatrix) {
+				// 融合动量,无穷范数与步长为一次遍历(未被触及的行不衰减动量)
+				float[] gradientValues = DenseMatrix.class.cast(gradient).getValues();
+				float[] mValues = m.getValues();
+				float[] uValues = u.getValues();
+				LearnKernel.execute(DenseMatrix.class.cast(gradient), rows, (from, to) -> {
+					for (int cursor = from; cursor < to; cursor++) {
+						float delta = gradientValues[cursor];
+						float mean = mValues[cursor] * beta1 + delta * (1F - beta1);
+						// prevent NaNs in params
+						float norm = FastMath.max(uValues[cursor] * beta2, FastMath.abs(delta)) + 1E-32F;
+						mValues[cursor] = mean;
+						uValues[cursor] = norm;
+						gradientValues[cursor] = mean * alpha / norm;
+					}
+				});
+				continue;
+			}
 
 			// m = B_1 * m + (1-B_1)*grad
 			m.mapValues((row, column, value, message) -> {
@@ -90,18 +125,13 @@ public class AdaMaxLearner implements Learner, ModelCycle {
 				return value + 1E-32F;
 			}, null, MathCalculator.PARALLEL);
 
-			float beta1t = (float) FastMath.pow(beta1, iteration + 1);
-			float learnRatio = learnSchedule.valueAt(iteration, epoch);
-			float alphat = learnRatio / (1F - beta1t);
-			if (Double.isNaN(alphat) || Double.isInfinite(alphat) || alphat == 0F) {
-				alphat = epsilon;
-			}
-
-			float alpha = alphat;
 			gradient.mapValues((row, column, value, message) -> {
 				value = m.getValue(row, column) * alpha / u.getValue(row, column);
 				return value;
 			}, null, MathCalculator.PARALLEL);
+			if (rows != null) {
+				LearnKernel.clear(gradient, rows);
+			}
 		}
 	}
 
@@ -19,6 +19,7 @@
 
 package com.jstarcraft.module.neuralnetwork.learn;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -32,6 +33,7 @@ import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.model.ModelCycle;
 import com.jstarcraft.module.model.ModelDefinition;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.schedule.ConstantSchedule;
 import com.jstarcraft.module.neuralnetwork.schedule.Schedule;
 
@@ -89,14 +91,63 @@ public class AdamLearner implements Learner, ModelCycle {
 
 	@Override
 	public void learn(Map<String, MathMatrix> gradients, int iteration, int epoch) {
+		learn(gradients, Collections.emptyMap(), iteration, epoch);
+	}
+
+	@Override
+	public void learn(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses, int iteration, int epoch) {
 		if (ms.isEmpty() || vs.isEmpty()) {
 			throw new IllegalStateException("Updater has not been initialized with view state");
 		}
 
+		float beta1t = (float) FastMath.pow(beta1, iteration + 1);
+		float beta2t = (float) FastMath.pow(beta2, iteration + 1);
+		float learnRatio = learnSchedule.valueAt(iteration, epoch);
+		float alphat = (float) (learnRatio * FastMath.sqrt(1F - beta2t) / (1F - beta1t));
+		if (Double.isNaN(alphat) || alphat == 0D) {
+			alphat = epsilon;
+		}
+		float alpha = alphat;
+
 		for (Entry<String, MathMatrix> term : gradients.entrySet()) {
 			MathMatrix gradient = term.getValue();
 			DenseMatrix m = ms.get(term.getKey());
 			DenseMatrix v = vs.get(term.getKey());
+			SparseRows rows = sparses.get(term.getKey());
+
+			if (gradient instanceof DenseMatrix) {
+				// 融合动量,方差与步长为一次遍历(未被触及的行不衰减动量)
+				float[] gradientValues = DenseMatrix.class.cast(gradient).getValues();
+				float[] mValues = m.getValues();
+				float[] vValues = v.getValues();
+				LearnKernel.execute(DenseMatrix.class.cast(gradient), rows, (from, to) -> {
+					for (int cursor = from; cursor < to; cursor++) {
+						float delta = gradientValues[cursor];
+						float mean = mValues[cursor] * beta1 + delta * (1F - beta1);
+						float variance = vValues[cursor] * beta2 + delta * delta * (1F - beta2);
+						mValues[cursor] = mean;
+						vValues[cursor] = variance;
+						gradientValues[cursor] = (float) (mean * alpha / (FastMath.sqrt(variance) + epsilon));
+					}
+				});
+				continue;
+			}
+
+			if (rows != null) {
+				// 惰性更新:未被触及的行不衰减动量
+				for (int index = 0, size = rows.getSize(); index < size; index++) {
+					int row = rows.getRow(index);
+					for (int column = 0, columnSize = gradient.getColumnSize(); column < columnSize; column++) {
+						float delta = gradient.getValue(row, column);
+						float mean = m.getValue(row, column) * beta1 + delta * (1F - beta1);
+						float variance = v.getValue(row, column) * beta2 + delta * delta * (1F - beta2);
+						m.setValue(row, column, mean);
+						v.setValue(row, column, variance);
+						gradient.setValue(row, column, (float) (mean * alpha / (FastMath.sqrt(variance) + epsilon)));
+					}
+				}
+				continue;
+			}
 
 			m.mapValues((row, column, value, message) -> {
 				float delta = gradient.getValue(row, column);
@@ -110,15 +161,6 @@ public class AdamLearner implements Learner, ModelCycle {
 				return value;
 			}, null, MathCalculator.PARALLEL);
 
-			float beta1t = (float) FastMath.pow(beta1, iteration + 1);
-			float beta2t = (float) FastMath.pow(beta2, iteration + 1);
-			float learnRatio = learnSchedule.valueAt(iteration, epoch);
-			float alphat = (float) (learnRatio * FastMath.sqrt(1F - beta2t) / (1F - beta1t));
-			if (Double.isNaN(alphat) || alphat == 0D) {
-				alphat = epsilon;
-			}
-
-			float alpha = alphat;
 			gradient.mapValues((row, column, value, message) -> {
 				value = (float) (m.getValue(row, column) * alpha / (FastMath.sqrt(v.getValue(row, column)) + epsilon));
 				return value;
@@ -0,0 +1,68 @@
+package com.jstarcraft.module.neuralnetwork.learn;
+
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.environment.RangeCommand;
+import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
+
+/**
+ * 学习内核
+ *
+ * <pre>
+ * 学习器把状态更新与梯度变换融合为一次逐元素遍历,直接在DenseMatrix的行主序数组上运算,不分配对象.
+ * 稠密梯度按照连续区间拆分到多个线程,稀疏梯度只遍历被触及的行(每行是一个连续区间).
+ * 梯度不是DenseMatrix时,学习器仍然使用mapValues.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+final class LearnKernel {
+
+	/** 区间粒度(元素数量),避免小矩阵拆分的调度开销超过运算本身 */
+	private static final int GRAIN = 1 << 12;
+
+	private LearnKernel() {
+	}
+
+	/**
+	 * 按照区间执行内核
+	 *
+	 * @param gradient
+	 * @param rows
+	 *            稀疏行(为null代表稠密)
+	 * @param kernel
+	 *            运算[from, to)区间的元素
+	 */
+	static void execute(DenseMatrix gradient, SparseRows rows, RangeCommand kernel) {
+		EnvironmentContext context = EnvironmentContext.getContext();
+		int columnSize = gradient.getColumnSize();
+		if (rows == null) {
+			int size = gradient.getRowSize() * columnSize;
+			context.doStructureByRange(0, size, Math.max(GRAIN, size / (Runtime.getRuntime().availableProcessors() * 8)), kernel);
+		} else {
+			context.doStructureByRange(0, rows.getSize(), Math.max(1, GRAIN / Math.max(1, columnSize)), (from, to) -> {
+				for (int index = from; index < to; index++) {
+					int cursor = rows.getRow(index) * columnSize;
+					kernel.execute(cursor, cursor + columnSize);
+				}
+			});
+		}
+	}
+
+	/**
+	 * 把未被触及的行重置为0
+	 *
+	 * @param gradient
+	 * @param rows
+	 */
+	static void clear(MathMatrix gradient, SparseRows rows) {
+		for (int row = 0, size = gradient.getRowSize(); row < size; row++) {
+			if (!rows.isMarked(row)) {
+				gradient.getRowVector(row).setValues(0F);
+			}
+		}
+	}
+
+}
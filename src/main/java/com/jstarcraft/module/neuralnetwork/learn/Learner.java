@@ -1,8 +1,10 @@
 package com.jstarcraft.module.neuralnetwork.learn;
 
 import java.util.Map;
+import java.util.Map.Entry;
 
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 
 /**
  * Gradient modifications: Calculates an update and tracks related information
@@ -30,4 +32,24 @@ public interface Learner {
 	 */
 	void learn(Map<String, MathMatrix> gradients, int iteration, int epoch);
 
+	/**
+	 * 按照稀疏行修改梯度(未被触及的行必须保持为0)
+	 * 
+	 * <pre>
+	 * 默认按照稠密方式修改梯度,再把未被触及的行重置为0.
+	 * 支持稀疏行的学习器应该重写此方法,只更新被触及的行与对应的状态(惰性更新).
+	 * </pre>
+	 * 
+	 * @param gradients
+	 * @param sparses
+	 * @param iteration
+	 * @param epoch
+	 */
+	default void learn(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses, int iteration, int epoch) {
+		learn(gradients, iteration, epoch);
+		for (Entry<String, SparseRows> term : sparses.entrySet()) {
+			LearnKernel.clear(gradients.get(term.getKey()), term.getValue());
+		}
+	}
+
 }
@@ -19,6 +19,7 @@
 
 package com.jstarcraft.module.neuralnetwork.learn;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -32,6 +33,7 @@ import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.model.ModelCycle;
 import com.jstarcraft.module.model.ModelDefinition;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.schedule.ConstantSchedule;
 import com.jstarcraft.module.neuralnetwork.schedule.Schedule;
 
@@ -85,13 +87,42 @@ public class NadamLearner implements Learner, ModelCycle {
 
 	@Override
 	public void learn(Map<String, MathMatrix> gradients, int iteration, int epoch) {
+		learn(gradients, Collections.emptyMap(), iteration, epoch);
+	}
+
+	@Override
+	public void learn(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses, int iteration, int epoch) {
 		if (ms.isEmpty() || vs.isEmpty()) {
 			throw new IllegalStateException("Updater has not been initialized with view state");
 		}
+		float beta1t = (float) FastMath.pow(beta1, iteration + 1);
+		float learnRatio = learnSchedule.valueAt(iteration, epoch);
 		for (Entry<String, MathMatrix> term : gradients.entrySet()) {
 			MathMatrix gradient = term.getValue();
 			DenseMatrix m = ms.get(term.getKey());
 			DenseMatrix v = vs.get(term.getKey());
+			SparseRows rows = sparses.get(term.getKey());
+
+			if (gradient instanceof DenseMatrix) {
+				// 融合动量,方差与步长为一次遍历(未被触及的行不衰减动量)
+				float[] gradientValues = DenseMatrix.class.cast(gradient).getValues();
+				float[] mValues = m.getValues();
+				float[] vValues = v.getValues();
+				LearnKernel.execute(DenseMatrix.class.cast(gradient), rows, (from, to) -> {
+					for (int cursor = from; cursor < to; cursor++) {
+						float delta = gradientValues[cursor];
+						float mean = mValues[cursor] * beta1 + delta * (1F - beta1);
+						float variance = vValues[cursor] * beta2 + delta * delta * (1F - beta2);
+						mValues[cursor] = mean;
+						vValues[cursor] = variance;
+						float left = (delta * (1F - beta1) / (1F - beta1t) + mean * beta1 / (1F - beta1t)) * learnRatio;
+						float right = (float) (FastMath.sqrt(variance) + epsilon);
+						gradientValues[cursor] = left / right;
+					}
+				});
+				continue;
+			}
+
 			m.mapValues((row, column, value, message) -> {
 				float delta = gradient.getValue(row, column);
 				value = value * beta1 + delta * (1F - beta1);
@@ -104,14 +135,14 @@ public class NadamLearner implements Learner, ModelCycle {
 				return value;
 			}, null, MathCalculator.PARALLEL);
 
-			float beta1t = (float) FastMath.pow(beta1, iteration + 1);
-			float learnRatio = learnSchedule.valueAt(iteration, epoch);
-
 			gradient.mapValues((row, column, value, message) -> {
 				float left = (value * (1F - beta1) / (1F - beta1t) + m.getValue(row, column) * beta1 / (1F - beta1t)) * learnRatio;
 				float right = (float) (FastMath.sqrt(v.getValue(row, column)) + epsilon);
 				return left / right;
 			}, null, MathCalculator.PARALLEL);
+			if (rows != null) {
+				LearnKernel.clear(gradient, rows);
+			}
 		}
 	}
 
@@ -19,6 +19,7 @@
 
 package com.jstarcraft.module.neuralnetwork.learn;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -32,6 +33,7 @@ import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.model.ModelCycle;
 import com.jstarcraft.module.model.ModelDefinition;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.schedule.ConstantSchedule;
 import com.jstarcraft.module.neuralnetwork.schedule.Schedule;
 
@@ -81,6 +83,11 @@ public class NesterovLearner implements Learner, ModelCycle {
 
 	@Override
 	public void learn(Map<String, MathMatrix> gradients, int iteration, int epoch) {
+		learn(gradients, Collections.emptyMap(), iteration, epoch);
+	}
+
+	@Override
+	public void learn(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses, int iteration, int epoch) {
 		if (vs.isEmpty()) {
 			throw new IllegalStateException("Updater has not been initialized with view state");
 		}
@@ -88,6 +95,7 @@ public class NesterovLearner implements Learner, ModelCycle {
 			MathMatrix gradient = term.getValue();
 			DenseMatrix v = vs.get(term.getKey());
 			DenseMatrix c = cs.get(term.getKey());
+			SparseRows rows = sparses.get(term.getKey());
 			float momentum = momentumSchedule.valueAt(iteration, epoch);
 			float learnRatio = learnSchedule.valueAt(iteration, epoch);
 
@@ -98,6 +106,21 @@ public class NesterovLearner implements Learner, ModelCycle {
 			// i.e., we do params -= updatedGradient, not params +=
 			// updatedGradient
 
+			if (gradient instanceof DenseMatrix) {
+				// 融合为一次遍历,上次的速度只需要局部变量(未被触及的行不衰减速度)
+				float[] gradientValues = DenseMatrix.class.cast(gradient).getValues();
+				float[] vValues = v.getValues();
+				LearnKernel.execute(DenseMatrix.class.cast(gradient), rows, (from, to) -> {
+					for (int cursor = from; cursor < to; cursor++) {
+						float last = vValues[cursor];
+						float velocity = last * momentum - gradientValues[cursor] * learnRatio;
+						vValues[cursor] = velocity;
+						gradientValues[cursor] = last * momentum + velocity * (-momentum - 1F);
+					}
+				});
+				continue;
+			}
+
 			// v = mu * v - lr * gradient
 			c.mapValues(MatrixMapper.copyOf(v), null, MathCalculator.PARALLEL);
 
@@ -112,6 +135,9 @@ public class NesterovLearner implements Learner, ModelCycle {
 				float right = v.getValue(row, column) * (-momentum - 1F);
 				return left + right;
 			}, null, MathCalculator.PARALLEL);
+			if (rows != null) {
+				LearnKernel.clear(gradient, rows);
+			}
 		}
 	}
 
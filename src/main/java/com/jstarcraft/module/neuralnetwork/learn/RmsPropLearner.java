@@ -19,6 +19,7 @@
 
 package com.jstarcraft.module.neuralnetwork.learn;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -33,6 +34,7 @@ import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.model.ModelCycle;
 import com.jstarcraft.module.model.ModelDefinition;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.schedule.ConstantSchedule;
 import com.jstarcraft.module.neuralnetwork.schedule.Schedule;
 
@@ -80,15 +82,50 @@ public class RmsPropLearner implements Learner, ModelCycle {
 
 	@Override
 	public void learn(Map<String, MathMatrix> gradients, int iteration, int epoch) {
+		learn(gradients, Collections.emptyMap(), iteration, epoch);
+	}
+
+	@Override
+	public void learn(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses, int iteration, int epoch) {
 		if (lastGradients.isEmpty()) {
 			throw new IllegalStateException("Updater has not been initialized with view state");
 		}
 		for (Entry<String, MathMatrix> term : gradients.entrySet()) {
 			MathMatrix gradient = term.getValue();
 			DenseMatrix lastGradient = lastGradients.get(term.getKey());
+			SparseRows rows = sparses.get(term.getKey());
 
 			double learnRatio = learnSchedule.valueAt(iteration, epoch);
 
+			if (gradient instanceof DenseMatrix) {
+				// 融合缓存与步长为一次遍历(未被触及的行不衰减缓存)
+				float[] gradientValues = DenseMatrix.class.cast(gradient).getValues();
+				float[] cacheValues = lastGradient.getValues();
+				LearnKernel.execute(DenseMatrix.class.cast(gradient), rows, (from, to) -> {
+					for (int cursor = from; cursor < to; cursor++) {
+						float delta = gradientValues[cursor];
+						float cache = cacheValues[cursor] * rmsDecay + delta * delta * (1F - rmsDecay);
+						cacheValues[cursor] = cache;
+						gradientValues[cursor] = (float) (delta * (learnRatio / (FastMath.sqrt(cache) + epsilon)));
+					}
+				});
+				continue;
+			}
+
+			if (rows != null) {
+				// 惰性更新:未被触及的行不衰减缓存
+				for (int index = 0, size = rows.getSize(); index < size; index++) {
+					int row = rows.getRow(index);
+					for (int column = 0, columnSize = gradient.getColumnSize(); column < columnSize; column++) {
+						float delta = gradient.getValue(row, column);
+						float cache = lastGradient.getValue(row, column) * rmsDecay + delta * delta * (1F - rmsDecay);
+						lastGradient.setValue(row, column, cache);
+						gradient.setValue(row, column, (float) (delta * (learnRatio / (FastMath.sqrt(cache) + epsilon))));
+					}
+				}
+				continue;
+			}
+
 			lastGradient.mapValues((row, column, value, message) -> {
 				float delta = gradient.getValue(row, column);
 				value = value * rmsDecay + delta * delta * (1F - rmsDecay);
@@ -19,7 +19,9 @@
 
 package com.jstarcraft.module.neuralnetwork.learn;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -27,6 +29,7 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.model.ModelDefinition;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.schedule.ConstantSchedule;
 import com.jstarcraft.module.neuralnetwork.schedule.Schedule;
 
@@ -56,9 +59,20 @@ public class SgdLearner implements Learner {
 
 	@Override
 	public void learn(Map<String, MathMatrix> gradients, int iteration, int epoch) {
+		learn(gradients, Collections.emptyMap(), iteration, epoch);
+	}
+
+	@Override
+	public void learn(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses, int iteration, int epoch) {
 		float learnRatio = learnSchedule.valueAt(iteration, epoch);
-		for (MathMatrix gradient : gradients.values()) {
-			gradient.scaleValues(learnRatio);
+		for (Entry<String, MathMatrix> term : gradients.entrySet()) {
+			MathMatrix gradient = term.getValue();
+			SparseRows rows = sparses.get(term.getKey());
+			if (rows == null) {
+				gradient.scaleValues(learnRatio);
+			} else {
+				rows.scaleValues(gradient, learnRatio);
+			}
 		}
 	}
 
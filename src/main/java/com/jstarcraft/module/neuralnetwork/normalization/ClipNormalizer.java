@@ -1,12 +1,16 @@
 package com.jstarcraft.module.neuralnetwork.normalization;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.math.structure.vector.MathVector;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 
 public class ClipNormalizer implements Normalizer {
 
@@ -18,7 +22,24 @@ public class ClipNormalizer implements Normalizer {
 
 	@Override
 	public void normalize(Map<String, MathMatrix> gradients) {
-		for (MathMatrix gradient : gradients.values()) {
+		normalize(gradients, Collections.emptyMap());
+	}
+
+	@Override
+	public void normalize(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses) {
+		for (Entry<String, MathMatrix> term : gradients.entrySet()) {
+			MathMatrix gradient = term.getValue();
+			SparseRows rows = sparses.get(term.getKey());
+			if (rows != null) {
+				for (int index = 0, size = rows.getSize(); index < size; index++) {
+					MathVector vector = gradient.getRowVector(rows.getRow(index));
+					for (int position = 0, length = vector.getElementSize(); position < length; position++) {
+						float value = vector.getValue(position);
+						vector.setValue(position, value < -threshold ? -threshold : (value > threshold ? threshold : value));
+					}
+				}
+				continue;
+			}
 			gradient.mapValues((row, column, value, message) -> {
 				value = value < -threshold ? -threshold : (value > threshold ? threshold : value);
 				return value;
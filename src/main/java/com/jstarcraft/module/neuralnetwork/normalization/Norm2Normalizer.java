@@ -1,6 +1,8 @@
 package com.jstarcraft.module.neuralnetwork.normalization;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -9,6 +11,7 @@ import org.apache.commons.math3.util.FastMath;
 import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 
 public class Norm2Normalizer implements Normalizer {
 
@@ -20,35 +23,56 @@ public class Norm2Normalizer implements Normalizer {
 
 	@Override
 	public void normalize(Map<String, MathMatrix> gradients) {
+		normalize(gradients, Collections.emptyMap());
+	}
+
+	@Override
+	public void normalize(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses) {
 		switch (mode) {
 		case GLOBAL: {
 			float norm = 0F;
-			for (MathMatrix gradient : gradients.values()) {
-				for (MatrixScalar term : gradient) {
-					norm += term.getValue() * term.getValue();
-				}
+			for (Entry<String, MathMatrix> term : gradients.entrySet()) {
+				norm += getNorm(term.getValue(), sparses.get(term.getKey()));
 			}
 			norm = (float) (1F / FastMath.sqrt(norm));
-			for (MathMatrix gradient : gradients.values()) {
-				gradient.scaleValues(norm);
+			for (Entry<String, MathMatrix> term : gradients.entrySet()) {
+				scaleValues(term.getValue(), sparses.get(term.getKey()), norm);
 			}
 			break;
 		}
 
 		case LOCAL: {
-			for (MathMatrix gradient : gradients.values()) {
-				float norm = 0F;
-				for (MatrixScalar term : gradient) {
-					norm += term.getValue() * term.getValue();
-				}
+			for (Entry<String, MathMatrix> term : gradients.entrySet()) {
+				MathMatrix gradient = term.getValue();
+				SparseRows rows = sparses.get(term.getKey());
+				float norm = getNorm(gradient, rows);
 				norm = (float) (1F / FastMath.sqrt(norm));
-				gradient.scaleValues(norm);
+				scaleValues(gradient, rows, norm);
 			}
 			break;
 		}
 		}
 	}
 
+	private static float getNorm(MathMatrix gradient, SparseRows rows) {
+		if (rows != null) {
+			return rows.getSquareSum(gradient);
+		}
+		float norm = 0F;
+		for (MatrixScalar term : gradient) {
+			norm += term.getValue() * term.getValue();
+		}
+		return norm;
+	}
+
+	private static void scaleValues(MathMatrix gradient, SparseRows rows, float scale) {
+		if (rows != null) {
+			rows.scaleValues(gradient, scale);
+		} else {
+			gradient.scaleValues(scale);
+		}
+	}
+
 	@Override
 	public boolean equals(Object object) {
 		if (this == object) {
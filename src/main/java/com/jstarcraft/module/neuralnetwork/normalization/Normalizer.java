@@ -3,6 +3,7 @@ package com.jstarcraft.module.neuralnetwork.normalization;
 import java.util.Map;
 
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 
 /**
  * 标准器
@@ -22,4 +23,19 @@ public interface Normalizer {
 
 	void normalize(Map<String, MathMatrix> gradients);
 
+	/**
+	 * 按照稀疏行标准化梯度
+	 * 
+	 * <pre>
+	 * 未被触及的行梯度为0,缩放与截断都不会改变,所以默认按照稠密方式处理.
+	 * 标准器可以重写此方法,只遍历被触及的行.
+	 * </pre>
+	 * 
+	 * @param gradients
+	 * @param sparses
+	 */
+	default void normalize(Map<String, MathMatrix> gradients, Map<String, SparseRows> sparses) {
+		normalize(gradients);
+	}
+
 }
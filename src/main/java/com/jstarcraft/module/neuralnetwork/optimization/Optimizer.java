@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.step.StepFunction;
 
 /**
@@ -35,6 +36,22 @@ public interface Optimizer {
 
 	void doCache(Callable<Float> scorer, Map<String, MathMatrix> gradients, Map<String, MathMatrix> parameters);
 
+	/**
+	 * 根据指定的梯度,参数与稀疏行分配缓存
+	 * 
+	 * <pre>
+	 * 默认忽略稀疏行(未被触及的行梯度为0,按照稠密方式优化结果相同).
+	 * </pre>
+	 * 
+	 * @param scorer
+	 * @param gradients
+	 * @param parameters
+	 * @param sparses
+	 */
+	default void doCache(Callable<Float> scorer, Map<String, MathMatrix> gradients, Map<String, MathMatrix> parameters, Map<String, SparseRows> sparses) {
+		doCache(scorer, gradients, parameters);
+	}
+
 	/**
 	 * Calls optimize
 	 * 
@@ -18,10 +18,12 @@
 
 package com.jstarcraft.module.neuralnetwork.optimization;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.condition.Condition;
 import com.jstarcraft.module.neuralnetwork.step.NegativeGradientStepFunction;
 import com.jstarcraft.module.neuralnetwork.step.StepFunction;
@@ -35,6 +37,8 @@ public class StochasticGradientOptimizer extends AbstractOptimizer {
 
 	protected Map<String, MathMatrix> gradients, parameters;
 
+	protected Map<String, SparseRows> sparses;
+
 	protected StochasticGradientOptimizer() {
 	}
 
@@ -48,8 +52,14 @@ public class StochasticGradientOptimizer extends AbstractOptimizer {
 
 	@Override
 	public void doCache(Callable<Float> scorer, Map<String, MathMatrix> gradients, Map<String, MathMatrix> parameters) {
+		doCache(scorer, gradients, parameters, Collections.emptyMap());
+	}
+
+	@Override
+	public void doCache(Callable<Float> scorer, Map<String, MathMatrix> gradients, Map<String, MathMatrix> parameters, Map<String, SparseRows> sparses) {
 		this.gradients = gradients;
 		this.parameters = parameters;
+		this.sparses = sparses;
 	}
 
 	@Override
@@ -58,7 +68,7 @@ public class StochasticGradientOptimizer extends AbstractOptimizer {
 		newScore = score;
 
 		// 使用梯度更新参数
-		stepFunction.step(1F, gradients, parameters);
+		stepFunction.step(1F, gradients, parameters, sparses);
 
 		for (Condition condition : conditions) {
 			if (condition.stop(newScore, oldScore, gradients)) {
@@ -18,11 +18,14 @@
 
 package com.jstarcraft.module.neuralnetwork.step;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.math.structure.vector.MathVector;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 
 /**
  * Inverse step function
@@ -33,10 +36,27 @@ public class NegativeDefaultStepFunction implements StepFunction {
 
 	@Override
 	public void step(float step, Map<String, MathMatrix> directions, Map<String, MathMatrix> parameters) {
+		step(step, directions, parameters, Collections.emptyMap());
+	}
+
+	@Override
+	public void step(float step, Map<String, MathMatrix> directions, Map<String, MathMatrix> parameters, Map<String, SparseRows> sparses) {
 		// TODO 考虑优化性能
 		for (Entry<String, MathMatrix> keyValue : parameters.entrySet()) {
 			MathMatrix parameter = keyValue.getValue();
 			MathMatrix direction = directions.get(keyValue.getKey());
+			SparseRows rows = sparses.get(keyValue.getKey());
+			if (rows != null) {
+				for (int index = 0, size = rows.getSize(); index < size; index++) {
+					int row = rows.getRow(index);
+					MathVector parameterVector = parameter.getRowVector(row);
+					MathVector directionVector = direction.getRowVector(row);
+					for (int position = 0, length = parameterVector.getElementSize(); position < length; position++) {
+						parameterVector.shiftValue(position, -directionVector.getValue(position) * step);
+					}
+				}
+				continue;
+			}
 			parameter.mapValues((row, column, value, message) -> {
 				return value - direction.getValue(row, column) * step;
 			}, null, MathCalculator.PARALLEL);
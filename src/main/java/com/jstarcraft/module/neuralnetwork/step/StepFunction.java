@@ -21,6 +21,7 @@ package com.jstarcraft.module.neuralnetwork.step;
 import java.util.Map;
 
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 
 /**
  * Custom step function for line search
@@ -40,4 +41,17 @@ public interface StepFunction {
 	 */
 	void step(float step, Map<String, MathMatrix> directions, Map<String, MathMatrix> parameters);
 
+	/**
+	 * Step with the given parameters, only the marked rows of sparse directions
+	 * are stepped (the other rows are zero)
+	 * 
+	 * @param step
+	 * @param directions
+	 * @param parameters
+	 * @param sparses
+	 */
+	default void step(float step, Map<String, MathMatrix> directions, Map<String, MathMatrix> parameters, Map<String, SparseRows> sparses) {
+		step(step, directions, parameters);
+	}
+
 }
@@ -28,6 +28,7 @@ import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.model.ModelDefinition;
 import com.jstarcraft.module.neuralnetwork.MatrixFactory;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.layer.Layer;
 import com.jstarcraft.module.neuralnetwork.learn.IgnoreLearner;
 import com.jstarcraft.module.neuralnetwork.learn.Learner;
@@ -89,10 +90,11 @@ public class LayerVertex extends AbstractVertex {
 	public void doBackward() {
 		layer.doBackward();
 		Map<String, MathMatrix> gradients = layer.getGradients();
+		Map<String, SparseRows> sparses = layer.getSparseRows();
 		// TODO 执行标准器(标准化)
-		normalizer.normalize(gradients);
+		normalizer.normalize(gradients, sparses);
 		// 执行学习器(自适应学习率)
-		learner.learn(gradients, iteration++, epoch);
+		learner.learn(gradients, sparses, iteration++, epoch);
 	}
 
 	public Layer getLayer() {
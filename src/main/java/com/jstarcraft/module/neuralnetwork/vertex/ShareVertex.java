@@ -13,6 +13,7 @@ import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.SectionMatrix;
 import com.jstarcraft.module.model.ModelDefinition;
 import com.jstarcraft.module.neuralnetwork.MatrixFactory;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.layer.Layer;
 import com.jstarcraft.module.neuralnetwork.learn.IgnoreLearner;
 import com.jstarcraft.module.neuralnetwork.learn.Learner;
@@ -28,6 +29,9 @@ public class ShareVertex extends LayerVertex {
 
 	private Map<String, MathMatrix> vertexGradients;
 
+	/** 所有共享被触及的行的并集 */
+	private Map<String, SparseRows> vertexSparses;
+
 	private MathMatrix inputGlobalData;
 	private MathMatrix middleGlobalData;
 	private MathMatrix outputGlobalData;
@@ -128,6 +132,11 @@ public class ShareVertex extends LayerVertex {
 		outputKeyValue.setKey(outputGlobalData);
 		outputKeyValue.setValue(innerGlobalError);
 
+		vertexSparses = new HashMap<>();
+		for (Entry<String, SparseRows> term : layer.getSparseRows().entrySet()) {
+			vertexSparses.put(term.getKey(), new SparseRows(term.getValue().getCapacity()));
+		}
+
 		learner.doCache(layer.getGradients());
 		epoch++;
 		iteration = 0;
@@ -156,7 +165,11 @@ public class ShareVertex extends LayerVertex {
 			MathMatrix matrix = term.getValue();
 			matrix.setValues(0F);
 		}
+		for (SparseRows rows : vertexSparses.values()) {
+			rows.clear();
+		}
 		Map<String, MathMatrix> layerGradients = layer.getGradients();
+		Map<String, SparseRows> layerSparses = layer.getSparseRows();
 
 		for (int shareIndex = 0; shareIndex < numberOfShares; shareIndex++) {
 			MathMatrix inputLocalData = inputLocalDatas[shareIndex];
@@ -177,6 +190,13 @@ public class ShareVertex extends LayerVertex {
 				MathMatrix layerGradient = layerGradients.get(term.getKey());
 				vertexGradient.addMatrix(layerGradient, false);
 			}
+			for (Entry<String, SparseRows> term : vertexSparses.entrySet()) {
+				SparseRows vertexRows = term.getValue();
+				SparseRows layerRows = layerSparses.get(term.getKey());
+				for (int index = 0, size = layerRows.getSize(); index < size; index++) {
+					vertexRows.mark(layerRows.getRow(index));
+				}
+			}
 		}
 		float scale = 1F / numberOfShares;
 		for (Entry<String, MathMatrix> term : layerGradients.entrySet()) {
@@ -185,10 +205,18 @@ public class ShareVertex extends LayerVertex {
 			MathMatrix layerGradient = term.getValue();
 			layerGradient.copyMatrix(vertexGradient, false);
 		}
+		// 层在每次反向传播时会重置稀疏行,所以需要恢复为所有共享的并集
+		for (Entry<String, SparseRows> term : vertexSparses.entrySet()) {
+			SparseRows vertexRows = term.getValue();
+			SparseRows layerRows = layerSparses.get(term.getKey());
+			for (int index = 0, size = vertexRows.getSize(); index < size; index++) {
+				layerRows.mark(vertexRows.getRow(index));
+			}
+		}
 		// TODO 执行标准器(标准化)
-		normalizer.normalize(layerGradients);
+		normalizer.normalize(layerGradients, layerSparses);
 		// 执行学习器(自适应学习率)
-		learner.learn(layerGradients, iteration++, epoch);
+		learner.learn(layerGradients, layerSparses, iteration++, epoch);
 	}
 
 	public Layer getLayer() {
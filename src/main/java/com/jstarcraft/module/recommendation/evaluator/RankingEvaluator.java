@@ -25,4 +25,22 @@ public abstract class RankingEvaluator extends AbstractEvaluator<Integer> {
 		return 1;
 	}
 
+	@Override
+	protected final float measure(Collection<Integer> checkCollection, List<KeyValue<Integer, Float>> recommendList) {
+		return measure(checkCollection, RankingList.valueOf(size, recommendList));
+	}
+
+	/**
+	 * 测量排名列表
+	 * 
+	 * <pre>
+	 * 排名列表已按分数降序排列,其大小可能超过TopN.
+	 * </pre>
+	 * 
+	 * @param checkCollection
+	 * @param recommendList
+	 * @return
+	 */
+	protected abstract float measure(Collection<Integer> checkCollection, RankingList recommendList);
+
 }
@@ -0,0 +1,187 @@
+package com.jstarcraft.module.recommendation.evaluator;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import com.jstarcraft.core.utility.KeyValue;
+
+/**
+ * 排名列表
+ *
+ * <pre>
+ * 基于int/float数组的有界最小堆,只保留分数最高的前K个物品.
+ * 分数相同时物品索引较小者优先,与按分数稳定降序排序的结果一致.
+ * 调用{@link #sort()}之后按照分数降序访问.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class RankingList extends AbstractList<KeyValue<Integer, Float>> {
+
+	/** 容量 */
+	private int capacity;
+
+	/** 大小 */
+	private int size;
+
+	/** 候选数量 */
+	private int count;
+
+	private int[] keys;
+
+	private float[] values;
+
+	public RankingList(int capacity) {
+		this.capacity = capacity;
+		this.keys = new int[capacity];
+		this.values = new float[capacity];
+	}
+
+	/**
+	 * 左元素是否比右元素更差
+	 * 
+	 * <pre>
+	 * 分数按照{@link Float#compare(float, float)}比较,NaN视为最大,保证存在NaN时仍然是全序.
+	 * </pre>
+	 */
+	private static boolean isWorse(int leftKey, float leftValue, int rightKey, float rightValue) {
+		int compare = Float.compare(leftValue, rightValue);
+		return compare < 0 || (compare == 0 && leftKey > rightKey);
+	}
+
+	/**
+	 * 是否比指定位置的元素更差
+	 */
+	private boolean isWorse(int key, float value, int position) {
+		return isWorse(key, value, keys[position], values[position]);
+	}
+
+	private void siftUp(int position, int key, float value) {
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (!isWorse(key, value, parent)) {
+				break;
+			}
+			keys[position] = keys[parent];
+			values[position] = values[parent];
+			position = parent;
+		}
+		keys[position] = key;
+		values[position] = value;
+	}
+
+	private void siftDown(int position, int key, float value, int size) {
+		int half = size >>> 1;
+		while (position < half) {
+			int child = (position << 1) + 1;
+			int right = child + 1;
+			if (right < size && isWorse(keys[right], values[right], child)) {
+				child = right;
+			}
+			if (isWorse(key, value, child)) {
+				break;
+			}
+			keys[position] = keys[child];
+			values[position] = values[child];
+			position = child;
+		}
+		keys[position] = key;
+		values[position] = value;
+	}
+
+	/**
+	 * 提供候选物品
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public void offer(int key, float value) {
+		count++;
+		if (size < capacity) {
+			siftUp(size++, key, value);
+		} else if (capacity > 0 && isWorse(keys[0], values[0], key, value)) {
+			siftDown(0, key, value, size);
+		}
+	}
+
+	/**
+	 * 按照分数降序排序(堆排序)
+	 *
+	 * <pre>
+	 * 排序之后不能再提供候选物品.
+	 * </pre>
+	 */
+	public void sort() {
+		for (int last = size - 1; last > 0; last--) {
+			// 最差的元素在堆顶,交换到末尾
+			int key = keys[last];
+			float value = values[last];
+			keys[last] = keys[0];
+			values[last] = values[0];
+			siftDown(0, key, value, last);
+		}
+	}
+
+	/**
+	 * 清空列表
+	 */
+	public void clear() {
+		size = 0;
+		count = 0;
+	}
+
+	/**
+	 * 获取候选数量(包括未保留的物品)
+	 *
+	 * @return
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	public int getKey(int position) {
+		return keys[position];
+	}
+
+	public float getValue(int position) {
+		return values[position];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public KeyValue<Integer, Float> get(int position) {
+		if (position >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new KeyValue<>(keys[position], values[position]);
+	}
+
+	/**
+	 * 根据已排序的推荐列表构建排名列表
+	 *
+	 * @param capacity
+	 * @param recommendList
+	 * @return
+	 */
+	public static RankingList valueOf(int capacity, List<KeyValue<Integer, Float>> recommendList) {
+		if (recommendList instanceof RankingList) {
+			return (RankingList) recommendList;
+		}
+		int size = Math.min(capacity, recommendList.size());
+		RankingList instance = new RankingList(size);
+		for (int position = 0; position < size; position++) {
+			KeyValue<Integer, Float> keyValue = recommendList.get(position);
+			instance.keys[position] = keyValue.getKey();
+			instance.values[position] = keyValue.getValue();
+		}
+		instance.size = size;
+		instance.count = recommendList.size();
+		return instance;
+	}
+
+}
@@ -2,11 +2,10 @@ package com.jstarcraft.module.recommendation.evaluator.ranking;
 
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
-import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.recommendation.evaluator.RankingEvaluator;
+import com.jstarcraft.module.recommendation.evaluator.RankingList;
 
 /**
  * ROC曲线下的面积评估器
@@ -25,24 +24,23 @@ public class AUCEvaluator extends RankingEvaluator {
 	}
 
 	@Override
-	protected float measure(Collection<Integer> checkCollection, List<KeyValue<Integer, Float>> recommendList) {
+	protected float measure(Collection<Integer> checkCollection, RankingList recommendList) {
 		// 推荐物品集合(大小不能超过TopN)
-		int evaluateSize = recommendList.size();
-		if (evaluateSize > size) {
-			recommendList = recommendList.subList(0, size);
-		}
+		int evaluateSize = recommendList.getCount();
+		int recommendSize = Math.min(size, recommendList.size());
 		int hitCount = 0, missCount = 0;
 		Set<Integer> recommendItems = new HashSet<>();
-		for (KeyValue<Integer, Float> keyValue : recommendList) {
-			recommendItems.add(keyValue.getKey());
-			if (checkCollection.contains(keyValue.getKey())) {
+		for (int position = 0; position < recommendSize; position++) {
+			int itemIndex = recommendList.getKey(position);
+			recommendItems.add(itemIndex);
+			if (checkCollection.contains(itemIndex)) {
 				hitCount++;
 			} else {
 				missCount++;
 			}
 		}
 
-		int evaluateSum = (checkCollection.size() + evaluateSize - recommendList.size() - hitCount) * hitCount;
+		int evaluateSum = (checkCollection.size() + evaluateSize - recommendSize - hitCount) * hitCount;
 		if (evaluateSum == 0) {
 			return 0.5F;
 		}
@@ -58,4 +56,4 @@ public class AUCEvaluator extends RankingEvaluator {
 		hitSum += hitCount * (evaluateSize - missCount);
 		return (hitSum + 0F) / evaluateSum;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,11 +1,10 @@
 package com.jstarcraft.module.recommendation.evaluator.ranking;
 
 import java.util.Collection;
-import java.util.List;
 
-import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.math.structure.matrix.SymmetryMatrix;
 import com.jstarcraft.module.recommendation.evaluator.RankingEvaluator;
+import com.jstarcraft.module.recommendation.evaluator.RankingList;
 
 /**
  * 多样性评估器
@@ -22,16 +21,13 @@ public class DiversityEvaluator extends RankingEvaluator {
 	}
 
 	@Override
-	protected float measure(Collection<Integer> checkCollection, List<KeyValue<Integer, Float>> recommendList) {
-		if (recommendList.size() > size) {
-			recommendList = recommendList.subList(0, size);
-		}
+	protected float measure(Collection<Integer> checkCollection, RankingList recommendList) {
 		float diversity = 0F;
-		int size = recommendList.size();
+		int size = Math.min(this.size, recommendList.size());
 		for (int indexOut = 0; indexOut < size; indexOut++) {
 			for (int indexIn = indexOut + 1; indexIn < size; indexIn++) {
-				int itemOut = recommendList.get(indexOut).getKey();
-				int itemIn = recommendList.get(indexIn).getKey();
+				int itemOut = recommendList.getKey(indexOut);
+				int itemIn = recommendList.getKey(indexIn);
 				diversity += 1F - similarityMatrix.getValue(itemOut, itemIn);
 				diversity += 1F - similarityMatrix.getValue(itemIn, itemOut);
 			}
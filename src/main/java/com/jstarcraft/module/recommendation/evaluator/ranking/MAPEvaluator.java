@@ -1,10 +1,9 @@
 package com.jstarcraft.module.recommendation.evaluator.ranking;
 
 import java.util.Collection;
-import java.util.List;
 
-import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.recommendation.evaluator.RankingEvaluator;
+import com.jstarcraft.module.recommendation.evaluator.RankingList;
 
 /**
  * 平均准确率均值评估器
@@ -24,20 +23,18 @@ public class MAPEvaluator extends RankingEvaluator {
 	}
 
 	@Override
-	protected float measure(Collection<Integer> checkCollection, List<KeyValue<Integer, Float>> recommendList) {
-		if (recommendList.size() > size) {
-			recommendList = recommendList.subList(0, size);
-		}
+	protected float measure(Collection<Integer> checkCollection, RankingList recommendList) {
+		int size = Math.min(this.size, recommendList.size());
 		int count = 0;
 		float map = 0F;
-		for (int index = 0; index < recommendList.size(); index++) {
-			int key = recommendList.get(index).getKey();
+		for (int index = 0; index < size; index++) {
+			int key = recommendList.getKey(index);
 			if (checkCollection.contains(key)) {
 				count++;
 				map += 1F * count / (index + 1);
 			}
 		}
-		return map / (checkCollection.size() < recommendList.size() ? checkCollection.size() : recommendList.size());
+		return map / (checkCollection.size() < size ? checkCollection.size() : size);
 	}
 
 }
@@ -1,10 +1,9 @@
 package com.jstarcraft.module.recommendation.evaluator.ranking;
 
 import java.util.Collection;
-import java.util.List;
 
-import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.recommendation.evaluator.RankingEvaluator;
+import com.jstarcraft.module.recommendation.evaluator.RankingList;
 
 /**
  * 平均倒数排名评估器
@@ -24,13 +23,10 @@ public class MRREvaluator extends RankingEvaluator {
 
 	
 	@Override
-	protected float measure(Collection<Integer> checkCollection, List<KeyValue<Integer, Float>> recommendList) {
-		if (recommendList.size() > size) {
-			recommendList = recommendList.subList(0, size);
-		}
-		int size = recommendList.size();
+	protected float measure(Collection<Integer> checkCollection, RankingList recommendList) {
+		int size = Math.min(this.size, recommendList.size());
 		for (int index = 0; index < size; index++) {
-			int key = recommendList.get(index).getKey();
+			int key = recommendList.getKey(index);
 			if (checkCollection.contains(key)) {
 				return 1F / (index + 1);
 			}
@@ -4,9 +4,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.math.algorithm.MathUtility;
 import com.jstarcraft.module.recommendation.evaluator.RankingEvaluator;
+import com.jstarcraft.module.recommendation.evaluator.RankingList;
 
 /**
  * <pre>
@@ -30,15 +30,12 @@ public class NDCGEvaluator extends RankingEvaluator {
 	}
 
 	@Override
-	protected float measure(Collection<Integer> checkCollection, List<KeyValue<Integer, Float>> recommendList) {
-		if (recommendList.size() > size) {
-			recommendList = recommendList.subList(0, size);
-		}
+	protected float measure(Collection<Integer> checkCollection, RankingList recommendList) {
 		float dcg = 0F;
 		// calculate DCG
-		int size = recommendList.size();
+		int size = Math.min(this.size, recommendList.size());
 		for (int index = 0; index < size; index++) {
-			int itemIndex = recommendList.get(index).getKey();
+			int itemIndex = recommendList.getKey(index);
 			if (!checkCollection.contains(itemIndex)) {
 				continue;
 			}
@@ -18,11 +18,10 @@
 package com.jstarcraft.module.recommendation.evaluator.ranking;
 
 import java.util.Collection;
-import java.util.List;
 
-import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.recommendation.evaluator.RankingEvaluator;
+import com.jstarcraft.module.recommendation.evaluator.RankingList;
 
 /**
  * NoveltyEvaluator
@@ -78,14 +77,11 @@ public class NoveltyEvaluator extends RankingEvaluator {
 	 * @return evaluate result
 	 */
 	@Override
-	protected float measure(Collection<Integer> checkCollection, List<KeyValue<Integer, Float>> recommendList) {
-		if (recommendList.size() > size) {
-			recommendList = recommendList.subList(0, size);
-		}
-
+	protected float measure(Collection<Integer> checkCollection, RankingList recommendList) {
+		int size = Math.min(this.size, recommendList.size());
 		float sum = 0F;
-		for (KeyValue<Integer, Float> keyValue : recommendList) {
-			int itemIndex = keyValue.getKey();
+		for (int position = 0; position < size; position++) {
+			int itemIndex = recommendList.getKey(position);
 			int count = itemCounts[itemIndex];
 			if (count > 0) {
 				float probability = ((float) count) / numberOfUsers;
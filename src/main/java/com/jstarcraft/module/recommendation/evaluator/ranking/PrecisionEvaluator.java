@@ -1,10 +1,9 @@
 package com.jstarcraft.module.recommendation.evaluator.ranking;
 
 import java.util.Collection;
-import java.util.List;
 
-import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.recommendation.evaluator.RankingEvaluator;
+import com.jstarcraft.module.recommendation.evaluator.RankingList;
 
 /**
  * 精确度评估器
@@ -22,13 +21,11 @@ public class PrecisionEvaluator extends RankingEvaluator {
 	}
 
 	@Override
-	protected float measure(Collection<Integer> checkCollection, List<KeyValue<Integer, Float>> recommendList) {
-		if (recommendList.size() > size) {
-			recommendList = recommendList.subList(0, size);
-		}
+	protected float measure(Collection<Integer> checkCollection, RankingList recommendList) {
+		int recommendSize = Math.min(size, recommendList.size());
 		int count = 0;
-		for (KeyValue<Integer, Float> keyValue : recommendList) {
-			if (checkCollection.contains(keyValue.getKey())) {
+		for (int position = 0; position < recommendSize; position++) {
+			if (checkCollection.contains(recommendList.getKey(position))) {
 				count++;
 			}
 		}
@@ -6,14 +6,14 @@ import java.util.TreeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.data.processor.DataMatcher;
 import com.jstarcraft.module.data.processor.DataSorter;
 import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.math.structure.MathCombiner;
+import com.jstarcraft.module.math.structure.matrix.MatrixBuilder;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.recommendation.configure.Configuration;
@@ -75,13 +75,13 @@ public abstract class AbstractRecommender implements Recommender {
 		matcher.match(dataPaginations, dataPositions);
 		DataSorter sorter = DataSorter.featureOf(marker);
 		sorter.sort(dataPaginations, dataPositions);
-		Table<Integer, Integer, Float> dataTable = HashBasedTable.create();
+		MatrixBuilder builder = new MatrixBuilder(numberOfUsers, numberOfItems, MathCombiner.LAST, dataPositions.length);
 		for (int position : dataPositions) {
 			int rowIndex = marker.getDiscreteFeature(userDimension, position);
 			int columnIndex = marker.getDiscreteFeature(itemDimension, position);
-			dataTable.put(rowIndex, columnIndex, marker.getMark(position));
+			builder.append(rowIndex, columnIndex, marker.getMark(position));
 		}
-		trainMatrix = SparseMatrix.valueOf(numberOfUsers, numberOfItems, dataTable);
+		trainMatrix = builder.build();
 		numberOfActions = trainMatrix.getElementSize();
 
 		// TODO 此处会与scoreIndexes一起重构,本质为连续特征离散化.
@@ -7,13 +7,10 @@ import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.math.algorithm.distribution.ContinuousProbability;
-import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.math.structure.tensor.SparseTensor;
-import com.jstarcraft.module.math.structure.vector.ArrayVector;
 import com.jstarcraft.module.math.structure.vector.DenseVector;
-import com.jstarcraft.module.math.structure.vector.VectorScalar;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.exception.RecommendationException;
 
@@ -77,6 +74,15 @@ public abstract class FactorizationMachineRecommender extends ModelRecommender {
 
 	protected ContinuousProbability distribution;
 
+	/** 每个维度的特征偏移(维度的特征索引=偏移+维度的索引) */
+	protected int[] featureOffsets;
+
+	/** 特征索引缓存(每个线程一份) */
+	private ThreadLocal<int[]> featureStorage;
+
+	/** 因子和缓存(每个线程一份) */
+	private ThreadLocal<float[]> factorStorage;
+
 	@Override
 	public void prepare(Configuration configuration, SampleAccessor marker, InstanceAccessor model, DataSpace space) {
 		super.prepare(configuration, marker, model, space);
@@ -100,7 +106,9 @@ public abstract class FactorizationMachineRecommender extends ModelRecommender {
 		minimumOfScore = configuration.getFloat("rec.recommender.minrate", 0F);
 
 		// initialize the parameters of FM
+		featureOffsets = new int[trainTensor.getOrderSize()];
 		for (int dimension = 0; dimension < trainTensor.getOrderSize(); dimension++) {
+			featureOffsets[dimension] = numberOfFeatures;
 			numberOfFeatures += trainTensor.getDimensionSize(dimension); // set
 																			// the
 			// size
@@ -126,77 +134,215 @@ public abstract class FactorizationMachineRecommender extends ModelRecommender {
 		biasRegularization = configuration.getFloat("rec.fm.regw0", 0.01f);
 		weightRegularization = configuration.getFloat("rec.fm.regW", 0.01f);
 		factorRegularization = configuration.getFloat("rec.fm.regF", 10f);
+
+		int numberOfOrders = trainTensor.getOrderSize();
+		featureStorage = ThreadLocal.withInitial(() -> new int[numberOfOrders]);
+		factorStorage = ThreadLocal.withInitial(() -> new float[numberOfFactors]);
 	}
 
 	/**
-	 * 获取特征向量
+	 * 获取特征索引
 	 * 
 	 * <pre>
-	 * 实际为One Hot Encoding(一位有效编码)
+	 * 实际为One Hot Encoding(一位有效编码),每个维度只有一个值为1的特征,所以只需要保存特征的索引.
 	 * 详细原理与使用参考:http://blog.csdn.net/pipisorry/article/details/61193868
 	 * </pre>
 	 * 
+	 * @param dicreteFeatures
 	 * @param featureIndexes
+	 *            特征索引(长度为维度数量)
 	 * @return
 	 */
-	protected ArrayVector getFeatureVector(int[] featureIndexes) {
-		int size = featureIndexes.length;
-		int[] keys = new int[size];
-		int cursor = 0;
-		for (int index = 0; index < size; index++) {
-			keys[index] += cursor + featureIndexes[index];
-			cursor += trainTensor.getDimensionSize(index);
+	protected int[] getFeatureIndexes(int[] dicreteFeatures, int[] featureIndexes) {
+		for (int dimension = 0; dimension < featureIndexes.length; dimension++) {
+			featureIndexes[dimension] = featureOffsets[dimension] + dicreteFeatures[dimension];
 		}
-		return new ArrayVector(numberOfFeatures, keys, (index, value, message) -> {
-			return 1F;
-		});
+		return featureIndexes;
+	}
+
+	/**
+	 * 获取训练张量指定位置的特征索引
+	 * 
+	 * @param position
+	 * @param featureIndexes
+	 *            特征索引(长度为维度数量)
+	 * @return
+	 */
+	protected int[] getFeatureIndexes(int position, int[] featureIndexes) {
+		for (int dimension = 0; dimension < featureIndexes.length; dimension++) {
+			featureIndexes[dimension] = featureOffsets[dimension] + trainTensor.getIndex(dimension, position);
+		}
+		return featureIndexes;
 	}
 
 	/**
-	 * Predict the rating given a sparse appender vector.
+	 * 预测特征索引的得分
 	 * 
-	 * @param userIndex
-	 *            user Id
-	 * @param itemIndex
-	 *            item Id
-	 * @param featureVector
-	 *            the given vector to predict.
-	 *
-	 * @return predicted rating
-	 * @throws RecommendationException
-	 *             if error occurs
-	 */
-	protected float predict(DefaultScalar scalar, ArrayVector featureVector) {
-		float value = 0;
+	 * <pre>
+	 * 二阶项使用Σ(i<j)<v[i],v[j]> = 1/2*Σ(f)((Σ(i)v[i][f])^2-Σ(i)v[i][f]^2),复杂度为O(n*k)而不是O(n^2*k).
+	 * 预测的同时把每个因子的和Σ(i)v[i][f]保存到factorSums,供训练计算梯度.
+	 * 累加顺序(一阶项单独求和,每个因子按照维度顺序求和)与原来基于特征向量的实现一致,保证结果相同.
+	 * </pre>
+	 * 
+	 * @param featureIndexes
+	 *            特征索引
+	 * @param factorSums
+	 *            因子和(长度为因子数量)
+	 * @return
+	 */
+	protected float predictFeatures(int[] featureIndexes, float[] factorSums) {
+		float value = 0F;
 		// global bias
 		value += globalBias;
 		// 1-way interaction
-		value += scalar.dotProduct(weightVector, featureVector).getValue();
-
+		float weight = 0F;
+		for (int featureIndex : featureIndexes) {
+			weight += weightVector.getValue(featureIndex);
+		}
+		value += weight;
 		// 2-way interaction
 		for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
 			float scoreSum = 0F;
 			float predictSum = 0F;
-			for (VectorScalar vectorTerm : featureVector) {
-				float featureValue = vectorTerm.getValue();
-				int featureIndex = vectorTerm.getIndex();
-				float predictValue = featureFactors.getValue(featureIndex, factorIndex);
-
-				scoreSum += predictValue * featureValue;
-				predictSum += predictValue * predictValue * featureValue * featureValue;
+			for (int featureIndex : featureIndexes) {
+				float factor = featureFactors.getValue(featureIndex, factorIndex);
+				scoreSum += factor;
+				predictSum += factor * factor;
 			}
+			factorSums[factorIndex] = scoreSum;
 			value += (scoreSum * scoreSum - predictSum) / 2F;
 		}
-
 		return value;
 	}
 
 	@Override
 	public float predict(int[] dicreteFeatures, float[] continuousFeatures) {
-		DefaultScalar scalar = DefaultScalar.getInstance();
 		// TODO 暂时不支持连续特征,考虑将连续特征离散化.
-		ArrayVector featureVector = getFeatureVector(dicreteFeatures);
-		return predict(scalar, featureVector);
+		int[] featureIndexes = getFeatureIndexes(dicreteFeatures, featureStorage.get());
+		return predictFeatures(featureIndexes, factorStorage.get());
+	}
+
+	/**
+	 * 遍历训练张量
+	 * 
+	 * <pre>
+	 * 按照位置遍历训练张量的所有样本,每个线程使用自己的特征索引与因子和缓存.
+	 * 通过{@link #doShard(int, ShardCommand)}将位置拆分为多个分片(Hogwild!),分片之间不加锁,直接更新共享的参数.
+	 * </pre>
+	 * 
+	 * @param command
+	 * @return 总损失
+	 */
+	protected float doSample(FeatureCommand command) {
+		return doShard(trainTensor.getElementSize(), (from, to, random) -> {
+			int[] featureIndexes = featureStorage.get();
+			float[] factorSums = factorStorage.get();
+			float loss = 0F;
+			for (int position = from; position < to; position++) {
+				loss += command.sample(position, featureIndexes, factorSums);
+			}
+			return loss;
+		});
+	}
+
+	/**
+	 * 是否支持批量预测
+	 * 
+	 * <pre>
+	 * 逐个预测使用{@link #predictFeatures(int[], float[])}的因子机公式(只允许通过{@link #limitScore(float)}修正得分)的子类返回true.
+	 * 改写二阶项等逐个预测逻辑的子类(比如场感知因子机)返回false(使用逐个预测).
+	 * </pre>
+	 * 
+	 * @return
+	 */
+	protected boolean isBatchable() {
+		return false;
+	}
+
+	/**
+	 * 修正得分(逐个预测与批量预测共用)
+	 * 
+	 * @param value
+	 * @return
+	 */
+	protected float limitScore(float value) {
+		return value;
+	}
+
+	/**
+	 * 批量预测
+	 * 
+	 * <pre>
+	 * 物品维度之前的特征对所有物品相同,预先累加其一阶项,每个因子的和与平方和,
+	 * 每个物品只需要继续累加物品与之后的维度.
+	 * 累加顺序与{@link #predictFeatures(int[], float[])}一致,所以批量预测与逐个预测的得分相同.
+	 * itemIndexes为null时预测所有物品.
+	 * </pre>
+	 * 
+	 * @param dicreteFeatures
+	 * @param itemDimension
+	 * @param itemIndexes
+	 * @param scores
+	 */
+	private void predict(int[] dicreteFeatures, int itemDimension, int[] itemIndexes, float[] scores) {
+		float prefixWeight = 0F;
+		float[] prefixScores = new float[numberOfFactors];
+		float[] prefixSquares = new float[numberOfFactors];
+		for (int dimension = 0; dimension < itemDimension; dimension++) {
+			int featureIndex = featureOffsets[dimension] + dicreteFeatures[dimension];
+			prefixWeight += weightVector.getValue(featureIndex);
+			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				float factor = featureFactors.getValue(featureIndex, factorIndex);
+				prefixScores[factorIndex] += factor;
+				prefixSquares[factorIndex] += factor * factor;
+			}
+		}
+		int[] suffixIndexes = new int[featureOffsets.length - itemDimension - 1];
+		for (int dimension = itemDimension + 1; dimension < featureOffsets.length; dimension++) {
+			suffixIndexes[dimension - itemDimension - 1] = featureOffsets[dimension] + dicreteFeatures[dimension];
+		}
+
+		int itemCursor = featureOffsets[itemDimension];
+		for (int position = 0, size = itemIndexes == null ? scores.length : itemIndexes.length; position < size; position++) {
+			int itemIndex = itemCursor + (itemIndexes == null ? position : itemIndexes[position]);
+			float weight = prefixWeight + weightVector.getValue(itemIndex);
+			for (int featureIndex : suffixIndexes) {
+				weight += weightVector.getValue(featureIndex);
+			}
+			float value = 0F;
+			value += globalBias;
+			value += weight;
+			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				float factor = featureFactors.getValue(itemIndex, factorIndex);
+				float scoreSum = prefixScores[factorIndex] + factor;
+				float predictSum = prefixSquares[factorIndex] + factor * factor;
+				for (int featureIndex : suffixIndexes) {
+					factor = featureFactors.getValue(featureIndex, factorIndex);
+					scoreSum += factor;
+					predictSum += factor * factor;
+				}
+				value += (scoreSum * scoreSum - predictSum) / 2F;
+			}
+			scores[position] = limitScore(value);
+		}
+	}
+
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, int[] itemIndexes, float[] scores) {
+		if (isBatchable()) {
+			predict(dicreteFeatures, itemDimension, itemIndexes, scores);
+		} else {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, itemIndexes, scores);
+		}
+	}
+
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, float[] scores) {
+		if (isBatchable()) {
+			predict(dicreteFeatures, itemDimension, null, scores);
+		} else {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, scores);
+		}
 	}
 
 }
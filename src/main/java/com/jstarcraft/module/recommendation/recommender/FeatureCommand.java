@@ -0,0 +1,30 @@
+package com.jstarcraft.module.recommendation.recommender;
+
+/**
+ * 特征指令
+ *
+ * <pre>
+ * 处理训练张量指定位置的样本,返回该样本的损失.
+ * 特征索引与因子和缓存由调用者按照线程提供,并行遍历时指令会被多个算法线程同时执行.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+@FunctionalInterface
+public interface FeatureCommand {
+
+	/**
+	 * 执行指令
+	 *
+	 * @param position
+	 *            训练张量的位置
+	 * @param featureIndexes
+	 *            线程独立的特征索引缓存
+	 * @param factorSums
+	 *            线程独立的因子和缓存
+	 * @return 损失
+	 */
+	float sample(int position, int[] featureIndexes, float[] factorSums);
+
+}
@@ -0,0 +1,27 @@
+package com.jstarcraft.module.recommendation.recommender;
+
+/**
+ * 增量推荐器
+ *
+ * <pre>
+ * 训练完成之后接收新的交互,不需要重新训练整个模型(fold-in):
+ * 1.用户与物品索引来自数据空间的离散属性,超出训练时数量的索引视为新用户或者新物品,模型原地扩展;
+ * 2.只对本次涉及的用户与物品执行有限次数的局部迭代,其它参数保持不变.
+ * 更新与预测可以在不同线程执行,预测可能看到部分更新的参数.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public interface IncrementalRecommender extends Recommender {
+
+	/**
+	 * 增量更新
+	 *
+	 * @param userIndexes
+	 * @param itemIndexes
+	 * @param scores
+	 */
+	void update(int[] userIndexes, int[] itemIndexes, float[] scores);
+
+}
@@ -3,15 +3,24 @@ package com.jstarcraft.module.recommendation.recommender;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.random.JDKRandomGenerator;
 
+import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.math.algorithm.distribution.ContinuousProbability;
-import com.jstarcraft.module.math.structure.DefaultScalar;
+import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.matrix.AppendableMatrix;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
+import com.jstarcraft.module.math.structure.matrix.RowKernel;
 import com.jstarcraft.module.math.structure.vector.DenseVector;
+import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.recommendation.configure.Configuration;
+import com.jstarcraft.module.recommendation.exception.RecommendationException;
+
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
 
 /**
  * Matrix Factorization Recommender Methods with user factors and item factors:
@@ -69,6 +78,15 @@ public abstract class MatrixFactorizationRecommender extends ModelRecommender {
 
 	protected ContinuousProbability distribution;
 
+	/** 增量更新的局部迭代次数 */
+	protected int numberOfIncrements;
+
+	/** 增量交互(用户-物品-得分) */
+	protected AppendableMatrix userIncrements;
+
+	/** 增量交互(物品-用户-得分) */
+	protected AppendableMatrix itemIncrements;
+
 	@Override
 	public void prepare(Configuration configuration, SampleAccessor marker, InstanceAccessor model, DataSpace space) {
 		super.prepare(configuration, marker, model, space);
@@ -82,6 +100,9 @@ public abstract class MatrixFactorizationRecommender extends ModelRecommender {
 		learnDecay = configuration.getFloat("rec.learnrate.decay", 1.0f);
 		learnRate = configuration.getFloat("rec.iterator.learnrate", 0.01f);
 		learnLimit = configuration.getFloat("rec.iterator.learnrate.maximum", 1000.0f);
+		numberOfIncrements = configuration.getInteger("rec.increment.iterator", 5);
+		userIncrements = new AppendableMatrix(numberOfUsers, numberOfItems);
+		itemIncrements = new AppendableMatrix(numberOfItems, numberOfUsers);
 
 		// TODO 此处需要重构
 		initMean = configuration.getFloat("rec.init.mean", 0F);
@@ -93,10 +114,7 @@ public abstract class MatrixFactorizationRecommender extends ModelRecommender {
 	}
 
 	protected float predict(int userIndex, int itemIndex) {
-		DenseVector userVector = userFactors.getRowVector(userIndex);
-		DenseVector itemVector = itemFactors.getRowVector(itemIndex);
-		DefaultScalar scalar = DefaultScalar.getInstance();
-		return scalar.dotProduct(userVector, itemVector).getValue();
+		return RowKernel.dot(userFactors, userIndex, itemFactors, itemIndex);
 	}
 
 	@Override
@@ -106,6 +124,277 @@ public abstract class MatrixFactorizationRecommender extends ModelRecommender {
 		return predict(userIndex, itemIndex);
 	}
 
+	/**
+	 * 批量预测(指定物品)
+	 * 
+	 * <pre>
+	 * 子类改写{@link #predict(int, int)}时需要同步改写此方法.
+	 * </pre>
+	 * 
+	 * @param userIndex
+	 * @param itemIndexes
+	 * @param scores
+	 */
+	protected void predict(int userIndex, int[] itemIndexes, float[] scores) {
+		for (int position = 0, size = itemIndexes.length; position < size; position++) {
+			scores[position] = RowKernel.dot(userFactors, userIndex, itemFactors, itemIndexes[position]);
+		}
+	}
+
+	/**
+	 * 批量预测(所有物品)
+	 * 
+	 * <pre>
+	 * 子类改写{@link #predict(int, int)}时需要同步改写此方法.
+	 * scores的长度可以小于物品数量(例如增量扩展模型之前分配的数组),此时只预测前scores.length个物品.
+	 * </pre>
+	 * 
+	 * @param userIndex
+	 * @param scores
+	 */
+	protected void predict(int userIndex, float[] scores) {
+		if (scores.length > numberOfItems) {
+			throw new RecommendationException("得分数量超出物品数量");
+		}
+		if (scores.length == numberOfItems) {
+			DenseVector scoreVector = DenseVector.valueOf(scores.length, scores);
+			scoreVector.dotProduct(itemFactors, false, userFactors.getRowVector(userIndex), MathCalculator.SERIAL);
+		} else {
+			for (int itemIndex = 0, size = scores.length; itemIndex < size; itemIndex++) {
+				scores[itemIndex] = RowKernel.dot(userFactors, userIndex, itemFactors, itemIndex);
+			}
+		}
+	}
+
+	/**
+	 * 是否支持批量预测
+	 * 
+	 * <pre>
+	 * 逐个预测与{@link #predict(int, int[], float[])}和{@link #predict(int, float[])}一致的子类返回true.
+	 * 改写逐个预测的子类需要同时改写批量预测,或者返回false(使用逐个预测).
+	 * </pre>
+	 * 
+	 * @return
+	 */
+	protected boolean isBatchable() {
+		return false;
+	}
+
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, int[] itemIndexes, float[] scores) {
+		if (isBatchable() && itemDimension == this.itemDimension) {
+			predict(dicreteFeatures[userDimension], itemIndexes, scores);
+		} else {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, itemIndexes, scores);
+		}
+	}
+
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, float[] scores) {
+		if (isBatchable() && itemDimension == this.itemDimension) {
+			predict(dicreteFeatures[userDimension], scores);
+		} else {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, scores);
+		}
+	}
+
+	/**
+	 * 采样训练(Hogwild!)
+	 * 
+	 * <pre>
+	 * 通过{@link #doShard(int, ShardCommand)}将采样次数拆分为多个分片.
+	 * 分片之间不加锁,直接更新共享的因子(每次采样只更新少数几行,冲突很少,不影响收敛).
+	 * </pre>
+	 * 
+	 * @param sampleTimes
+	 * @param command
+	 * @return 总损失
+	 */
+	protected float doSample(int sampleTimes, SampleCommand command) {
+		return doSample(sampleTimes, 0F, command);
+	}
+
+	/**
+	 * 在已有损失的基础上采样训练
+	 * 
+	 * <pre>
+	 * 第一个分片从已有损失开始累加,其它分片从0开始,串行时等价于一直累加到同一个损失.
+	 * </pre>
+	 * 
+	 * @param sampleTimes
+	 * @param loss
+	 * @param command
+	 * @return 总损失
+	 */
+	protected float doSample(int sampleTimes, float loss, SampleCommand command) {
+		return doShard(sampleTimes, (from, to, random) -> {
+			float sum = from == 0 ? loss : 0F;
+			for (int sampleIndex = from; sampleIndex < to; sampleIndex++) {
+				sum = command.sample(random, sum);
+			}
+			return sum;
+		});
+	}
+
+	/**
+	 * 按照用户训练(Hogwild!)
+	 * 
+	 * <pre>
+	 * 通过{@link #doShard(int, ShardCommand)}将用户拆分为多个分片.
+	 * 每个用户只会被一个线程处理,所以按照用户缓存的数据(比如隐式反馈因子之和)在处理期间保持一致.
+	 * 物品相关的参数在分片之间不加锁,直接更新共享的因子.
+	 * </pre>
+	 * 
+	 * @param command
+	 * @return 总损失
+	 */
+	protected float doUser(UserCommand command) {
+		return doShard(numberOfUsers, (from, to, random) -> {
+			float loss = 0F;
+			for (int userIndex = from; userIndex < to; userIndex++) {
+				loss += command.practice(userIndex);
+			}
+			return loss;
+		});
+	}
+
+	/**
+	 * 记录增量交互
+	 * 
+	 * <pre>
+	 * 超出当前数量的用户或者物品视为新用户或者新物品,先通过{@link #expand(int, int)}扩展模型.
+	 * 同一个用户与物品重复出现时以最后的得分为准(覆盖训练数据).
+	 * </pre>
+	 * 
+	 * @param userIndexes
+	 * @param itemIndexes
+	 * @param scores
+	 * @return 涉及的用户与物品(按照首次出现的顺序)
+	 */
+	protected KeyValue<int[], int[]> increment(int[] userIndexes, int[] itemIndexes, float[] scores) {
+		if (userIndexes.length != itemIndexes.length || userIndexes.length != scores.length) {
+			throw new RecommendationException("增量交互的用户,物品与得分数量不一致");
+		}
+		int userSize = numberOfUsers, itemSize = numberOfItems;
+		for (int position = 0, size = userIndexes.length; position < size; position++) {
+			userSize = Math.max(userSize, userIndexes[position] + 1);
+			itemSize = Math.max(itemSize, itemIndexes[position] + 1);
+		}
+		if (userSize > numberOfUsers || itemSize > numberOfItems) {
+			expand(userSize, itemSize);
+		}
+		IntLinkedOpenHashSet users = new IntLinkedOpenHashSet();
+		IntLinkedOpenHashSet items = new IntLinkedOpenHashSet();
+		for (int position = 0, size = userIndexes.length; position < size; position++) {
+			int userIndex = userIndexes[position];
+			int itemIndex = itemIndexes[position];
+			userIncrements.setValue(userIndex, itemIndex, scores[position]);
+			itemIncrements.setValue(itemIndex, userIndex, scores[position]);
+			users.add(userIndex);
+			items.add(itemIndex);
+		}
+		return new KeyValue<>(users.toIntArray(), items.toIntArray());
+	}
+
+	/**
+	 * 扩展模型
+	 * 
+	 * <pre>
+	 * 新用户与新物品的因子按照初始分布随机.
+	 * 子类有其它与用户或者物品数量相关的参数时需要改写此方法.
+	 * </pre>
+	 * 
+	 * @param numberOfUsers
+	 * @param numberOfItems
+	 */
+	protected void expand(int numberOfUsers, int numberOfItems) {
+		userFactors = DenseMatrix.expandOf(userFactors, numberOfUsers, MatrixMapper.distributionOf(distribution));
+		itemFactors = DenseMatrix.expandOf(itemFactors, numberOfItems, MatrixMapper.distributionOf(distribution));
+		this.numberOfUsers = numberOfUsers;
+		this.numberOfItems = numberOfItems;
+	}
+
+	/**
+	 * 获取用户的所有得分(训练数据与增量数据)
+	 * 
+	 * @param userIndex
+	 * @param itemIndexes
+	 *            输出物品
+	 * @param scores
+	 *            输出得分
+	 */
+	protected final void getUserScores(int userIndex, IntArrayList itemIndexes, FloatArrayList scores) {
+		getScores(userIndex < trainMatrix.getRowSize() ? trainMatrix.getRowVector(userIndex) : null, userIncrements, userIndex, itemIndexes, scores);
+	}
+
+	/**
+	 * 获取物品的所有得分(训练数据与增量数据)
+	 * 
+	 * @param itemIndex
+	 * @param userIndexes
+	 *            输出用户
+	 * @param scores
+	 *            输出得分
+	 */
+	protected final void getItemScores(int itemIndex, IntArrayList userIndexes, FloatArrayList scores) {
+		getScores(itemIndex < trainMatrix.getColumnSize() ? trainMatrix.getColumnVector(itemIndex) : null, itemIncrements, itemIndex, userIndexes, scores);
+	}
+
+	private void getScores(SparseVector vector, AppendableMatrix increments, int index, IntArrayList indexes, FloatArrayList scores) {
+		indexes.clear();
+		scores.clear();
+		// 训练数据与增量数据都按照索引递增,归并之后仍然有序
+		int trainSize = vector == null ? 0 : vector.getElementSize();
+		int incrementSize = increments.getRowScope(index);
+		int trainPosition = 0, incrementPosition = 0;
+		while (trainPosition < trainSize || incrementPosition < incrementSize) {
+			int trainIndex = trainPosition < trainSize ? vector.getIndex(trainPosition) : Integer.MAX_VALUE;
+			int incrementIndex = incrementPosition < incrementSize ? increments.getTermColumn(index, incrementPosition) : Integer.MAX_VALUE;
+			if (trainIndex < incrementIndex) {
+				indexes.add(trainIndex);
+				scores.add(vector.getValue(trainPosition++));
+			} else {
+				// 增量数据覆盖训练数据
+				if (trainIndex == incrementIndex) {
+					trainPosition++;
+				}
+				indexes.add(incrementIndex);
+				scores.add(increments.getTermValue(index, incrementPosition++));
+			}
+		}
+	}
+
+	/**
+	 * 用户是否对物品有得分(训练数据或者增量数据)
+	 * 
+	 * @param userIndex
+	 * @param itemIndex
+	 * @return
+	 */
+	protected final boolean hasScore(int userIndex, int itemIndex) {
+		if (userIncrements.contains(userIndex, itemIndex)) {
+			return true;
+		}
+		if (userIndex >= trainMatrix.getRowSize()) {
+			return false;
+		}
+		// 行内的列索引有序,二分查找
+		SparseVector userVector = trainMatrix.getRowVector(userIndex);
+		int low = 0, high = userVector.getElementSize() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int index = userVector.getIndex(middle);
+			if (index < itemIndex) {
+				low = middle + 1;
+			} else if (index > itemIndex) {
+				high = middle - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Update current learning rate after each epoch <br>
 	 * <ol>
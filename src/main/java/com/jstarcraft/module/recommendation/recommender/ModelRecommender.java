@@ -1,8 +1,14 @@
 package com.jstarcraft.module.recommendation.recommender;
 
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.jstarcraft.core.utility.RandomUtility;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
+import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.math.algorithm.MathUtility;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.exception.RecommendationException;
@@ -19,6 +25,26 @@ import com.jstarcraft.module.recommendation.exception.RecommendationException;
  */
 public abstract class ModelRecommender extends AbstractRecommender {
 
+	/** 并行训练的分片数量(每个线程大约分到4个分片,以便平衡负载) */
+	protected static final int SHARD_SIZE = Runtime.getRuntime().availableProcessors() * 4;
+
+	/** 串行训练使用全局随机数,保持与单线程训练相同的随机序列 */
+	private static final Random SERIAL_RANDOM = new Random() {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public int nextInt(int bound) {
+			return RandomUtility.randomInteger(bound);
+		}
+
+		@Override
+		public double nextDouble() {
+			return RandomUtility.randomDouble(1D);
+		}
+
+	};
+
 	/** 周期次数 */
 	protected int numberOfEpoches;
 
@@ -28,12 +54,68 @@ public abstract class ModelRecommender extends AbstractRecommender {
 	/** 用于观察损失率 */
 	protected float totalLoss, currentLoss = 0F;
 
+	/** 是否并行训练(rec.iterator.parallel,默认关闭,保持串行训练的结果) */
+	protected boolean isParallel;
+
 	@Override
 	public void prepare(Configuration configuration, SampleAccessor marker, InstanceAccessor model, DataSpace space) {
 		super.prepare(configuration, marker, model, space);
 		// 参数部分
 		numberOfEpoches = configuration.getInteger("rec.iterator.maximum", 100);
 		isConverged = configuration.getBoolean("rec.recommender.earlystop", false);
+		isParallel = configuration.getBoolean("rec.iterator.parallel", false);
+	}
+
+	/**
+	 * 分片训练
+	 * 
+	 * <pre>
+	 * 并行时将[0, size)拆分为多个分片,由算法线程并行执行,每个分片使用独立的随机数生成器,最后按照分片顺序合并损失.
+	 * 分片之间不加锁,共享的参数由指令自己保证(Hogwild!或者互不相交).
+	 * 非并行(或者任务数量少于分片数量)时在当前线程按照顺序执行,与原来的单线程训练一致.
+	 * </pre>
+	 * 
+	 * @param size
+	 *            任务数量
+	 * @param command
+	 * @return 总损失
+	 */
+	protected float doShard(int size, ShardCommand command) {
+		if (!isParallel || size < SHARD_SIZE) {
+			return command.practice(0, size, SERIAL_RANDOM);
+		}
+		EnvironmentContext context = EnvironmentContext.getContext();
+		long seed = RandomUtility.randomInteger(Integer.MAX_VALUE);
+		double[] losses = new double[SHARD_SIZE];
+		AtomicReference<Throwable> exception = new AtomicReference<>();
+		CountDownLatch latch = new CountDownLatch(SHARD_SIZE);
+		for (int index = 0; index < SHARD_SIZE; index++) {
+			int shardIndex = index;
+			int from = (int) ((long) size * shardIndex / SHARD_SIZE);
+			int to = (int) ((long) size * (shardIndex + 1) / SHARD_SIZE);
+			context.doAlgorithmByAny(index, () -> {
+				try {
+					losses[shardIndex] = command.practice(from, to, new Random(seed * SHARD_SIZE + shardIndex));
+				} catch (Throwable throwable) {
+					exception.compareAndSet(null, throwable);
+				} finally {
+					latch.countDown();
+				}
+			});
+		}
+		try {
+			latch.await();
+		} catch (Exception throwable) {
+			throw new RecommendationException(throwable);
+		}
+		if (exception.get() != null) {
+			throw new RecommendationException(exception.get());
+		}
+		double loss = 0D;
+		for (int shardIndex = 0; shardIndex < SHARD_SIZE; shardIndex++) {
+			loss += losses[shardIndex];
+		}
+		return (float) loss;
 	}
 
 	/**
@@ -49,4 +49,45 @@ public interface Recommender {
 	float predict(int[] dicreteFeatures, float[] continuousFeatures);
 	// double predict(int userIndex, int itemIndex, int... featureIndexes);
 
+	/**
+	 * 批量预测(指定物品)
+	 * 
+	 * <pre>
+	 * 以dicreteFeatures/continuousFeatures为模板(用户与上下文特征),
+	 * 依次将物品维度替换为itemIndexes中的物品,得分写入scores对应的位置.
+	 * 默认逐个调用{@link #predict(int[], float[])},因子模型可以改写为矩阵向量乘法.
+	 * </pre>
+	 * 
+	 * @param dicreteFeatures
+	 * @param continuousFeatures
+	 * @param itemDimension
+	 * @param itemIndexes
+	 * @param scores
+	 */
+	default void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, int[] itemIndexes, float[] scores) {
+		for (int position = 0, size = itemIndexes.length; position < size; position++) {
+			dicreteFeatures[itemDimension] = itemIndexes[position];
+			scores[position] = predict(dicreteFeatures, continuousFeatures);
+		}
+	}
+
+	/**
+	 * 批量预测(所有物品)
+	 * 
+	 * <pre>
+	 * scores的长度为物品数量,scores[itemIndex]为物品的得分.
+	 * </pre>
+	 * 
+	 * @param dicreteFeatures
+	 * @param continuousFeatures
+	 * @param itemDimension
+	 * @param scores
+	 */
+	default void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, float[] scores) {
+		for (int itemIndex = 0, size = scores.length; itemIndex < size; itemIndex++) {
+			dicreteFeatures[itemDimension] = itemIndex;
+			scores[itemIndex] = predict(dicreteFeatures, continuousFeatures);
+		}
+	}
+
 }
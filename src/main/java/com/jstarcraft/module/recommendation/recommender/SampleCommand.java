@@ -0,0 +1,31 @@
+package com.jstarcraft.module.recommendation.recommender;
+
+import java.util.Random;
+
+/**
+ * 采样指令
+ *
+ * <pre>
+ * 执行一次随机梯度下降的采样与更新,把该次采样的损失逐项累加到分片的累计损失并返回.
+ * 逐项累加保证串行时损失的舍入与原来逐项累加到totalLoss完全一致.
+ * 并行采样时指令会被多个算法线程同时执行,所有随机数必须来自参数提供的随机数生成器.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+@FunctionalInterface
+public interface SampleCommand {
+
+	/**
+	 * 执行采样
+	 *
+	 * @param random
+	 *            分片独立的随机数生成器
+	 * @param loss
+	 *            分片的累计损失
+	 * @return 累加以后的损失
+	 */
+	float sample(Random random, float loss);
+
+}
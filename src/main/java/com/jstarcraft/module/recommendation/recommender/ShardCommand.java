@@ -0,0 +1,32 @@
+package com.jstarcraft.module.recommendation.recommender;
+
+import java.util.Random;
+
+/**
+ * 分片指令
+ *
+ * <pre>
+ * 按照顺序处理[from, to)范围内的任务,返回该范围的损失.
+ * 并行时指令会被多个算法线程同时执行(每个范围只会被一个线程处理),缓存必须按照线程独立.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+@FunctionalInterface
+public interface ShardCommand {
+
+	/**
+	 * 执行指令
+	 *
+	 * @param from
+	 *            起始索引(包括)
+	 * @param to
+	 *            结束索引(不包括)
+	 * @param random
+	 *            分片独立的随机数生成器(串行时为全局随机数)
+	 * @return 损失
+	 */
+	float practice(int from, int to, Random random);
+
+}
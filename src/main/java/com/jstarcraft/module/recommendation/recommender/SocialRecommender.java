@@ -1,12 +1,12 @@
 package com.jstarcraft.module.recommendation.recommender;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import com.jstarcraft.module.data.DataAccessor;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.DataInstance;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
+import com.jstarcraft.module.math.structure.MathCombiner;
+import com.jstarcraft.module.math.structure.matrix.MatrixBuilder;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.math.structure.tensor.SparseTensor;
 import com.jstarcraft.module.recommendation.configure.Configuration;
@@ -53,11 +53,11 @@ public abstract class SocialRecommender extends MatrixFactorizationRecommender {
 		trusterDimension = socialModel.getDiscreteDimension(trusterField);
 		trusteeDimension = socialModel.getDiscreteDimension(trusteeField);
 		coefficientDimension = socialModel.getContinuousDimension(coefficientField);
-		Table<Integer, Integer, Float> socialTabel = HashBasedTable.create();
+		MatrixBuilder builder = new MatrixBuilder(numberOfUsers, numberOfUsers, MathCombiner.LAST, socialModel.getSize());
 		for (DataInstance instance : socialModel) {
-			socialTabel.put(instance.getDiscreteFeature(trusterDimension), instance.getDiscreteFeature(trusteeDimension), instance.getContinuousFeature(coefficientDimension));
+			builder.append(instance.getDiscreteFeature(trusterDimension), instance.getDiscreteFeature(trusteeDimension), instance.getContinuousFeature(coefficientDimension));
 		}
-		socialMatrix = SparseMatrix.valueOf(numberOfUsers, numberOfUsers, socialTabel);
+		socialMatrix = builder.build();
 	}
 
 	/**
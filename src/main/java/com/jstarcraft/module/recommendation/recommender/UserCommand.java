@@ -0,0 +1,25 @@
+package com.jstarcraft.module.recommendation.recommender;
+
+/**
+ * 用户指令
+ *
+ * <pre>
+ * 处理指定用户的所有评分,返回该用户的损失.
+ * 并行训练时指令会被多个算法线程同时执行(每个用户只会被一个线程处理),缓存必须按照线程独立.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+@FunctionalInterface
+public interface UserCommand {
+
+	/**
+	 * 执行指令
+	 *
+	 * @param userIndex
+	 * @return 损失
+	 */
+	float practice(int userIndex);
+
+}
@@ -4,10 +4,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import com.jstarcraft.core.utility.KeyValue;
-import com.jstarcraft.core.utility.RandomUtility;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
@@ -20,6 +20,7 @@ import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.math.structure.vector.VectorMapper;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.recommender.MatrixFactorizationRecommender;
+import com.jstarcraft.module.recommendation.recommender.SampleCommand;
 
 /**
  * AoBPR: BPR with Adaptive Oversampling<br>
@@ -74,65 +75,28 @@ public class AoBPRRecommender extends MatrixFactorizationRecommender {
 		}
 
 		// randoms get a f by p(f|c)
-		Probability factorProbabilities = new Probability(numberOfFactors, VectorMapper.ZERO);
+		// 每个线程独立的因子概率
+		ThreadLocal<Probability> factorStorage = ThreadLocal.withInitial(() -> {
+			return new Probability(numberOfFactors, VectorMapper.ZERO);
+		});
+		SampleCommand command = (random, loss) -> {
+			return sample(random, loss, factorStorage.get(), userItemSet, userIndexes, itemIndexes);
+		};
 
 		int sampleCount = 0;
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
 			totalLoss = 0F;
-			for (int sampleIndex = 0, sampleTimes = numberOfUsers * 100; sampleIndex < sampleTimes; sampleIndex++) {
+			int sampleTimes = numberOfUsers * 100;
+			while (sampleTimes > 0) {
 				// update Ranking every |I|log|I|
-				if (sampleCount % loopNumber == 0) {
+				// 排名在两次更新之间保持不变,每批采样可以并行执行
+				if (sampleCount == 0) {
 					updateSortListByFactor(sortList);
-					sampleCount = 0;
-				}
-				sampleCount++;
-
-				// randomly draw (u, i, j)
-				int userIndex, positiveItemIndex, negativeItemIndex;
-				while (true) {
-					int random = RandomUtility.randomInteger(numberOfActions);
-					userIndex = userIndexes.get(random);
-					Set<Integer> itemSet = userItemSet.get(userIndex);
-					if (itemSet.size() == 0 || itemSet.size() == numberOfItems) {
-						continue;
-					}
-					positiveItemIndex = itemIndexes.get(random);
-					// 计算概率
-					DenseVector factorVector = userFactors.getRowVector(userIndex);
-					factorProbabilities.calculate((index, value, message) -> {
-						return Math.abs(factorVector.getValue(index)) * factorVariances[index];
-					});
-					do {
-						// randoms get a r by exp(-r/lamda)
-						int rankIndex = rankProbabilities.random();
-						int factorIndex = factorProbabilities.random();
-						// get the r-1 in f item
-						if (userFactors.getValue(userIndex, factorIndex) > 0) {
-							negativeItemIndex = factorRanks[factorIndex][rankIndex];
-						} else {
-							negativeItemIndex = factorRanks[factorIndex][numberOfItems - rankIndex - 1];
-						}
-					} while (itemSet.contains(negativeItemIndex));
-					break;
-				}
-
-				// update parameters
-				float positiveRate = predict(userIndex, positiveItemIndex);
-				float negativeRate = predict(userIndex, negativeItemIndex);
-				float error = positiveRate - negativeRate;
-				float value = (float) -Math.log(MathUtility.logistic(error));
-				totalLoss += value;
-				value = MathUtility.logistic(-error);
-
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float userFactor = userFactors.getValue(userIndex, factorIndex);
-					float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
-					float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
-					userFactors.shiftValue(userIndex, factorIndex, learnRate * (value * (positiveFactor - negativeFactor) - userRegularization * userFactor));
-					itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (value * userFactor - itemRegularization * positiveFactor));
-					itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (value * (-userFactor) - itemRegularization * negativeFactor));
-					totalLoss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negativeFactor * negativeFactor;
 				}
+				int sampleSize = Math.min(sampleTimes, loopNumber - sampleCount);
+				totalLoss = doSample(sampleSize, totalLoss, command);
+				sampleCount = (sampleCount + sampleSize) % loopNumber;
+				sampleTimes -= sampleSize;
 			}
 
 			if (isConverged(iterationStep) && isConverged) {
@@ -143,6 +107,56 @@ public class AoBPRRecommender extends MatrixFactorizationRecommender {
 		}
 	}
 
+	private float sample(Random random, float loss, Probability factorProbabilities, List<Set<Integer>> userItemSet, List<Integer> userIndexes, List<Integer> itemIndexes) {
+		// randomly draw (u, i, j)
+		int userIndex, positiveItemIndex, negativeItemIndex;
+		while (true) {
+			int position = random.nextInt(numberOfActions);
+			userIndex = userIndexes.get(position);
+			Set<Integer> itemSet = userItemSet.get(userIndex);
+			if (itemSet.size() == 0 || itemSet.size() == numberOfItems) {
+				continue;
+			}
+			positiveItemIndex = itemIndexes.get(position);
+			// 计算概率
+			DenseVector factorVector = userFactors.getRowVector(userIndex);
+			factorProbabilities.calculate((index, value, message) -> {
+				return Math.abs(factorVector.getValue(index)) * factorVariances[index];
+			});
+			do {
+				// randoms get a r by exp(-r/lamda)
+				int rankIndex = rankProbabilities.random(random);
+				int factorIndex = factorProbabilities.random(random);
+				// get the r-1 in f item
+				if (userFactors.getValue(userIndex, factorIndex) > 0) {
+					negativeItemIndex = factorRanks[factorIndex][rankIndex];
+				} else {
+					negativeItemIndex = factorRanks[factorIndex][numberOfItems - rankIndex - 1];
+				}
+			} while (itemSet.contains(negativeItemIndex));
+			break;
+		}
+
+		// update parameters
+		float positiveRate = predict(userIndex, positiveItemIndex);
+		float negativeRate = predict(userIndex, negativeItemIndex);
+		float error = positiveRate - negativeRate;
+		float value = (float) -Math.log(MathUtility.logistic(error));
+		loss += value;
+		value = MathUtility.logistic(-error);
+
+		for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+			float userFactor = userFactors.getValue(userIndex, factorIndex);
+			float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
+			float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
+			userFactors.shiftValue(userIndex, factorIndex, learnRate * (value * (positiveFactor - negativeFactor) - userRegularization * userFactor));
+			itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (value * userFactor - itemRegularization * positiveFactor));
+			itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (value * (-userFactor) - itemRegularization * negativeFactor));
+			loss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negativeFactor * negativeFactor;
+		}
+		return loss;
+	}
+
 	// TODO 考虑重构
 	private void updateSortListByFactor(List<KeyValue<Integer, Float>> sortList) {
 		// echo for each factors
@@ -179,4 +193,10 @@ public class AoBPRRecommender extends MatrixFactorizationRecommender {
 		}
 		return userItemSet;
 	}
+
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
@@ -1,68 +1,167 @@
 package com.jstarcraft.module.recommendation.recommender.collaborative.ranking;
 
+import java.util.Random;
+
+import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.core.utility.RandomUtility;
+import com.jstarcraft.module.data.DataSpace;
+import com.jstarcraft.module.data.accessor.InstanceAccessor;
+import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.math.algorithm.MathUtility;
+import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+import com.jstarcraft.module.math.structure.matrix.RowKernel;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.math.structure.vector.VectorScalar;
+import com.jstarcraft.module.recommendation.configure.Configuration;
+import com.jstarcraft.module.recommendation.recommender.IncrementalRecommender;
 import com.jstarcraft.module.recommendation.recommender.MatrixFactorizationRecommender;
 
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
 /**
  * Rendle et al., <strong>BPR: Bayesian Personalized Ranking from Implicit
  * Feedback</strong>, UAI 2009.
  *
  * @author GuoGuibing and Keqiang Wang
  */
-public class BPRRecommender extends MatrixFactorizationRecommender {
+public class BPRRecommender extends MatrixFactorizationRecommender implements IncrementalRecommender {
+
+	/** 增量更新时负样本的最大尝试次数 */
+	private static final int NEGATIVE_TIMES = 100;
+
+	/** 用户因子缓存(每个线程独立,保存更新之前的用户因子) */
+	private ThreadLocal<DenseMatrix> factorStorage;
+
+	@Override
+	public void prepare(Configuration configuration, SampleAccessor marker, InstanceAccessor model, DataSpace space) {
+		super.prepare(configuration, marker, model, space);
+		factorStorage = ThreadLocal.withInitial(() -> {
+			return DenseMatrix.valueOf(1, numberOfFactors);
+		});
+	}
 
 	@Override
 	protected void doPractice() {
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
-			totalLoss = 0F;
-			for (int sampleIndex = 0, sampleTimes = numberOfUsers * 100; sampleIndex < sampleTimes; sampleIndex++) {
-				// randomly draw (userIdx, posItemIdx, negItemIdx)
-				int userIndex, positiveItemIndex, negativeItemIndex;
-				while (true) {
-					userIndex = RandomUtility.randomInteger(numberOfUsers);
-					SparseVector userVector = trainMatrix.getRowVector(userIndex);
-					if (userVector.getElementSize() == 0) {
-						continue;
-					}
-					positiveItemIndex = userVector.randomKey();
-					negativeItemIndex = RandomUtility.randomInteger(numberOfItems - userVector.getElementSize());
-					for (VectorScalar term : userVector) {
-						if (negativeItemIndex >= term.getIndex()) {
-							negativeItemIndex++;
-						} else {
-							break;
-						}
-					}
+			totalLoss = doSample(numberOfUsers * 100, this::sample);
+			if (isConverged(iterationStep) && isConverged) {
+				break;
+			}
+			isLearned(iterationStep);
+			currentLoss = totalLoss;
+		}
+	}
+
+	private float sample(Random random, float loss) {
+		// randomly draw (userIdx, posItemIdx, negItemIdx)
+		int userIndex, positiveItemIndex, negativeItemIndex;
+		while (true) {
+			userIndex = random.nextInt(numberOfUsers);
+			SparseVector userVector = trainMatrix.getRowVector(userIndex);
+			if (userVector.getElementSize() == 0) {
+				continue;
+			}
+			positiveItemIndex = userVector.getIndex(random.nextInt(userVector.getElementSize()));
+			negativeItemIndex = random.nextInt(numberOfItems - userVector.getElementSize());
+			for (VectorScalar term : userVector) {
+				if (negativeItemIndex >= term.getIndex()) {
+					negativeItemIndex++;
+				} else {
 					break;
 				}
+			}
+			break;
+		}
+		return update(loss, userIndex, positiveItemIndex, negativeItemIndex);
+	}
 
-				// update parameters
-				float positiveRate = predict(userIndex, positiveItemIndex);
-				float negativeRate = predict(userIndex, negativeItemIndex);
-				float error = positiveRate - negativeRate;
-				float value = (float) -Math.log(MathUtility.logistic(error));
-				totalLoss += value;
-				value = MathUtility.logistic(-error);
+	/**
+	 * 按照(用户,正样本,负样本)更新参数
+	 * 
+	 * @param loss
+	 * @param userIndex
+	 * @param positiveItemIndex
+	 * @param negativeItemIndex
+	 * @return 累加以后的损失
+	 */
+	private float update(float loss, int userIndex, int positiveItemIndex, int negativeItemIndex) {
+		// update parameters
+		float positiveRate = predict(userIndex, positiveItemIndex);
+		float negativeRate = predict(userIndex, negativeItemIndex);
+		float error = positiveRate - negativeRate;
+		float value = (float) -Math.log(MathUtility.logistic(error));
+		loss += value;
+		value = MathUtility.logistic(-error);
 
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float userFactor = userFactors.getValue(userIndex, factorIndex);
-					float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
-					float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
-					userFactors.shiftValue(userIndex, factorIndex, learnRate * (value * (positiveFactor - negativeFactor) - userRegularization * userFactor));
-					itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (value * userFactor - itemRegularization * positiveFactor));
-					itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (value * (-userFactor) - itemRegularization * negativeFactor));
-					totalLoss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negativeFactor * negativeFactor;
+		for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+			float userFactor = userFactors.getValue(userIndex, factorIndex);
+			float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
+			float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
+			loss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negativeFactor * negativeFactor;
+		}
+		DenseMatrix factorMatrix = factorStorage.get();
+		RowKernel.copy(userFactors, userIndex, factorMatrix, 0);
+		RowKernel.update(userFactors, userIndex, value, itemFactors, positiveItemIndex, itemFactors, negativeItemIndex, userRegularization, learnRate);
+		RowKernel.update(itemFactors, positiveItemIndex, value, factorMatrix, 0, itemRegularization, learnRate);
+		RowKernel.update(itemFactors, negativeItemIndex, -value, factorMatrix, 0, itemRegularization, learnRate);
+		return loss;
+	}
+
+	/**
+	 * 增量更新
+	 * 
+	 * <pre>
+	 * 每次局部迭代对涉及的用户的每个正样本,以及涉及的物品的每个用户,各随机一个负样本执行一次成对更新.
+	 * </pre>
+	 */
+	@Override
+	public synchronized void update(int[] userIndexes, int[] itemIndexes, float[] scores) {
+		KeyValue<int[], int[]> touches = increment(userIndexes, itemIndexes, scores);
+		IntArrayList indexes = new IntArrayList();
+		FloatArrayList values = new FloatArrayList();
+		for (int iterationStep = 0; iterationStep < numberOfIncrements; iterationStep++) {
+			for (int userIndex : touches.getKey()) {
+				getUserScores(userIndex, indexes, values);
+				for (int position = 0, size = indexes.size(); position < size; position++) {
+					int negativeItemIndex = getNegativeItem(userIndex);
+					if (negativeItemIndex >= 0) {
+						update(0F, userIndex, indexes.getInt(position), negativeItemIndex);
+					}
 				}
 			}
-			if (isConverged(iterationStep) && isConverged) {
-				break;
+			for (int itemIndex : touches.getValue()) {
+				getItemScores(itemIndex, indexes, values);
+				for (int position = 0, size = indexes.size(); position < size; position++) {
+					int userIndex = indexes.getInt(position);
+					int negativeItemIndex = getNegativeItem(userIndex);
+					if (negativeItemIndex >= 0) {
+						update(0F, userIndex, itemIndex, negativeItemIndex);
+					}
+				}
 			}
-			isLearned(iterationStep);
-			currentLoss = totalLoss;
 		}
 	}
 
+	/**
+	 * 随机负样本
+	 * 
+	 * @param userIndex
+	 * @return 找不到时返回-1
+	 */
+	private int getNegativeItem(int userIndex) {
+		for (int times = 0; times < NEGATIVE_TIMES; times++) {
+			int itemIndex = RandomUtility.randomInteger(numberOfItems);
+			if (!hasScore(userIndex, itemIndex)) {
+				return itemIndex;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
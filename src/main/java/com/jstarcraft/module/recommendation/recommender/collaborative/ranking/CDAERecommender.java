@@ -23,6 +23,7 @@ import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Nesterovs;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
@@ -89,4 +90,30 @@ public class CDAERecommender extends NeuralNetworkRecommender {
 		return outputData.getFloat(userIndex, itemIndex);
 	}
 
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, int[] itemIndexes, float[] scores) {
+		if (itemDimension != this.itemDimension) {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, itemIndexes, scores);
+			return;
+		}
+		int userIndex = dicreteFeatures[userDimension];
+		INDArray userData = outputData.getRow(userIndex);
+		for (int position = 0, size = itemIndexes.length; position < size; position++) {
+			scores[position] = userData.getFloat(itemIndexes[position]);
+		}
+	}
+
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, float[] scores) {
+		if (itemDimension != this.itemDimension) {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, scores);
+			return;
+		}
+		int userIndex = dicreteFeatures[userDimension];
+		INDArray userData = outputData.getRow(userIndex);
+		for (int itemIndex = 0, size = scores.length; itemIndex < size; itemIndex++) {
+			scores[itemIndex] = userData.getFloat(itemIndex);
+		}
+	}
+
 }
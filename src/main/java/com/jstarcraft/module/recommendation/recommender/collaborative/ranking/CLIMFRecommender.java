@@ -142,4 +142,9 @@ public class CLIMFRecommender extends MatrixFactorizationRecommender {
 		return userItemSet;
 	}
 
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
@@ -235,4 +235,9 @@ public class EALSRecommender extends MatrixFactorizationRecommender {
 		}
 	}
 
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
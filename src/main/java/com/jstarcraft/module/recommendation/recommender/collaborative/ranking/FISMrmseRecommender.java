@@ -1,17 +1,17 @@
 package com.jstarcraft.module.recommendation.recommender.collaborative.ranking;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
-import com.google.common.collect.Table.Cell;
 import com.jstarcraft.core.utility.RandomUtility;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.MathCombiner;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+import com.jstarcraft.module.math.structure.matrix.MatrixBuilder;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
+import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.math.structure.vector.DenseVector;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.math.structure.vector.VectorMapper;
@@ -19,6 +19,8 @@ import com.jstarcraft.module.math.structure.vector.VectorScalar;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.recommender.MatrixFactorizationRecommender;
 
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+
 /**
  * Kabbur et al., <strong>FISM: Factored Item Similarity Models for Top-N
  * Recommender Systems</strong>, KDD 2013.
@@ -59,17 +61,19 @@ public class FISMrmseRecommender extends MatrixFactorizationRecommender {
 		DefaultScalar scalar = DefaultScalar.getInstance();
 		int sampleSize = (int) (rho * numNeighbors);
 		int totalSize = numberOfUsers * numberOfItems;
-		Table<Integer, Integer, Float> rateMatrix = HashBasedTable.create();
-		for (MatrixScalar cell : trainMatrix) {
-			rateMatrix.put(cell.getRow(), cell.getColumn(), cell.getValue());
-		}
-		int[] sampleIndexes = new int[sampleSize];
+		MatrixBuilder builder = new MatrixBuilder(numberOfUsers, numberOfItems, MathCombiner.FIRST, numNeighbors + sampleSize);
+		IntOpenHashSet sampleIndexes = new IntOpenHashSet(sampleSize);
 
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
 			DenseVector userVector = DenseVector.valueOf(numberOfFactors);
 			totalLoss = 0F;
 			// new training data by sampling negative values
 			// R是一个在trainMatrix基础上增加负样本的矩阵.
+			builder.clear();
+			for (MatrixScalar cell : trainMatrix) {
+				builder.append(cell.getRow(), cell.getColumn(), cell.getValue());
+			}
+			sampleIndexes.clear();
 
 			// make a random sample of negative feedback (total - nnz)
 			for (int sampleIndex = 0; sampleIndex < sampleSize; sampleIndex++) {
@@ -77,19 +81,20 @@ public class FISMrmseRecommender extends MatrixFactorizationRecommender {
 					int randomIndex = RandomUtility.randomInteger(totalSize - numNeighbors);
 					int rowIndex = randomIndex / numberOfItems;
 					int columnIndex = randomIndex % numberOfItems;
-					if (rateMatrix.contains(rowIndex, columnIndex)) {
+					if (sampleIndexes.contains(randomIndex) || hasScore(rowIndex, columnIndex)) {
 						continue;
 					}
-					sampleIndexes[sampleIndex] = randomIndex;
-					rateMatrix.put(rowIndex, columnIndex, 0F);
+					sampleIndexes.add(randomIndex);
+					builder.append(rowIndex, columnIndex, 0F);
 					break;
 				}
 			}
 
 			// update throughout each user-item-rating (u, i, rui) cell
-			for (Cell<Integer, Integer, Float> cell : rateMatrix.cellSet()) {
-				int userIndex = cell.getRowKey();
-				int itemIndex = cell.getColumnKey();
+			SparseMatrix rateMatrix = builder.build();
+			for (MatrixScalar cell : rateMatrix) {
+				int userIndex = cell.getRow();
+				int itemIndex = cell.getColumn();
 				float rate = cell.getValue();
 				SparseVector rateVector = trainMatrix.getRowVector(userIndex);
 				int size = rateVector.getElementSize() - 1;
@@ -132,12 +137,6 @@ public class FISMrmseRecommender extends MatrixFactorizationRecommender {
 				}
 			}
 
-			for (int sampleIndex : sampleIndexes) {
-				int rowIndex = sampleIndex / numberOfItems;
-				int columnIndex = sampleIndex % numberOfItems;
-				rateMatrix.remove(rowIndex, columnIndex);
-			}
-
 			totalLoss *= 0.5F;
 			if (isConverged(iterationStep) && isConverged) {
 				break;
@@ -1,9 +1,9 @@
 package com.jstarcraft.module.recommendation.recommender.collaborative.ranking;
 
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 
-import com.jstarcraft.core.utility.RandomUtility;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
@@ -51,80 +51,12 @@ public class GBPRRecommender extends MatrixFactorizationRecommender {
 	@Override
 	protected void doPractice() {
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
-			totalLoss = 0F;
 			// TODO 考虑重构
 			DenseMatrix userDeltas = DenseMatrix.valueOf(numberOfUsers, numberOfFactors);
 			DenseMatrix itemDeltas = DenseMatrix.valueOf(numberOfItems, numberOfFactors);
-
-			for (int sampleIndex = 0, sampleTimes = numberOfUsers * 100; sampleIndex < sampleTimes; sampleIndex++) {
-				int userIndex, positiveItemIndex, negativeItemIndex;
-				SparseVector userVector;
-				do {
-					userIndex = RandomUtility.randomInteger(numberOfUsers);
-					userVector = trainMatrix.getRowVector(userIndex);
-				} while (userVector.getElementSize() == 0);
-				positiveItemIndex = userVector.randomKey();
-
-				// users group Set
-				Set<Integer> memberSet = new HashSet<>();
-				SparseVector positiveItemVector = trainMatrix.getColumnVector(positiveItemIndex);
-				if (positiveItemVector.getElementSize() <= gLen) {
-					for (VectorScalar entry : positiveItemVector) {
-						memberSet.add(entry.getIndex());
-					}
-				} else {
-					memberSet.add(userIndex); // u in G
-					while (memberSet.size() < gLen) {
-						memberSet.add(positiveItemVector.randomKey());
-					}
-				}
-				float positiveRate = predict(userIndex, positiveItemIndex, memberSet);
-				negativeItemIndex = RandomUtility.randomInteger(numberOfItems - userVector.getElementSize());
-				for (VectorScalar term : userVector) {
-					if (negativeItemIndex >= term.getIndex()) {
-						negativeItemIndex++;
-					} else {
-						break;
-					}
-				}
-				float negativeRate = predict(userIndex, negativeItemIndex);
-				float error = positiveRate - negativeRate;
-				float value = (float) -Math.log(MathUtility.logistic(error));
-				totalLoss += value;
-				value = MathUtility.logistic(-error);
-
-				// update bi, bj
-				float positiveBias = itemBiases.getValue(positiveItemIndex);
-				itemBiases.shiftValue(positiveItemIndex, learnRate * (value - regBias * positiveBias));
-				float negativeBias = itemBiases.getValue(negativeItemIndex);
-				itemBiases.shiftValue(negativeItemIndex, learnRate * (-value - regBias * negativeBias));
-
-				// update Pw
-				float averageWeight = 1F / memberSet.size();
-				float memberSums[] = new float[numberOfFactors];
-				for (int memberIndex : memberSet) {
-					float delta = memberIndex == userIndex ? 1F : 0F;
-					for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-						float memberFactor = userFactors.getValue(memberIndex, factorIndex);
-						float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
-						float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
-						float deltaGroup = rho * averageWeight * positiveFactor + (1 - rho) * delta * positiveFactor - delta * negativeFactor;
-						userDeltas.shiftValue(memberIndex, factorIndex, learnRate * (value * deltaGroup - userRegularization * memberFactor));
-						memberSums[factorIndex] += memberFactor;
-					}
-				}
-
-				// update itemFactors
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float userFactor = userFactors.getValue(userIndex, factorIndex);
-					float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
-					float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
-					float positiveDelta = rho * averageWeight * memberSums[factorIndex] + (1 - rho) * userFactor;
-					itemDeltas.shiftValue(positiveItemIndex, factorIndex, learnRate * (value * positiveDelta - itemRegularization * positiveFactor));
-					float negativeDelta = -userFactor;
-					itemDeltas.shiftValue(negativeItemIndex, factorIndex, learnRate * (value * negativeDelta - itemRegularization * negativeFactor));
-				}
-			}
+			totalLoss = doSample(numberOfUsers * 100, (random, loss) -> {
+				return sample(random, loss, userDeltas, itemDeltas);
+			});
 			userFactors.addMatrix(userDeltas, false);
 			itemFactors.addMatrix(itemDeltas, false);
 
@@ -136,6 +68,77 @@ public class GBPRRecommender extends MatrixFactorizationRecommender {
 		}
 	}
 
+	private float sample(Random random, float loss, DenseMatrix userDeltas, DenseMatrix itemDeltas) {
+		int userIndex, positiveItemIndex, negativeItemIndex;
+		SparseVector userVector;
+		do {
+			userIndex = random.nextInt(numberOfUsers);
+			userVector = trainMatrix.getRowVector(userIndex);
+		} while (userVector.getElementSize() == 0);
+		positiveItemIndex = userVector.getIndex(random.nextInt(userVector.getElementSize()));
+
+		// users group Set
+		Set<Integer> memberSet = new HashSet<>();
+		SparseVector positiveItemVector = trainMatrix.getColumnVector(positiveItemIndex);
+		if (positiveItemVector.getElementSize() <= gLen) {
+			for (VectorScalar entry : positiveItemVector) {
+				memberSet.add(entry.getIndex());
+			}
+		} else {
+			memberSet.add(userIndex); // u in G
+			while (memberSet.size() < gLen) {
+				memberSet.add(positiveItemVector.getIndex(random.nextInt(positiveItemVector.getElementSize())));
+			}
+		}
+		float positiveRate = predict(userIndex, positiveItemIndex, memberSet);
+		negativeItemIndex = random.nextInt(numberOfItems - userVector.getElementSize());
+		for (VectorScalar term : userVector) {
+			if (negativeItemIndex >= term.getIndex()) {
+				negativeItemIndex++;
+			} else {
+				break;
+			}
+		}
+		float negativeRate = predict(userIndex, negativeItemIndex);
+		float error = positiveRate - negativeRate;
+		float value = (float) -Math.log(MathUtility.logistic(error));
+		loss += value;
+		value = MathUtility.logistic(-error);
+
+		// update bi, bj
+		float positiveBias = itemBiases.getValue(positiveItemIndex);
+		itemBiases.shiftValue(positiveItemIndex, learnRate * (value - regBias * positiveBias));
+		float negativeBias = itemBiases.getValue(negativeItemIndex);
+		itemBiases.shiftValue(negativeItemIndex, learnRate * (-value - regBias * negativeBias));
+
+		// update Pw
+		float averageWeight = 1F / memberSet.size();
+		float memberSums[] = new float[numberOfFactors];
+		for (int memberIndex : memberSet) {
+			float delta = memberIndex == userIndex ? 1F : 0F;
+			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				float memberFactor = userFactors.getValue(memberIndex, factorIndex);
+				float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
+				float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
+				float deltaGroup = rho * averageWeight * positiveFactor + (1 - rho) * delta * positiveFactor - delta * negativeFactor;
+				userDeltas.shiftValue(memberIndex, factorIndex, learnRate * (value * deltaGroup - userRegularization * memberFactor));
+				memberSums[factorIndex] += memberFactor;
+			}
+		}
+
+		// update itemFactors
+		for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+			float userFactor = userFactors.getValue(userIndex, factorIndex);
+			float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
+			float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
+			float positiveDelta = rho * averageWeight * memberSums[factorIndex] + (1 - rho) * userFactor;
+			itemDeltas.shiftValue(positiveItemIndex, factorIndex, learnRate * (value * positiveDelta - itemRegularization * positiveFactor));
+			float negativeDelta = -userFactor;
+			itemDeltas.shiftValue(negativeItemIndex, factorIndex, learnRate * (value * negativeDelta - itemRegularization * negativeFactor));
+		}
+		return loss;
+	}
+
 	private float predict(int userIndex, int itemIndex, Set<Integer> memberIndexes) {
 		DefaultScalar scalar = DefaultScalar.getInstance();
 		DenseVector userVector = userFactors.getRowVector(userIndex);
@@ -1,12 +1,8 @@
 package com.jstarcraft.module.recommendation.recommender.collaborative.ranking;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Map.Entry;
+import java.util.Arrays;
 import java.util.concurrent.CountDownLatch;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import com.google.common.util.concurrent.AtomicDouble;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
@@ -14,7 +10,9 @@ import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.math.algorithm.MathUtility;
 import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.MathCombiner;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+import com.jstarcraft.module.math.structure.matrix.MatrixBuilder;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
@@ -368,36 +366,33 @@ public class HiddenMarkovModelRecommender extends ProbabilisticGraphicalRecommen
 		contextSize = 0;
 
 		Object[] levels = marker.getDiscreteAttribute(contextDimension).getDatas();
-		Table<Integer, Integer, Float> table = HashBasedTable.create();
-		Table<Integer, Integer, Float> data = HashBasedTable.create();
-
 		for (int userIndex = 0; userIndex < numberOfUsers; userIndex++) {
-			for (int from = dataPaginations[userIndex], to = dataPaginations[userIndex + 1]; from < to; from++) {
-				int rowKey = (Integer) levels[marker.getDiscreteFeature(contextDimension, from)];
-				int columnKey = marker.getDiscreteFeature(itemDimension, from);
-				Float count = table.get(rowKey, columnKey);
-				table.put(rowKey, columnKey, count == null ? 1 : ++count);
+			int from = dataPaginations[userIndex], to = dataPaginations[userIndex + 1];
+			// 上下文按照取值排序之后作为行
+			int[] keys = new int[to - from];
+			for (int position = from; position < to; position++) {
+				keys[position - from] = (Integer) levels[marker.getDiscreteFeature(contextDimension, position)];
 			}
-
-			ArrayList<Integer> keys = new ArrayList<>(table.rowKeySet());
-			Collections.sort(keys);
-			int index = 0;
-			for (Integer key : keys) {
-				for (Entry<Integer, Float> term : table.row(key).entrySet()) {
-					data.put(index, term.getKey(), term.getValue());
+			int[] rows = keys.clone();
+			Arrays.sort(keys);
+			int size = 0;
+			for (int position = 0; position < keys.length; position++) {
+				if (size == 0 || keys[size - 1] != keys[position]) {
+					keys[size++] = keys[position];
 				}
-				index++;
 			}
-			table.clear();
+			MatrixBuilder builder = new MatrixBuilder(size, numberOfItems, MathCombiner.SUM, rows.length);
+			for (int position = from; position < to; position++) {
+				builder.append(Arrays.binarySearch(keys, 0, size, rows[position - from]), marker.getDiscreteFeature(itemDimension, position), 1F);
+			}
 
 			// 使用稀疏矩阵
-			SparseMatrix matrix = SparseMatrix.valueOf(keys.size(), numberOfItems, data);
+			SparseMatrix matrix = builder.build();
 			if (contextSize < matrix.getRowSize()) {
 				contextSize = matrix.getRowSize();
 			}
 			dataMatrixes[userIndex] = matrix;
 
-			data.clear();
 			System.out.println(userIndex + " " + matrix.getRowSize() + " " + matrix.getColumnSize());
 		}
 
@@ -18,29 +18,30 @@ public class ItemKNNRankingRecommender extends ItemKNNRecommender {
 		int userIndex = dicreteFeatures[userDimension];
 		int itemIndex = dicreteFeatures[itemDimension];
 		SparseVector userVector = userVectors[userIndex];
-		int[] neighbors = itemNeighbors[itemIndex];
-		if (userVector.getElementSize() == 0 || neighbors == null) {
+		int neighborSize = neighborMatrix.getNeighborSize(itemIndex);
+		if (userVector.getElementSize() == 0 || neighborSize == 0) {
 			return 0F;
 		}
 
 		float sum = 0F, absolute = 0F;
 		int count = 0;
-		int leftIndex = 0, rightIndex = 0, leftSize = userVector.getElementSize(), rightSize = neighbors.length;
+		int leftIndex = 0, rightIndex = 0, leftSize = userVector.getElementSize(), rightSize = neighborSize;
 		Iterator<VectorScalar> iterator = userVector.iterator();
 		VectorScalar term = iterator.next();
 		// 判断两个有序数组中是否存在相同的数字
 		while (leftIndex < leftSize && rightIndex < rightSize) {
-			if (term.getIndex() == neighbors[rightIndex]) {
+			int neighborIndex = neighborMatrix.getNeighborIndex(itemIndex, rightIndex);
+			if (term.getIndex() == neighborIndex) {
 				count++;
-				sum += similarityMatrix.getValue(itemIndex, neighbors[rightIndex]);
+				sum += neighborMatrix.getNeighborValue(itemIndex, rightIndex);
 				if (iterator.hasNext()) {
 					term = iterator.next();
 				}
 				leftIndex++;
 				rightIndex++;
-			} else if (term.getIndex() > neighbors[rightIndex]) {
+			} else if (term.getIndex() > neighborIndex) {
 				rightIndex++;
-			} else if (term.getIndex() < neighbors[rightIndex]) {
+			} else if (term.getIndex() < neighborIndex) {
 				if (iterator.hasNext()) {
 					term = iterator.next();
 				}
@@ -9,8 +9,6 @@ import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.math.algorithm.MathUtility;
 import com.jstarcraft.module.math.algorithm.Probability;
-import com.jstarcraft.module.math.structure.DefaultScalar;
-import com.jstarcraft.module.math.structure.vector.ArrayVector;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 
@@ -49,7 +47,7 @@ public class LambdaFMDynamicRecommender extends LambdaFMRecommender {
 	}
 
 	@Override
-	protected float getGradientValue(DefaultScalar scalar, int[] dataPaginations, int[] dataPositions) {
+	protected float getGradientValue(int[] dataPaginations, int[] dataPositions) {
 		int userIndex;
 		while (true) {
 			userIndex = RandomUtility.randomInteger(numberOfUsers);
@@ -80,8 +78,7 @@ public class LambdaFMDynamicRecommender extends LambdaFMRecommender {
 					negativeKeys[index] = trainTensor.getIndex(index, negativePosition);
 				}
 				negativeKeys[itemDimension] = negativeItemIndex;
-				ArrayVector vector = getFeatureVector(negativeKeys);
-				negativeValues[orderIndex] = predict(scalar, vector);
+				negativeValues[orderIndex] = predictFeatures(getFeatureIndexes(negativeKeys, negativeFeatures), negativeSums);
 			}
 
 			int orderIndex = orderProbabilities.random();
@@ -95,11 +92,8 @@ public class LambdaFMDynamicRecommender extends LambdaFMRecommender {
 			break;
 		}
 
-		positiveVector = getFeatureVector(positiveKeys);
-		negativeVector = getFeatureVector(negativeKeys);
-
-		float positiveScore = predict(scalar, positiveVector);
-		float negativeScore = predict(scalar, negativeVector);
+		float positiveScore = predictFeatures(getFeatureIndexes(positiveKeys, positiveFeatures), positiveSums);
+		float negativeScore = predictFeatures(getFeatureIndexes(negativeKeys, negativeFeatures), negativeSums);
 
 		float error = positiveScore - negativeScore;
 
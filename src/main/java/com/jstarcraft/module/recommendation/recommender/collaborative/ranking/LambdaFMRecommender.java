@@ -1,18 +1,12 @@
 package com.jstarcraft.module.recommendation.recommender.collaborative.ranking;
 
-import java.util.Iterator;
-
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.data.processor.DataMatcher;
 import com.jstarcraft.module.data.processor.DataSorter;
-import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.tensor.SparseTensor;
-import com.jstarcraft.module.math.structure.vector.ArrayVector;
-import com.jstarcraft.module.math.structure.vector.DenseVector;
-import com.jstarcraft.module.math.structure.vector.VectorScalar;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.recommender.FactorizationMachineRecommender;
 
@@ -39,7 +33,12 @@ public abstract class LambdaFMRecommender extends FactorizationMachineRecommende
 	protected int lossType;
 
 	protected int[] positiveKeys, negativeKeys;
-	protected ArrayVector positiveVector, negativeVector;
+
+	/** 正负样本的特征索引 */
+	protected int[] positiveFeatures, negativeFeatures;
+
+	/** 正负样本的因子和(由{@link #predictFeatures(int[], float[])}填充) */
+	protected float[] positiveSums, negativeSums;
 
 	@Override
 	public void prepare(Configuration configuration, SampleAccessor marker, InstanceAccessor model, DataSpace space) {
@@ -62,13 +61,28 @@ public abstract class LambdaFMRecommender extends FactorizationMachineRecommende
 
 		positiveKeys = new int[trainTensor.getOrderSize()];
 		negativeKeys = new int[trainTensor.getOrderSize()];
+		positiveFeatures = new int[trainTensor.getOrderSize()];
+		negativeFeatures = new int[trainTensor.getOrderSize()];
+		positiveSums = new float[numberOfFactors];
+		negativeSums = new float[numberOfFactors];
 	}
 
-	protected abstract float getGradientValue(DefaultScalar scalar, int[] dataPaginations, int[] dataPositions);
+	/**
+	 * 采样正负样本并计算梯度
+	 * 
+	 * <pre>
+	 * 实现需要把正负样本的特征索引保存到positiveFeatures/negativeFeatures,
+	 * 并且最后一次预测正负样本时使用positiveSums/negativeSums作为因子和.
+	 * </pre>
+	 * 
+	 * @param dataPaginations
+	 * @param dataPositions
+	 * @return
+	 */
+	protected abstract float getGradientValue(int[] dataPaginations, int[] dataPositions);
 
 	@Override
 	protected void doPractice() {
-		DefaultScalar scalar = DefaultScalar.getInstance();
 		int[] dataPaginations = new int[numberOfUsers + 1];
 		int[] dataPositions = new int[trainTensor.getElementSize()];
 		int size = trainTensor.getElementSize();
@@ -92,57 +106,44 @@ public abstract class LambdaFMRecommender extends FactorizationMachineRecommende
 		};
 		dataMatcher.match(dataPaginations, dataPositions);
 
-		DenseVector positiveSum = DenseVector.valueOf(numberOfFactors);
-		DenseVector negativeSum = DenseVector.valueOf(numberOfFactors);
-
 		for (int iterationStep = 0; iterationStep < numberOfEpoches; iterationStep++) {
-			long totalTime = 0;
 			totalLoss = 0F;
 			for (int sampleIndex = 0, sampleTimes = numberOfUsers * 50; sampleIndex < sampleTimes; sampleIndex++) {
-				long current = System.currentTimeMillis();
-				float gradient = getGradientValue(scalar, dataPaginations, dataPositions);
-				totalTime += (System.currentTimeMillis() - current);
-
-				sum(positiveVector, positiveSum);
-				sum(negativeVector, negativeSum);
-				int leftIndex = 0, rightIndex = 0;
-				Iterator<VectorScalar> leftIterator = positiveVector.iterator();
-				Iterator<VectorScalar> rightIterator = negativeVector.iterator();
+				// 预测时已经缓存了正负样本的因子和(特征值都为1)
+				float gradient = getGradientValue(dataPaginations, dataPositions);
 				for (int index = 0; index < trainTensor.getOrderSize(); index++) {
-					VectorScalar leftTerm = leftIterator.next();
-					VectorScalar rightTerm = rightIterator.next();
-					leftIndex = leftTerm.getIndex();
-					rightIndex = rightTerm.getIndex();
+					int leftIndex = positiveFeatures[index];
+					int rightIndex = negativeFeatures[index];
 					if (leftIndex == rightIndex) {
 						weightVector.shiftValue(leftIndex, learnRate * (gradient * 0F - weightRegularization * weightVector.getValue(leftIndex)));
 						totalLoss += weightRegularization * weightVector.getValue(leftIndex) * weightVector.getValue(leftIndex);
 
 						for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-							float positiveFactor = positiveSum.getValue(factorIndex) * leftTerm.getValue() - featureFactors.getValue(leftIndex, factorIndex) * leftTerm.getValue() * leftTerm.getValue();
-							float negativeFactor = negativeSum.getValue(factorIndex) * rightTerm.getValue() - featureFactors.getValue(rightIndex, factorIndex) * rightTerm.getValue() * rightTerm.getValue();
+							float factor = featureFactors.getValue(leftIndex, factorIndex);
+							float positiveFactor = positiveSums[factorIndex] - factor;
+							float negativeFactor = negativeSums[factorIndex] - factor;
 
-							featureFactors.shiftValue(leftIndex, factorIndex, learnRate * (gradient * (positiveFactor - negativeFactor) - factorRegularization * featureFactors.getValue(leftIndex, factorIndex)));
+							featureFactors.shiftValue(leftIndex, factorIndex, learnRate * (gradient * (positiveFactor - negativeFactor) - factorRegularization * factor));
 							totalLoss += factorRegularization * featureFactors.getValue(leftIndex, factorIndex) * featureFactors.getValue(leftIndex, factorIndex);
 						}
 					} else {
-						weightVector.shiftValue(leftIndex, learnRate * (gradient * leftTerm.getValue() - weightRegularization * weightVector.getValue(leftIndex)));
+						weightVector.shiftValue(leftIndex, learnRate * (gradient - weightRegularization * weightVector.getValue(leftIndex)));
 						totalLoss += weightRegularization * weightVector.getValue(leftIndex) * weightVector.getValue(leftIndex);
-						weightVector.shiftValue(rightIndex, learnRate * (gradient * -rightTerm.getValue() - weightRegularization * weightVector.getValue(rightIndex)));
+						weightVector.shiftValue(rightIndex, learnRate * (-gradient - weightRegularization * weightVector.getValue(rightIndex)));
 						totalLoss += weightRegularization * weightVector.getValue(rightIndex) * weightVector.getValue(rightIndex);
 
 						for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-							float positiveFactor = positiveSum.getValue(factorIndex) * leftTerm.getValue() - featureFactors.getValue(leftIndex, factorIndex) * leftTerm.getValue() * leftTerm.getValue();
+							float positiveFactor = positiveSums[factorIndex] - featureFactors.getValue(leftIndex, factorIndex);
 							featureFactors.shiftValue(leftIndex, factorIndex, learnRate * (gradient * positiveFactor - factorRegularization * featureFactors.getValue(leftIndex, factorIndex)));
 							totalLoss += factorRegularization * featureFactors.getValue(leftIndex, factorIndex) * featureFactors.getValue(leftIndex, factorIndex);
 
-							float negativeFactor = negativeSum.getValue(factorIndex) * rightTerm.getValue() - featureFactors.getValue(rightIndex, factorIndex) * rightTerm.getValue() * rightTerm.getValue();
+							float negativeFactor = negativeSums[factorIndex] - featureFactors.getValue(rightIndex, factorIndex);
 							featureFactors.shiftValue(rightIndex, factorIndex, learnRate * (gradient * -negativeFactor - factorRegularization * featureFactors.getValue(rightIndex, factorIndex)));
 							totalLoss += factorRegularization * featureFactors.getValue(rightIndex, factorIndex) * featureFactors.getValue(rightIndex, factorIndex);
 						}
 					}
 				}
 			}
-			System.out.println(totalTime);
 
 			totalLoss *= 0.5;
 			if (isConverged(iterationStep) && isConverged) {
@@ -168,15 +169,9 @@ public abstract class LambdaFMRecommender extends FactorizationMachineRecommende
 		}
 	}
 
-	private void sum(ArrayVector vector, DenseVector sum) {
-		// TODO 考虑调整为向量操作.
-		for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-			float value = 0F;
-			for (VectorScalar term : vector) {
-				value += featureFactors.getValue(term.getIndex(), factorIndex) * term.getValue();
-			}
-			sum.setValue(factorIndex, value);
-		}
+	@Override
+	protected boolean isBatchable() {
+		return true;
 	}
 
 }
@@ -5,7 +5,6 @@ import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.math.algorithm.MathUtility;
-import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 
@@ -39,7 +38,7 @@ public class LambdaFMWeightRecommender extends LambdaFMRecommender {
 	}
 
 	@Override
-	protected float getGradientValue(DefaultScalar scalar, int[] dataPaginations, int[] dataPositions) {
+	protected float getGradientValue(int[] dataPaginations, int[] dataPositions) {
 		int userIndex;
 		float positiveScore;
 		float negativeScore;
@@ -57,8 +56,7 @@ public class LambdaFMWeightRecommender extends LambdaFMRecommender {
 			for (int index = 0; index < negativeKeys.length; index++) {
 				positiveKeys[index] = trainTensor.getIndex(index, positivePosition);
 			}
-			positiveVector = getFeatureVector(positiveKeys);
-			positiveScore = predict(scalar, positiveVector);
+			positiveScore = predictFeatures(getFeatureIndexes(positiveKeys, positiveFeatures), positiveSums);
 			do {
 				N++;
 				int negativeItemIndex = RandomUtility.randomInteger(numberOfItems - userVector.getElementSize());
@@ -76,8 +74,7 @@ public class LambdaFMWeightRecommender extends LambdaFMRecommender {
 					negativeKeys[index] = trainTensor.getIndex(index, negativePosition);
 				}
 				negativeKeys[itemDimension] = negativeItemIndex;
-				negativeVector = getFeatureVector(negativeKeys);
-				negativeScore = predict(scalar, negativeVector);
+				negativeScore = predictFeatures(getFeatureIndexes(negativeKeys, negativeFeatures), negativeSums);
 			} while ((positiveScore - negativeScore > epsilon) && N < Y - 1);
 			break;
 		}
@@ -141,4 +141,9 @@ public class ListRankMFRecommender extends MatrixFactorizationRecommender {
 		return loss;
 	}
 
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
@@ -72,4 +72,9 @@ public class ListwiseMFRecommender extends MatrixFactorizationRecommender {
 		}
 	}
 
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
\ No newline at end of file
@@ -210,4 +210,9 @@ public class RankALSRecommender extends MatrixFactorizationRecommender {
 		}
 	}
 
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
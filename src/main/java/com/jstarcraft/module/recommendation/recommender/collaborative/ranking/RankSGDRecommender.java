@@ -96,4 +96,9 @@ public class RankSGDRecommender extends MatrixFactorizationRecommender {
 		return userItemSet;
 	}
 
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
@@ -1,27 +1,19 @@
 package com.jstarcraft.module.recommendation.recommender.collaborative.ranking;
 
-import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Arrays;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map.Entry;
-import java.util.TreeSet;
 
+import com.jstarcraft.core.utility.RandomUtility;
 import com.jstarcraft.core.utility.ReflectionUtility;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
-import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
-import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
-import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
-import com.jstarcraft.module.math.structure.matrix.SymmetryMatrix;
+import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.vector.ArrayVector;
-import com.jstarcraft.module.math.structure.vector.VectorScalar;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.exception.RecommendationException;
 import com.jstarcraft.module.recommendation.recommender.ModelRecommender;
 import com.jstarcraft.module.recommendation.utility.DriverUtility;
+import com.jstarcraft.module.similarity.NeighborMatrix;
 import com.jstarcraft.module.similarity.Similarity;
 
 /**
@@ -43,15 +35,21 @@ import com.jstarcraft.module.similarity.Similarity;
 public class SLIMRecommender extends ModelRecommender {
 
 	/**
-	 * W in original paper, a sparse matrix of aggregation coefficients
+	 * item's nearest neighbors for kNN > 0 (sorted by item index)
 	 */
-	// TODO 考虑修改为对称矩阵?
-	private DenseMatrix coefficientMatrix;
+	private int[][] itemNeighbors;
 
 	/**
-	 * item's nearest neighbors for kNN > 0
+	 * W in original paper, a sparse matrix of aggregation coefficients
+	 *
+	 * <pre>
+	 * 按照列(物品)保存,与itemNeighbors一一对应,只保存TopK邻居的系数.
+	 * </pre>
 	 */
-	private int[][] itemNeighbors;
+	private float[][] itemCoefficients;
+
+	/** 每个系数在当前迭代的损失(与itemCoefficients一一对应,按照原来的顺序累加总损失) */
+	private float[][] itemLosses;
 
 	/**
 	 * regularization parameters for the L1 or L2 term
@@ -63,24 +61,15 @@ public class SLIMRecommender extends ModelRecommender {
 	 */
 	private int neighborSize;
 
-	/**
-	 * item similarity matrix
-	 */
-	private SymmetryMatrix similarityMatrix;
+	/** 是否通过残差训练(默认每个(用户,邻居)重新计算预测值) */
+	private boolean residual;
 
 	private ArrayVector[] userVectors;
 
 	private ArrayVector[] itemVectors;
 
-	private Comparator<Entry<Integer, Double>> comparator = new Comparator<Entry<Integer, Double>>() {
-		public int compare(Entry<Integer, Double> left, Entry<Integer, Double> right) {
-			int value = -(left.getValue().compareTo(right.getValue()));
-			if (value == 0) {
-				value = left.getKey().compareTo(right.getKey());
-			}
-			return value;
-		}
-	};
+	/** 每个线程的评分或者残差缓存(长度为用户数量) */
+	private ThreadLocal<float[]> residualStorage;
 
 	/**
 	 * initialization
@@ -94,57 +83,66 @@ public class SLIMRecommender extends ModelRecommender {
 		neighborSize = configuration.getInteger("rec.neighbors.knn.number", 50);
 		regL1Norm = configuration.getFloat("rec.slim.regularization.l1", 1.0F);
 		regL2Norm = configuration.getFloat("rec.slim.regularization.l2", 1.0F);
+		residual = configuration.getBoolean("rec.slim.residual", false);
+		residualStorage = ThreadLocal.withInitial(() -> new float[numberOfUsers]);
 
-		// TODO 考虑重构
-		coefficientMatrix = DenseMatrix.valueOf(numberOfItems, numberOfItems, MatrixMapper.RANDOM);
-		for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
-			coefficientMatrix.setValue(itemIndex, itemIndex, 0F);
-		}
-
-		// initial guesses: make smaller guesses (e.g., W.init(0.01)) to speed
-		// up training
 		// TODO 修改为配置枚举
 		Similarity similarity = ReflectionUtility.getInstance((Class<Similarity>) DriverUtility.getClass(configuration.getString("rec.similarity.class")));
-		similarityMatrix = similarity.makeSimilarityMatrix(trainMatrix, true, configuration.getFloat("rec.similarity.shrinkage", 0F));
+		// 只保留每个物品的TopK邻居(不包括相似度为0的物品),不需要构建完整的相似度矩阵
+		NeighborMatrix neighborMatrix = similarity.makeNeighborMatrix(trainMatrix, true, configuration.getFloat("rec.similarity.shrinkage", 0F), neighborSize, MathCalculator.PARALLEL);
 
-		// TODO 设置容量
+		// 构建物品邻居(邻居按照物品索引升序)
 		itemNeighbors = new int[numberOfItems][];
-		HashMap<Integer, TreeSet<Entry<Integer, Double>>> itemNNs = new HashMap<>();
-		for (MatrixScalar term : similarityMatrix) {
-			int row = term.getRow();
-			int column = term.getColumn();
-			double value = term.getValue();
-			// 忽略相似度为0的物品
-			if (value == 0D) {
+		itemCoefficients = new float[numberOfItems][];
+		itemLosses = new float[numberOfItems][];
+		for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+			int[] neighbors = getNeighbors(neighborMatrix, itemIndex, trainMatrix.getColumnScope(itemIndex) == 0 ? 0F : similarity.getIdentical());
+			if (neighbors.length == 0) {
 				continue;
 			}
-			TreeSet<Entry<Integer, Double>> neighbors = itemNNs.get(row);
-			if (neighbors == null) {
-				neighbors = new TreeSet<>(comparator);
-				itemNNs.put(row, neighbors);
+			itemNeighbors[itemIndex] = neighbors;
+			itemCoefficients[itemIndex] = new float[neighbors.length];
+			itemLosses[itemIndex] = new float[neighbors.length];
+		}
+
+		// initial guesses: make smaller guesses (e.g., W.init(0.01)) to speed
+		// up training
+		// 按照行(邻居)的顺序为整个系数矩阵抽取随机数,只保存TopK邻居的系数,对角线为0.
+		int[] paginations = new int[numberOfItems + 1];
+		for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+			if (itemNeighbors[itemIndex] != null) {
+				for (int neighborIndex : itemNeighbors[itemIndex]) {
+					paginations[neighborIndex + 1]++;
+				}
 			}
-			neighbors.add(new SimpleImmutableEntry<>(column, value));
-			neighbors = itemNNs.get(column);
+		}
+		for (int neighborIndex = 0; neighborIndex < numberOfItems; neighborIndex++) {
+			paginations[neighborIndex + 1] += paginations[neighborIndex];
+		}
+		int[] columns = new int[paginations[numberOfItems]];
+		int[] positions = new int[paginations[numberOfItems]];
+		int[] cursors = new int[numberOfItems];
+		System.arraycopy(paginations, 0, cursors, 0, numberOfItems);
+		for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+			int[] neighbors = itemNeighbors[itemIndex];
 			if (neighbors == null) {
-				neighbors = new TreeSet<>(comparator);
-				itemNNs.put(column, neighbors);
+				continue;
+			}
+			for (int position = 0; position < neighbors.length; position++) {
+				int cursor = cursors[neighbors[position]]++;
+				columns[cursor] = itemIndex;
+				positions[cursor] = position;
 			}
-			neighbors.add(new SimpleImmutableEntry<>(row, value));
 		}
-
-		// 构建物品邻居映射
-		for (Entry<Integer, TreeSet<Entry<Integer, Double>>> term : itemNNs.entrySet()) {
-			TreeSet<Entry<Integer, Double>> neighbors = term.getValue();
-			int[] value = new int[neighbors.size() < neighborSize ? neighbors.size() : neighborSize];
-			int index = 0;
-			for (Entry<Integer, Double> neighbor : neighbors) {
-				value[index++] = neighbor.getKey();
-				if (index >= neighborSize) {
-					break;
+		for (int neighborIndex = 0; neighborIndex < numberOfItems; neighborIndex++) {
+			int cursor = paginations[neighborIndex], size = paginations[neighborIndex + 1];
+			for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+				float coefficient = RandomUtility.randomFloat(1F);
+				if (cursor < size && columns[cursor] == itemIndex) {
+					itemCoefficients[itemIndex][positions[cursor]] = neighborIndex == itemIndex ? 0F : coefficient;
+					cursor++;
 				}
 			}
-			Arrays.sort(value);
-			itemNeighbors[term.getKey()] = value;
 		}
 
 		userVectors = new ArrayVector[numberOfUsers];
@@ -163,116 +161,276 @@ public class SLIMRecommender extends ModelRecommender {
 	}
 
 	/**
-	 * train model
+	 * 获取物品的TopK邻居
 	 *
-	 * @throws RecommendationException
-	 *             if error occurs
+	 * <pre>
+	 * 与完整的相似度矩阵一致,物品自身以identical作为相似度参与TopK(identical为0时排除).
+	 * 相似度相同时索引小的优先.
+	 * </pre>
+	 *
+	 * @param neighborMatrix
+	 * @param itemIndex
+	 * @param identical
+	 * @return 按照物品索引升序的邻居
 	 */
-	@Override
-	protected void doPractice() {
-		float[] rates = new float[numberOfUsers];
-		// number of iteration cycles
-		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
-			totalLoss = 0F;
-			// each cycle iterates through one coordinate direction
-			for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
-				int[] neighborIndexes = itemNeighbors[itemIndex];
-				if (neighborIndexes == null) {
-					continue;
-				}
-				ArrayVector itemVector = itemVectors[itemIndex];
-				for (VectorScalar term : itemVector) {
-					rates[term.getIndex()] = term.getValue();
-				}
-				// for each nearest neighbor nearestNeighborItemIdx, update
-				// coefficienMatrix by the coordinate
-				// descent update rule
-				for (int neighborIndex : neighborIndexes) {
-					itemVector = itemVectors[neighborIndex];
-					float valueSum = 0F, rateSum = 0F, errorSum = 0F;
-					int count = itemVector.getElementSize();
-					for (VectorScalar term : itemVector) {
-						int userIndex = term.getIndex();
-						float neighborRate = term.getValue();
-						float userRate = rates[userIndex];
-						float error = userRate - predict(userIndex, itemIndex, neighborIndexes, neighborIndex);
-						valueSum += neighborRate * error;
-						rateSum += neighborRate * neighborRate;
-						errorSum += error * error;
-					}
-					valueSum /= count;
-					rateSum /= count;
-					errorSum /= count;
-					// TODO 此处考虑重构
-					float coefficient = coefficientMatrix.getValue(neighborIndex, itemIndex);
-					totalLoss += errorSum + 0.5F * regL2Norm * coefficient * coefficient + regL1Norm * coefficient;
-					if (regL1Norm < Math.abs(valueSum)) {
-						if (valueSum > 0) {
-							coefficient = (valueSum - regL1Norm) / (regL2Norm + rateSum);
-						} else {
-							// One doubt: in this case, wij<0, however, the
-							// paper says wij>=0. How to gaurantee that?
-							coefficient = (valueSum + regL1Norm) / (regL2Norm + rateSum);
-						}
-					} else {
-						coefficient = 0F;
-					}
-					coefficientMatrix.setValue(neighborIndex, itemIndex, coefficient);
-				}
-				itemVector = itemVectors[itemIndex];
-				for (VectorScalar term : itemVector) {
-					rates[term.getIndex()] = 0F;
+	private int[] getNeighbors(NeighborMatrix neighborMatrix, int itemIndex, float identical) {
+		int size = neighborMatrix.getNeighborSize(itemIndex);
+		int[] neighbors = new int[size];
+		// 最差的邻居
+		int worst = -1;
+		for (int position = 0; position < size; position++) {
+			neighbors[position] = neighborMatrix.getNeighborIndex(itemIndex, position);
+			if (worst == -1) {
+				worst = position;
+			} else {
+				float value = neighborMatrix.getNeighborValue(itemIndex, position), worstValue = neighborMatrix.getNeighborValue(itemIndex, worst);
+				if (value < worstValue || (value == worstValue && neighbors[position] > neighbors[worst])) {
+					worst = position;
 				}
 			}
+		}
+		if (identical == 0F || neighborSize == 0) {
+			return neighbors;
+		}
+		if (size == neighborSize) {
+			float worstValue = neighborMatrix.getNeighborValue(itemIndex, worst);
+			if (identical < worstValue || (identical == worstValue && itemIndex > neighbors[worst])) {
+				return neighbors;
+			}
+			// 物品自身替换最差的邻居
+			neighbors[worst] = itemIndex;
+		} else {
+			neighbors = Arrays.copyOf(neighbors, size + 1);
+			neighbors[size] = itemIndex;
+		}
+		Arrays.sort(neighbors);
+		return neighbors;
+	}
 
-			if (isConverged(iterationStep) && isConverged) {
-				break;
+	/**
+	 * 坐标下降更新规则
+	 *
+	 * @param valueSum
+	 * @param rateSum
+	 * @param regL1Norm
+	 * @param regL2Norm
+	 * @return 新的系数
+	 */
+	private static float descend(float valueSum, float rateSum, float regL1Norm, float regL2Norm) {
+		if (regL1Norm < Math.abs(valueSum)) {
+			if (valueSum > 0) {
+				return (valueSum - regL1Norm) / (regL2Norm + rateSum);
+			} else {
+				// One doubt: in this case, wij<0, however, the
+				// paper says wij>=0. How to gaurantee that?
+				return (valueSum + regL1Norm) / (regL2Norm + rateSum);
 			}
-			currentLoss = totalLoss;
+		} else {
+			return 0F;
 		}
 	}
 
 	/**
 	 * predict a specific ranking score for user userIdx on item itemIdx.
 	 *
-	 * @param userIndex
-	 *            user index
-	 * @param itemIndex
-	 *            item index
-	 * @param excludIndex
-	 *            excluded item index
-	 * @return a prediction without the contribution of excluded item
+	 * @param userVector
+	 * @param neighbors
+	 * @param coefficients
+	 * @param excludePosition
+	 *            excluded neighbor position
+	 * @return a prediction without the contribution of excluded neighbor
 	 */
-	private float predict(int userIndex, int itemIndex, int[] neighbors, int currentIndex) {
+	private static float predict(ArrayVector userVector, int[] neighbors, float[] coefficients, int excludePosition) {
 		float value = 0F;
-		ArrayVector userVector = userVectors[userIndex];
-		if (userVector.getElementSize() == 0) {
-			return value;
+		// 有序合并用户的物品与邻居
+		int leftPosition = 0, rightPosition = 0, leftSize = userVector.getElementSize(), rightSize = neighbors.length;
+		while (leftPosition < leftSize && rightPosition < rightSize) {
+			int leftIndex = userVector.getIndex(leftPosition);
+			int rightIndex = neighbors[rightPosition];
+			if (leftIndex == rightIndex) {
+				if (rightPosition != excludePosition) {
+					value += userVector.getValue(leftPosition) * coefficients[rightPosition];
+				}
+				leftPosition++;
+				rightPosition++;
+			} else if (leftIndex > rightIndex) {
+				rightPosition++;
+			} else {
+				leftPosition++;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * 通过预测值训练指定物品的系数列
+	 *
+	 * <pre>
+	 * 每个(用户,邻居)重新计算排除当前邻居的预测值.
+	 * </pre>
+	 *
+	 * @param userVectors
+	 * @param itemVectors
+	 * @param itemIndex
+	 * @param neighbors
+	 * @param coefficients
+	 * @param losses
+	 *            每个系数的损失
+	 * @param regL1Norm
+	 * @param regL2Norm
+	 * @param rates
+	 *            全部为0的缓存,返回时恢复为0
+	 */
+	static void practiceByPrediction(ArrayVector[] userVectors, ArrayVector[] itemVectors, int itemIndex, int[] neighbors, float[] coefficients, float[] losses, float regL1Norm, float regL2Norm, float[] rates) {
+		ArrayVector itemVector = itemVectors[itemIndex];
+		for (int position = 0, size = itemVector.getElementSize(); position < size; position++) {
+			rates[itemVector.getIndex(position)] = itemVector.getValue(position);
+		}
+		// for each nearest neighbor, update coefficients by the coordinate
+		// descent update rule
+		for (int neighborPosition = 0; neighborPosition < neighbors.length; neighborPosition++) {
+			ArrayVector neighborVector = itemVectors[neighbors[neighborPosition]];
+			float valueSum = 0F, rateSum = 0F, errorSum = 0F;
+			int count = neighborVector.getElementSize();
+			for (int position = 0; position < count; position++) {
+				int userIndex = neighborVector.getIndex(position);
+				float neighborRate = neighborVector.getValue(position);
+				float error = rates[userIndex] - predict(userVectors[userIndex], neighbors, coefficients, neighborPosition);
+				valueSum += neighborRate * error;
+				rateSum += neighborRate * neighborRate;
+				errorSum += error * error;
+			}
+			valueSum /= count;
+			rateSum /= count;
+			errorSum /= count;
+			float coefficient = coefficients[neighborPosition];
+			losses[neighborPosition] = errorSum + 0.5F * regL2Norm * coefficient * coefficient + regL1Norm * coefficient;
+			coefficients[neighborPosition] = descend(valueSum, rateSum, regL1Norm, regL2Norm);
+		}
+		for (int position = 0, size = itemVector.getElementSize(); position < size; position++) {
+			rates[itemVector.getIndex(position)] = 0F;
+		}
+	}
+
+	/**
+	 * 通过残差训练指定物品的系数列
+	 *
+	 * <pre>
+	 * residuals[u] = r(u,j) - sum(r(u,k) * w(k,j)),每次更新系数之后增量修正,
+	 * 不需要为每个(用户,邻居)重新计算预测值.
+	 * 与{@link #practiceByPrediction}的更新规则相同,只是浮点数的舍入不同.
+	 * </pre>
+	 *
+	 * @param itemVectors
+	 * @param itemIndex
+	 * @param neighbors
+	 * @param coefficients
+	 * @param losses
+	 *            每个系数的损失
+	 * @param regL1Norm
+	 * @param regL2Norm
+	 * @param residuals
+	 *            全部为0的缓存,返回时恢复为0
+	 */
+	static void practiceByResidual(ArrayVector[] itemVectors, int itemIndex, int[] neighbors, float[] coefficients, float[] losses, float regL1Norm, float regL2Norm, float[] residuals) {
+		ArrayVector itemVector = itemVectors[itemIndex];
+		for (int position = 0, size = itemVector.getElementSize(); position < size; position++) {
+			residuals[itemVector.getIndex(position)] = itemVector.getValue(position);
+		}
+		for (int neighborPosition = 0; neighborPosition < neighbors.length; neighborPosition++) {
+			float coefficient = coefficients[neighborPosition];
+			if (coefficient == 0F) {
+				continue;
+			}
+			ArrayVector neighborVector = itemVectors[neighbors[neighborPosition]];
+			for (int position = 0, size = neighborVector.getElementSize(); position < size; position++) {
+				residuals[neighborVector.getIndex(position)] -= neighborVector.getValue(position) * coefficient;
+			}
+		}
+
+		// for each nearest neighbor, update coefficients by the coordinate
+		// descent update rule
+		for (int neighborPosition = 0; neighborPosition < neighbors.length; neighborPosition++) {
+			ArrayVector neighborVector = itemVectors[neighbors[neighborPosition]];
+			float coefficient = coefficients[neighborPosition];
+			float valueSum = 0F, rateSum = 0F, errorSum = 0F;
+			int count = neighborVector.getElementSize();
+			for (int position = 0; position < count; position++) {
+				int userIndex = neighborVector.getIndex(position);
+				float neighborRate = neighborVector.getValue(position);
+				// 排除当前邻居的贡献
+				float error = residuals[userIndex] + neighborRate * coefficient;
+				valueSum += neighborRate * error;
+				rateSum += neighborRate * neighborRate;
+				errorSum += error * error;
+			}
+			valueSum /= count;
+			rateSum /= count;
+			errorSum /= count;
+			losses[neighborPosition] = errorSum + 0.5F * regL2Norm * coefficient * coefficient + regL1Norm * coefficient;
+			float value = descend(valueSum, rateSum, regL1Norm, regL2Norm);
+			if (value != coefficient) {
+				float delta = value - coefficient;
+				for (int position = 0; position < count; position++) {
+					residuals[neighborVector.getIndex(position)] -= neighborVector.getValue(position) * delta;
+				}
+				coefficients[neighborPosition] = value;
+			}
+		}
+
+		// 恢复缓存
+		for (int position = 0, size = itemVector.getElementSize(); position < size; position++) {
+			residuals[itemVector.getIndex(position)] = 0F;
 		}
-		int leftIndex = 0, rightIndex = 0, leftSize = userVector.getElementSize(), rightSize = neighbors.length;
-		Iterator<VectorScalar> iterator = userVector.iterator();
-		VectorScalar term = iterator.next();
-		// 判断两个有序数组中是否存在相同的数字
-		while (leftIndex < leftSize && rightIndex < rightSize) {
-			if (term.getIndex() == neighbors[rightIndex]) {
-				if (neighbors[rightIndex] != currentIndex) {
-					value += term.getValue() * coefficientMatrix.getValue(neighbors[rightIndex], itemIndex);
+		for (int neighborIndex : neighbors) {
+			ArrayVector neighborVector = itemVectors[neighborIndex];
+			for (int position = 0, size = neighborVector.getElementSize(); position < size; position++) {
+				residuals[neighborVector.getIndex(position)] = 0F;
+			}
+		}
+	}
+
+	/**
+	 * train model
+	 *
+	 * @throws RecommendationException
+	 *             if error occurs
+	 */
+	@Override
+	protected void doPractice() {
+		// number of iteration cycles
+		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
+			// 按照物品分片(每个物品的系数列互相独立,并行与串行的结果一致).
+			doShard(numberOfItems, (from, to, random) -> {
+				float[] residuals = residualStorage.get();
+				for (int itemIndex = from; itemIndex < to; itemIndex++) {
+					if (itemNeighbors[itemIndex] == null) {
+						continue;
+					}
+					if (residual) {
+						practiceByResidual(itemVectors, itemIndex, itemNeighbors[itemIndex], itemCoefficients[itemIndex], itemLosses[itemIndex], regL1Norm, regL2Norm, residuals);
+					} else {
+						practiceByPrediction(userVectors, itemVectors, itemIndex, itemNeighbors[itemIndex], itemCoefficients[itemIndex], itemLosses[itemIndex], regL1Norm, regL2Norm, residuals);
+					}
 				}
-				if (iterator.hasNext()) {
-					term = iterator.next();
+				return 0F;
+			});
+
+			totalLoss = 0F;
+			for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+				float[] losses = itemLosses[itemIndex];
+				if (losses == null) {
+					continue;
 				}
-				leftIndex++;
-				rightIndex++;
-			} else if (term.getIndex() > neighbors[rightIndex]) {
-				rightIndex++;
-			} else if (term.getIndex() < neighbors[rightIndex]) {
-				if (iterator.hasNext()) {
-					term = iterator.next();
+				for (float loss : losses) {
+					totalLoss += loss;
 				}
-				leftIndex++;
 			}
+			if (isConverged(iterationStep) && isConverged) {
+				break;
+			}
+			currentLoss = totalLoss;
 		}
-		return value;
 	}
 
 	/**
@@ -294,7 +452,7 @@ public class SLIMRecommender extends ModelRecommender {
 		if (neighbors == null) {
 			return 0F;
 		}
-		return predict(userIndex, itemIndex, neighbors, -1);
+		return predict(userVectors[userIndex], neighbors, itemCoefficients[itemIndex], -1);
 	}
 
 }
@@ -18,29 +18,30 @@ public class UserKNNRankingRecommender extends UserKNNRecommender {
 		int userIndex = dicreteFeatures[userDimension];
 		int itemIndex = dicreteFeatures[itemDimension];
 		SparseVector itemVector = itemVectors[itemIndex];
-		int[] neighbors = userNeighbors[userIndex];
-		if (itemVector.getElementSize() == 0 || neighbors == null) {
+		int neighborSize = neighborMatrix.getNeighborSize(userIndex);
+		if (itemVector.getElementSize() == 0 || neighborSize == 0) {
 			return 0F;
 		}
 
 		float sum = 0F, absolute = 0F;
 		int count = 0;
-		int leftIndex = 0, rightIndex = 0, leftSize = itemVector.getElementSize(), rightSize = neighbors.length;
+		int leftIndex = 0, rightIndex = 0, leftSize = itemVector.getElementSize(), rightSize = neighborSize;
 		Iterator<VectorScalar> iterator = itemVector.iterator();
 		VectorScalar term = iterator.next();
 		// 判断两个有序数组中是否存在相同的数字
 		while (leftIndex < leftSize && rightIndex < rightSize) {
-			if (term.getIndex() == neighbors[rightIndex]) {
+			int neighborIndex = neighborMatrix.getNeighborIndex(userIndex, rightIndex);
+			if (term.getIndex() == neighborIndex) {
 				count++;
-				sum += similarityMatrix.getValue(userIndex, neighbors[rightIndex]);
+				sum += neighborMatrix.getNeighborValue(userIndex, rightIndex);
 				if (iterator.hasNext()) {
 					term = iterator.next();
 				}
 				leftIndex++;
 				rightIndex++;
-			} else if (term.getIndex() > neighbors[rightIndex]) {
+			} else if (term.getIndex() > neighborIndex) {
 				rightIndex++;
-			} else if (term.getIndex() < neighbors[rightIndex]) {
+			} else if (term.getIndex() < neighborIndex) {
 				if (iterator.hasNext()) {
 					term = iterator.next();
 				}
@@ -18,7 +18,8 @@
 
 package com.jstarcraft.module.recommendation.recommender.collaborative.ranking;
 
-import com.jstarcraft.core.utility.RandomUtility;
+import java.util.Random;
+
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
@@ -62,67 +63,72 @@ public class WARPMFRecommender extends MatrixFactorizationRecommender {
 
 	@Override
 	protected void doPractice() {
+		for (int epochIndex = 1; epochIndex <= numberOfEpoches; epochIndex++) {
+			totalLoss = doSample(numberOfUsers * 100, this::sample);
+			if (isConverged(epochIndex) && isConverged) {
+				break;
+			}
+			isLearned(epochIndex);
+			currentLoss = totalLoss;
+		}
+	}
+
+	private float sample(Random random, float loss) {
 		int Y, N;
+		int userIndex, positiveItemIndex, negativeItemIndex;
+		float positiveScore;
+		float negativeScore;
+		while (true) {
+			userIndex = random.nextInt(numberOfUsers);
+			SparseVector userVector = trainMatrix.getRowVector(userIndex);
+			if (userVector.getElementSize() == 0 || userVector.getElementSize() == numberOfItems) {
+				continue;
+			}
 
-		for (int epochIndex = 1; epochIndex <= numberOfEpoches; epochIndex++) {
-			totalLoss = 0F;
-			for (int sampleIndex = 0, sampleTimes = numberOfUsers * 100; sampleIndex < sampleTimes; sampleIndex++) {
-				int userIndex, positiveItemIndex, negativeItemIndex;
-				float positiveScore;
-				float negativeScore;
-				while (true) {
-					userIndex = RandomUtility.randomInteger(numberOfUsers);
-					SparseVector userVector = trainMatrix.getRowVector(userIndex);
-					if (userVector.getElementSize() == 0 || userVector.getElementSize() == numberOfItems) {
+			N = 0;
+			Y = numberOfItems - trainMatrix.getRowScope(userIndex);
+			positiveItemIndex = userVector.getIndex(random.nextInt(userVector.getElementSize()));
+			positiveScore = predict(userIndex, positiveItemIndex);
+			do {
+				N++;
+				negativeItemIndex = random.nextInt(numberOfItems - userVector.getElementSize());
+				for (int index = 0, size = userVector.getElementSize(); index < size; index++) {
+					if (negativeItemIndex >= userVector.getIndex(index)) {
+						negativeItemIndex++;
 						continue;
 					}
-
-					N = 0;
-					Y = numberOfItems - trainMatrix.getRowScope(userIndex);
-					positiveItemIndex = userVector.randomKey();
-					positiveScore = predict(userIndex, positiveItemIndex);
-					do {
-						N++;
-						negativeItemIndex = RandomUtility.randomInteger(numberOfItems - userVector.getElementSize());
-						for (int index = 0, size = userVector.getElementSize(); index < size; index++) {
-							if (negativeItemIndex >= userVector.getIndex(index)) {
-								negativeItemIndex++;
-								continue;
-							}
-							break;
-						}
-						negativeScore = predict(userIndex, negativeItemIndex);
-					} while ((positiveScore - negativeScore > epsilon) && N < Y - 1);
 					break;
 				}
-				// update parameters
-				float error = positiveScore - negativeScore;
-
-				float gradient = calaculateGradientValue(lossType, error);
-				int orderIndex = (int) ((Y - 1) / N);
-				float orderLoss = orderLosses[orderIndex];
-				gradient = gradient * orderLoss;
+				negativeScore = predict(userIndex, negativeItemIndex);
+			} while ((positiveScore - negativeScore > epsilon) && N < Y - 1);
+			break;
+		}
+		// update parameters
+		float error = positiveScore - negativeScore;
 
-				totalLoss += -Math.log(MathUtility.logistic(error));
+		float gradient = calaculateGradientValue(lossType, error);
+		int orderIndex = (int) ((Y - 1) / N);
+		float orderLoss = orderLosses[orderIndex];
+		gradient = gradient * orderLoss;
 
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float userFactor = userFactors.getValue(userIndex, factorIndex);
-					float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
-					float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
+		loss += -Math.log(MathUtility.logistic(error));
 
-					userFactors.shiftValue(userIndex, factorIndex, learnRate * (gradient * (positiveFactor - negativeFactor) - userRegularization * userFactor));
-					itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (gradient * userFactor - itemRegularization * positiveFactor));
-					itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (gradient * (-userFactor) - itemRegularization * negativeFactor));
-					totalLoss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negativeFactor * negativeFactor;
-				}
-			}
+		for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+			float userFactor = userFactors.getValue(userIndex, factorIndex);
+			float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
+			float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
 
-			if (isConverged(epochIndex) && isConverged) {
-				break;
-			}
-			isLearned(epochIndex);
-			currentLoss = totalLoss;
+			userFactors.shiftValue(userIndex, factorIndex, learnRate * (gradient * (positiveFactor - negativeFactor) - userRegularization * userFactor));
+			itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (gradient * userFactor - itemRegularization * positiveFactor));
+			itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (gradient * (-userFactor) - itemRegularization * negativeFactor));
+			loss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negativeFactor * negativeFactor;
 		}
+		return loss;
+	}
+
+	@Override
+	protected boolean isBatchable() {
+		return true;
 	}
 
 }
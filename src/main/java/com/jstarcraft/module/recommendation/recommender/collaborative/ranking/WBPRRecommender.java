@@ -5,10 +5,10 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import com.jstarcraft.core.utility.KeyValue;
-import com.jstarcraft.core.utility.RandomUtility;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
@@ -99,55 +99,7 @@ public class WBPRRecommender extends MatrixFactorizationRecommender {
 	@Override
 	protected void doPractice() {
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
-			totalLoss = 0F;
-			for (int sampleIndex = 0, sampleTimes = numberOfUsers * 100; sampleIndex < sampleTimes; sampleIndex++) {
-				// randomly draw (userIdx, posItemIdx, negItemIdx)
-				int userIndex, positiveItemIndex, negativeItemIndex = 0;
-				List<KeyValue<Integer, Double>> probabilities;
-				while (true) {
-					userIndex = RandomUtility.randomInteger(numberOfUsers);
-					SparseVector rateVector = trainMatrix.getRowVector(userIndex);
-					if (rateVector.getElementSize() == 0) {
-						continue;
-					}
-					positiveItemIndex = rateVector.randomKey();
-					// sample j by popularity (probability)
-					probabilities = itemProbabilities[userIndex];
-					double random = RandomUtility.randomDouble(1D);
-					for (KeyValue<Integer, Double> term : probabilities) {
-						if ((random -= term.getValue()) <= 0D) {
-							negativeItemIndex = term.getKey();
-							break;
-						}
-					}
-					break;
-				}
-
-				// update parameters
-				float positiveRate = predict(userIndex, positiveItemIndex);
-				float negativeRate = predict(userIndex, negativeItemIndex);
-				float error = positiveRate - negativeRate;
-				float value = (float) -Math.log(MathUtility.logistic(error));
-				totalLoss += value;
-				value = MathUtility.logistic(-error);
-
-				// update bias
-				float positiveBias = itemBiases.getValue(positiveItemIndex), negativeBias = itemBiases.getValue(negativeItemIndex);
-				itemBiases.shiftValue(positiveItemIndex, learnRate * (value - biasRegularization * positiveBias));
-				itemBiases.shiftValue(negativeItemIndex, learnRate * (-value - biasRegularization * negativeBias));
-				totalLoss += biasRegularization * (positiveBias * positiveBias + negativeBias * negativeBias);
-
-				// update user/item vectors
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float userFactor = userFactors.getValue(userIndex, factorIndex);
-					float positiveItemFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
-					float negativeItemFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
-					userFactors.shiftValue(userIndex, factorIndex, learnRate * (value * (positiveItemFactor - negativeItemFactor) - userRegularization * userFactor));
-					itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (value * userFactor - itemRegularization * positiveItemFactor));
-					itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (value * (-userFactor) - itemRegularization * negativeItemFactor));
-					totalLoss += userRegularization * userFactor * userFactor + itemRegularization * positiveItemFactor * positiveItemFactor + itemRegularization * negativeItemFactor * negativeItemFactor;
-				}
-			}
+			totalLoss = doSample(numberOfUsers * 100, this::sample);
 			if (isConverged(iterationStep) && isConverged) {
 				break;
 			}
@@ -156,6 +108,56 @@ public class WBPRRecommender extends MatrixFactorizationRecommender {
 		}
 	}
 
+	private float sample(Random random, float loss) {
+		// randomly draw (userIdx, posItemIdx, negItemIdx)
+		int userIndex, positiveItemIndex, negativeItemIndex = 0;
+		List<KeyValue<Integer, Double>> probabilities;
+		while (true) {
+			userIndex = random.nextInt(numberOfUsers);
+			SparseVector rateVector = trainMatrix.getRowVector(userIndex);
+			if (rateVector.getElementSize() == 0) {
+				continue;
+			}
+			positiveItemIndex = rateVector.getIndex(random.nextInt(rateVector.getElementSize()));
+			// sample j by popularity (probability)
+			probabilities = itemProbabilities[userIndex];
+			double probability = random.nextDouble();
+			for (KeyValue<Integer, Double> term : probabilities) {
+				if ((probability -= term.getValue()) <= 0D) {
+					negativeItemIndex = term.getKey();
+					break;
+				}
+			}
+			break;
+		}
+
+		// update parameters
+		float positiveRate = predict(userIndex, positiveItemIndex);
+		float negativeRate = predict(userIndex, negativeItemIndex);
+		float error = positiveRate - negativeRate;
+		float value = (float) -Math.log(MathUtility.logistic(error));
+		loss += value;
+		value = MathUtility.logistic(-error);
+
+		// update bias
+		float positiveBias = itemBiases.getValue(positiveItemIndex), negativeBias = itemBiases.getValue(negativeItemIndex);
+		itemBiases.shiftValue(positiveItemIndex, learnRate * (value - biasRegularization * positiveBias));
+		itemBiases.shiftValue(negativeItemIndex, learnRate * (-value - biasRegularization * negativeBias));
+		loss += biasRegularization * (positiveBias * positiveBias + negativeBias * negativeBias);
+
+		// update user/item vectors
+		for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+			float userFactor = userFactors.getValue(userIndex, factorIndex);
+			float positiveItemFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
+			float negativeItemFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
+			userFactors.shiftValue(userIndex, factorIndex, learnRate * (value * (positiveItemFactor - negativeItemFactor) - userRegularization * userFactor));
+			itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (value * userFactor - itemRegularization * positiveItemFactor));
+			itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (value * (-userFactor) - itemRegularization * negativeItemFactor));
+			loss += userRegularization * userFactor * userFactor + itemRegularization * positiveItemFactor * positiveItemFactor + itemRegularization * negativeItemFactor * negativeItemFactor;
+		}
+		return loss;
+	}
+
 	@Override
 	protected float predict(int userIndex, int itemIndex) {
 		DefaultScalar scalar = DefaultScalar.getInstance();
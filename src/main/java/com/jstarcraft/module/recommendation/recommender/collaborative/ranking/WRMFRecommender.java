@@ -3,6 +3,7 @@ package com.jstarcraft.module.recommendation.recommender.collaborative.ranking;
 import java.util.Date;
 import java.util.concurrent.CountDownLatch;
 
+import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
@@ -16,8 +17,12 @@ import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.math.structure.vector.VectorScalar;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.exception.RecommendationException;
+import com.jstarcraft.module.recommendation.recommender.IncrementalRecommender;
 import com.jstarcraft.module.recommendation.recommender.MatrixFactorizationRecommender;
 
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
 /**
  * <h3>WRMF: Weighted Regularized Matrix Factorization.</h3>
  * <p>
@@ -31,7 +36,7 @@ import com.jstarcraft.module.recommendation.recommender.MatrixFactorizationRecom
  *
  * @author guoguibing and Keqiang Wang
  */
-public class WRMFRecommender extends MatrixFactorizationRecommender {
+public class WRMFRecommender extends MatrixFactorizationRecommender implements IncrementalRecommender {
 	/**
 	 * confidence weight coefficient
 	 */
@@ -196,4 +201,79 @@ public class WRMFRecommender extends MatrixFactorizationRecommender {
 		}
 	}
 
+	/**
+	 * 增量更新
+	 * 
+	 * <pre>
+	 * 每次局部迭代先固定物品求解涉及的用户,再固定用户求解涉及的物品(交替最小二乘),公式与训练一致.
+	 * </pre>
+	 */
+	@Override
+	public synchronized void update(int[] userIndexes, int[] itemIndexes, float[] scores) {
+		KeyValue<int[], int[]> touches = increment(userIndexes, itemIndexes, scores);
+		DenseMatrix symmetryMatrix = DenseMatrix.valueOf(numberOfFactors, numberOfFactors);
+		DenseMatrix factorMatrix = DenseMatrix.valueOf(numberOfFactors, numberOfFactors);
+		DenseMatrix copyMatrix = DenseMatrix.valueOf(numberOfFactors, numberOfFactors);
+		DenseMatrix inverseMatrix = DenseMatrix.valueOf(numberOfFactors, numberOfFactors);
+		DenseVector factorVector = DenseVector.valueOf(numberOfFactors);
+		IntArrayList indexes = new IntArrayList();
+		FloatArrayList values = new FloatArrayList();
+		for (int iterationStep = 0; iterationStep < numberOfIncrements; iterationStep++) {
+			symmetryMatrix.dotProduct(itemFactors, true, itemFactors, false, MathCalculator.SERIAL);
+			for (int userIndex : touches.getKey()) {
+				getUserScores(userIndex, indexes, values);
+				solve(itemFactors, symmetryMatrix, userRegularization, indexes, values, factorMatrix, copyMatrix, inverseMatrix, factorVector);
+				userFactors.getRowVector(userIndex).dotProduct(inverseMatrix, false, factorVector, MathCalculator.SERIAL);
+			}
+			symmetryMatrix.dotProduct(userFactors, true, userFactors, false, MathCalculator.SERIAL);
+			for (int itemIndex : touches.getValue()) {
+				getItemScores(itemIndex, indexes, values);
+				solve(userFactors, symmetryMatrix, itemRegularization, indexes, values, factorMatrix, copyMatrix, inverseMatrix, factorVector);
+				itemFactors.getRowVector(itemIndex).dotProduct(inverseMatrix, false, factorVector, MathCalculator.SERIAL);
+			}
+		}
+	}
+
+	/**
+	 * 固定一侧的因子,计算另一侧的正规方程
+	 * 
+	 * @param factors
+	 *            固定的因子
+	 * @param symmetryMatrix
+	 *            固定的因子的转置乘以自身
+	 * @param regularization
+	 * @param indexes
+	 * @param scores
+	 * @param factorMatrix
+	 * @param copyMatrix
+	 * @param inverseMatrix
+	 *            输出(Ft * C * F + FtF + lambda)^-1
+	 * @param factorVector
+	 *            输出Ft * C * P + Ft * P
+	 */
+	private void solve(DenseMatrix factors, DenseMatrix symmetryMatrix, float regularization, IntArrayList indexes, FloatArrayList scores, DenseMatrix factorMatrix, DenseMatrix copyMatrix, DenseMatrix inverseMatrix, DenseVector factorVector) {
+		factorMatrix.mapValues((row, column, value, message) -> {
+			return symmetryMatrix.getValue(row, column) + regularization;
+		}, null, MathCalculator.SERIAL);
+		factorVector.setValues(0F);
+		for (int position = 0, size = indexes.size(); position < size; position++) {
+			int index = indexes.getInt(position);
+			// 与训练相同的置信度,偏好为1
+			float confindence = (float) Math.log(1F + Math.pow(10, weightCoefficient) * scores.getFloat(position));
+			for (int row = 0; row < numberOfFactors; row++) {
+				float factor = factors.getValue(index, row);
+				for (int column = 0; column < numberOfFactors; column++) {
+					factorMatrix.shiftValue(row, column, factor * confindence * factors.getValue(index, column));
+				}
+				factorVector.shiftValue(row, factor * confindence + factor);
+			}
+		}
+		MatrixUtility.inverse(factorMatrix, copyMatrix, inverseMatrix);
+	}
+
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
@@ -7,6 +7,7 @@ import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
+import com.jstarcraft.module.math.structure.matrix.RowKernel;
 import com.jstarcraft.module.math.structure.vector.DenseVector;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.math.structure.vector.VectorScalar;
@@ -23,83 +24,202 @@ public class ASVDPlusPlusRecommender extends BiasedMFRecommender {
 
 	private DenseMatrix positiveFactors, negativeFactors;
 
+	/** 是否按照用户累加隐式反馈因子的梯度(默认按照评分训练,预测时逐个物品计算隐式反馈项) */
+	private boolean accumulate;
+
+	/** 隐式反馈因子之和(按照用户缓存,训练之后更新,只在累加模式用于预测) */
+	private DenseMatrix implicitFactors;
+
+	/** 缓存(每个线程独立) */
+	private ThreadLocal<DenseMatrix> cacheStorage;
+
 	@Override
 	public void prepare(Configuration configuration, SampleAccessor marker, InstanceAccessor model, DataSpace space) {
 		super.prepare(configuration, marker, model, space);
 		positiveFactors = DenseMatrix.valueOf(numberOfItems, numberOfFactors, MatrixMapper.distributionOf(distribution));
 		negativeFactors = DenseMatrix.valueOf(numberOfItems, numberOfFactors, MatrixMapper.distributionOf(distribution));
+		accumulate = configuration.getBoolean("rec.implicit.accumulate", false);
+		implicitFactors = accumulate ? DenseMatrix.valueOf(numberOfUsers, numberOfFactors) : null;
+		cacheStorage = ThreadLocal.withInitial(() -> {
+			return DenseMatrix.valueOf(4, numberOfFactors);
+		});
 	}
 
 	@Override
 	protected void doPractice() {
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
-			// TODO 目前没有totalLoss.
-			totalLoss = 0f;
-			for (MatrixScalar matrixTerm : trainMatrix) {
-				int userIndex = matrixTerm.getRow();
-				int itemIndex = matrixTerm.getColumn();
-				float rate = matrixTerm.getValue();
-				float predict = predict(userIndex, itemIndex);
-				float error = rate - predict;
-				SparseVector userVector = trainMatrix.getRowVector(userIndex);
-
-				// update factors
-				float userBiasValue = userBiases.getValue(userIndex);
-				userBiases.shiftValue(userIndex, learnRate * (error - regBias * userBiasValue));
-				float itemBiasValue = itemBiases.getValue(itemIndex);
-				itemBiases.shiftValue(itemIndex, learnRate * (error - regBias * itemBiasValue));
-
-				float squareRoot = (float) Math.sqrt(userVector.getElementSize());
-				float[] positiveSums = new float[numberOfFactors];
-				float[] negativeSums = new float[numberOfFactors];
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float positiveSum = 0F;
-					float negativeSum = 0F;
-					for (VectorScalar term : userVector) {
-						int ItemIdx = term.getIndex();
-						positiveSum += positiveFactors.getValue(ItemIdx, factorIndex);
-						negativeSum += negativeFactors.getValue(ItemIdx, factorIndex) * (rate - meanOfScore - userBiases.getValue(userIndex) - itemBiases.getValue(ItemIdx));
-					}
-					positiveSums[factorIndex] = squareRoot > 0 ? positiveSum / squareRoot : positiveSum;
-					negativeSums[factorIndex] = squareRoot > 0 ? negativeSum / squareRoot : negativeSum;
+			totalLoss = accumulate ? doUser(this::practiceByUser) : practiceByRating();
+		}
+		if (!accumulate) {
+			return;
+		}
+		doUser((userIndex) -> {
+			DenseMatrix cacheMatrix = cacheStorage.get();
+			sumImplicit(userIndex, trainMatrix.getRowVector(userIndex), cacheMatrix);
+			RowKernel.copy(cacheMatrix, 0, implicitFactors, userIndex);
+			return 0F;
+		});
+	}
+
+	/**
+	 * 按照评分训练(原来的训练方式)
+	 * 
+	 * @return 损失
+	 */
+	private float practiceByRating() {
+		// TODO 目前没有totalLoss.
+		for (MatrixScalar matrixTerm : trainMatrix) {
+			int userIndex = matrixTerm.getRow();
+			int itemIndex = matrixTerm.getColumn();
+			float rate = matrixTerm.getValue();
+			float predict = predict(userIndex, itemIndex);
+			float error = rate - predict;
+			SparseVector userVector = trainMatrix.getRowVector(userIndex);
+
+			// update factors
+			float userBiasValue = userBiases.getValue(userIndex);
+			userBiases.shiftValue(userIndex, learnRate * (error - regBias * userBiasValue));
+			float itemBiasValue = itemBiases.getValue(itemIndex);
+			itemBiases.shiftValue(itemIndex, learnRate * (error - regBias * itemBiasValue));
+
+			float squareRoot = (float) Math.sqrt(userVector.getElementSize());
+			float[] positiveSums = new float[numberOfFactors];
+			float[] negativeSums = new float[numberOfFactors];
+			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				float positiveSum = 0F;
+				float negativeSum = 0F;
+				for (VectorScalar term : userVector) {
+					int ItemIdx = term.getIndex();
+					positiveSum += positiveFactors.getValue(ItemIdx, factorIndex);
+					negativeSum += negativeFactors.getValue(ItemIdx, factorIndex) * (rate - meanOfScore - userBiases.getValue(userIndex) - itemBiases.getValue(ItemIdx));
 				}
+				positiveSums[factorIndex] = squareRoot > 0 ? positiveSum / squareRoot : positiveSum;
+				negativeSums[factorIndex] = squareRoot > 0 ? negativeSum / squareRoot : negativeSum;
+			}
 
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float userFactor = userFactors.getValue(userIndex, factorIndex);
-					float itemFactor = itemFactors.getValue(itemIndex, factorIndex);
-					float userValue = error * itemFactor - userRegularization * userFactor;
-					float itemValue = error * (userFactor + positiveSums[factorIndex] + negativeSums[factorIndex]) - itemRegularization * itemFactor;
-					userFactors.shiftValue(userIndex, factorIndex, learnRate * userValue);
-					itemFactors.shiftValue(itemIndex, factorIndex, learnRate * itemValue);
-					for (VectorScalar term : userVector) {
-						int index = term.getIndex();
-						float positiveFactor = positiveFactors.getValue(index, factorIndex);
-						float negativeFactor = negativeFactors.getValue(index, factorIndex);
-						float positiveDelta = error * itemFactor / squareRoot - userRegularization * positiveFactor;
-						float negativeDelta = error * itemFactor * (rate - meanOfScore - userBiases.getValue(userIndex) - itemBiases.getValue(index)) / squareRoot - userRegularization * negativeFactor;
-						positiveFactors.shiftValue(index, factorIndex, learnRate * positiveDelta);
-						negativeFactors.shiftValue(index, factorIndex, learnRate * negativeDelta);
-					}
+			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				float userFactor = userFactors.getValue(userIndex, factorIndex);
+				float itemFactor = itemFactors.getValue(itemIndex, factorIndex);
+				float userValue = error * itemFactor - userRegularization * userFactor;
+				float itemValue = error * (userFactor + positiveSums[factorIndex] + negativeSums[factorIndex]) - itemRegularization * itemFactor;
+				userFactors.shiftValue(userIndex, factorIndex, learnRate * userValue);
+				itemFactors.shiftValue(itemIndex, factorIndex, learnRate * itemValue);
+				for (VectorScalar term : userVector) {
+					int index = term.getIndex();
+					float positiveFactor = positiveFactors.getValue(index, factorIndex);
+					float negativeFactor = negativeFactors.getValue(index, factorIndex);
+					float positiveDelta = error * itemFactor / squareRoot - userRegularization * positiveFactor;
+					float negativeDelta = error * itemFactor * (rate - meanOfScore - userBiases.getValue(userIndex) - itemBiases.getValue(index)) / squareRoot - userRegularization * negativeFactor;
+					positiveFactors.shiftValue(index, factorIndex, learnRate * positiveDelta);
+					negativeFactors.shiftValue(index, factorIndex, learnRate * negativeDelta);
 				}
 			}
 		}
+		return 0F;
+	}
+
+	/**
+	 * 按照用户训练指定用户的所有评分(rec.implicit.accumulate)
+	 * 
+	 * <pre>
+	 * 隐式反馈因子之和在用户开始时计算一次,隐式反馈因子的梯度累加到缓存,用户结束时一次更新到所有评分物品.
+	 * 两种隐式反馈因子的梯度方向相同(只是负反馈因子还要乘以物品的残差),所以共用一行缓存.
+	 * </pre>
+	 * 
+	 * @param userIndex
+	 * @return 损失
+	 */
+	private float practiceByUser(int userIndex) {
+		SparseVector userVector = trainMatrix.getRowVector(userIndex);
+		if (userVector.getElementSize() == 0) {
+			return 0F;
+		}
+		// 缓存行:0为隐式反馈因子之和,1为隐式反馈因子与用户因子之和,2为更新之前的物品因子,3为隐式反馈因子的梯度
+		DenseMatrix cacheMatrix = cacheStorage.get();
+		float squareRoot = sumImplicit(userIndex, userVector, cacheMatrix);
+		RowKernel.zero(cacheMatrix, 3);
+		float loss = 0F;
+		for (VectorScalar term : userVector) {
+			int itemIndex = term.getIndex();
+			RowKernel.copy(cacheMatrix, 0, cacheMatrix, 1);
+			RowKernel.axpy(1F, userFactors, userIndex, cacheMatrix, 1);
+			float predict = RowKernel.dot(meanOfScore + userBiases.getValue(userIndex) + itemBiases.getValue(itemIndex), cacheMatrix, 1, itemFactors, itemIndex);
+			float error = term.getValue() - predict;
+			loss += error * error;
+
+			// update factors
+			float userBiasValue = userBiases.getValue(userIndex);
+			userBiases.shiftValue(userIndex, learnRate * (error - regBias * userBiasValue));
+			float itemBiasValue = itemBiases.getValue(itemIndex);
+			itemBiases.shiftValue(itemIndex, learnRate * (error - regBias * itemBiasValue));
+
+			RowKernel.copy(itemFactors, itemIndex, cacheMatrix, 2);
+			RowKernel.update(userFactors, userIndex, error, cacheMatrix, 2, userRegularization, learnRate);
+			RowKernel.update(itemFactors, itemIndex, error, cacheMatrix, 1, itemRegularization, learnRate);
+			RowKernel.axpy(error / squareRoot, cacheMatrix, 2, cacheMatrix, 3);
+		}
+		for (VectorScalar term : userVector) {
+			int index = term.getIndex();
+			float scale = term.getValue() - meanOfScore - userBiases.getValue(userIndex) - itemBiases.getValue(index);
+			RowKernel.update(positiveFactors, index, 1F, cacheMatrix, 3, userRegularization, learnRate);
+			RowKernel.update(negativeFactors, index, scale, cacheMatrix, 3, userRegularization, learnRate);
+		}
+		return loss;
+	}
+
+	/**
+	 * 汇总隐式反馈因子到缓存的第0行
+	 * 
+	 * <pre>
+	 * 正反馈因子直接相加,负反馈因子按照物品的残差(评分-平均分-用户偏置-物品偏置)加权.
+	 * </pre>
+	 * 
+	 * @param userIndex
+	 * @param userVector
+	 * @param cacheMatrix
+	 * @return 归一化系数(评分数量的平方根)
+	 */
+	private float sumImplicit(int userIndex, SparseVector userVector, DenseMatrix cacheMatrix) {
+		RowKernel.zero(cacheMatrix, 0);
+		float userBias = userBiases.getValue(userIndex);
+		for (VectorScalar term : userVector) {
+			int itemIndex = term.getIndex();
+			float scale = term.getValue() - meanOfScore - userBias - itemBiases.getValue(itemIndex);
+			RowKernel.axpy(1F, positiveFactors, itemIndex, cacheMatrix, 0);
+			RowKernel.axpy(scale, negativeFactors, itemIndex, cacheMatrix, 0);
+		}
+		float squareRoot = (float) Math.sqrt(userVector.getElementSize());
+		if (squareRoot > 0F) {
+			RowKernel.scale(cacheMatrix, 0, 1F / squareRoot);
+		}
+		return squareRoot;
 	}
 
 	@Override
 	protected float predict(int userIndex, int itemIndex) {
-		DefaultScalar scalar = DefaultScalar.getInstance();
-		DenseVector userVector = userFactors.getRowVector(userIndex);
-		DenseVector itemVector = itemFactors.getRowVector(itemIndex);
-		float value = meanOfScore + userBiases.getValue(userIndex) + itemBiases.getValue(itemIndex) + scalar.dotProduct(userVector, itemVector).getValue();
-		SparseVector rateVector = trainMatrix.getRowVector(userIndex);
-		float squareRoot = (float) Math.sqrt(rateVector.getElementSize());
-		for (VectorScalar term : rateVector) {
-			itemIndex = term.getIndex();
-			DenseVector positiveVector = positiveFactors.getRowVector(itemIndex);
-			DenseVector negativeVector = negativeFactors.getRowVector(itemIndex);
-			value += scalar.dotProduct(positiveVector, itemVector).getValue() / squareRoot;
-			float scale = term.getValue() - meanOfScore - userBiases.getValue(userIndex) - itemBiases.getValue(itemIndex);
-			value += scalar.dotProduct(negativeVector, itemVector).getValue() * scale / squareRoot;
+		float value;
+		if (accumulate) {
+			DenseMatrix cacheMatrix = cacheStorage.get();
+			RowKernel.copy(userFactors, userIndex, cacheMatrix, 1);
+			if (userIndex < implicitFactors.getRowSize()) {
+				RowKernel.axpy(1F, implicitFactors, userIndex, cacheMatrix, 1);
+			}
+			value = RowKernel.dot(meanOfScore + userBiases.getValue(userIndex) + itemBiases.getValue(itemIndex), cacheMatrix, 1, itemFactors, itemIndex);
+		} else {
+			DefaultScalar scalar = DefaultScalar.getInstance();
+			DenseVector userVector = userFactors.getRowVector(userIndex);
+			DenseVector itemVector = itemFactors.getRowVector(itemIndex);
+			value = meanOfScore + userBiases.getValue(userIndex) + itemBiases.getValue(itemIndex) + scalar.dotProduct(userVector, itemVector).getValue();
+			SparseVector rateVector = trainMatrix.getRowVector(userIndex);
+			float squareRoot = (float) Math.sqrt(rateVector.getElementSize());
+			for (VectorScalar term : rateVector) {
+				int index = term.getIndex();
+				DenseVector positiveVector = positiveFactors.getRowVector(index);
+				DenseVector negativeVector = negativeFactors.getRowVector(index);
+				value += scalar.dotProduct(positiveVector, itemVector).getValue() / squareRoot;
+				float scale = term.getValue() - meanOfScore - userBiases.getValue(userIndex) - itemBiases.getValue(index);
+				value += scalar.dotProduct(negativeVector, itemVector).getValue() * scale / squareRoot;
+			}
 		}
 		if (Double.isNaN(value)) {
 			value = meanOfScore;
@@ -114,4 +234,10 @@ public class ASVDPlusPlusRecommender extends BiasedMFRecommender {
 		return predict(userIndex, itemIndex);
 	}
 
-}
\ No newline at end of file
+	@Override
+	protected boolean isBatchable() {
+		// 逐个预测使用非对称的隐式反馈因子
+		return false;
+	}
+
+}
\ No newline at end of file
@@ -83,4 +83,30 @@ public class AutoRecRecommender extends NeuralNetworkRecommender {
 		int itemIndex = dicreteFeatures[itemDimension];
 		return outputData.getFloat(itemIndex, userIndex);
 	}
+
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, int[] itemIndexes, float[] scores) {
+		if (itemDimension != this.itemDimension) {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, itemIndexes, scores);
+			return;
+		}
+		int userIndex = dicreteFeatures[userDimension];
+		INDArray userData = outputData.getColumn(userIndex);
+		for (int position = 0, size = itemIndexes.length; position < size; position++) {
+			scores[position] = userData.getFloat(itemIndexes[position]);
+		}
+	}
+
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, float[] scores) {
+		if (itemDimension != this.itemDimension) {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, scores);
+			return;
+		}
+		int userIndex = dicreteFeatures[userDimension];
+		INDArray userData = outputData.getColumn(userIndex);
+		for (int itemIndex = 0, size = scores.length; itemIndex < size; itemIndex++) {
+			scores[itemIndex] = userData.getFloat(itemIndex);
+		}
+	}
 }
@@ -1,21 +1,26 @@
 package com.jstarcraft.module.recommendation.recommender.collaborative.rating;
 
+import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
-import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
+import com.jstarcraft.module.math.structure.matrix.RowKernel;
 import com.jstarcraft.module.math.structure.vector.DenseVector;
 import com.jstarcraft.module.math.structure.vector.VectorMapper;
 import com.jstarcraft.module.recommendation.configure.Configuration;
+import com.jstarcraft.module.recommendation.recommender.IncrementalRecommender;
 import com.jstarcraft.module.recommendation.recommender.MatrixFactorizationRecommender;
 
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
 /**
  * Biased Matrix Factorization Recommender
  *
  * @author GuoGuibing and Keqiang Wang
  */
-public class BiasedMFRecommender extends MatrixFactorizationRecommender {
+public class BiasedMFRecommender extends MatrixFactorizationRecommender implements IncrementalRecommender {
 	/**
 	 * bias regularization
 	 */
@@ -73,10 +78,9 @@ public class BiasedMFRecommender extends MatrixFactorizationRecommender {
 				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
 					float userFactor = userFactors.getValue(userIndex, factorIndex);
 					float itemFactor = itemFactors.getValue(itemIndex, factorIndex);
-					userFactors.shiftValue(userIndex, factorIndex, learnRate * (error * itemFactor - userRegularization * userFactor));
-					itemFactors.shiftValue(itemIndex, factorIndex, learnRate * (error * userFactor - itemRegularization * itemFactor));
 					totalLoss += userRegularization * userFactor * userFactor + itemRegularization * itemFactor * itemFactor;
 				}
+				RowKernel.update(userFactors, userIndex, userRegularization, itemFactors, itemIndex, itemRegularization, error, learnRate);
 			}
 
 			totalLoss *= 0.5D;
@@ -88,12 +92,52 @@ public class BiasedMFRecommender extends MatrixFactorizationRecommender {
 		}
 	}
 
+	@Override
+	protected void expand(int numberOfUsers, int numberOfItems) {
+		super.expand(numberOfUsers, numberOfItems);
+		userBiases = DenseVector.expandOf(userBiases, numberOfUsers, VectorMapper.distributionOf(distribution));
+		itemBiases = DenseVector.expandOf(itemBiases, numberOfItems, VectorMapper.distributionOf(distribution));
+	}
+
+	/**
+	 * 增量更新
+	 * 
+	 * <pre>
+	 * 每次局部迭代先固定物品更新涉及的用户,再固定用户更新涉及的物品.
+	 * </pre>
+	 */
+	@Override
+	public synchronized void update(int[] userIndexes, int[] itemIndexes, float[] scores) {
+		KeyValue<int[], int[]> touches = increment(userIndexes, itemIndexes, scores);
+		IntArrayList indexes = new IntArrayList();
+		FloatArrayList values = new FloatArrayList();
+		for (int iterationStep = 0; iterationStep < numberOfIncrements; iterationStep++) {
+			for (int userIndex : touches.getKey()) {
+				getUserScores(userIndex, indexes, values);
+				for (int position = 0, size = indexes.size(); position < size; position++) {
+					int itemIndex = indexes.getInt(position);
+					float error = values.getFloat(position) - predict(userIndex, itemIndex);
+					float userBias = userBiases.getValue(userIndex);
+					userBiases.shiftValue(userIndex, learnRate * (error - regBias * userBias));
+					RowKernel.update(userFactors, userIndex, error, itemFactors, itemIndex, userRegularization, learnRate);
+				}
+			}
+			for (int itemIndex : touches.getValue()) {
+				getItemScores(itemIndex, indexes, values);
+				for (int position = 0, size = indexes.size(); position < size; position++) {
+					int userIndex = indexes.getInt(position);
+					float error = values.getFloat(position) - predict(userIndex, itemIndex);
+					float itemBias = itemBiases.getValue(itemIndex);
+					itemBiases.shiftValue(itemIndex, learnRate * (error - regBias * itemBias));
+					RowKernel.update(itemFactors, itemIndex, error, userFactors, userIndex, itemRegularization, learnRate);
+				}
+			}
+		}
+	}
+
 	@Override
 	protected float predict(int userIndex, int itemIndex) {
-		DefaultScalar scalar = DefaultScalar.getInstance();
-		DenseVector userVector = userFactors.getRowVector(userIndex);
-		DenseVector itemVector = itemFactors.getRowVector(itemIndex);
-		float value = scalar.dotProduct(userVector, itemVector).getValue();
+		float value = RowKernel.dot(userFactors, userIndex, itemFactors, itemIndex);
 		value += meanOfScore + userBiases.getValue(userIndex) + itemBiases.getValue(itemIndex);
 		return value;
 	}
@@ -105,4 +149,27 @@ public class BiasedMFRecommender extends MatrixFactorizationRecommender {
 		return predict(userIndex, itemIndex);
 	}
 
+	@Override
+	protected void predict(int userIndex, int[] itemIndexes, float[] scores) {
+		super.predict(userIndex, itemIndexes, scores);
+		float userBias = meanOfScore + userBiases.getValue(userIndex);
+		for (int position = 0, size = itemIndexes.length; position < size; position++) {
+			scores[position] += userBias + itemBiases.getValue(itemIndexes[position]);
+		}
+	}
+
+	@Override
+	protected void predict(int userIndex, float[] scores) {
+		super.predict(userIndex, scores);
+		float userBias = meanOfScore + userBiases.getValue(userIndex);
+		for (int itemIndex = 0, size = scores.length; itemIndex < size; itemIndex++) {
+			scores[itemIndex] += userBias + itemBiases.getValue(itemIndex);
+		}
+	}
+
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
@@ -3,12 +3,8 @@ package com.jstarcraft.module.recommendation.recommender.collaborative.rating;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
-import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
-import com.jstarcraft.module.math.structure.tensor.TensorScalar;
-import com.jstarcraft.module.math.structure.vector.ArrayVector;
-import com.jstarcraft.module.math.structure.vector.VectorScalar;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.recommender.FactorizationMachineRecommender;
 
@@ -61,63 +57,45 @@ public class FFMRecommender extends FactorizationMachineRecommender {
 
 	@Override
 	protected void doPractice() {
-		DefaultScalar scalar = DefaultScalar.getInstance();
 		for (int iterationStep = 0; iterationStep < numberOfEpoches; iterationStep++) {
-			totalLoss = 0F;
-			int outerIndex = 0;
-			int innerIndex = 0;
-			float outerValue = 0F;
-			float innerValue = 0F;
-			float oldWeight = 0F;
-			float newWeight = 0F;
-			float oldFactor = 0F;
-			float newFactor = 0F;
-			int[] keys = new int[trainTensor.getOrderSize()];
-			for (TensorScalar tensorTerm : trainTensor) {
-				tensorTerm.getIndexes(keys);
-				// TODO 因为每次的data都是1,可以考虑避免重复构建featureVector.
-				ArrayVector featureVector = getFeatureVector(keys);
-				float rate = tensorTerm.getValue();
-				float predict = predict(scalar, featureVector);
+			// 场感知的二阶项无法合并为因子和,factorSums不会被使用.
+			totalLoss = doSample((position, featureIndexes, factorSums) -> {
+				getFeatureIndexes(position, featureIndexes);
+				float rate = trainTensor.getValue(position);
+				float predict = predictFeatures(featureIndexes, factorSums);
 				float error = predict - rate;
-				totalLoss += error * error;
+				float loss = error * error;
 
 				// global bias
-				totalLoss += biasRegularization * globalBias * globalBias;
+				loss += biasRegularization * globalBias * globalBias;
 
 				// update w0
 				float hW0 = 1;
 				float gradW0 = error * hW0 + biasRegularization * globalBias;
 				globalBias += -learnRate * gradW0;
 
-				// 1-way interactions
-				for (VectorScalar outerTerm : featureVector) {
-					outerIndex = outerTerm.getIndex();
-					innerIndex = 0;
-					oldWeight = weightVector.getValue(outerIndex);
-					newWeight = outerTerm.getValue();
-					newWeight = error * newWeight + weightRegularization * oldWeight;
+				// 1-way interactions(特征值都为1)
+				for (int outerIndex : featureIndexes) {
+					float oldWeight = weightVector.getValue(outerIndex);
+					float newWeight = error + weightRegularization * oldWeight;
 					weightVector.shiftValue(outerIndex, -learnRate * newWeight);
-					totalLoss += weightRegularization * oldWeight * oldWeight;
-					outerValue = outerTerm.getValue();
-					innerValue = 0F;
+					loss += weightRegularization * oldWeight * oldWeight;
 					// 2-way interactions
 					for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-						oldFactor = featureFactors.getValue(outerIndex, featureDimensions[outerIndex] + factorIndex);
-						newFactor = 0F;
-						for (VectorScalar innerTerm : featureVector) {
-							innerIndex = innerTerm.getIndex();
-							innerValue = innerTerm.getValue();
+						float oldFactor = featureFactors.getValue(outerIndex, featureDimensions[outerIndex] + factorIndex);
+						float newFactor = 0F;
+						for (int innerIndex : featureIndexes) {
 							if (innerIndex != outerIndex) {
-								newFactor += outerValue * featureFactors.getValue(innerIndex, featureDimensions[outerIndex] + factorIndex) * innerValue;
+								newFactor += featureFactors.getValue(innerIndex, featureDimensions[outerIndex] + factorIndex);
 							}
 						}
 						newFactor = error * newFactor + factorRegularization * oldFactor;
 						featureFactors.shiftValue(outerIndex, featureDimensions[outerIndex] + factorIndex, -learnRate * newFactor);
-						totalLoss += factorRegularization * oldFactor * oldFactor;
+						loss += factorRegularization * oldFactor * oldFactor;
 					}
 				}
-			}
+				return loss;
+			});
 
 			totalLoss *= 0.5;
 			if (isConverged(iterationStep) && isConverged) {
@@ -128,26 +106,22 @@ public class FFMRecommender extends FactorizationMachineRecommender {
 	}
 
 	@Override
-	protected float predict(DefaultScalar scalar, ArrayVector featureVector) {
+	protected float predictFeatures(int[] featureIndexes, float[] factorSums) {
 		float value = 0F;
 		// global bias
 		value += globalBias;
 		// 1-way interaction
-		value += scalar.dotProduct(weightVector, featureVector).getValue();
-		int outerIndex = 0;
-		int innerIndex = 0;
-		float outerValue = 0F;
-		float innerValue = 0F;
+		float weight = 0F;
+		for (int featureIndex : featureIndexes) {
+			weight += weightVector.getValue(featureIndex);
+		}
+		value += weight;
 		// 2-way interaction
-		for (int featureIndex = 0; featureIndex < numberOfFactors; featureIndex++) {
-			for (VectorScalar outerVector : featureVector) {
-				outerIndex = outerVector.getIndex();
-				outerValue = outerVector.getValue();
-				for (VectorScalar innerVector : featureVector) {
-					innerIndex = innerVector.getIndex();
-					innerValue = innerVector.getValue();
+		for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+			for (int outerIndex : featureIndexes) {
+				for (int innerIndex : featureIndexes) {
 					if (outerIndex != innerIndex) {
-						value += featureFactors.getValue(outerIndex, featureDimensions[innerIndex] + featureIndex) * featureFactors.getValue(innerIndex, featureDimensions[outerIndex] + featureIndex) * outerValue * innerValue;
+						value += featureFactors.getValue(outerIndex, featureDimensions[innerIndex] + factorIndex) * featureFactors.getValue(innerIndex, featureDimensions[outerIndex] + factorIndex);
 					}
 				}
 			}
@@ -1,15 +1,12 @@
 package com.jstarcraft.module.recommendation.recommender.collaborative.rating;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
-import com.jstarcraft.module.math.structure.DefaultScalar;
+import com.jstarcraft.module.math.structure.MathCombiner;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+import com.jstarcraft.module.math.structure.matrix.MatrixBuilder;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
-import com.jstarcraft.module.math.structure.tensor.TensorScalar;
-import com.jstarcraft.module.math.structure.vector.ArrayVector;
 import com.jstarcraft.module.math.structure.vector.DenseVector;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.math.structure.vector.VectorScalar;
@@ -36,49 +33,35 @@ public class FMALSRecommender extends FactorizationMachineRecommender {
 		actionFactors = DenseMatrix.valueOf(numberOfActions, numberOfFactors);
 
 		// construct training appender matrix
-		Table<Integer, Integer, Float> trainTable = HashBasedTable.create();
-		int[] keys = new int[trainTensor.getOrderSize()];
-		int index = 0;
-		for (TensorScalar tensorTerm : trainTensor) {
-			tensorTerm.getIndexes(keys);
-			int count = 0;
-			for (int dimension = 0; dimension < keys.length; dimension++) {
-				trainTable.put(index, count + keys[dimension], 1F);
-				count += trainTensor.getDimensionSize(dimension);
+		int numberOfOrders = trainTensor.getOrderSize();
+		MatrixBuilder builder = new MatrixBuilder(numberOfActions, numberOfFeatures, MathCombiner.LAST, numberOfActions * numberOfOrders);
+		int[] featureIndexes = new int[numberOfOrders];
+		for (int position = 0; position < numberOfActions; position++) {
+			for (int featureIndex : getFeatureIndexes(position, featureIndexes)) {
+				builder.append(position, featureIndex, 1F);
 			}
-			index++;
 		}
-		// TODO 考虑重构(.此处似乎就是FactorizationMachineRecommender.getFeatureVector);
-		featureMatrix = SparseMatrix.valueOf(numberOfActions, numberOfFeatures, trainTable);
+		featureMatrix = builder.build();
 	}
 
 	@Override
 	protected void doPractice() {
-		DefaultScalar scalar = DefaultScalar.getInstance();
 		// precomputing Q and errors, for efficiency
 		DenseVector errorVector = DenseVector.valueOf(numberOfActions);
-		int index = 0;
-		int[] keys = new int[trainTensor.getOrderSize()];
-		for (TensorScalar tensorTerm : trainTensor) {
-			tensorTerm.getIndexes(keys);
-			// TODO 因为每次的data都是1,可以考虑避免重复构建featureVector.
-			ArrayVector featureVector = getFeatureVector(keys);
-
-			float rate = tensorTerm.getValue();
-			float predict = predict(scalar, featureVector);
+		doSample((position, featureIndexes, factorSums) -> {
+			getFeatureIndexes(position, featureIndexes);
+			float rate = trainTensor.getValue(position);
+			// 预测的同时缓存因子和,即为Q的行
+			float predict = predictFeatures(featureIndexes, factorSums);
 
 			float error = rate - predict;
-			errorVector.setValue(index, error);
+			errorVector.setValue(position, error);
 
 			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-				float sum = 0F;
-				for (VectorScalar vectorTerm : featureVector) {
-					sum += featureFactors.getValue(vectorTerm.getIndex(), factorIndex) * vectorTerm.getValue();
-				}
-				actionFactors.setValue(index, factorIndex, sum);
+				actionFactors.setValue(position, factorIndex, factorSums[factorIndex]);
 			}
-			index++;
-		}
+			return 0F;
+		});
 
 		/**
 		 * parameter optimized by using formula in [1]. errors updated by using formula:
@@ -183,9 +166,13 @@ public class FMALSRecommender extends FactorizationMachineRecommender {
 	}
 
 	@Override
-	protected float predict(DefaultScalar scalar, ArrayVector featureVector) {
-		float value = super.predict(scalar, featureVector);
+	protected float predictFeatures(int[] featureIndexes, float[] factorSums) {
+		float value = super.predictFeatures(featureIndexes, factorSums);
+		return limitScore(value);
+	}
 
+	@Override
+	protected float limitScore(float value) {
 		if (value > maximumOfScore) {
 			value = maximumOfScore;
 		}
@@ -195,4 +182,9 @@ public class FMALSRecommender extends FactorizationMachineRecommender {
 		return value;
 	}
 
-}
\ No newline at end of file
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
+}
\ No newline at end of file
@@ -3,10 +3,6 @@ package com.jstarcraft.module.recommendation.recommender.collaborative.rating;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
-import com.jstarcraft.module.math.structure.DefaultScalar;
-import com.jstarcraft.module.math.structure.tensor.TensorScalar;
-import com.jstarcraft.module.math.structure.vector.ArrayVector;
-import com.jstarcraft.module.math.structure.vector.VectorScalar;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.recommender.FactorizationMachineRecommender;
 
@@ -32,23 +28,17 @@ public class FMSGDRecommender extends FactorizationMachineRecommender {
 
 	@Override
 	protected void doPractice() {
-		DefaultScalar scalar = DefaultScalar.getInstance();
 		for (int iterationStep = 0; iterationStep < numberOfEpoches; iterationStep++) {
-			totalLoss = 0F;
-			int[] keys = new int[trainTensor.getOrderSize()];
-			for (TensorScalar tensorTerm : trainTensor) {
-				tensorTerm.getIndexes(keys);
-				// TODO 因为每次的data都是1,可以考虑避免重复构建featureVector.
-				ArrayVector featureVector = getFeatureVector(keys);
-
-				float rate = tensorTerm.getValue();
-				float predict = predict(scalar, featureVector);
+			totalLoss = doSample((position, featureIndexes, factorSums) -> {
+				getFeatureIndexes(position, featureIndexes);
+				float rate = trainTensor.getValue(position);
+				float predict = predictFeatures(featureIndexes, factorSums);
 
 				float error = predict - rate;
-				totalLoss += error * error;
+				float loss = error * error;
 
 				// global bias
-				totalLoss += biasRegularization * globalBias * globalBias;
+				loss += biasRegularization * globalBias * globalBias;
 
 				// TODO 因为此处相当与迭代trainTensor的featureVector,所以hW0才会是1D.
 				float hW0 = 1F;
@@ -57,30 +47,29 @@ public class FMSGDRecommender extends FactorizationMachineRecommender {
 				// update w0
 				globalBias += -learnRate * bias;
 
-				// 1-way interactions
-				for (VectorScalar outerTerm : featureVector) {
-					int outerIndex = outerTerm.getIndex();
-					float oldWeight = weightVector.getValue(outerIndex);
-					float featureWeight = outerTerm.getValue();
-					float newWeight = error * featureWeight + weightRegularization * oldWeight;
-					weightVector.shiftValue(outerIndex, -learnRate * newWeight);
-					totalLoss += weightRegularization * oldWeight * oldWeight;
+				// 1-way interactions(特征值都为1)
+				for (int featureIndex : featureIndexes) {
+					float oldWeight = weightVector.getValue(featureIndex);
+					float newWeight = error + weightRegularization * oldWeight;
+					weightVector.shiftValue(featureIndex, -learnRate * newWeight);
+					loss += weightRegularization * oldWeight * oldWeight;
 					// 2-way interactions
 					for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-						float oldValue = featureFactors.getValue(outerIndex, factorIndex);
+						float oldValue = featureFactors.getValue(featureIndex, factorIndex);
+						// Σ(j!=i)v[j][f]使用当前的因子(包括本样本已经更新的特征),特征数量只是维度数量.
 						float newValue = 0F;
-						for (VectorScalar innerTerm : featureVector) {
-							int innerIndex = innerTerm.getIndex();
-							if (innerIndex != outerIndex) {
-								newValue += featureWeight * featureFactors.getValue(innerIndex, factorIndex) * innerTerm.getValue();
+						for (int otherIndex : featureIndexes) {
+							if (otherIndex != featureIndex) {
+								newValue += featureFactors.getValue(otherIndex, factorIndex);
 							}
 						}
 						newValue = error * newValue + factorRegularization * oldValue;
-						featureFactors.shiftValue(outerIndex, factorIndex, -learnRate * newValue);
-						totalLoss += factorRegularization * oldValue * oldValue;
+						featureFactors.shiftValue(featureIndex, factorIndex, -learnRate * newValue);
+						loss += factorRegularization * oldValue * oldValue;
 					}
 				}
-			}
+				return loss;
+			});
 
 			totalLoss *= 0.5F;
 			if (isConverged(iterationStep) && isConverged) {
@@ -91,9 +80,13 @@ public class FMSGDRecommender extends FactorizationMachineRecommender {
 	}
 
 	@Override
-	protected float predict(DefaultScalar scalar, ArrayVector featureVector) {
-		float value = super.predict(scalar, featureVector);
+	protected float predictFeatures(int[] featureIndexes, float[] factorSums) {
+		float value = super.predictFeatures(featureIndexes, factorSums);
+		return limitScore(value);
+	}
 
+	@Override
+	protected float limitScore(float value) {
 		if (value > maximumOfScore) {
 			value = maximumOfScore;
 		}
@@ -103,4 +96,9 @@ public class FMSGDRecommender extends FactorizationMachineRecommender {
 		return value;
 	}
 
-}
\ No newline at end of file
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
+}
\ No newline at end of file
@@ -88,4 +88,9 @@ public class NMFRecommender extends MatrixFactorizationRecommender {
 		}
 	}
 
+	@Override
+	protected boolean isBatchable() {
+		return true;
+	}
+
 }
@@ -1,18 +1,20 @@
 package com.jstarcraft.module.recommendation.recommender.collaborative.rating;
 
+import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
-import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
+import com.jstarcraft.module.math.structure.matrix.RowKernel;
 import com.jstarcraft.module.math.structure.tensor.SparseTensor;
-import com.jstarcraft.module.math.structure.vector.DenseVector;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
-import com.jstarcraft.module.math.structure.vector.VectorMapper;
 import com.jstarcraft.module.math.structure.vector.VectorScalar;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
 /**
  * SVD++ Recommender
  *
@@ -29,6 +31,15 @@ public class SVDPlusPlusRecommender extends BiasedMFRecommender {
 	 */
 	private float regImpItem;
 
+	/** 是否按照用户累加隐式反馈因子的梯度(默认每个评分重新汇总并且更新隐式反馈因子) */
+	private boolean accumulate;
+
+	/** 隐式反馈因子之和(按照用户缓存,训练之后更新,用于预测) */
+	private DenseMatrix implicitFactors;
+
+	/** 缓存(每个线程独立) */
+	private ThreadLocal<DenseMatrix> cacheStorage;
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -38,92 +49,265 @@ public class SVDPlusPlusRecommender extends BiasedMFRecommender {
 	public void prepare(Configuration configuration, SampleAccessor marker, InstanceAccessor model, DataSpace space) {
 		super.prepare(configuration, marker, model, space);
 		regImpItem = configuration.getFloat("rec.impItem.regularization", 0.015F);
+		accumulate = configuration.getBoolean("rec.implicit.accumulate", false);
 		factorMatrix = DenseMatrix.valueOf(numberOfItems, numberOfFactors, MatrixMapper.distributionOf(distribution));
+		implicitFactors = DenseMatrix.valueOf(numberOfUsers, numberOfFactors);
+		cacheStorage = ThreadLocal.withInitial(() -> {
+			return DenseMatrix.valueOf(4, numberOfFactors);
+		});
 	}
 
 	@Override
 	protected void doPractice() {
-		DenseVector factorVector = DenseVector.valueOf(numberOfFactors);
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
-			totalLoss = 0F;
-			for (int userIndex = 0; userIndex < numberOfUsers; userIndex++) {
-				SparseVector userVector = trainMatrix.getRowVector(userIndex);
-				if (userVector.getElementSize() == 0) {
-					continue;
-				}
-				for (VectorScalar outerTerm : userVector) {
-					int itemIndex = outerTerm.getIndex();
-					// TODO 此处可以修改为按userVector重置
-					factorVector.mapValues(VectorMapper.ZERO, null, MathCalculator.SERIAL);
+			totalLoss = accumulate ? doUser(this::practiceByUser) : practiceByRating();
+
+			totalLoss *= 0.5D;
+			if (isConverged(iterationStep) && isConverged) {
+				break;
+			}
+			isLearned(iterationStep);
+			currentLoss = totalLoss;
+		}
+		doUser((userIndex) -> {
+			DenseMatrix cacheMatrix = cacheStorage.get();
+			sumImplicit(trainMatrix.getRowVector(userIndex), cacheMatrix);
+			RowKernel.copy(cacheMatrix, 0, implicitFactors, userIndex);
+			return 0F;
+		});
+	}
+
+	/**
+	 * 按照评分训练所有用户
+	 * 
+	 * <pre>
+	 * 每个评分重新汇总隐式反馈因子,并且立即更新所有评分物品的隐式反馈因子(原来的训练方式).
+	 * </pre>
+	 * 
+	 * @return 损失
+	 */
+	private float practiceByRating() {
+		DenseMatrix cacheMatrix = cacheStorage.get();
+		float loss = 0F;
+		for (int userIndex = 0; userIndex < numberOfUsers; userIndex++) {
+			SparseVector userVector = trainMatrix.getRowVector(userIndex);
+			if (userVector.getElementSize() == 0) {
+				continue;
+			}
+			for (VectorScalar outerTerm : userVector) {
+				int itemIndex = outerTerm.getIndex();
+				float scale = sumImplicit(userVector, cacheMatrix);
+				float error = outerTerm.getValue() - predict(userIndex, itemIndex, cacheMatrix);
+				loss += error * error;
+				// update user and item bias
+				float userBias = userBiases.getValue(userIndex);
+				userBiases.shiftValue(userIndex, learnRate * (error - regBias * userBias));
+				loss += regBias * userBias * userBias;
+				float itemBias = itemBiases.getValue(itemIndex);
+				itemBiases.shiftValue(itemIndex, learnRate * (error - regBias * itemBias));
+				loss += regBias * itemBias * itemBias;
+
+				// update user and item factors
+				// 损失按照因子逐个累加(每个因子先用户与物品,再所有隐式反馈因子)
+				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+					float userFactor = userFactors.getValue(userIndex, factorIndex);
+					float itemFactor = itemFactors.getValue(itemIndex, factorIndex);
+					loss += userRegularization * userFactor * userFactor + itemRegularization * itemFactor * itemFactor;
 					for (VectorScalar innerTerm : userVector) {
-						factorVector.addVector(factorMatrix.getRowVector(innerTerm.getIndex()));
-					}
-					float scale = (float) Math.sqrt(userVector.getElementSize());
-					if (scale > 0F) {
-						factorVector.scaleValues(1F / scale);
+						float factor = factorMatrix.getValue(innerTerm.getIndex(), factorIndex);
+						loss += regImpItem * factor * factor;
 					}
-					float error = outerTerm.getValue() - predict(userIndex, itemIndex, factorVector);
-					totalLoss += error * error;
-					// update user and item bias
+				}
+				RowKernel.copy(itemFactors, itemIndex, cacheMatrix, 2);
+				RowKernel.update(userFactors, userIndex, error, cacheMatrix, 2, userRegularization, learnRate);
+				RowKernel.update(itemFactors, itemIndex, error, cacheMatrix, 1, itemRegularization, learnRate);
+				// 隐式反馈因子的梯度方向
+				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+					cacheMatrix.setValue(2, factorIndex, error * cacheMatrix.getValue(2, factorIndex) / scale);
+				}
+				for (VectorScalar innerTerm : userVector) {
+					RowKernel.update(factorMatrix, innerTerm.getIndex(), 1F, cacheMatrix, 2, regImpItem, learnRate);
+				}
+			}
+		}
+		return loss;
+	}
+
+	/**
+	 * 按照用户训练指定用户的所有评分(rec.implicit.accumulate)
+	 * 
+	 * <pre>
+	 * 隐式反馈因子之和在用户开始时计算一次,隐式反馈因子的梯度累加到缓存,用户结束时一次更新到所有评分物品.
+	 * 每个用户的复杂度由O(|I(u)|^2*k)降低为O(|I(u)|*k),但是隐式反馈因子每个用户只正则化一次,结果与按照评分训练不同.
+	 * </pre>
+	 * 
+	 * @param userIndex
+	 * @return 损失
+	 */
+	private float practiceByUser(int userIndex) {
+		SparseVector userVector = trainMatrix.getRowVector(userIndex);
+		if (userVector.getElementSize() == 0) {
+			return 0F;
+		}
+		// 缓存行:0为隐式反馈因子之和,1为隐式反馈因子与用户因子之和,2为更新之前的物品因子,3为隐式反馈因子的梯度
+		DenseMatrix cacheMatrix = cacheStorage.get();
+		float scale = sumImplicit(userVector, cacheMatrix);
+		RowKernel.zero(cacheMatrix, 3);
+		float loss = 0F;
+		for (VectorScalar term : userVector) {
+			int itemIndex = term.getIndex();
+			float error = term.getValue() - predict(userIndex, itemIndex, cacheMatrix);
+			loss += error * error;
+			// update user and item bias
+			float userBias = userBiases.getValue(userIndex);
+			userBiases.shiftValue(userIndex, learnRate * (error - regBias * userBias));
+			loss += regBias * userBias * userBias;
+			float itemBias = itemBiases.getValue(itemIndex);
+			itemBiases.shiftValue(itemIndex, learnRate * (error - regBias * itemBias));
+			loss += regBias * itemBias * itemBias;
+
+			// update user and item factors
+			loss += userRegularization * RowKernel.dot(userFactors, userIndex, userFactors, userIndex);
+			loss += itemRegularization * RowKernel.dot(itemFactors, itemIndex, itemFactors, itemIndex);
+			RowKernel.copy(itemFactors, itemIndex, cacheMatrix, 2);
+			RowKernel.update(userFactors, userIndex, error, cacheMatrix, 2, userRegularization, learnRate);
+			RowKernel.update(itemFactors, itemIndex, error, cacheMatrix, 1, itemRegularization, learnRate);
+			// 累加隐式反馈因子的梯度方向
+			RowKernel.axpy(error / scale, cacheMatrix, 2, cacheMatrix, 3);
+		}
+		for (VectorScalar term : userVector) {
+			int index = term.getIndex();
+			loss += regImpItem * RowKernel.dot(factorMatrix, index, factorMatrix, index);
+			RowKernel.update(factorMatrix, index, 1F, cacheMatrix, 3, regImpItem, learnRate);
+		}
+		return loss;
+	}
+
+	@Override
+	protected void expand(int numberOfUsers, int numberOfItems) {
+		super.expand(numberOfUsers, numberOfItems);
+		factorMatrix = DenseMatrix.expandOf(factorMatrix, numberOfItems, MatrixMapper.distributionOf(distribution));
+	}
+
+	/**
+	 * 增量更新
+	 * 
+	 * <pre>
+	 * 每次局部迭代先固定物品(包括隐式反馈因子)更新涉及的用户,再固定用户更新涉及的物品.
+	 * 隐式反馈因子只在完整训练时更新.
+	 * </pre>
+	 */
+	@Override
+	public synchronized void update(int[] userIndexes, int[] itemIndexes, float[] scores) {
+		KeyValue<int[], int[]> touches = increment(userIndexes, itemIndexes, scores);
+		DenseMatrix cacheMatrix = DenseMatrix.valueOf(2, numberOfFactors);
+		IntArrayList userItems = new IntArrayList();
+		FloatArrayList userScores = new FloatArrayList();
+		IntArrayList itemUsers = new IntArrayList();
+		FloatArrayList itemScores = new FloatArrayList();
+		for (int iterationStep = 0; iterationStep < numberOfIncrements; iterationStep++) {
+			for (int userIndex : touches.getKey()) {
+				getUserScores(userIndex, userItems, userScores);
+				sumImplicit(userItems, cacheMatrix);
+				for (int position = 0, size = userItems.size(); position < size; position++) {
+					int itemIndex = userItems.getInt(position);
+					float error = userScores.getFloat(position) - predict(userIndex, itemIndex, cacheMatrix);
 					float userBias = userBiases.getValue(userIndex);
 					userBiases.shiftValue(userIndex, learnRate * (error - regBias * userBias));
-					totalLoss += regBias * userBias * userBias;
+					RowKernel.update(userFactors, userIndex, error, itemFactors, itemIndex, userRegularization, learnRate);
+				}
+			}
+			for (int itemIndex : touches.getValue()) {
+				getItemScores(itemIndex, itemUsers, itemScores);
+				for (int position = 0, size = itemUsers.size(); position < size; position++) {
+					int userIndex = itemUsers.getInt(position);
+					getUserScores(userIndex, userItems, userScores);
+					sumImplicit(userItems, cacheMatrix);
+					// 预测之后第1行为隐式反馈因子与用户因子之和
+					float error = itemScores.getFloat(position) - predict(userIndex, itemIndex, cacheMatrix);
 					float itemBias = itemBiases.getValue(itemIndex);
 					itemBiases.shiftValue(itemIndex, learnRate * (error - regBias * itemBias));
-					totalLoss += regBias * itemBias * itemBias;
-
-					// update user and item factors
-					for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-						float userFactor = userFactors.getValue(userIndex, factorIndex);
-						float itemFactor = itemFactors.getValue(itemIndex, factorIndex);
-						userFactors.shiftValue(userIndex, factorIndex, learnRate * (error * itemFactor - userRegularization * userFactor));
-						itemFactors.shiftValue(itemIndex, factorIndex, learnRate * (error * (userFactor + factorVector.getValue(factorIndex)) - itemRegularization * itemFactor));
-						totalLoss += userRegularization * userFactor * userFactor + itemRegularization * itemFactor * itemFactor;
-						for (VectorScalar innerTerm : userVector) {
-							int index = innerTerm.getIndex();
-							float factor = factorMatrix.getValue(index, factorIndex);
-							factorMatrix.shiftValue(index, factorIndex, learnRate * (error * itemFactor / scale - regImpItem * factor));
-							totalLoss += regImpItem * factor * factor;
-						}
-					}
+					RowKernel.update(itemFactors, itemIndex, error, cacheMatrix, 1, itemRegularization, learnRate);
 				}
 			}
+		}
+	}
 
-			totalLoss *= 0.5D;
-			if (isConverged(iterationStep) && isConverged) {
-				break;
-			}
-			isLearned(iterationStep);
-			currentLoss = totalLoss;
+	/**
+	 * 汇总隐式反馈因子到缓存的第0行
+	 * 
+	 * @param itemIndexes
+	 * @param cacheMatrix
+	 */
+	private void sumImplicit(IntArrayList itemIndexes, DenseMatrix cacheMatrix) {
+		RowKernel.zero(cacheMatrix, 0);
+		for (int position = 0, size = itemIndexes.size(); position < size; position++) {
+			RowKernel.axpy(1F, factorMatrix, itemIndexes.getInt(position), cacheMatrix, 0);
+		}
+		float scale = (float) Math.sqrt(itemIndexes.size());
+		if (scale > 0F) {
+			RowKernel.scale(cacheMatrix, 0, 1F / scale);
 		}
 	}
 
-	private float predict(int userIndex, int itemIndex, DenseVector factorVector) {
+	/**
+	 * 汇总隐式反馈因子到缓存的第0行
+	 * 
+	 * @param userVector
+	 * @param cacheMatrix
+	 * @return 归一化系数(评分数量的平方根)
+	 */
+	private float sumImplicit(SparseVector userVector, DenseMatrix cacheMatrix) {
+		RowKernel.zero(cacheMatrix, 0);
+		for (VectorScalar term : userVector) {
+			RowKernel.axpy(1F, factorMatrix, term.getIndex(), cacheMatrix, 0);
+		}
+		float scale = (float) Math.sqrt(userVector.getElementSize());
+		if (scale > 0F) {
+			RowKernel.scale(cacheMatrix, 0, 1F / scale);
+		}
+		return scale;
+	}
+
+	/**
+	 * 预测
+	 * 
+	 * @param userIndex
+	 * @param itemIndex
+	 * @param cacheMatrix
+	 *            第0行为隐式反馈因子,第1行保存隐式反馈因子与用户因子之和
+	 * @return
+	 */
+	private float predict(int userIndex, int itemIndex, DenseMatrix cacheMatrix) {
 		float value = userBiases.getValue(userIndex) + itemBiases.getValue(itemIndex) + meanOfScore;
 		// sum with user factors
-		for (int index = 0; index < numberOfFactors; index++) {
-			value = value + (factorVector.getValue(index) + userFactors.getValue(userIndex, index)) * itemFactors.getValue(itemIndex, index);
-		}
-		return value;
+		RowKernel.copy(cacheMatrix, 0, cacheMatrix, 1);
+		RowKernel.axpy(1F, userFactors, userIndex, cacheMatrix, 1);
+		return RowKernel.dot(value, cacheMatrix, 1, itemFactors, itemIndex);
 	}
 
 	@Override
 	public float predict(int[] dicreteFeatures, float[] continuousFeatures) {
 		int userIndex = dicreteFeatures[userDimension];
 		int itemIndex = dicreteFeatures[itemDimension];
-		SparseVector userVector = trainMatrix.getRowVector(userIndex);
-		// TODO 此处需要重构,取消DenseVector.
-		DenseVector factorVector = DenseVector.valueOf(numberOfFactors);
+		DenseMatrix cacheMatrix = cacheStorage.get();
+		if (userIncrements.getRowScope(userIndex) > 0 || userIndex >= trainMatrix.getRowSize()) {
+			// 包含增量数据的用户
+			IntArrayList itemIndexes = new IntArrayList();
+			getUserScores(userIndex, itemIndexes, new FloatArrayList());
+			sumImplicit(itemIndexes, cacheMatrix);
+			return predict(userIndex, itemIndex, cacheMatrix);
+		}
 		// sum of implicit feedback factors of userIdx with weight Math.sqrt(1.0
 		// / userItemsList.get(userIdx).size())
-		for (VectorScalar term : userVector) {
-			factorVector.addVector(factorMatrix.getRowVector(term.getIndex()));
-		}
-		float scale = (float) Math.sqrt(userVector.getElementSize());
-		if (scale > 0D) {
-			factorVector.scaleValues(1F / scale);
-		}
-		return predict(userIndex, itemIndex, factorVector);
+		RowKernel.copy(implicitFactors, userIndex, cacheMatrix, 0);
+		return predict(userIndex, itemIndex, cacheMatrix);
+	}
+
+	@Override
+	protected boolean isBatchable() {
+		// 逐个预测包含隐式反馈项
+		return false;
 	}
 
 }
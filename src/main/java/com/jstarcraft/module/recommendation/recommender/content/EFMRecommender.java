@@ -4,8 +4,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import com.jstarcraft.core.utility.StringUtility;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.DataSample;
@@ -13,7 +11,9 @@ import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.math.algorithm.MathUtility;
 import com.jstarcraft.module.math.structure.DefaultScalar;
+import com.jstarcraft.module.math.structure.MathCombiner;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+import com.jstarcraft.module.math.structure.matrix.MatrixBuilder;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
@@ -126,7 +126,7 @@ public abstract class EFMRecommender extends MatrixFactorizationRecommender {
 		float[] featureValues = new float[numberOfFeatures];
 
 		// compute UserFeatureAttention
-		Table<Integer, Integer, Float> userTable = HashBasedTable.create();
+		MatrixBuilder builder = new MatrixBuilder(numberOfUsers, numberOfFeatures, MathCombiner.LAST);
 		for (Entry<Integer, StringBuilder> term : userDictionaries.entrySet()) {
 			int userIndex = term.getKey();
 			String[] words = term.getValue().toString().split(" ");
@@ -139,14 +139,14 @@ public abstract class EFMRecommender extends MatrixFactorizationRecommender {
 			for (int featureIndex = 0; featureIndex < numberOfFeatures; featureIndex++) {
 				if (featureValues[featureIndex] != 0F) {
 					float value = (float) (1F + (scoreScale - 1F) * (2F / (1F + Math.exp(-featureValues[featureIndex])) - 1F));
-					userTable.put(userIndex, featureIndex, value);
+					builder.append(userIndex, featureIndex, value);
 					featureValues[featureIndex] = 0F;
 				}
 			}
 		}
-		userFeatures = SparseMatrix.valueOf(numberOfUsers, numberOfFeatures, userTable);
+		userFeatures = builder.build();
 		// compute ItemFeatureQuality
-		Table<Integer, Integer, Float> itemTable = HashBasedTable.create();
+		builder = new MatrixBuilder(numberOfItems, numberOfFeatures, MathCombiner.LAST);
 		for (Entry<Integer, StringBuilder> term : itemDictionaries.entrySet()) {
 			int itemIndex = term.getKey();
 			String[] words = term.getValue().toString().split(" ");
@@ -159,12 +159,12 @@ public abstract class EFMRecommender extends MatrixFactorizationRecommender {
 			for (int featureIndex = 0; featureIndex < numberOfFeatures; featureIndex++) {
 				if (featureValues[featureIndex] != 0F) {
 					float value = (float) (1F + (scoreScale - 1F) / (1F + Math.exp(-featureValues[featureIndex])));
-					itemTable.put(itemIndex, featureIndex, value);
+					builder.append(itemIndex, featureIndex, value);
 					featureValues[featureIndex] = 0F;
 				}
 			}
 		}
-		itemFeatures = SparseMatrix.valueOf(numberOfItems, numberOfFeatures, itemTable);
+		itemFeatures = builder.build();
 
 		logger.info("numUsers:" + numberOfUsers);
 		logger.info("numItems:" + numberOfItems);
@@ -11,7 +11,9 @@ import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.MathCombiner;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+import com.jstarcraft.module.math.structure.matrix.MatrixBuilder;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
@@ -24,6 +26,9 @@ import com.jstarcraft.module.neuralnetwork.activation.SoftmaxActivationFunction;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.recommender.MatrixFactorizationRecommender;
 
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
 /**
  * TopicMF-MT Recommender Yang Bao, Hui Fang, Jie Zhang. TopicMF: Simultaneously
  * Exploiting Ratings and Reviews for Recommendation[C]
@@ -81,7 +86,10 @@ public class TopicMFMTRecommender extends MatrixFactorizationRecommender {
 		// count the number of words, build the word dictionary and
 		// userItemToDoc dictionary
 		Map<String, Integer> wordDictionaries = new HashMap<>();
-		Table<Integer, Integer, Float> documentTable = HashBasedTable.create();
+		// 单词数量在遍历之后才确定,所以先按照坐标格式收集
+		IntArrayList documentIndexes = new IntArrayList();
+		IntArrayList wordIndexes = new IntArrayList();
+		FloatArrayList wordValues = new FloatArrayList();
 		int rowCount = 0;
 		userItemToDocument = HashBasedTable.create();
 		for (DataSample sample : marker) {
@@ -98,17 +106,16 @@ public class TopicMFMTRecommender extends MatrixFactorizationRecommender {
 					wordIndex = numberOfWords++;
 					wordDictionaries.put(word, wordIndex);
 				}
-				Float oldValue = documentTable.get(rowCount, wordIndex);
-				if (oldValue == null) {
-					oldValue = 0F;
-				}
-				float newValue = oldValue + 1F / words.length;
-				documentTable.put(rowCount, wordIndex, newValue);
+				documentIndexes.add(rowCount);
+				wordIndexes.add(wordIndex);
+				wordValues.add(1F / words.length);
 			}
 			rowCount++;
 		}
 		// build W
-		W = SparseMatrix.valueOf(numberOfDocuments, numberOfWords, documentTable);
+		MatrixBuilder builder = new MatrixBuilder(numberOfDocuments, numberOfWords, MathCombiner.SUM, wordValues.size());
+		builder.append(documentIndexes.toIntArray(), wordIndexes.toIntArray(), wordValues.toFloatArray());
+		W = builder.build();
 
 		// init parameters
 		initMean = configuration.getFloat("rec.init.mean", 0.0F);
@@ -4,9 +4,9 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
-import com.jstarcraft.core.utility.RandomUtility;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
@@ -100,100 +100,7 @@ public class SBPRRecommender extends SocialRecommender {
 	@Override
 	protected void doPractice() {
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
-			totalLoss = 0F;
-			for (int sampleIndex = 0, sampleTimes = numberOfUsers * 100; sampleIndex < sampleTimes; sampleIndex++) {
-				// uniformly draw (userIdx, posItemIdx, k, negItemIdx)
-				int userIndex, positiveItemIndex, negativeItemIndex;
-				// userIdx
-				SparseVector userVector;
-				do {
-					userIndex = RandomUtility.randomInteger(numberOfUsers);
-					userVector = trainMatrix.getRowVector(userIndex);
-				} while (userVector.getElementSize() == 0);
-
-				// positive item index
-				positiveItemIndex = userVector.randomKey();
-				float positiveRate = predict(userIndex, positiveItemIndex);
-
-				// social Items List
-				// TODO 应该修改为Set<Integer>合适点.
-				List<Integer> socialList = socialItemList.get(userIndex);
-				Set<Integer> itemSet = userItemSet.get(userIndex);
-				do {
-					negativeItemIndex = RandomUtility.randomInteger(numberOfItems);
-				} while (itemSet.contains(negativeItemIndex) || socialList.contains(negativeItemIndex));
-				float negativeRate = predict(userIndex, negativeItemIndex);
-
-				if (socialList.size() > 0) {
-					// if having social neighbors
-					int itemIndex = socialList.get(RandomUtility.randomInteger(socialList.size()));
-					float socialRate = predict(userIndex, itemIndex);
-					SparseVector socialVector = socialMatrix.getRowVector(userIndex);
-					float socialWeight = 0F;
-					for (VectorScalar term : socialVector) {
-						int socialIndex = term.getIndex();
-						itemSet = userItemSet.get(socialIndex);
-						if (itemSet.contains(itemIndex)) {
-							socialWeight += 1;
-						}
-					}
-					float positiveError = (positiveRate - socialRate) / (1 + socialWeight);
-					float negativeError = socialRate - negativeRate;
-					float positiveGradient = MathUtility.logistic(-positiveError), negativeGradient = MathUtility.logistic(-negativeError);
-					float error = (float) (-Math.log(1 - positiveGradient) - Math.log(1 - negativeGradient));
-					totalLoss += error;
-
-					// update bi, bk, bj
-					float positiveBias = itemBiases.getValue(positiveItemIndex);
-					itemBiases.shiftValue(positiveItemIndex, learnRate * (positiveGradient / (1F + socialWeight) - regBias * positiveBias));
-					totalLoss += regBias * positiveBias * positiveBias;
-					float socialBias = itemBiases.getValue(itemIndex);
-					itemBiases.shiftValue(itemIndex, learnRate * (-positiveGradient / (1F + socialWeight) + negativeGradient - regBias * socialBias));
-					totalLoss += regBias * socialBias * socialBias;
-					float negativeBias = itemBiases.getValue(negativeItemIndex);
-					itemBiases.shiftValue(negativeItemIndex, learnRate * (-negativeGradient - regBias * negativeBias));
-					totalLoss += regBias * negativeBias * negativeBias;
-
-					// update P, Q
-					for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-						float userFactor = userFactors.getValue(userIndex, factorIndex);
-						float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
-						float itemFactor = itemFactors.getValue(itemIndex, factorIndex);
-						float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
-						float delta = positiveGradient * (positiveFactor - itemFactor) / (1F + socialWeight) + negativeGradient * (itemFactor - negativeFactor);
-						userFactors.shiftValue(userIndex, factorIndex, learnRate * (delta - userRegularization * userFactor));
-						itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (positiveGradient * userFactor / (1F + socialWeight) - itemRegularization * positiveFactor));
-						itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (negativeGradient * (-userFactor) - itemRegularization * negativeFactor));
-						delta = positiveGradient * (-userFactor / (1F + socialWeight)) + negativeGradient * userFactor;
-						itemFactors.shiftValue(itemIndex, factorIndex, learnRate * (delta - itemRegularization * itemFactor));
-						totalLoss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negativeFactor * negativeFactor + itemRegularization * itemFactor * itemFactor;
-					}
-				} else {
-					// if no social neighbors, the same as BPR
-					float error = positiveRate - negativeRate;
-					totalLoss += error;
-					float gradient = MathUtility.logistic(-error);
-
-					// update bi, bj
-					float positiveBias = itemBiases.getValue(positiveItemIndex);
-					itemBiases.shiftValue(positiveItemIndex, learnRate * (gradient - regBias * positiveBias));
-					totalLoss += regBias * positiveBias * positiveBias;
-					float negativeBias = itemBiases.getValue(negativeItemIndex);
-					itemBiases.shiftValue(negativeItemIndex, learnRate * (-gradient - regBias * negativeBias));
-					totalLoss += regBias * negativeBias * negativeBias;
-
-					// update user factors, item factors
-					for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-						float userFactor = userFactors.getValue(userIndex, factorIndex);
-						float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
-						float negItemFactorValue = itemFactors.getValue(negativeItemIndex, factorIndex);
-						userFactors.shiftValue(userIndex, factorIndex, learnRate * (gradient * (positiveFactor - negItemFactorValue) - userRegularization * userFactor));
-						itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (gradient * userFactor - itemRegularization * positiveFactor));
-						itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (gradient * (-userFactor) - itemRegularization * negItemFactorValue));
-						totalLoss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negItemFactorValue * negItemFactorValue;
-					}
-				}
-			}
+			totalLoss = doSample(numberOfUsers * 100, this::sample);
 
 			if (isConverged(iterationStep) && isConverged) {
 				break;
@@ -203,6 +110,101 @@ public class SBPRRecommender extends SocialRecommender {
 		}
 	}
 
+	private float sample(Random random, float loss) {
+		// uniformly draw (userIdx, posItemIdx, k, negItemIdx)
+		int userIndex, positiveItemIndex, negativeItemIndex;
+		// userIdx
+		SparseVector userVector;
+		do {
+			userIndex = random.nextInt(numberOfUsers);
+			userVector = trainMatrix.getRowVector(userIndex);
+		} while (userVector.getElementSize() == 0);
+
+		// positive item index
+		positiveItemIndex = userVector.getIndex(random.nextInt(userVector.getElementSize()));
+		float positiveRate = predict(userIndex, positiveItemIndex);
+
+		// social Items List
+		// TODO 应该修改为Set<Integer>合适点.
+		List<Integer> socialList = socialItemList.get(userIndex);
+		Set<Integer> itemSet = userItemSet.get(userIndex);
+		do {
+			negativeItemIndex = random.nextInt(numberOfItems);
+		} while (itemSet.contains(negativeItemIndex) || socialList.contains(negativeItemIndex));
+		float negativeRate = predict(userIndex, negativeItemIndex);
+
+		if (socialList.size() > 0) {
+			// if having social neighbors
+			int itemIndex = socialList.get(random.nextInt(socialList.size()));
+			float socialRate = predict(userIndex, itemIndex);
+			SparseVector socialVector = socialMatrix.getRowVector(userIndex);
+			float socialWeight = 0F;
+			for (VectorScalar term : socialVector) {
+				int socialIndex = term.getIndex();
+				itemSet = userItemSet.get(socialIndex);
+				if (itemSet.contains(itemIndex)) {
+					socialWeight += 1;
+				}
+			}
+			float positiveError = (positiveRate - socialRate) / (1 + socialWeight);
+			float negativeError = socialRate - negativeRate;
+			float positiveGradient = MathUtility.logistic(-positiveError), negativeGradient = MathUtility.logistic(-negativeError);
+			float error = (float) (-Math.log(1 - positiveGradient) - Math.log(1 - negativeGradient));
+			loss += error;
+
+			// update bi, bk, bj
+			float positiveBias = itemBiases.getValue(positiveItemIndex);
+			itemBiases.shiftValue(positiveItemIndex, learnRate * (positiveGradient / (1F + socialWeight) - regBias * positiveBias));
+			loss += regBias * positiveBias * positiveBias;
+			float socialBias = itemBiases.getValue(itemIndex);
+			itemBiases.shiftValue(itemIndex, learnRate * (-positiveGradient / (1F + socialWeight) + negativeGradient - regBias * socialBias));
+			loss += regBias * socialBias * socialBias;
+			float negativeBias = itemBiases.getValue(negativeItemIndex);
+			itemBiases.shiftValue(negativeItemIndex, learnRate * (-negativeGradient - regBias * negativeBias));
+			loss += regBias * negativeBias * negativeBias;
+
+			// update P, Q
+			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				float userFactor = userFactors.getValue(userIndex, factorIndex);
+				float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
+				float itemFactor = itemFactors.getValue(itemIndex, factorIndex);
+				float negativeFactor = itemFactors.getValue(negativeItemIndex, factorIndex);
+				float delta = positiveGradient * (positiveFactor - itemFactor) / (1F + socialWeight) + negativeGradient * (itemFactor - negativeFactor);
+				userFactors.shiftValue(userIndex, factorIndex, learnRate * (delta - userRegularization * userFactor));
+				itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (positiveGradient * userFactor / (1F + socialWeight) - itemRegularization * positiveFactor));
+				itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (negativeGradient * (-userFactor) - itemRegularization * negativeFactor));
+				delta = positiveGradient * (-userFactor / (1F + socialWeight)) + negativeGradient * userFactor;
+				itemFactors.shiftValue(itemIndex, factorIndex, learnRate * (delta - itemRegularization * itemFactor));
+				loss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negativeFactor * negativeFactor + itemRegularization * itemFactor * itemFactor;
+			}
+		} else {
+			// if no social neighbors, the same as BPR
+			float error = positiveRate - negativeRate;
+			loss += error;
+			float gradient = MathUtility.logistic(-error);
+
+			// update bi, bj
+			float positiveBias = itemBiases.getValue(positiveItemIndex);
+			itemBiases.shiftValue(positiveItemIndex, learnRate * (gradient - regBias * positiveBias));
+			loss += regBias * positiveBias * positiveBias;
+			float negativeBias = itemBiases.getValue(negativeItemIndex);
+			itemBiases.shiftValue(negativeItemIndex, learnRate * (-gradient - regBias * negativeBias));
+			loss += regBias * negativeBias * negativeBias;
+
+			// update user factors, item factors
+			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				float userFactor = userFactors.getValue(userIndex, factorIndex);
+				float positiveFactor = itemFactors.getValue(positiveItemIndex, factorIndex);
+				float negItemFactorValue = itemFactors.getValue(negativeItemIndex, factorIndex);
+				userFactors.shiftValue(userIndex, factorIndex, learnRate * (gradient * (positiveFactor - negItemFactorValue) - userRegularization * userFactor));
+				itemFactors.shiftValue(positiveItemIndex, factorIndex, learnRate * (gradient * userFactor - itemRegularization * positiveFactor));
+				itemFactors.shiftValue(negativeItemIndex, factorIndex, learnRate * (gradient * (-userFactor) - itemRegularization * negItemFactorValue));
+				loss += userRegularization * userFactor * userFactor + itemRegularization * positiveFactor * positiveFactor + itemRegularization * negItemFactorValue * negItemFactorValue;
+			}
+		}
+		return loss;
+	}
+
 	@Override
 	protected float predict(int userIndex, int itemIndex) {
 		DefaultScalar scalar = DefaultScalar.getInstance();
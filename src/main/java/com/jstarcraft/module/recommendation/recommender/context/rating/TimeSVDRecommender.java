@@ -14,6 +14,7 @@ import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
+import com.jstarcraft.module.math.structure.matrix.RowKernel;
 import com.jstarcraft.module.math.structure.vector.DenseVector;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.math.structure.vector.VectorMapper;
@@ -67,6 +68,12 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 
 	private DenseMatrix itemExplicitFactors;
 
+	/** 是否按照用户累加隐式反馈因子的梯度(默认每个评分重新汇总并且更新隐式反馈因子) */
+	private boolean accumulate;
+
+	/** 隐式反馈因子之和(按照用户缓存,训练之后更新,只在累加模式用于预测) */
+	private DenseMatrix implicitFactors;
+
 	/**
 	 * {item, bin(t)} bias matrix
 	 */
@@ -118,6 +125,7 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 		super.prepare(configuration, marker, model, space);
 		decay = configuration.getFloat("rec.learnrate.decay", 0.015F);
 		numSections = configuration.getInteger("rec.numBins", 6);
+		accumulate = configuration.getBoolean("rec.implicit.accumulate", false);
 
 		instantField = configuration.getString("data.model.fields.instant");
 		instantDimension = marker.getContinuousDimension(instantField);
@@ -141,6 +149,7 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 		userDayScales = DenseMatrix.valueOf(numberOfUsers, numDays, MatrixMapper.RANDOM);
 		userExplicitFactors = DenseMatrix.valueOf(numberOfUsers, numberOfFactors, MatrixMapper.RANDOM);
 		itemExplicitFactors = DenseMatrix.valueOf(numberOfItems, numberOfFactors, MatrixMapper.RANDOM);
+		implicitFactors = accumulate ? DenseMatrix.valueOf(numberOfUsers, numberOfFactors) : null;
 		// global average date
 		float mean;
 		float sum = 0F;
@@ -169,14 +178,23 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 	@Override
 	protected void doPractice() {
 		DefaultScalar scalar = DefaultScalar.getInstance();
+		// 缓存行(rec.implicit.accumulate):0为隐式反馈因子之和(已经乘以权重),1为隐式反馈因子的梯度
+		DenseMatrix cacheMatrix = DenseMatrix.valueOf(2, numberOfFactors);
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
 			totalLoss = 0F;
+			// userDayBiases与userDayFactors按需初始化(HashBasedTable不是线程安全的),所以按照用户串行训练
 			for (int userIndex = 0; userIndex < numberOfUsers; userIndex++) {
 				SparseVector rateVector = trainMatrix.getRowVector(userIndex);
 				int size = rateVector.getElementSize();
 				if (size == 0) {
 					continue;
 				}
+				float itemWeight = (float) (size > 0 ? Math.pow(size, -0.5F) : 0F);
+				if (accumulate) {
+					// 隐式反馈因子之和在用户开始时计算一次,梯度累加到缓存,用户结束时一次更新
+					sumImplicit(rateVector, itemWeight, cacheMatrix);
+					RowKernel.zero(cacheMatrix, 1);
+				}
 				for (VectorScalar term : rateVector) {
 					int itemExplicitIndex = term.getIndex();
 					float rate = term.getValue();
@@ -205,15 +223,18 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 					// bu(t)
 					predict += userBias + userWeight * deviation + userDayBias;
 					// qi * yj
-					DenseVector itemExplicitVector = itemExplicitFactors.getRowVector(itemExplicitIndex);
-					float sum = 0F;
-					for (VectorScalar rateTerm : rateVector) {
-						int itemImplicitIndex = rateTerm.getIndex();
-						DenseVector itemImpilcitVector = itemImplicitFactors.getRowVector(itemImplicitIndex);
-						sum += scalar.dotProduct(itemImpilcitVector, itemExplicitVector).getValue();
+					if (accumulate) {
+						predict += RowKernel.dot(cacheMatrix, 0, itemExplicitFactors, itemExplicitIndex);
+					} else {
+						DenseVector itemExplicitVector = itemExplicitFactors.getRowVector(itemExplicitIndex);
+						float sum = 0F;
+						for (VectorScalar rateTerm : rateVector) {
+							int itemImplicitIndex = rateTerm.getIndex();
+							DenseVector itemImpilcitVector = itemImplicitFactors.getRowVector(itemImplicitIndex);
+							sum += scalar.dotProduct(itemImpilcitVector, itemExplicitVector).getValue();
+						}
+						predict += sum * itemWeight;
 					}
-					float itemWeight = (float) (size > 0 ? Math.pow(size, -0.5F) : 0F);
-					predict += sum * itemWeight;
 					// qi * pu(t)
 					float[] dayFactors = userDayFactors.get(userIndex, days);
 					if (dayFactors == null) {
@@ -274,19 +295,24 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 						float userImplicitFactor = userImplicitFactors.getValue(userIndex, factorIndex);
 						delta = dayFactors[factorIndex];
 
-						// TODO 此处可以整合操作
-						sum = 0F;
 						// update userExplicitFactor
 						sgd = error * itemExplicitFactor + userRegularization * userExplicitFactor;
 						userExplicitFactors.shiftValue(userIndex, factorIndex, -learnRate * sgd);
 						totalLoss += userRegularization * userExplicitFactor * userExplicitFactor;
 
 						// update itemExplicitFactors
-						for (VectorScalar rateTerm : rateVector) {
-							int itemImplicitIndex = rateTerm.getIndex();
-							sum += itemImplicitFactors.getValue(itemImplicitIndex, factorIndex);
+						float implicitSum;
+						if (accumulate) {
+							implicitSum = cacheMatrix.getValue(0, factorIndex);
+						} else {
+							float sum = 0F;
+							for (VectorScalar rateTerm : rateVector) {
+								int itemImplicitIndex = rateTerm.getIndex();
+								sum += itemImplicitFactors.getValue(itemImplicitIndex, factorIndex);
+							}
+							implicitSum = itemWeight * sum;
 						}
-						sgd = error * (userExplicitFactor + userImplicitFactor * deviation + delta + itemWeight * sum) + itemRegularization * itemExplicitFactor;
+						sgd = error * (userExplicitFactor + userImplicitFactor * deviation + delta + implicitSum) + itemRegularization * itemExplicitFactor;
 						itemExplicitFactors.shiftValue(itemExplicitIndex, factorIndex, -learnRate * sgd);
 						totalLoss += itemRegularization * itemExplicitFactor * itemExplicitFactor;
 
@@ -296,13 +322,17 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 						totalLoss += userRegularization * userImplicitFactor * userImplicitFactor;
 
 						// update itemImplicitFactors
-						// TODO 此处可以整合操作
-						for (VectorScalar rateTerm : rateVector) {
-							int itemImplicitIndex = rateTerm.getIndex();
-							float itemImplicitFactor = itemImplicitFactors.getValue(itemImplicitIndex, factorIndex);
-							sgd = error * itemWeight * itemExplicitFactor + itemRegularization * itemImplicitFactor;
-							itemImplicitFactors.shiftValue(itemImplicitIndex, factorIndex, -learnRate * sgd);
-							totalLoss += itemRegularization * itemImplicitFactor * itemImplicitFactor;
+						if (accumulate) {
+							// 累加itemImplicitFactors的梯度
+							cacheMatrix.shiftValue(1, factorIndex, error * itemWeight * itemExplicitFactor);
+						} else {
+							for (VectorScalar rateTerm : rateVector) {
+								int itemImplicitIndex = rateTerm.getIndex();
+								float itemImplicitFactor = itemImplicitFactors.getValue(itemImplicitIndex, factorIndex);
+								sgd = error * itemWeight * itemExplicitFactor + itemRegularization * itemImplicitFactor;
+								itemImplicitFactors.shiftValue(itemImplicitIndex, factorIndex, -learnRate * sgd);
+								totalLoss += itemRegularization * itemImplicitFactor * itemImplicitFactor;
+							}
 						}
 
 						// update pkt
@@ -313,6 +343,15 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 					}
 
 				}
+
+				if (accumulate) {
+					// update itemImplicitFactors
+					for (VectorScalar rateTerm : rateVector) {
+						int itemImplicitIndex = rateTerm.getIndex();
+						totalLoss += itemRegularization * RowKernel.dot(itemImplicitFactors, itemImplicitIndex, itemImplicitFactors, itemImplicitIndex);
+						RowKernel.update(itemImplicitFactors, itemImplicitIndex, 1F, cacheMatrix, 1, -itemRegularization, -learnRate);
+					}
+				}
 			}
 
 			totalLoss *= 0.5D;
@@ -322,6 +361,30 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 			isLearned(iterationStep);
 			currentLoss = totalLoss;
 		}
+		if (!accumulate) {
+			return;
+		}
+		for (int userIndex = 0; userIndex < numberOfUsers; userIndex++) {
+			SparseVector rateVector = trainMatrix.getRowVector(userIndex);
+			int size = rateVector.getElementSize();
+			sumImplicit(rateVector, (float) (size > 0 ? Math.pow(size, -0.5F) : 0F), cacheMatrix);
+			RowKernel.copy(cacheMatrix, 0, implicitFactors, userIndex);
+		}
+	}
+
+	/**
+	 * 汇总隐式反馈因子到缓存的第0行
+	 * 
+	 * @param rateVector
+	 * @param itemWeight
+	 * @param cacheMatrix
+	 */
+	private void sumImplicit(SparseVector rateVector, float itemWeight, DenseMatrix cacheMatrix) {
+		RowKernel.zero(cacheMatrix, 0);
+		for (VectorScalar rateTerm : rateVector) {
+			RowKernel.axpy(1F, itemImplicitFactors, rateTerm.getIndex(), cacheMatrix, 0);
+		}
+		RowKernel.scale(cacheMatrix, 0, itemWeight);
 	}
 
 	/**
@@ -337,7 +400,6 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 	 */
 	@Override
 	public float predict(int[] dicreteFeatures, float[] continuousFeatures) {
-		DefaultScalar scalar = DefaultScalar.getInstance();
 		int userIndex = dicreteFeatures[userDimension];
 		int itemIndex = dicreteFeatures[itemDimension];
 		// retrieve the test rating timestamp
@@ -353,16 +415,21 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 		value += (userBiases.getValue(userIndex) + userBiasWeights.getValue(userIndex) * deviation + (userDayBiases.contains(userIndex, days) ? userDayBiases.get(userIndex, days) : 0D));
 
 		// qi * yj
-		SparseVector userVector = trainMatrix.getRowVector(userIndex);
+		if (accumulate) {
+			value += RowKernel.dot(implicitFactors, userIndex, itemExplicitFactors, itemIndex);
+		} else {
+			DefaultScalar scalar = DefaultScalar.getInstance();
+			SparseVector userVector = trainMatrix.getRowVector(userIndex);
 
-		float sum = 0F;
-		DenseVector itemExplicitVector = itemExplicitFactors.getRowVector(itemIndex);
-		for (VectorScalar term : userVector) {
-			DenseVector itemImplicitVector = itemImplicitFactors.getRowVector(term.getIndex());
-			sum += scalar.dotProduct(itemImplicitVector, itemExplicitVector).getValue();
+			float sum = 0F;
+			DenseVector itemExplicitVector = itemExplicitFactors.getRowVector(itemIndex);
+			for (VectorScalar term : userVector) {
+				DenseVector itemImplicitVector = itemImplicitFactors.getRowVector(term.getIndex());
+				sum += scalar.dotProduct(itemImplicitVector, itemExplicitVector).getValue();
+			}
+			float weight = (float) (userVector.getElementSize() > 0 ? Math.pow(userVector.getElementSize(), -0.5F) : 0F);
+			value += sum * weight;
 		}
-		float weight = (float) (userVector.getElementSize() > 0 ? Math.pow(userVector.getElementSize(), -0.5F) : 0F);
-		value += sum * weight;
 
 		// qi * pu(t)
 		float[] dayFactors = userDayFactors.get(userIndex, days);
@@ -454,4 +521,10 @@ public class TimeSVDRecommender extends BiasedMFRecommender {
 		}
 	}
 
+	@Override
+	protected boolean isBatchable() {
+		// 逐个预测包含时间相关的偏置与因子
+		return false;
+	}
+
 }
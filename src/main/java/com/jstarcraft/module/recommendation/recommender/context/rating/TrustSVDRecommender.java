@@ -3,11 +3,11 @@ package com.jstarcraft.module.recommendation.recommender.context.rating;
 import com.jstarcraft.module.data.DataSpace;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
-import com.jstarcraft.module.math.structure.DefaultScalar;
 import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
+import com.jstarcraft.module.math.structure.matrix.RowKernel;
 import com.jstarcraft.module.math.structure.vector.DenseVector;
 import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.math.structure.vector.VectorMapper;
@@ -64,6 +64,15 @@ public class TrustSVDRecommender extends SocialRecommender {
 	 */
 	private float regBias;
 
+	/** 是否按照用户累加隐式物品因子与信任用户因子的梯度(默认按照评分训练) */
+	private boolean accumulate;
+
+	/** 隐式物品因子与信任用户因子之和(按照用户缓存,训练之后更新,只在累加模式用于预测) */
+	private DenseMatrix implicitFactors;
+
+	/** 缓存(每个线程独立) */
+	private ThreadLocal<DenseMatrix> cacheStorage;
+
 	/**
 	 * initial the model
 	 *
@@ -76,6 +85,7 @@ public class TrustSVDRecommender extends SocialRecommender {
 		// trusterFactors.init(1.0);
 		// itemExplicitFactors.init(1.0);
 		regBias = configuration.getFloat("rec.bias.regularization", 0.01F);
+		accumulate = configuration.getBoolean("rec.implicit.accumulate", false);
 
 		// initialize userBiases and itemBiases
 		// TODO 考虑重构
@@ -104,6 +114,10 @@ public class TrustSVDRecommender extends SocialRecommender {
 			int count = trainMatrix.getColumnScope(itemIndex);
 			itemWeights.setValue(itemIndex, (float) (count > 0 ? 1F / Math.sqrt(count) : 1F));
 		}
+		implicitFactors = accumulate ? DenseMatrix.valueOf(numberOfUsers, numberOfFactors) : null;
+		cacheStorage = ThreadLocal.withInitial(() -> {
+			return DenseMatrix.valueOf(6, numberOfFactors);
+		});
 	}
 
 	/**
@@ -114,128 +128,26 @@ public class TrustSVDRecommender extends SocialRecommender {
 	 */
 	@Override
 	protected void doPractice() {
-		DefaultScalar scalar = DefaultScalar.getInstance();
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
-			totalLoss = 0F;
 			// temp user Factors and trustee factors
 			DenseMatrix trusterDeltas = DenseMatrix.valueOf(numberOfUsers, numberOfFactors);
 			DenseMatrix trusteeDeltas = DenseMatrix.valueOf(numberOfUsers, numberOfFactors);
 
-			for (MatrixScalar term : trainMatrix) {
-				int trusterIndex = term.getRow(); // user userIdx
-				int itemExplicitIndex = term.getColumn(); // item itemIdx
-				// real rating on item itemIdx rated by user userIdx
-				float rate = term.getValue();
-				// To speed up, directly access the prediction instead of
-				// invoking "predictRating = predict(userIdx,itemIdx)"
-				float userBias = userBiases.getValue(trusterIndex);
-				float itemBias = itemBiases.getValue(itemExplicitIndex);
-				// TODO 考虑重构减少迭代
-				DenseVector trusterVector = trusterFactors.getRowVector(trusterIndex);
-				DenseVector itemExplicitVector = itemExplicitFactors.getRowVector(itemExplicitIndex);
-				float predict = meanOfScore + userBias + itemBias + scalar.dotProduct(trusterVector, itemExplicitVector).getValue();
-
-				// get the implicit influence predict rating using items rated
-				// by user userIdx
-				SparseVector rateVector = trainMatrix.getRowVector(trusterIndex);
-				if (rateVector.getElementSize() > 0) {
-					float sum = 0F;
-					for (VectorScalar rateTerm : rateVector) {
-						int itemImplicitIndex = rateTerm.getIndex();
-						DenseVector itemImplicitVector = itemImplicitFactors.getRowVector(itemImplicitIndex);
-						sum += scalar.dotProduct(itemImplicitVector, itemExplicitVector).getValue();
-					}
-					predict += sum / Math.sqrt(rateVector.getElementSize());
-				}
-
-				// the user-specific influence of users (trustees)trusted by
-				// user userIdx
-				SparseVector socialVector = socialMatrix.getRowVector(trusterIndex);
-				if (socialVector.getElementSize() > 0) {
-					float sum = 0F;
-					for (VectorScalar socialTerm : socialVector) {
-						int trusteeIndex = socialTerm.getIndex();
-						sum += scalar.dotProduct(trusteeFactors.getRowVector(trusteeIndex), itemExplicitVector).getValue();
-					}
-					predict += sum / Math.sqrt(socialVector.getElementSize());
-				}
-				float error = predict - rate;
-				totalLoss += error * error;
-
-				float trusterDenominator = (float) Math.sqrt(rateVector.getElementSize());
-				float trusteeDenominator = (float) Math.sqrt(socialVector.getElementSize());
-
-				float trusterWeight = 1F / trusterDenominator;
-				float itemExplicitWeight = itemWeights.getValue(itemExplicitIndex);
-
-				// update factors
-				// stochastic gradient descent sgd
-				float sgd = error + regBias * trusterWeight * userBias;
-				userBiases.shiftValue(trusterIndex, -learnRate * sgd);
-				sgd = error + regBias * itemExplicitWeight * itemBias;
-				itemBiases.shiftValue(itemExplicitIndex, -learnRate * sgd);
-				totalLoss += regBias * trusterWeight * userBias * userBias + regBias * itemExplicitWeight * itemBias * itemBias;
-
-				float[] itemSums = new float[numberOfFactors];
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float sum = 0F;
-					for (VectorScalar rateTerm : rateVector) {
-						int itemImplicitIndex = rateTerm.getIndex();
-						sum += itemImplicitFactors.getValue(itemImplicitIndex, factorIndex);
-					}
-					itemSums[factorIndex] = trusterDenominator > 0F ? sum / trusterDenominator : sum;
-				}
-
-				float[] trusteesSums = new float[numberOfFactors];
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float sum = 0F;
-					for (VectorScalar socialTerm : socialVector) {
-						int trusteeIndex = socialTerm.getIndex();
-						sum += trusteeFactors.getValue(trusteeIndex, factorIndex);
-					}
-					trusteesSums[factorIndex] = trusteeDenominator > 0F ? sum / trusteeDenominator : sum;
-				}
-
-				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
-					float userFactor = trusterFactors.getValue(trusterIndex, factorIndex);
-					float itemFactor = itemExplicitFactors.getValue(itemExplicitIndex, factorIndex);
-					float userDelta = error * itemFactor + userRegularization * trusterWeight * userFactor;
-					float itemDelta = error * (userFactor + itemSums[factorIndex] + trusteesSums[factorIndex]) + itemRegularization * itemExplicitWeight * itemFactor;
-					// update trusterDeltas
-					trusterDeltas.shiftValue(trusterIndex, factorIndex, userDelta);
-					// update itemExplicitFactors
-					itemExplicitFactors.shiftValue(itemExplicitIndex, factorIndex, -learnRate * itemDelta);
-					totalLoss += userRegularization * trusterWeight * userFactor * userFactor + itemRegularization * itemExplicitWeight * itemFactor * itemFactor;
-
-					// update itemImplicitFactors
-					for (VectorScalar rateTerm : rateVector) {
-						int itemImplicitIndex = rateTerm.getIndex();
-						float itemImplicitFactor = itemImplicitFactors.getValue(itemImplicitIndex, factorIndex);
-						float itemImplicitWeight = itemWeights.getValue(itemImplicitIndex);
-						float itemImplicitDelta = error * itemFactor / trusterDenominator + itemRegularization * itemImplicitWeight * itemImplicitFactor;
-						itemImplicitFactors.shiftValue(itemImplicitIndex, factorIndex, -learnRate * itemImplicitDelta);
-						totalLoss += itemRegularization * itemImplicitWeight * itemImplicitFactor * itemImplicitFactor;
-					}
-
-					// update trusteeDeltas
-					for (VectorScalar socialTerm : socialVector) {
-						int trusteeIndex = socialTerm.getIndex();
-						float trusteeFactor = trusteeFactors.getValue(trusteeIndex, factorIndex);
-						float trusteeWeight = trusteeWeights.getValue(trusteeIndex);
-						float trusteeDelta = error * itemFactor / trusteeDenominator + userRegularization * trusteeWeight * trusteeFactor;
-						trusteeDeltas.shiftValue(trusteeIndex, factorIndex, trusteeDelta);
-						totalLoss += userRegularization * trusteeWeight * trusteeFactor * trusteeFactor;
-					}
+			if (accumulate) {
+				// 多个用户信任同一个用户时共享trusteeDeltas,所以按照用户串行训练
+				totalLoss = 0F;
+				for (int userIndex = 0; userIndex < numberOfUsers; userIndex++) {
+					totalLoss += practiceByUser(userIndex, trusterDeltas, trusteeDeltas);
 				}
+			} else {
+				totalLoss = practiceByRating(trusterDeltas, trusteeDeltas);
 			}
 
 			for (MatrixScalar socialTerm : socialMatrix) {
 				int trusterIndex = socialTerm.getRow();
 				int trusteeIndex = socialTerm.getColumn();
 				float rate = socialTerm.getValue();
-				DenseVector trusterVector = trusterFactors.getRowVector(trusterIndex);
-				DenseVector trusteeVector = trusteeFactors.getRowVector(trusteeIndex);
-				float predtict = scalar.dotProduct(trusterVector, trusteeVector).getValue();
+				float predtict = RowKernel.dot(trusterFactors, trusterIndex, trusteeFactors, trusteeIndex);
 				float error = predtict - rate;
 				totalLoss += socialRegularization * error * error;
 				error = socialRegularization * error;
@@ -244,11 +156,10 @@ public class TrustSVDRecommender extends SocialRecommender {
 				// update trusterDeltas,trusteeDeltas
 				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
 					float trusterFactor = trusterFactors.getValue(trusterIndex, factorIndex);
-					float trusteeFactor = trusteeFactors.getValue(trusteeIndex, factorIndex);
-					trusterDeltas.shiftValue(trusterIndex, factorIndex, error * trusteeFactor + socialRegularization * trusterWeight * trusterFactor);
-					trusteeDeltas.shiftValue(trusteeIndex, factorIndex, error * trusterFactor);
 					totalLoss += socialRegularization * trusterWeight * trusterFactor * trusterFactor;
 				}
+				RowKernel.add(trusterDeltas, trusterIndex, error, trusteeFactors, trusteeIndex, socialRegularization * trusterWeight, trusterFactors, trusterIndex);
+				RowKernel.axpy(error, trusterFactors, trusterIndex, trusteeDeltas, trusteeIndex);
 			}
 
 			trusterFactors.mapValues((row, column, value, message) -> {
@@ -265,6 +176,268 @@ public class TrustSVDRecommender extends SocialRecommender {
 			isLearned(iterationStep);
 			currentLoss = totalLoss;
 		} // end of training
+		if (!accumulate) {
+			return;
+		}
+		doUser((userIndex) -> {
+			DenseMatrix cacheMatrix = cacheStorage.get();
+			sumImplicit(userIndex, cacheMatrix);
+			RowKernel.copy(cacheMatrix, 0, implicitFactors, userIndex);
+			RowKernel.axpy(1F, cacheMatrix, 1, implicitFactors, userIndex);
+			return 0F;
+		});
+	}
+
+	/**
+	 * 按照评分训练(原来的训练方式)
+	 * 
+	 * <pre>
+	 * 每个评分重新汇总隐式物品因子与信任用户因子,并且立即更新所有评分物品的隐式物品因子.
+	 * </pre>
+	 * 
+	 * @param trusterDeltas
+	 * @param trusteeDeltas
+	 * @return 损失
+	 */
+	private float practiceByRating(DenseMatrix trusterDeltas, DenseMatrix trusteeDeltas) {
+		// 缓存行:0为隐式物品因子之和,1为信任用户因子之和,2为物品因子的梯度方向,3为更新之前的物品因子,4为隐式物品因子的梯度方向,5为信任用户因子的梯度方向
+		DenseMatrix cacheMatrix = cacheStorage.get();
+		float loss = 0F;
+		for (MatrixScalar term : trainMatrix) {
+			int trusterIndex = term.getRow(); // user userIdx
+			int itemExplicitIndex = term.getColumn(); // item itemIdx
+			// real rating on item itemIdx rated by user userIdx
+			float rate = term.getValue();
+			// To speed up, directly access the prediction instead of
+			// invoking "predictRating = predict(userIdx,itemIdx)"
+			float userBias = userBiases.getValue(trusterIndex);
+			float itemBias = itemBiases.getValue(itemExplicitIndex);
+			float predict = meanOfScore + userBias + itemBias + RowKernel.dot(trusterFactors, trusterIndex, itemExplicitFactors, itemExplicitIndex);
+
+			// get the implicit influence predict rating using items rated
+			// by user userIdx
+			SparseVector rateVector = trainMatrix.getRowVector(trusterIndex);
+			if (rateVector.getElementSize() > 0) {
+				float sum = 0F;
+				for (VectorScalar rateTerm : rateVector) {
+					int itemImplicitIndex = rateTerm.getIndex();
+					sum += RowKernel.dot(itemImplicitFactors, itemImplicitIndex, itemExplicitFactors, itemExplicitIndex);
+				}
+				predict += sum / Math.sqrt(rateVector.getElementSize());
+			}
+
+			// the user-specific influence of users (trustees)trusted by
+			// user userIdx
+			SparseVector socialVector = socialMatrix.getRowVector(trusterIndex);
+			if (socialVector.getElementSize() > 0) {
+				float sum = 0F;
+				for (VectorScalar socialTerm : socialVector) {
+					int trusteeIndex = socialTerm.getIndex();
+					sum += RowKernel.dot(trusteeFactors, trusteeIndex, itemExplicitFactors, itemExplicitIndex);
+				}
+				predict += sum / Math.sqrt(socialVector.getElementSize());
+			}
+			float error = predict - rate;
+			loss += error * error;
+
+			float trusterDenominator = (float) Math.sqrt(rateVector.getElementSize());
+			float trusteeDenominator = (float) Math.sqrt(socialVector.getElementSize());
+
+			float trusterWeight = 1F / trusterDenominator;
+			float itemExplicitWeight = itemWeights.getValue(itemExplicitIndex);
+
+			// update factors
+			// stochastic gradient descent sgd
+			float sgd = error + regBias * trusterWeight * userBias;
+			userBiases.shiftValue(trusterIndex, -learnRate * sgd);
+			sgd = error + regBias * itemExplicitWeight * itemBias;
+			itemBiases.shiftValue(itemExplicitIndex, -learnRate * sgd);
+			loss += regBias * trusterWeight * userBias * userBias + regBias * itemExplicitWeight * itemBias * itemBias;
+
+			RowKernel.zero(cacheMatrix, 0);
+			for (VectorScalar rateTerm : rateVector) {
+				RowKernel.axpy(1F, itemImplicitFactors, rateTerm.getIndex(), cacheMatrix, 0);
+			}
+			if (trusterDenominator > 0F) {
+				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+					cacheMatrix.setValue(0, factorIndex, cacheMatrix.getValue(0, factorIndex) / trusterDenominator);
+				}
+			}
+
+			RowKernel.zero(cacheMatrix, 1);
+			for (VectorScalar socialTerm : socialVector) {
+				RowKernel.axpy(1F, trusteeFactors, socialTerm.getIndex(), cacheMatrix, 1);
+			}
+			if (trusteeDenominator > 0F) {
+				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+					cacheMatrix.setValue(1, factorIndex, cacheMatrix.getValue(1, factorIndex) / trusteeDenominator);
+				}
+			}
+
+			// 损失按照因子逐个累加(每个因子先用户与物品,再隐式物品因子,最后信任用户因子)
+			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				float userFactor = trusterFactors.getValue(trusterIndex, factorIndex);
+				float itemFactor = itemExplicitFactors.getValue(itemExplicitIndex, factorIndex);
+				loss += userRegularization * trusterWeight * userFactor * userFactor + itemRegularization * itemExplicitWeight * itemFactor * itemFactor;
+				for (VectorScalar rateTerm : rateVector) {
+					int itemImplicitIndex = rateTerm.getIndex();
+					float itemImplicitFactor = itemImplicitFactors.getValue(itemImplicitIndex, factorIndex);
+					loss += itemRegularization * itemWeights.getValue(itemImplicitIndex) * itemImplicitFactor * itemImplicitFactor;
+				}
+				for (VectorScalar socialTerm : socialVector) {
+					int trusteeIndex = socialTerm.getIndex();
+					float trusteeFactor = trusteeFactors.getValue(trusteeIndex, factorIndex);
+					loss += userRegularization * trusteeWeights.getValue(trusteeIndex) * trusteeFactor * trusteeFactor;
+				}
+			}
+
+			// 误差为predict - rate,所以学习率与正则项取负数
+			RowKernel.copy(trusterFactors, trusterIndex, cacheMatrix, 2);
+			RowKernel.axpy(1F, cacheMatrix, 0, cacheMatrix, 2);
+			RowKernel.axpy(1F, cacheMatrix, 1, cacheMatrix, 2);
+			RowKernel.copy(itemExplicitFactors, itemExplicitIndex, cacheMatrix, 3);
+			// update trusterDeltas
+			RowKernel.add(trusterDeltas, trusterIndex, error, cacheMatrix, 3, userRegularization * trusterWeight, trusterFactors, trusterIndex);
+			// update itemExplicitFactors
+			RowKernel.update(itemExplicitFactors, itemExplicitIndex, error, cacheMatrix, 2, -itemRegularization * itemExplicitWeight, -learnRate);
+
+			// update itemImplicitFactors
+			for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+				cacheMatrix.setValue(4, factorIndex, error * cacheMatrix.getValue(3, factorIndex) / trusterDenominator);
+			}
+			for (VectorScalar rateTerm : rateVector) {
+				int itemImplicitIndex = rateTerm.getIndex();
+				float itemImplicitWeight = itemWeights.getValue(itemImplicitIndex);
+				RowKernel.update(itemImplicitFactors, itemImplicitIndex, 1F, cacheMatrix, 4, -itemRegularization * itemImplicitWeight, -learnRate);
+			}
+
+			// update trusteeDeltas
+			if (socialVector.getElementSize() > 0) {
+				for (int factorIndex = 0; factorIndex < numberOfFactors; factorIndex++) {
+					cacheMatrix.setValue(5, factorIndex, error * cacheMatrix.getValue(3, factorIndex) / trusteeDenominator);
+				}
+				for (VectorScalar socialTerm : socialVector) {
+					int trusteeIndex = socialTerm.getIndex();
+					float trusteeWeight = trusteeWeights.getValue(trusteeIndex);
+					RowKernel.add(trusteeDeltas, trusteeIndex, 1F, cacheMatrix, 5, userRegularization * trusteeWeight, trusteeFactors, trusteeIndex);
+				}
+			}
+		}
+		return loss;
+	}
+
+	/**
+	 * 按照用户训练指定用户的所有评分(rec.implicit.accumulate)
+	 * 
+	 * <pre>
+	 * 用户因子与信任用户因子在周期之内不变(梯度先累加到trusterDeltas/trusteeDeltas),
+	 * 所以隐式物品因子之和与信任用户因子之和在用户开始时计算一次即可.
+	 * 隐式物品因子与信任用户因子的梯度累加到缓存,用户结束时一次更新到所有评分物品与信任用户.
+	 * </pre>
+	 * 
+	 * @param trusterIndex
+	 * @param trusterDeltas
+	 * @param trusteeDeltas
+	 * @return 损失
+	 */
+	private float practiceByUser(int trusterIndex, DenseMatrix trusterDeltas, DenseMatrix trusteeDeltas) {
+		SparseVector rateVector = trainMatrix.getRowVector(trusterIndex);
+		int rateSize = rateVector.getElementSize();
+		if (rateSize == 0) {
+			return 0F;
+		}
+		SparseVector socialVector = socialMatrix.getRowVector(trusterIndex);
+		// 缓存行:0为隐式物品因子之和,1为信任用户因子之和,2为物品因子的梯度方向,3为更新之前的物品因子,4为隐式物品因子的梯度,5为信任用户因子的梯度
+		DenseMatrix cacheMatrix = cacheStorage.get();
+		sumImplicit(trusterIndex, cacheMatrix);
+		RowKernel.copy(trusterFactors, trusterIndex, cacheMatrix, 2);
+		RowKernel.axpy(1F, cacheMatrix, 0, cacheMatrix, 2);
+		RowKernel.axpy(1F, cacheMatrix, 1, cacheMatrix, 2);
+		RowKernel.zero(cacheMatrix, 4);
+		RowKernel.zero(cacheMatrix, 5);
+
+		float trusterDenominator = (float) Math.sqrt(rateSize);
+		float trusteeDenominator = (float) Math.sqrt(socialVector.getElementSize());
+		float trusterWeight = 1F / trusterDenominator;
+		float loss = 0F;
+		for (VectorScalar term : rateVector) {
+			int itemExplicitIndex = term.getIndex(); // item itemIdx
+			// real rating on item itemIdx rated by user userIdx
+			float rate = term.getValue();
+			float userBias = userBiases.getValue(trusterIndex);
+			float itemBias = itemBiases.getValue(itemExplicitIndex);
+			// 第2行为用户因子,隐式物品因子之和与信任用户因子之和
+			float predict = RowKernel.dot(meanOfScore + userBias + itemBias, cacheMatrix, 2, itemExplicitFactors, itemExplicitIndex);
+			float error = predict - rate;
+			loss += error * error;
+
+			float itemExplicitWeight = itemWeights.getValue(itemExplicitIndex);
+
+			// update factors
+			// stochastic gradient descent sgd
+			float sgd = error + regBias * trusterWeight * userBias;
+			userBiases.shiftValue(trusterIndex, -learnRate * sgd);
+			sgd = error + regBias * itemExplicitWeight * itemBias;
+			itemBiases.shiftValue(itemExplicitIndex, -learnRate * sgd);
+			loss += regBias * trusterWeight * userBias * userBias + regBias * itemExplicitWeight * itemBias * itemBias;
+
+			// 误差为predict - rate,所以学习率与正则项取负数
+			loss += userRegularization * trusterWeight * RowKernel.dot(trusterFactors, trusterIndex, trusterFactors, trusterIndex);
+			loss += itemRegularization * itemExplicitWeight * RowKernel.dot(itemExplicitFactors, itemExplicitIndex, itemExplicitFactors, itemExplicitIndex);
+			RowKernel.copy(itemExplicitFactors, itemExplicitIndex, cacheMatrix, 3);
+			// update trusterDeltas
+			RowKernel.add(trusterDeltas, trusterIndex, error, cacheMatrix, 3, userRegularization * trusterWeight, trusterFactors, trusterIndex);
+			// update itemExplicitFactors
+			RowKernel.update(itemExplicitFactors, itemExplicitIndex, error, cacheMatrix, 2, -itemRegularization * itemExplicitWeight, -learnRate);
+
+			// 累加itemImplicitFactors与trusteeDeltas的梯度
+			RowKernel.axpy(error / trusterDenominator, cacheMatrix, 3, cacheMatrix, 4);
+			if (trusteeDenominator > 0F) {
+				RowKernel.axpy(error / trusteeDenominator, cacheMatrix, 3, cacheMatrix, 5);
+			}
+		}
+
+		// update itemImplicitFactors
+		for (VectorScalar rateTerm : rateVector) {
+			int itemImplicitIndex = rateTerm.getIndex();
+			float itemImplicitWeight = itemWeights.getValue(itemImplicitIndex);
+			loss += itemRegularization * itemImplicitWeight * RowKernel.dot(itemImplicitFactors, itemImplicitIndex, itemImplicitFactors, itemImplicitIndex);
+			RowKernel.update(itemImplicitFactors, itemImplicitIndex, 1F, cacheMatrix, 4, -itemRegularization * itemImplicitWeight, -learnRate);
+		}
+
+		// update trusteeDeltas(信任用户因子在周期之内不变,每个评分的正则项合并为评分数量倍)
+		for (VectorScalar socialTerm : socialVector) {
+			int trusteeIndex = socialTerm.getIndex();
+			float trusteeWeight = trusteeWeights.getValue(trusteeIndex);
+			loss += rateSize * userRegularization * trusteeWeight * RowKernel.dot(trusteeFactors, trusteeIndex, trusteeFactors, trusteeIndex);
+			RowKernel.add(trusteeDeltas, trusteeIndex, 1F, cacheMatrix, 5, rateSize * userRegularization * trusteeWeight, trusteeFactors, trusteeIndex);
+		}
+		return loss;
+	}
+
+	/**
+	 * 汇总隐式物品因子到缓存的第0行,信任用户因子到缓存的第1行
+	 * 
+	 * @param userIndex
+	 * @param cacheMatrix
+	 */
+	private void sumImplicit(int userIndex, DenseMatrix cacheMatrix) {
+		SparseVector rateVector = trainMatrix.getRowVector(userIndex);
+		RowKernel.zero(cacheMatrix, 0);
+		for (VectorScalar rateTerm : rateVector) {
+			RowKernel.axpy(1F, itemImplicitFactors, rateTerm.getIndex(), cacheMatrix, 0);
+		}
+		if (rateVector.getElementSize() > 0) {
+			RowKernel.scale(cacheMatrix, 0, (float) (1D / Math.sqrt(rateVector.getElementSize())));
+		}
+		SparseVector socialVector = socialMatrix.getRowVector(userIndex);
+		RowKernel.zero(cacheMatrix, 1);
+		for (VectorScalar socialTerm : socialVector) {
+			RowKernel.axpy(1F, trusteeFactors, socialTerm.getIndex(), cacheMatrix, 1);
+		}
+		if (socialVector.getElementSize() > 0) {
+			RowKernel.scale(cacheMatrix, 1, (float) (1D / Math.sqrt(socialVector.getElementSize())));
+		}
 	}
 
 	/**
@@ -280,12 +453,15 @@ public class TrustSVDRecommender extends SocialRecommender {
 	 */
 	@Override
 	public float predict(int[] dicreteFeatures, float[] continuousFeatures) {
-		DefaultScalar scalar = DefaultScalar.getInstance();
 		int userIndex = dicreteFeatures[userDimension];
 		int itemIndex = dicreteFeatures[itemDimension];
-		DenseVector trusterVector = trusterFactors.getRowVector(userIndex);
-		DenseVector itemExplicitVector = itemExplicitFactors.getRowVector(itemIndex);
-		float value = meanOfScore + userBiases.getValue(userIndex) + itemBiases.getValue(itemIndex) + scalar.dotProduct(trusterVector, itemExplicitVector).getValue();
+		int itemExplicitIndex = itemIndex;
+		float value = meanOfScore + userBiases.getValue(userIndex) + itemBiases.getValue(itemIndex) + RowKernel.dot(trusterFactors, userIndex, itemExplicitFactors, itemExplicitIndex);
+		if (accumulate) {
+			// 隐式物品因子与信任用户因子之和已经按照用户缓存
+			value += RowKernel.dot(implicitFactors, userIndex, itemExplicitFactors, itemExplicitIndex);
+			return value;
+		}
 
 		// the implicit influence of items rated by user in the past on the
 		// ratings of unknown items in the future.
@@ -294,9 +470,7 @@ public class TrustSVDRecommender extends SocialRecommender {
 			float sum = 0F;
 			for (VectorScalar rateTerm : rateVector) {
 				itemIndex = rateTerm.getIndex();
-				// TODO 考虑重构减少迭代
-				DenseVector itemImplicitVector = itemImplicitFactors.getRowVector(itemIndex);
-				sum += scalar.dotProduct(itemImplicitVector, itemExplicitVector).getValue();
+				sum += RowKernel.dot(itemImplicitFactors, itemIndex, itemExplicitFactors, itemExplicitIndex);
 			}
 			value += sum / Math.sqrt(rateVector.getElementSize());
 		}
@@ -307,8 +481,7 @@ public class TrustSVDRecommender extends SocialRecommender {
 			float sum = 0F;
 			for (VectorScalar socialTerm : socialVector) {
 				userIndex = socialTerm.getIndex();
-				DenseVector trusteeVector = trusteeFactors.getRowVector(userIndex);
-				sum += scalar.dotProduct(trusteeVector, itemExplicitVector).getValue();
+				sum += RowKernel.dot(trusteeFactors, userIndex, itemExplicitFactors, itemExplicitIndex);
 			}
 			value += sum / Math.sqrt(socialVector.getElementSize());
 		}
@@ -29,6 +29,7 @@ import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.Nd4jMatrix;
 import com.jstarcraft.module.neuralnetwork.MatrixFactory;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 import com.jstarcraft.module.neuralnetwork.activation.ActivationFunction;
 import com.jstarcraft.module.neuralnetwork.layer.ParameterConfigurator;
 import com.jstarcraft.module.neuralnetwork.layer.WeightLayer;
@@ -45,6 +46,9 @@ public class CDAELayer extends WeightLayer {
 
 	private int numberOfUsers;
 
+	/** 样本的行对应的用户(为null代表样本的行就是用户),不参与持久化 */
+	private int[] userIndexes;
+
 	public CDAELayer(int numberOfUsers, int numberOfInputs, int numberOfOutputs, MatrixFactory factory, Map<String, ParameterConfigurator> configurators, Mode mode, ActivationFunction function) {
 		super(numberOfInputs, numberOfOutputs, factory, configurators, mode, function);
 
@@ -67,8 +71,12 @@ public class CDAELayer extends WeightLayer {
 
 		Float userRegularization = configurators.get(USER_KEY).getL1Regularization();
 		MathMatrix userParameters = parameters.get(USER_KEY);
+		SparseRows userRows = sparses.get(USER_KEY);
 		if (userRegularization != null && userParameters != null) {
-			if (userParameters instanceof Nd4jMatrix) {
+			if (userRows != null) {
+				float norm = userRows.getAbsoluteSum(userParameters);
+				l1Sum += userRegularization * norm;
+			} else if (userParameters instanceof Nd4jMatrix) {
 				INDArray array = Nd4jMatrix.class.cast(userParameters).getArray();
 				float norm = array.norm1Number().floatValue();
 				l1Sum += userRegularization * norm;
@@ -90,8 +98,12 @@ public class CDAELayer extends WeightLayer {
 
 		Float userRegularization = configurators.get(USER_KEY).getL2Regularization();
 		MathMatrix userParameters = parameters.get(USER_KEY);
+		SparseRows userRows = sparses.get(USER_KEY);
 		if (userRegularization != null && userParameters != null) {
-			if (userParameters instanceof Nd4jMatrix) {
+			if (userRows != null) {
+				float norm = userRows.getSquareSum(userParameters);
+				l2Sum += 0.5F * userRegularization * norm;
+			} else if (userParameters instanceof Nd4jMatrix) {
 				INDArray array = Nd4jMatrix.class.cast(userParameters).getArray();
 				float norm = array.norm2Number().floatValue();
 				l2Sum += 0.5F * userRegularization * norm;
@@ -107,14 +119,33 @@ public class CDAELayer extends WeightLayer {
 		return l2Sum;
 	}
 
+	/**
+	 * 设置样本的行对应的用户(小批量训练时由批次迭代器提供,内容随批次更新,负数代表补齐的行)
+	 * 
+	 * @param userIndexes
+	 */
+	public void setUserIndexes(int[] userIndexes) {
+		this.userIndexes = userIndexes;
+	}
+
+	private int getUserIndex(int rowIndex) {
+		return userIndexes == null ? rowIndex : userIndexes[rowIndex];
+	}
+
 	@Override
 	public void doCache(MatrixFactory factory, KeyValue<MathMatrix, MathMatrix> samples) {
 		// 检查维度
-		if (samples.getKey().getRowSize() != numberOfUsers) {
+		if (samples.getKey().getRowSize() != (userIndexes == null ? numberOfUsers : userIndexes.length)) {
 			throw new IllegalArgumentException();
 		}
 
 		super.doCache(factory, samples);
+
+		// 用户梯度只有样本对应的行会被触及,惰性更新时按照稀疏行处理
+		if (lazy && !sparses.containsKey(USER_KEY)) {
+			gradients.get(USER_KEY).setValues(0F);
+			sparses.put(USER_KEY, new SparseRows(numberOfUsers));
+		}
 	}
 
 	@Override
@@ -129,7 +160,9 @@ public class CDAELayer extends WeightLayer {
 
 		middleData.dotProduct(inputData, false, weightParameters, false, MathCalculator.PARALLEL);
 		middleData.mapValues((row, column, value, message) -> {
-			return value + userParameters.getValue(row, column);
+			int userIndex = getUserIndex(row);
+			// 用户索引为负数代表批次中补齐的行
+			return userIndex < 0 ? value : value + userParameters.getValue(userIndex, column);
 		}, null, MathCalculator.PARALLEL);
 		if (biasParameters != null) {
 			for (int columnIndex = 0, columnSize = middleData.getColumnSize(); columnIndex < columnSize; columnIndex++) {
@@ -154,6 +187,7 @@ public class CDAELayer extends WeightLayer {
 		MathMatrix weightGradients = gradients.get(WEIGHT_KEY);
 		MathMatrix biasGradients = gradients.get(BIAS_KEY);
 		MathMatrix userGradients = gradients.get(USER_KEY);
+		SparseRows userRows = sparses.get(USER_KEY);
 
 		MathMatrix inputData = inputKeyValue.getKey();
 		MathMatrix middleData = middleKeyValue.getKey();
@@ -166,7 +200,27 @@ public class CDAELayer extends WeightLayer {
 		// 计算梯度
 		function.backward(middleData, innerError, middleError);
 		weightGradients.dotProduct(inputData, true, middleError, false, MathCalculator.PARALLEL);
-		userGradients.copyMatrix(middleError, false);
+		if (userIndexes == null && userRows == null) {
+			userGradients.copyMatrix(middleError, false);
+		} else {
+			// 样本的行与用户的行一一对应(批次内的用户不重复)
+			if (userRows == null) {
+				userGradients.setValues(0F);
+			} else {
+				userRows.setValues(userGradients, 0F);
+				userRows.clear();
+			}
+			for (int rowIndex = 0, rowSize = middleError.getRowSize(); rowIndex < rowSize; rowIndex++) {
+				int userIndex = getUserIndex(rowIndex);
+				if (userIndex < 0) {
+					continue;
+				}
+				if (userRows != null) {
+					userRows.mark(userIndex);
+				}
+				userGradients.getRowVector(userIndex).copyVector(middleError.getRowVector(rowIndex));
+			}
+		}
 		if (biasGradients != null) {
 			for (int columnIndex = 0, columnSize = biasGradients.getColumnSize(); columnIndex < columnSize; columnIndex++) {
 				float bias = middleError.getColumnVector(columnIndex).getSum(false);
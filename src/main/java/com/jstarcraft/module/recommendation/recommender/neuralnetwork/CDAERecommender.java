@@ -29,9 +29,10 @@ import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
-import com.jstarcraft.module.math.structure.matrix.MatrixMapper;
-import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.Nd4jMatrix;
+import com.jstarcraft.module.math.structure.vector.SparseVector;
+import com.jstarcraft.module.neuralnetwork.BatchIterator;
+import com.jstarcraft.module.neuralnetwork.BatchLoader;
 import com.jstarcraft.module.neuralnetwork.Graph;
 import com.jstarcraft.module.neuralnetwork.GraphConfigurator;
 import com.jstarcraft.module.neuralnetwork.MatrixFactory;
@@ -97,11 +98,14 @@ public class CDAERecommender extends ModelRecommender {
 	protected float weightRegularization;
 
 	/**
-	 * the data structure that stores the training data
+	 * 批次大小(默认为全部用户)
 	 */
-	protected Nd4jMatrix inputData;
+	protected int batchSize;
 
-	protected Nd4jMatrix labelData;
+	/**
+	 * 小批量训练时是否只更新批次内的用户,默认关闭
+	 */
+	protected boolean lazy;
 
 	/**
 	 * the data structure that stores the predicted data
@@ -110,6 +114,8 @@ public class CDAERecommender extends ModelRecommender {
 
 	protected Graph network;
 
+	protected CDAELayer cdaeLayer;
+
 	/**
 	 * the threshold to binarize the rating
 	 */
@@ -130,22 +136,40 @@ public class CDAERecommender extends ModelRecommender {
 		momentum = configuration.getFloat("rec.iterator.momentum");
 		weightRegularization = configuration.getFloat("rec.weight.regularization");
 		binarie = configuration.getFloat("rec.binarize.threshold");
-		// transform the sparse matrix to INDArray
-		// the sparse training matrix has been binarized
+		batchSize = configuration.getInteger("rec.batch.size", numberOfUsers);
+		lazy = configuration.getBoolean("rec.iterator.lazy", false);
+		// 训练数据按照批次从稀疏矩阵装载(已经二值化),不再物化为稠密矩阵
 
 		INDArray array = Nd4j.create(numberOfUsers, numberOfItems);
-		inputData = new Nd4jMatrix(array);
-
-		array = Nd4j.create(numberOfUsers, numberOfItems);
-		labelData = new Nd4jMatrix(array);
-		for (MatrixScalar term : trainMatrix) {
-			labelData.setValue(term.getRow(), term.getColumn(), 1F);
-		}
-
-		array = Nd4j.create(numberOfUsers, numberOfItems);
 		outputData = new Nd4jMatrix(array);
 	}
 
+	/**
+	 * 获取批次迭代器
+	 * 
+	 * @param corruption
+	 *            输入的丢弃概率
+	 * @return
+	 */
+	protected BatchIterator getBatchIterator(float corruption) {
+		MatrixFactory factory = new Nd4jMatrixFactory();
+		BatchLoader loader = (row, userIndex, samples, labels) -> {
+			MathMatrix inputData = samples[0];
+			MathMatrix labelData = labels[0];
+			inputData.getRowVector(row).setValues(0F);
+			labelData.getRowVector(row).setValues(0F);
+			SparseVector userVector = trainMatrix.getRowVector(userIndex);
+			for (int position = 0, size = userVector.getElementSize(); position < size; position++) {
+				int itemIndex = userVector.getIndex(position);
+				labelData.setValue(row, itemIndex, 1F);
+				if (corruption == 0F || RandomUtility.randomFloat(1F) >= corruption) {
+					inputData.setValue(row, itemIndex, 1F);
+				}
+			}
+		};
+		return new BatchIterator(numberOfUsers, batchSize, true, factory, new int[] { numberOfItems }, new int[] { numberOfItems }, loader);
+	}
+
 	protected Graph getComputationGraph() {
 		GraphConfigurator configurator = new GraphConfigurator();
 		Map<String, ParameterConfigurator> configurators = new HashMap<>();
@@ -155,7 +179,8 @@ public class CDAERecommender extends ModelRecommender {
 		configurators.put(CDAELayer.BIAS_KEY, new ParameterConfigurator(0F, 0F));
 		configurators.put(CDAELayer.USER_KEY, parameterConfigurator);
 		MatrixFactory factory = new Nd4jMatrixFactory();
-		Layer cdaeLayer = new CDAELayer(numberOfUsers, numberOfItems, hiddenDimension, factory, configurators, Mode.TRAIN, new SigmoidActivationFunction());
+		cdaeLayer = new CDAELayer(numberOfUsers, numberOfItems, hiddenDimension, factory, configurators, Mode.TRAIN, new SigmoidActivationFunction());
+		cdaeLayer.setLazy(lazy);
 		Layer outputLayer = new WeightLayer(hiddenDimension, numberOfItems, factory, configurators, Mode.TRAIN, new IdentityActivationFunction());
 
 		configurator.connect(new LayerVertex("cdae", factory, cdaeLayer, new NesterovLearner(new ConstantSchedule(momentum), new ConstantSchedule(learnRate)), new IgnoreNormalizer()));
@@ -168,20 +193,19 @@ public class CDAERecommender extends ModelRecommender {
 	@Override
 	protected void doPractice() {
 		Graph graph = getComputationGraph();
+		// 训练时按照0.2的概率丢弃输入
+		BatchIterator iterator = getBatchIterator(0.2F);
+		cdaeLayer.setUserIndexes(iterator.getIndexes());
 		for (int iterationStep = 1; iterationStep <= numberOfEpoches; iterationStep++) {
-			inputData.getArray().assign(labelData.getArray());
-			for (MatrixScalar term : trainMatrix) {
-				if (RandomUtility.randomFloat(1F) < 0.2F) {
-					inputData.setValue(term.getRow(), term.getColumn(), 0F);
-				}
-			}
-			totalLoss = graph.practice(1, new MathMatrix[] { inputData }, new MathMatrix[] { labelData });
+			totalLoss = graph.practice(1, iterator);
 			if (isConverged(iterationStep) && isConverged) {
 				break;
 			}
 			currentLoss = totalLoss;
 		}
-		graph.predict(new MathMatrix[] { labelData }, new MathMatrix[] { outputData });
+		iterator = getBatchIterator(0F);
+		cdaeLayer.setUserIndexes(iterator.getIndexes());
+		graph.predict(iterator, new MathMatrix[] { outputData });
 	}
 
 	@Override
@@ -191,4 +215,30 @@ public class CDAERecommender extends ModelRecommender {
 		return outputData.getValue(userIndex, itemIndex);
 	}
 
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, int[] itemIndexes, float[] scores) {
+		if (itemDimension != this.itemDimension) {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, itemIndexes, scores);
+			return;
+		}
+		int userIndex = dicreteFeatures[userDimension];
+		INDArray userData = outputData.getArray().getRow(userIndex);
+		for (int position = 0, size = itemIndexes.length; position < size; position++) {
+			scores[position] = userData.getFloat(itemIndexes[position]);
+		}
+	}
+
+	@Override
+	public void predict(int[] dicreteFeatures, float[] continuousFeatures, int itemDimension, float[] scores) {
+		if (itemDimension != this.itemDimension) {
+			super.predict(dicreteFeatures, continuousFeatures, itemDimension, scores);
+			return;
+		}
+		int userIndex = dicreteFeatures[userDimension];
+		INDArray userData = outputData.getArray().getRow(userIndex);
+		for (int itemIndex = 0, size = scores.length; itemIndex < size; itemIndex++) {
+			scores[itemIndex] = userData.getFloat(itemIndex);
+		}
+	}
+
 }
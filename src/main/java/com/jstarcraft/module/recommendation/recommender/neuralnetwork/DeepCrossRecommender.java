@@ -58,6 +58,11 @@ public class DeepCrossRecommender extends ModelRecommender {
 	 */
 	protected float weightRegularization;
 
+	/**
+	 * 是否惰性更新嵌入,默认关闭(所有嵌入每次迭代都会被正则化)
+	 */
+	protected boolean lazy;
+
 	/**
 	 * 所有维度的特征总数
 	 */
@@ -86,6 +91,7 @@ public class DeepCrossRecommender extends ModelRecommender {
 		learnRate = configuration.getFloat("rec.iterator.learnrate");
 		momentum = configuration.getFloat("rec.iterator.momentum");
 		weightRegularization = configuration.getFloat("rec.weight.regularization");
+		lazy = configuration.getBoolean("rec.iterator.lazy", false);
 		this.marker = marker;
 	}
 
@@ -105,7 +111,8 @@ public class DeepCrossRecommender extends ModelRecommender {
 		String[] embedVertexNames = new String[dimensionSizes.length];
 		for (int fieldIndex = 0; fieldIndex < dimensionSizes.length; fieldIndex++) {
 			embedVertexNames[fieldIndex] = "Embed" + fieldIndex;
-			Layer embedLayer = new EmbedLayer(dimensionSizes[fieldIndex], numberOfFactors, factory, configurators, Layer.Mode.TRAIN, new IdentityActivationFunction());
+			EmbedLayer embedLayer = new EmbedLayer(dimensionSizes[fieldIndex], numberOfFactors, factory, configurators, Layer.Mode.TRAIN, new IdentityActivationFunction());
+			embedLayer.setLazy(lazy);
 			configurator.connect(new LayerVertex(embedVertexNames[fieldIndex], factory, embedLayer, new SgdLearner(schedule), new IgnoreNormalizer()));
 		}
 
@@ -81,6 +81,11 @@ public class DeepFMRecommender extends ModelRecommender {
 	 */
 	protected float weightRegularization;
 
+	/**
+	 * 是否惰性更新嵌入(只正则化与学习被查询的嵌入),默认关闭
+	 */
+	protected boolean lazy;
+
 	/**
 	 * 所有维度的特征总数
 	 */
@@ -109,6 +114,7 @@ public class DeepFMRecommender extends ModelRecommender {
 		learnRate = configuration.getFloat("rec.iterator.learnrate");
 		momentum = configuration.getFloat("rec.iterator.momentum");
 		weightRegularization = configuration.getFloat("rec.weight.regularization");
+		lazy = configuration.getBoolean("rec.iterator.lazy", false);
 		this.marker = marker;
 	}
 
@@ -129,7 +135,8 @@ public class DeepFMRecommender extends ModelRecommender {
 		String[] embedVertexNames = new String[dimensionSizes.length];
 		for (int fieldIndex = 0; fieldIndex < dimensionSizes.length; fieldIndex++) {
 			embedVertexNames[fieldIndex] = "Embed" + fieldIndex;
-			Layer embedLayer = new EmbedLayer(dimensionSizes[fieldIndex], numberOfFactors, factory, configurators, Mode.TRAIN, new IdentityActivationFunction());
+			EmbedLayer embedLayer = new EmbedLayer(dimensionSizes[fieldIndex], numberOfFactors, factory, configurators, Mode.TRAIN, new IdentityActivationFunction());
+			embedLayer.setLazy(lazy);
 			configurator.connect(new LayerVertex(embedVertexNames[fieldIndex], factory, embedLayer, new SgdLearner(schedule), new IgnoreNormalizer()));
 		}
 
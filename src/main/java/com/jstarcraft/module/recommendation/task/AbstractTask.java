@@ -166,7 +166,8 @@ public abstract class AbstractTask<T> {
 			KeyValue<String, HashMap<String, ?>> keyValue = term.getValue();
 			DataConvertor convertor = null;
 			switch (format) {
-			case "arff": {
+			case "arff":
+			case "column": {
 				convertor = ReflectionUtility.getInstance((Class<DataConvertor>) DriverUtility.getClass(format), name, keyValue.getKey(), keyValue.getValue());
 				break;
 			}
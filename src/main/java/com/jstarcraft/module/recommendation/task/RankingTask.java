@@ -1,9 +1,7 @@
 package com.jstarcraft.module.recommendation.task;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -13,6 +11,7 @@ import com.jstarcraft.core.utility.KeyValue;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 import com.jstarcraft.module.recommendation.evaluator.Evaluator;
+import com.jstarcraft.module.recommendation.evaluator.RankingList;
 import com.jstarcraft.module.recommendation.evaluator.ranking.AUCEvaluator;
 import com.jstarcraft.module.recommendation.evaluator.ranking.MAPEvaluator;
 import com.jstarcraft.module.recommendation.evaluator.ranking.MRREvaluator;
@@ -30,14 +29,17 @@ import com.jstarcraft.module.recommendation.recommender.Recommender;
 // TODO 核心目标是解析配置,装配转换器/分割器/推荐器/评估器,完成指定的评分预测或者排序预测任务.
 public class RankingTask extends AbstractTask {
 
+	/** TopN */
+	private int size;
+
 	public RankingTask(Configuration configuration) {
 		super(configuration);
+		size = configuration.getInteger("rec.recommender.ranking.topn", 10);
 	}
 
 	@Override
 	protected Collection<Evaluator> getEvaluators(SparseMatrix featureMatrix) {
 		Collection<Evaluator> evaluators = new LinkedList<>();
-		int size = configuration.getInteger("rec.recommender.ranking.topn", 10);
 		evaluators.add(new AUCEvaluator(size));
 		evaluators.add(new MAPEvaluator(size));
 		evaluators.add(new MRREvaluator(size));
@@ -61,11 +63,12 @@ public class RankingTask extends AbstractTask {
 
 	@Override
 	protected List<KeyValue<Integer, Float>> recommend(Recommender recommender, int userIndex) {
-		Set<Integer> itemSet = new HashSet<>();
+		// 训练集物品不参与推荐
+		BitSet itemSet = new BitSet(numberOfItems);
 		int from = trainPaginations[userIndex], to = trainPaginations[userIndex + 1];
 		for (int index = from, size = to; index < size; index++) {
 			int position = trainPositions[index];
-			itemSet.add(trainMarker.getDiscreteFeature(itemDimension, position));
+			itemSet.set(trainMarker.getDiscreteFeature(itemDimension, position));
 		}
 		int[] discreteFeatures = new int[trainMarker.getDiscreteOrder()];
 		float[] continuousFeatures = new float[trainMarker.getContinuousOrder()];
@@ -79,17 +82,14 @@ public class RankingTask extends AbstractTask {
 			}
 		}
 		discreteFeatures[userDimension] = userIndex;
-		List<KeyValue<Integer, Float>> recommendList = new ArrayList<>(numberOfItems - itemSet.size());
-		for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
-			if (itemSet.contains(itemIndex)) {
-				continue;
-			}
-			discreteFeatures[itemDimension] = itemIndex;
-			recommendList.add(new KeyValue<>(itemIndex, recommender.predict(discreteFeatures, continuousFeatures)));
+		// 批量预测所有物品,只保留TopN,避免装箱与全量排序
+		float[] scores = new float[numberOfItems];
+		recommender.predict(discreteFeatures, continuousFeatures, itemDimension, scores);
+		RankingList recommendList = new RankingList(size);
+		for (int itemIndex = itemSet.nextClearBit(0); itemIndex < numberOfItems; itemIndex = itemSet.nextClearBit(itemIndex + 1)) {
+			recommendList.offer(itemIndex, scores[itemIndex]);
 		}
-		Collections.sort(recommendList, (left, right) -> {
-			return right.getValue().compareTo(left.getValue());
-		});
+		recommendList.sort();
 		return recommendList;
 	}
 
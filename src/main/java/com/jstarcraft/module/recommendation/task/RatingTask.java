@@ -46,13 +46,30 @@ public class RatingTask extends AbstractTask {
 		return scoreList;
 	}
 
+	/**
+	 * 判断指定位置的样本是否只有物品与特征模板不同
+	 */
+	private boolean isSame(int position, int[] discreteFeatures, float[] continuousFeatures) {
+		for (int dimension = 0; dimension < testMarker.getDiscreteOrder(); dimension++) {
+			if (dimension != itemDimension && discreteFeatures[dimension] != testMarker.getDiscreteFeature(dimension, position)) {
+				return false;
+			}
+		}
+		for (int dimension = 0; dimension < testMarker.getContinuousOrder(); dimension++) {
+			if (continuousFeatures[dimension] != testMarker.getContinuousFeature(dimension, position)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	protected List<KeyValue<Integer, Float>> recommend(Recommender recommender, int userIndex) {
 		int from = testPaginations[userIndex], to = testPaginations[userIndex + 1];
 		int[] discreteFeatures = new int[testMarker.getDiscreteOrder()];
 		float[] continuousFeatures = new float[testMarker.getContinuousOrder()];
 		List<KeyValue<Integer, Float>> recommendList = new ArrayList<>(to - from);
-		for (int index = from, size = to; index < size; index++) {
+		for (int index = from; index < to;) {
 			int position = testPositions[index];
 			for (int dimension = 0; dimension < testMarker.getDiscreteOrder(); dimension++) {
 				discreteFeatures[dimension] = testMarker.getDiscreteFeature(dimension, position);
@@ -60,7 +77,21 @@ public class RatingTask extends AbstractTask {
 			for (int dimension = 0; dimension < testMarker.getContinuousOrder(); dimension++) {
 				continuousFeatures[dimension] = testMarker.getContinuousFeature(dimension, position);
 			}
-			recommendList.add(new KeyValue<>(discreteFeatures[itemDimension], recommender.predict(discreteFeatures, continuousFeatures)));
+			// 连续的样本如果只有物品不同,则批量预测
+			int cursor = index + 1;
+			while (cursor < to && isSame(testPositions[cursor], discreteFeatures, continuousFeatures)) {
+				cursor++;
+			}
+			int[] itemIndexes = new int[cursor - index];
+			float[] scores = new float[cursor - index];
+			for (int offset = 0; offset < itemIndexes.length; offset++) {
+				itemIndexes[offset] = testMarker.getDiscreteFeature(itemDimension, testPositions[index + offset]);
+			}
+			recommender.predict(discreteFeatures, continuousFeatures, itemDimension, itemIndexes, scores);
+			for (int offset = 0; offset < itemIndexes.length; offset++) {
+				recommendList.add(new KeyValue<>(itemIndexes[offset], scores[offset]));
+			}
+			index = cursor;
 		}
 		return recommendList;
 	}
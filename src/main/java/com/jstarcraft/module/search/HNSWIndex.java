@@ -0,0 +1,679 @@
+package com.jstarcraft.module.search;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.math3.util.FastMath;
+
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+
+/**
+ * HNSW索引(Hierarchical Navigable Small World)
+ *
+ * <pre>
+ * Malkov and Yashunin, Efficient and robust approximate nearest neighbor search using Hierarchical Navigable Small World graphs, TPAMI 2018.
+ *
+ * 以矩阵的每一行作为一个节点,构建时复制矩阵的数据(余弦度量会预先归一化),之后矩阵的修改不影响索引.
+ * 邻居全部保存在int数组,每个节点每层首个槽位为邻居数量.
+ * 第0层每个节点最多2*M个邻居,其它层最多M个邻居.
+ * 节点的层次在构建之前根据种子生成,并行构建时通过分段锁保护邻居列表,每次只持有一个锁.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class HNSWIndex {
+
+	/** 最大层次 */
+	private static final int MAXIMUM_LEVEL = 32;
+
+	/** 分段锁数量 */
+	private static final int LOCK_SIZE = 1 << 12;
+
+	/** 度量 */
+	private final HNSWMetric metric;
+
+	/** 节点数量 */
+	private final int size;
+
+	/** 向量维度 */
+	private final int dimension;
+
+	/** 向量数据(行优先) */
+	private final float[] values;
+
+	/** 上层邻居数量(M) */
+	private final int neighborSize;
+
+	/** 第0层邻居数量(2*M) */
+	private final int bottomSize;
+
+	/** 构建候选数量(efConstruction) */
+	private final int constructionSize;
+
+	/** 搜索候选数量(efSearch) */
+	private final int searchSize;
+
+	/** 节点层次 */
+	private final int[] levels;
+
+	/** 第0层邻居 */
+	private final int[] bottomNeighbors;
+
+	/** 上层邻居 */
+	private final int[][] upperNeighbors;
+
+	private final Object[] locks;
+
+	private final Object entryLock = new Object();
+
+	/** 入口节点 */
+	private volatile int entryNode;
+
+	/** 入口层次 */
+	private volatile int entryLevel;
+
+	private volatile boolean built;
+
+	private final ThreadLocal<HNSWContext> contexts;
+
+	public HNSWIndex(DenseMatrix matrix, HNSWMetric metric, int neighborSize, int constructionSize, int searchSize, long seed) {
+		if (neighborSize < 2 || constructionSize < 1 || searchSize < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.metric = metric;
+		this.size = matrix.getRowSize();
+		this.dimension = matrix.getColumnSize();
+		this.values = new float[size * dimension];
+		for (int row = 0; row < size; row++) {
+			int cursor = row * dimension;
+			for (int column = 0; column < dimension; column++) {
+				values[cursor + column] = matrix.getValue(row, column);
+			}
+			if (metric == HNSWMetric.COSINE) {
+				normalize(values, cursor, dimension);
+			}
+		}
+		this.neighborSize = neighborSize;
+		this.bottomSize = neighborSize * 2;
+		this.constructionSize = Math.max(constructionSize, neighborSize);
+		this.searchSize = searchSize;
+
+		// 层次服从指数衰减分布,归一化因子为1/ln(M)
+		Random random = new Random(seed);
+		double multiplier = 1D / FastMath.log(neighborSize);
+		this.levels = new int[size];
+		this.upperNeighbors = new int[size][];
+		for (int node = 0; node < size; node++) {
+			int level = (int) (-FastMath.log(1D - random.nextDouble()) * multiplier);
+			level = Math.min(level, MAXIMUM_LEVEL);
+			levels[node] = level;
+			if (level > 0) {
+				upperNeighbors[node] = new int[level * (neighborSize + 1)];
+			}
+		}
+		this.bottomNeighbors = new int[size * (bottomSize + 1)];
+		this.locks = new Object[LOCK_SIZE];
+		for (int index = 0; index < LOCK_SIZE; index++) {
+			locks[index] = new Object();
+		}
+		this.entryNode = -1;
+		this.entryLevel = -1;
+		int capacity = Math.max(this.constructionSize, Math.max(this.searchSize, bottomSize)) + 1;
+		this.contexts = ThreadLocal.withInitial(() -> new HNSWContext(size, dimension, capacity, bottomSize + 1));
+	}
+
+	private static void normalize(float[] values, int cursor, int dimension) {
+		float norm = 0F;
+		for (int index = 0; index < dimension; index++) {
+			norm += values[cursor + index] * values[cursor + index];
+		}
+		if (norm > 0F) {
+			norm = (float) FastMath.sqrt(norm);
+			for (int index = 0; index < dimension; index++) {
+				values[cursor + index] /= norm;
+			}
+		}
+	}
+
+	/**
+	 * 构建索引
+	 *
+	 * @param mode
+	 *            并行时按节点区间由工作窃取线程池插入
+	 * @return
+	 */
+	public HNSWIndex build(MathCalculator mode) {
+		if (built) {
+			throw new IllegalStateException();
+		}
+		if (size > 0) {
+			insert(0);
+		}
+		switch (mode) {
+		case SERIAL: {
+			for (int node = 1; node < size; node++) {
+				insert(node);
+			}
+			break;
+		}
+		default: {
+			EnvironmentContext context = EnvironmentContext.getContext();
+			context.doStructureByRange(1, size, 0, (from, to) -> {
+				for (int node = from; node < to; node++) {
+					insert(node);
+				}
+			});
+			break;
+		}
+		}
+		built = true;
+		return this;
+	}
+
+	private Object getLock(int node) {
+		return locks[node & (LOCK_SIZE - 1)];
+	}
+
+	private int[] getNeighbors(int node, int level) {
+		return level == 0 ? bottomNeighbors : upperNeighbors[node];
+	}
+
+	private int getCursor(int node, int level) {
+		return level == 0 ? node * (bottomSize + 1) : (level - 1) * (neighborSize + 1);
+	}
+
+	/**
+	 * 复制节点指定层次的邻居
+	 */
+	private int copyNeighbors(int node, int level, int[] buffer) {
+		int[] neighbors = getNeighbors(node, level);
+		int cursor = getCursor(node, level);
+		synchronized (getLock(node)) {
+			int count = neighbors[cursor];
+			System.arraycopy(neighbors, cursor + 1, buffer, 0, count);
+			return count;
+		}
+	}
+
+	private float getDistance(int leftNode, int rightNode) {
+		return metric.getDistance(values, leftNode * dimension, values, rightNode * dimension, dimension);
+	}
+
+	private float getDistance(float[] queryValues, int queryCursor, int node) {
+		return metric.getDistance(queryValues, queryCursor, values, node * dimension, dimension);
+	}
+
+	/**
+	 * 在指定层次贪心搜索最近的节点
+	 */
+	private int searchNearest(HNSWContext context, float[] queryValues, int queryCursor, int node, int fromLevel, int toLevel) {
+		float distance = getDistance(queryValues, queryCursor, node);
+		int[] buffer = context.buffer;
+		for (int level = fromLevel; level > toLevel; level--) {
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				int count = copyNeighbors(node, level, buffer);
+				for (int index = 0; index < count; index++) {
+					int neighbor = buffer[index];
+					float current = getDistance(queryValues, queryCursor, neighbor);
+					if (current < distance) {
+						distance = current;
+						node = neighbor;
+						changed = true;
+					}
+				}
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * 在指定层次搜索候选(结果保存在上下文的结果堆)
+	 */
+	private void searchLayer(HNSWContext context, float[] queryValues, int queryCursor, int entry, int candidateSize, int level) {
+		HNSWHeap candidates = context.candidates;
+		HNSWHeap results = context.results;
+		candidates.clear();
+		results.clear();
+		int epoch = context.nextEpoch();
+		int[] visits = context.visits;
+		int[] buffer = context.buffer;
+
+		float distance = getDistance(queryValues, queryCursor, entry);
+		visits[entry] = epoch;
+		candidates.push(entry, distance);
+		results.push(entry, distance);
+		while (candidates.size() > 0) {
+			int node = candidates.peekKey();
+			distance = candidates.peekValue();
+			if (distance > results.peekValue() && results.size() >= candidateSize) {
+				break;
+			}
+			candidates.pop();
+			int count = copyNeighbors(node, level, buffer);
+			for (int index = 0; index < count; index++) {
+				int neighbor = buffer[index];
+				if (visits[neighbor] == epoch) {
+					continue;
+				}
+				visits[neighbor] = epoch;
+				float current = getDistance(queryValues, queryCursor, neighbor);
+				if (results.size() < candidateSize || current < results.peekValue()) {
+					candidates.push(neighbor, current);
+					results.push(neighbor, current);
+					if (results.size() > candidateSize) {
+						results.pop();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * 启发式选择邻居
+	 *
+	 * <pre>
+	 * 候选按照距离升序,候选与已选邻居的距离比与目标的距离更近时被裁剪.
+	 * 不足数量时使用被裁剪的候选补齐.
+	 * </pre>
+	 */
+	private int selectNeighbors(int[] keys, float[] distances, int count, int limit, int[] selections, boolean[] flags) {
+		int size = 0;
+		for (int index = 0; index < count && size < limit; index++) {
+			flags[index] = true;
+			for (int position = 0; position < size; position++) {
+				if (getDistance(keys[index], selections[position]) < distances[index]) {
+					flags[index] = false;
+					break;
+				}
+			}
+			if (flags[index]) {
+				selections[size++] = keys[index];
+			}
+		}
+		for (int index = 0; index < count && size < limit; index++) {
+			if (!flags[index]) {
+				selections[size++] = keys[index];
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * 将节点连接到邻居(邻居已满时重新选择)
+	 */
+	private void connect(HNSWContext context, int neighbor, int node, int level) {
+		int[] neighbors = getNeighbors(neighbor, level);
+		int cursor = getCursor(neighbor, level);
+		int capacity = level == 0 ? bottomSize : neighborSize;
+		synchronized (getLock(neighbor)) {
+			int count = neighbors[cursor];
+			if (count < capacity) {
+				neighbors[cursor + 1 + count] = node;
+				neighbors[cursor] = count + 1;
+				return;
+			}
+			int[] keys = context.shrinkKeys;
+			float[] distances = context.shrinkDistances;
+			for (int index = 0; index < count; index++) {
+				keys[index] = neighbors[cursor + 1 + index];
+				distances[index] = getDistance(neighbor, keys[index]);
+			}
+			keys[count] = node;
+			distances[count] = getDistance(neighbor, node);
+			count++;
+			// 插入排序(邻居数量很小)
+			for (int index = 1; index < count; index++) {
+				int key = keys[index];
+				float distance = distances[index];
+				int position = index - 1;
+				while (position >= 0 && distances[position] > distance) {
+					keys[position + 1] = keys[position];
+					distances[position + 1] = distances[position];
+					position--;
+				}
+				keys[position + 1] = key;
+				distances[position + 1] = distance;
+			}
+			int[] selections = context.shrinkSelections;
+			count = selectNeighbors(keys, distances, count, capacity, selections, context.shrinkFlags);
+			System.arraycopy(selections, 0, neighbors, cursor + 1, count);
+			neighbors[cursor] = count;
+		}
+	}
+
+	private void insert(int node) {
+		int level = levels[node];
+		int entry, top;
+		synchronized (entryLock) {
+			entry = entryNode;
+			top = entryLevel;
+			if (entry < 0) {
+				entryNode = node;
+				entryLevel = level;
+				return;
+			}
+		}
+		HNSWContext context = contexts.get();
+		int queryCursor = node * dimension;
+		entry = searchNearest(context, values, queryCursor, entry, top, level);
+		int[] keys = context.keys;
+		float[] distances = context.distances;
+		int[] selections = context.selections;
+		for (int layer = Math.min(level, top); layer >= 0; layer--) {
+			searchLayer(context, values, queryCursor, entry, constructionSize, layer);
+			HNSWHeap results = context.results;
+			int count = results.size();
+			for (int index = count - 1; index >= 0; index--) {
+				keys[index] = results.peekKey();
+				distances[index] = results.peekValue();
+				results.pop();
+			}
+			// 排除节点自身
+			int position = 0;
+			for (int index = 0; index < count; index++) {
+				if (keys[index] != node) {
+					keys[position] = keys[index];
+					distances[position] = distances[index];
+					position++;
+				}
+			}
+			count = position;
+			if (count == 0) {
+				continue;
+			}
+			entry = keys[0];
+			int selectionSize = selectNeighbors(keys, distances, count, neighborSize, selections, context.flags);
+			int[] neighbors = getNeighbors(node, layer);
+			int cursor = getCursor(node, layer);
+			synchronized (getLock(node)) {
+				System.arraycopy(selections, 0, neighbors, cursor + 1, selectionSize);
+				neighbors[cursor] = selectionSize;
+			}
+			for (int index = 0; index < selectionSize; index++) {
+				connect(context, selections[index], node, layer);
+			}
+		}
+		if (level > top) {
+			synchronized (entryLock) {
+				if (level > entryLevel) {
+					entryNode = node;
+					entryLevel = level;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 搜索最近邻
+	 *
+	 * @param query
+	 * @param size
+	 * @param indexes
+	 *            按照距离升序保存节点
+	 * @param distances
+	 *            按照距离升序保存距离
+	 * @return 实际数量
+	 */
+	public int search(float[] query, int size, int[] indexes, float[] distances) {
+		return search(query, size, Math.max(searchSize, size), indexes, distances);
+	}
+
+	/**
+	 * 搜索最近邻
+	 *
+	 * @param query
+	 * @param size
+	 * @param candidateSize
+	 *            搜索候选数量(efSearch),越大召回率越高,延迟越大
+	 * @param indexes
+	 *            按照距离升序保存节点
+	 * @param distances
+	 *            按照距离升序保存距离
+	 * @return 实际数量
+	 */
+	public int search(float[] query, int size, int candidateSize, int[] indexes, float[] distances) {
+		if (query.length != dimension) {
+			throw new IllegalArgumentException();
+		}
+		int entry = entryNode;
+		if (entry < 0 || size <= 0) {
+			return 0;
+		}
+		HNSWContext context = contexts.get();
+		if (metric == HNSWMetric.COSINE) {
+			System.arraycopy(query, 0, context.query, 0, dimension);
+			normalize(context.query, 0, dimension);
+			query = context.query;
+		}
+		candidateSize = Math.max(candidateSize, size);
+		entry = searchNearest(context, query, 0, entry, entryLevel, 0);
+		searchLayer(context, query, 0, entry, candidateSize, 0);
+		HNSWHeap results = context.results;
+		while (results.size() > size) {
+			results.pop();
+		}
+		int count = results.size();
+		for (int index = count - 1; index >= 0; index--) {
+			indexes[index] = results.peekKey();
+			distances[index] = results.peekValue();
+			results.pop();
+		}
+		return count;
+	}
+
+	/**
+	 * 精确扫描最近邻(用于评估召回率)
+	 *
+	 * @param query
+	 * @param size
+	 * @param indexes
+	 *            按照距离升序保存节点
+	 * @param distances
+	 *            按照距离升序保存距离
+	 * @return 实际数量
+	 */
+	public int scan(float[] query, int size, int[] indexes, float[] distances) {
+		if (query.length != dimension) {
+			throw new IllegalArgumentException();
+		}
+		if (size <= 0) {
+			return 0;
+		}
+		HNSWContext context = contexts.get();
+		if (metric == HNSWMetric.COSINE) {
+			System.arraycopy(query, 0, context.query, 0, dimension);
+			normalize(context.query, 0, dimension);
+			query = context.query;
+		}
+		HNSWHeap results = context.results;
+		results.clear();
+		for (int node = 0; node < this.size; node++) {
+			float distance = getDistance(query, 0, node);
+			if (results.size() < size) {
+				results.push(node, distance);
+			} else if (distance < results.peekValue()) {
+				results.pop();
+				results.push(node, distance);
+			}
+		}
+		int count = results.size();
+		for (int index = count - 1; index >= 0; index--) {
+			indexes[index] = results.peekKey();
+			distances[index] = results.peekValue();
+			results.pop();
+		}
+		return count;
+	}
+
+	public HNSWMetric getMetric() {
+		return metric;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	public int getSearchSize() {
+		return searchSize;
+	}
+
+	/**
+	 * 距离堆
+	 *
+	 * <pre>
+	 * ascending为true时堆顶为最近的节点,否则堆顶为最远的节点.
+	 * </pre>
+	 */
+	private static final class HNSWHeap {
+
+		private final boolean ascending;
+
+		private int size;
+
+		private int[] keys;
+
+		private float[] values;
+
+		private HNSWHeap(boolean ascending, int capacity) {
+			this.ascending = ascending;
+			this.keys = new int[capacity];
+			this.values = new float[capacity];
+		}
+
+		private boolean isBefore(float left, float right) {
+			return ascending ? left < right : left > right;
+		}
+
+		private void push(int key, float value) {
+			if (size == keys.length) {
+				int capacity = size << 1;
+				keys = Arrays.copyOf(keys, capacity);
+				values = Arrays.copyOf(values, capacity);
+			}
+			int position = size++;
+			while (position > 0) {
+				int parent = (position - 1) >>> 1;
+				if (!isBefore(value, values[parent])) {
+					break;
+				}
+				keys[position] = keys[parent];
+				values[position] = values[parent];
+				position = parent;
+			}
+			keys[position] = key;
+			values[position] = value;
+		}
+
+		private void pop() {
+			int key = keys[--size];
+			float value = values[size];
+			int position = 0;
+			int half = size >>> 1;
+			while (position < half) {
+				int child = (position << 1) + 1;
+				int right = child + 1;
+				if (right < size && isBefore(values[right], values[child])) {
+					child = right;
+				}
+				if (!isBefore(values[child], value)) {
+					break;
+				}
+				keys[position] = keys[child];
+				values[position] = values[child];
+				position = child;
+			}
+			if (size > 0) {
+				keys[position] = key;
+				values[position] = value;
+			}
+		}
+
+		private int peekKey() {
+			return keys[0];
+		}
+
+		private float peekValue() {
+			return values[0];
+		}
+
+		private int size() {
+			return size;
+		}
+
+		private void clear() {
+			size = 0;
+		}
+
+	}
+
+	/**
+	 * 线程上下文(避免搜索过程分配内存)
+	 */
+	private static final class HNSWContext {
+
+		/** 访问标记 */
+		private final int[] visits;
+
+		private int epoch;
+
+		private final float[] query;
+
+		private final int[] buffer;
+
+		private final HNSWHeap candidates;
+
+		private final HNSWHeap results;
+
+		private final int[] keys;
+
+		private final float[] distances;
+
+		private final int[] selections;
+
+		private final boolean[] flags;
+
+		private final int[] shrinkKeys;
+
+		private final float[] shrinkDistances;
+
+		private final int[] shrinkSelections;
+
+		private final boolean[] shrinkFlags;
+
+		private HNSWContext(int size, int dimension, int capacity, int neighborCapacity) {
+			this.visits = new int[size];
+			this.query = new float[dimension];
+			this.buffer = new int[neighborCapacity];
+			this.candidates = new HNSWHeap(true, capacity);
+			this.results = new HNSWHeap(false, capacity);
+			this.keys = new int[capacity];
+			this.distances = new float[capacity];
+			this.selections = new int[capacity];
+			this.flags = new boolean[capacity];
+			this.shrinkKeys = new int[neighborCapacity];
+			this.shrinkDistances = new float[neighborCapacity];
+			this.shrinkSelections = new int[neighborCapacity];
+			this.shrinkFlags = new boolean[neighborCapacity];
+		}
+
+		private int nextEpoch() {
+			if (++epoch == 0) {
+				// 标记溢出时重置
+				Arrays.fill(visits, 0);
+				epoch = 1;
+			}
+			return epoch;
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.jstarcraft.module.search;
+
+/**
+ * HNSW度量
+ *
+ * <pre>
+ * 所有度量统一转换为距离,距离越小越相似.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public enum HNSWMetric {
+
+	/** 内积(最大内积搜索,距离为负内积) */
+	INNER_PRODUCT {
+
+		@Override
+		public float getDistance(float[] leftValues, int leftCursor, float[] rightValues, int rightCursor, int dimension) {
+			return -getProduct(leftValues, leftCursor, rightValues, rightCursor, dimension);
+		}
+
+	},
+
+	/** 余弦(向量预先归一化,距离为1-余弦) */
+	COSINE {
+
+		@Override
+		public float getDistance(float[] leftValues, int leftCursor, float[] rightValues, int rightCursor, int dimension) {
+			return 1F - getProduct(leftValues, leftCursor, rightValues, rightCursor, dimension);
+		}
+
+	},
+
+	/** 欧氏距离(平方) */
+	EUCLIDEAN {
+
+		@Override
+		public float getDistance(float[] leftValues, int leftCursor, float[] rightValues, int rightCursor, int dimension) {
+			float distance = 0F;
+			for (int index = 0; index < dimension; index++) {
+				float value = leftValues[leftCursor + index] - rightValues[rightCursor + index];
+				distance += value * value;
+			}
+			return distance;
+		}
+
+	};
+
+	private static float getProduct(float[] leftValues, int leftCursor, float[] rightValues, int rightCursor, int dimension) {
+		float product = 0F;
+		for (int index = 0; index < dimension; index++) {
+			product += leftValues[leftCursor + index] * rightValues[rightCursor + index];
+		}
+		return product;
+	}
+
+	/**
+	 * 获取距离
+	 *
+	 * @param leftValues
+	 * @param leftCursor
+	 * @param rightValues
+	 * @param rightCursor
+	 * @param dimension
+	 * @return
+	 */
+	public abstract float getDistance(float[] leftValues, int leftCursor, float[] rightValues, int rightCursor, int dimension);
+
+}
@@ -0,0 +1,132 @@
+package com.jstarcraft.module.search;
+
+import java.util.BitSet;
+
+import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+
+/**
+ * HNSW报告
+ *
+ * <pre>
+ * 以精确扫描为基准,统计不同搜索候选数量(efSearch)下的召回率与平均延迟.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class HNSWReport {
+
+	/** 搜索候选数量 */
+	private final int[] candidateSizes;
+
+	/** 召回率 */
+	private final float[] recalls;
+
+	/** 平均延迟(微秒) */
+	private final float[] latencies;
+
+	/** 精确扫描平均延迟(微秒) */
+	private final float scanLatency;
+
+	private HNSWReport(int[] candidateSizes, float[] recalls, float[] latencies, float scanLatency) {
+		this.candidateSizes = candidateSizes;
+		this.recalls = recalls;
+		this.latencies = latencies;
+		this.scanLatency = scanLatency;
+	}
+
+	public int getSize() {
+		return candidateSizes.length;
+	}
+
+	public int getCandidateSize(int position) {
+		return candidateSizes[position];
+	}
+
+	public float getRecall(int position) {
+		return recalls[position];
+	}
+
+	public float getLatency(int position) {
+		return latencies[position];
+	}
+
+	public float getScanLatency() {
+		return scanLatency;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder buffer = new StringBuilder();
+		buffer.append(String.format("scan latency(us):%.1f", scanLatency)).append("\n");
+		for (int position = 0; position < candidateSizes.length; position++) {
+			buffer.append(String.format("efSearch:%d, recall:%.4f, latency(us):%.1f", candidateSizes[position], recalls[position], latencies[position])).append("\n");
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * 制作报告
+	 *
+	 * @param index
+	 * @param queryMatrix
+	 *            每一行为一个查询
+	 * @param size
+	 *            近邻数量(TopN)
+	 * @param candidateSizes
+	 *            搜索候选数量(efSearch)
+	 * @return
+	 */
+	public static HNSWReport valueOf(HNSWIndex index, DenseMatrix queryMatrix, int size, int... candidateSizes) {
+		if (queryMatrix.getColumnSize() != index.getDimension()) {
+			throw new IllegalArgumentException();
+		}
+		int numberOfQueries = queryMatrix.getRowSize();
+		float[][] queries = new float[numberOfQueries][index.getDimension()];
+		for (int row = 0; row < numberOfQueries; row++) {
+			for (int column = 0; column < index.getDimension(); column++) {
+				queries[row][column] = queryMatrix.getValue(row, column);
+			}
+		}
+		int[] indexes = new int[size];
+		float[] distances = new float[size];
+
+		// 精确扫描的结果作为基准
+		BitSet[] labels = new BitSet[numberOfQueries];
+		int[] counts = new int[numberOfQueries];
+		long scanTime = 0L;
+		for (int query = 0; query < numberOfQueries; query++) {
+			long time = System.nanoTime();
+			int count = index.scan(queries[query], size, indexes, distances);
+			scanTime += System.nanoTime() - time;
+			labels[query] = new BitSet(index.getSize());
+			for (int position = 0; position < count; position++) {
+				labels[query].set(indexes[position]);
+			}
+			counts[query] = count;
+		}
+
+		float[] recalls = new float[candidateSizes.length];
+		float[] latencies = new float[candidateSizes.length];
+		for (int position = 0; position < candidateSizes.length; position++) {
+			long searchTime = 0L;
+			long hit = 0L, total = 0L;
+			for (int query = 0; query < numberOfQueries; query++) {
+				long time = System.nanoTime();
+				int count = index.search(queries[query], size, candidateSizes[position], indexes, distances);
+				searchTime += System.nanoTime() - time;
+				for (int cursor = 0; cursor < count; cursor++) {
+					if (labels[query].get(indexes[cursor])) {
+						hit++;
+					}
+				}
+				total += counts[query];
+			}
+			recalls[position] = total == 0L ? 1F : hit / (float) total;
+			latencies[position] = numberOfQueries == 0 ? 0F : searchTime / 1000F / numberOfQueries;
+		}
+		float scanLatency = numberOfQueries == 0 ? 0F : scanTime / 1000F / numberOfQueries;
+		return new HNSWReport(candidateSizes, recalls, latencies, scanLatency);
+	}
+
+}
@@ -5,6 +5,9 @@ import java.util.LinkedList;
 import java.util.List;
 
 import com.jstarcraft.core.utility.KeyValue;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.environment.RangeCommand;
+import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.math.structure.matrix.SymmetryMatrix;
 import com.jstarcraft.module.math.structure.vector.MathVector;
@@ -84,6 +87,52 @@ public abstract class AbstractSimilarity implements Similarity {
 		return similarityMatrix;
 	}
 
+	/**
+	 * 制作邻居矩阵
+	 * 
+	 * <pre>
+	 * 按照行区间计算上三角的相似度,同时提供给两行的有界堆.
+	 * </pre>
+	 */
+	@Override
+	public NeighborMatrix makeNeighborMatrix(SparseMatrix scoreMatrix, boolean transpose, float scale, int neighborSize, MathCalculator mode) {
+		int count = transpose ? scoreMatrix.getColumnSize() : scoreMatrix.getRowSize();
+		NeighborBuilder builder = new NeighborBuilder(count, neighborSize);
+		RangeCommand command = (from, to) -> {
+			for (int leftIndex = from; leftIndex < to; leftIndex++) {
+				SparseVector thisVector = transpose ? scoreMatrix.getColumnVector(leftIndex) : scoreMatrix.getRowVector(leftIndex);
+				if (thisVector.getElementSize() == 0) {
+					continue;
+				}
+				// user/item itself exclusive
+				for (int rightIndex = leftIndex + 1; rightIndex < count; rightIndex++) {
+					SparseVector thatVector = transpose ? scoreMatrix.getColumnVector(rightIndex) : scoreMatrix.getRowVector(rightIndex);
+					if (thatVector.getElementSize() == 0) {
+						continue;
+					}
+					float similarity = getCorrelation(thisVector, thatVector, scale);
+					// 忽略相似度为0的邻居
+					if (!Float.isNaN(similarity) && similarity != 0F) {
+						builder.offer(leftIndex, rightIndex, similarity);
+						builder.offer(rightIndex, leftIndex, similarity);
+					}
+				}
+			}
+		};
+		switch (mode) {
+		case SERIAL: {
+			command.execute(0, count);
+			break;
+		}
+		default: {
+			EnvironmentContext context = EnvironmentContext.getContext();
+			context.doStructureByRange(0, count, 0, command);
+			break;
+		}
+		}
+		return builder.build();
+	}
+
 	/**
 	 * Build social similarity matrix with trainMatrix and socialMatrix in
 	 * dataModel.
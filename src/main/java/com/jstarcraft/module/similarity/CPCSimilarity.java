@@ -1,30 +1,20 @@
 package com.jstarcraft.module.similarity;
 
-import java.util.List;
-
-import com.jstarcraft.core.utility.KeyValue;
+import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.math.structure.matrix.SymmetryMatrix;
-import com.jstarcraft.module.math.structure.vector.MathVector;
 
 /**
  * Constrained Pearson Correlation (CPC)
  *
  * @author zhanghaidong
  */
-public class CPCSimilarity extends AbstractSimilarity {
+public class CPCSimilarity extends CoOccurrenceSimilarity {
 
-	private double median;
+	private float median;
 
-	/**
-	 * Build social similarity matrix with trainMatrix in dataModel.
-	 *
-	 * @param dataModel
-	 *            the input data model
-	 */
-	@Override
-	public SymmetryMatrix makeSimilarityMatrix(SparseMatrix trainMatrix, boolean transpose, float scale) {
+	private void calculateMedian(SparseMatrix trainMatrix) {
 		float maximum = 0F;
 		float minimum = 0F;
 		for (MatrixScalar term : trainMatrix) {
@@ -36,51 +26,55 @@ public class CPCSimilarity extends AbstractSimilarity {
 			}
 		}
 		median = (maximum + minimum) / 2;
+	}
+
+	/**
+	 * Build social similarity matrix with trainMatrix in dataModel.
+	 *
+	 * @param dataModel
+	 *            the input data model
+	 */
+	@Override
+	public SymmetryMatrix makeSimilarityMatrix(SparseMatrix trainMatrix, boolean transpose, float scale) {
+		calculateMedian(trainMatrix);
 		return super.makeSimilarityMatrix(trainMatrix, transpose, scale);
 	}
 
 	@Override
-	public float getCorrelation(MathVector leftVector, MathVector rightVector, float scale) {
-		// compute similarity
-		List<KeyValue<Float, Float>> scoreList = getScoreList(leftVector, rightVector);
-		int count = scoreList.size();
-		float similarity = getSimilarity(count, scoreList);
-		// shrink to account for vector size
-		if (!Double.isNaN(similarity)) {
-			if (scale > 0) {
-				similarity *= count / (count + scale);
-			}
-		}
-		return similarity;
+	public NeighborMatrix makeNeighborMatrix(SparseMatrix trainMatrix, boolean transpose, float scale, int neighborSize, MathCalculator mode) {
+		calculateMedian(trainMatrix);
+		return super.makeNeighborMatrix(trainMatrix, transpose, scale, neighborSize, mode);
 	}
 
+	/**
+	 * 共现分数以中位数为中心
+	 */
 	@Override
-	public float getIdentical() {
-		return 1F;
+	protected float getOffset() {
+		return median;
 	}
 
 	/**
-	 * Calculate the similarity between thisList and thatList.
-	 *
-	 * @param leftScores
-	 *            this list
-	 * @param rightScores
-	 *            that list
-	 * @return similarity
+	 * 与逐对计算相同,按照双精度累加
 	 */
-	private float getSimilarity(int count, List<KeyValue<Float, Float>> scoreList) {
-		// compute similarity
+	@Override
+	protected boolean isPrecise() {
+		return true;
+	}
+
+	@Override
+	protected float getCorrelation(SimilarityStatistic statistic, float scale) {
+		int count = statistic.getCount();
 		if (count == 0) {
 			return Float.NaN;
 		}
-		double power = 0D, leftPower = 0D, rightPower = 0D;
-		for (KeyValue<Float, Float> term : scoreList) {
-			double leftDelta = term.getKey() - median;
-			double rightDelta = term.getValue() - median;
-			power += leftDelta * rightDelta;
-			leftPower += leftDelta * leftDelta;
-			rightPower += rightDelta * rightDelta;
-		}
-		return (float) (power / Math.sqrt(leftPower * rightPower));
+		float similarity = (float) (statistic.getPreciseProduct() / Math.sqrt(statistic.getPreciseLeftPower() * statistic.getPreciseRightPower()));
+		return shrink(similarity, count, scale);
 	}
+
+	@Override
+	public float getIdentical() {
+		return 1F;
+	}
+
 }
@@ -0,0 +1,387 @@
+package com.jstarcraft.module.similarity;
+
+import java.util.Iterator;
+
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.environment.RangeCommand;
+import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
+import com.jstarcraft.module.math.structure.matrix.SymmetryMatrix;
+import com.jstarcraft.module.math.structure.vector.MathVector;
+import com.jstarcraft.module.math.structure.vector.VectorScalar;
+
+/**
+ * 共现相似度
+ * 
+ * <pre>
+ * 相似度只依赖共现统计({@link SimilarityStatistic})时,通过倒排索引只访问存在共现的向量对.
+ * 对于每个左向量,遍历其元素所在的倒排列表(例如物品相似度遍历用户的物品列表),
+ * 在原始类型的累加器中累加右向量的统计,最后根据统计计算相似度.
+ * 按照左向量的区间并行,每个区间使用独立的累加器,不需要合并.
+ * 每对向量的累加顺序与逐对计算相同(共现索引升序),所以两种方式的结果完全一致.
+ * </pre>
+ * 
+ * @author Birdy
+ *
+ */
+public abstract class CoOccurrenceSimilarity extends AbstractSimilarity {
+
+	/** 最小支持度(共现数量少于支持度的向量对没有相似度) */
+	private int support;
+
+	public int getSupport() {
+		return support;
+	}
+
+	public void setSupport(int support) {
+		this.support = support;
+	}
+
+	/**
+	 * 获取偏移量(统计之前从分数中减去)
+	 * 
+	 * @return
+	 */
+	protected float getOffset() {
+		return 0F;
+	}
+
+	/**
+	 * 是否按照双精度累加统计(默认按照单精度累加)
+	 * 
+	 * @return
+	 */
+	protected boolean isPrecise() {
+		return false;
+	}
+
+	/**
+	 * 是否中心化(先计算共现分数的均值,再按照减去均值的分数累加乘积与平方和)
+	 * 
+	 * @return
+	 */
+	protected boolean isCentered() {
+		return false;
+	}
+
+	/**
+	 * 根据共现数量收缩相似度
+	 * 
+	 * @param similarity
+	 * @param count
+	 * @param scale
+	 * @return
+	 */
+	protected final float shrink(float similarity, int count, float scale) {
+		// shrink to account for vector size
+		if (!Float.isNaN(similarity)) {
+			if (scale > 0) {
+				similarity *= count / (count + scale);
+			}
+		}
+		return similarity;
+	}
+
+	/**
+	 * 根据共现统计计算相似度
+	 * 
+	 * @param statistic
+	 * @param scale
+	 * @return
+	 */
+	protected abstract float getCorrelation(SimilarityStatistic statistic, float scale);
+
+	@Override
+	public float getCorrelation(MathVector leftVector, MathVector rightVector, float scale) {
+		float offset = getOffset();
+		boolean precise = isPrecise();
+		SimilarityStatistic statistic = new SimilarityStatistic();
+		statistic.leftSize = leftVector.getElementSize();
+		statistic.rightSize = rightVector.getElementSize();
+		for (VectorScalar term : leftVector) {
+			statistic.leftNorm += term.getValue() * term.getValue();
+		}
+		for (VectorScalar term : rightVector) {
+			statistic.rightNorm += term.getValue() * term.getValue();
+		}
+		int leftIndex = 0, rightIndex = 0, leftSize = statistic.leftSize, rightSize = statistic.rightSize;
+		float[] leftScores = new float[Math.min(leftSize, rightSize)];
+		float[] rightScores = new float[leftScores.length];
+		if (leftSize != 0 && rightSize != 0) {
+			Iterator<VectorScalar> leftIterator = leftVector.iterator();
+			Iterator<VectorScalar> rightIterator = rightVector.iterator();
+			VectorScalar leftTerm = leftIterator.next();
+			VectorScalar rightTerm = rightIterator.next();
+			// 判断两个有序数组中是否存在相同的数字
+			while (leftIndex < leftSize && rightIndex < rightSize) {
+				if (leftTerm.getIndex() == rightTerm.getIndex()) {
+					leftScores[statistic.count] = leftTerm.getValue() - offset;
+					rightScores[statistic.count] = rightTerm.getValue() - offset;
+					statistic.accumulate(leftScores[statistic.count], rightScores[statistic.count], precise);
+					leftIndex++;
+					rightIndex++;
+					if (leftIndex < leftSize) {
+						leftTerm = leftIterator.next();
+					}
+					if (rightIndex < rightSize) {
+						rightTerm = rightIterator.next();
+					}
+				} else if (leftTerm.getIndex() > rightTerm.getIndex()) {
+					rightIndex++;
+					if (rightIndex < rightSize) {
+						rightTerm = rightIterator.next();
+					}
+				} else if (leftTerm.getIndex() < rightTerm.getIndex()) {
+					leftIndex++;
+					if (leftIndex < leftSize) {
+						leftTerm = leftIterator.next();
+					}
+				}
+			}
+		}
+		if (statistic.count < support) {
+			return Float.NaN;
+		}
+		if (isCentered() && statistic.count > 0) {
+			float leftMean = statistic.getLeftSum() / statistic.count;
+			float rightMean = statistic.getRightSum() / statistic.count;
+			statistic.clearPower();
+			for (int index = 0; index < statistic.count; index++) {
+				statistic.accumulatePower(leftScores[index] - leftMean, rightScores[index] - rightMean, precise);
+			}
+		}
+		return getCorrelation(statistic, scale);
+	}
+
+	/**
+	 * 共现累加器
+	 * 
+	 * <pre>
+	 * 以右向量索引为下标的原始类型数组,touches记录当前左向量访问过的右向量.
+	 * 舍入规则与{@link SimilarityStatistic}相同,中心化时leftMeans/rightMeans保存每对向量的共现均值.
+	 * </pre>
+	 */
+	private static class CoOccurrenceAccumulator {
+
+		private final boolean precise;
+
+		private final int[] touches;
+
+		private final int[] counts;
+
+		private final double[] leftSums, rightSums, products, leftPowers, rightPowers, distances;
+
+		private final float[] leftMeans, rightMeans;
+
+		private CoOccurrenceAccumulator(int size, boolean precise, boolean centered) {
+			this.precise = precise;
+			touches = new int[size];
+			counts = new int[size];
+			leftSums = new double[size];
+			rightSums = new double[size];
+			products = new double[size];
+			leftPowers = new double[size];
+			rightPowers = new double[size];
+			distances = new double[size];
+			leftMeans = centered ? new float[size] : null;
+			rightMeans = centered ? new float[size] : null;
+		}
+
+		private void accumulate(int index, float leftScore, float rightScore) {
+			counts[index]++;
+			leftSums[index] = SimilarityStatistic.sum(leftSums[index], leftScore, precise);
+			rightSums[index] = SimilarityStatistic.sum(rightSums[index], rightScore, precise);
+			accumulatePower(index, leftScore, rightScore);
+			distances[index] = SimilarityStatistic.distance(distances[index], leftScore, rightScore, precise);
+		}
+
+		private void accumulatePower(int index, float leftScore, float rightScore) {
+			products[index] = SimilarityStatistic.product(products[index], leftScore, rightScore, precise);
+			leftPowers[index] = SimilarityStatistic.product(leftPowers[index], leftScore, leftScore, precise);
+			rightPowers[index] = SimilarityStatistic.product(rightPowers[index], rightScore, rightScore, precise);
+		}
+
+		/**
+		 * 计算共现均值并且清理乘积与平方和(准备中心化的累加)
+		 * 
+		 * @param index
+		 */
+		private void center(int index) {
+			leftMeans[index] = (float) leftSums[index] / counts[index];
+			rightMeans[index] = (float) rightSums[index] / counts[index];
+			products[index] = 0D;
+			leftPowers[index] = 0D;
+			rightPowers[index] = 0D;
+		}
+
+		private void accumulateCenter(int index, float leftScore, float rightScore) {
+			accumulatePower(index, leftScore - leftMeans[index], rightScore - rightMeans[index]);
+		}
+
+		private void load(int index, SimilarityStatistic statistic) {
+			statistic.count = counts[index];
+			statistic.leftSum = leftSums[index];
+			statistic.rightSum = rightSums[index];
+			statistic.product = products[index];
+			statistic.leftPower = leftPowers[index];
+			statistic.rightPower = rightPowers[index];
+			statistic.distance = distances[index];
+		}
+
+		private void clear(int index) {
+			counts[index] = 0;
+			leftSums[index] = 0D;
+			rightSums[index] = 0D;
+			products[index] = 0D;
+			leftPowers[index] = 0D;
+			rightPowers[index] = 0D;
+			distances[index] = 0D;
+		}
+
+	}
+
+	/**
+	 * 相似度处理器
+	 */
+	@FunctionalInterface
+	private interface CorrelationHandler {
+
+		void handle(int leftIndex, int rightIndex, float correlation);
+
+	}
+
+	/**
+	 * 通过倒排索引计算所有存在共现的向量对(leftIndex < rightIndex)
+	 */
+	private void calculate(SparseMatrix scoreMatrix, boolean transpose, float scale, MathCalculator mode, CorrelationHandler handler) {
+		// 向量方向
+		int count = transpose ? scoreMatrix.getColumnSize() : scoreMatrix.getRowSize();
+		int[] vectorPoints = transpose ? scoreMatrix.getColumnPoints() : scoreMatrix.getRowPoints();
+		int[] vectorIndexes = transpose ? scoreMatrix.getColumnIndexes() : scoreMatrix.getRowIndexes();
+		int[] vectorKeys = transpose ? scoreMatrix.getTermColumns() : scoreMatrix.getTermRows();
+		// 倒排方向
+		int[] postingPoints = transpose ? scoreMatrix.getRowPoints() : scoreMatrix.getColumnPoints();
+		int[] postingIndexes = transpose ? scoreMatrix.getRowIndexes() : scoreMatrix.getColumnIndexes();
+		int[] postingKeys = transpose ? scoreMatrix.getTermRows() : scoreMatrix.getTermColumns();
+		float[] values = scoreMatrix.getTermValues();
+		float offset = getOffset();
+		boolean precise = isPrecise();
+		boolean centered = isCentered();
+
+		float[] norms = new float[count];
+		for (int index = 0; index < count; index++) {
+			float norm = 0F;
+			for (int point = vectorPoints[index], end = vectorPoints[index + 1]; point < end; point++) {
+				float value = values[vectorIndexes[point]];
+				norm += value * value;
+			}
+			norms[index] = norm;
+		}
+
+		// 每个线程独立的累加器
+		ThreadLocal<CoOccurrenceAccumulator> accumulators = ThreadLocal.withInitial(() -> new CoOccurrenceAccumulator(count, precise, centered));
+		RangeCommand command = (from, to) -> {
+			CoOccurrenceAccumulator accumulator = accumulators.get();
+			SimilarityStatistic statistic = new SimilarityStatistic();
+			int[] counts = accumulator.counts;
+			int[] touches = accumulator.touches;
+			for (int leftIndex = from; leftIndex < to; leftIndex++) {
+				int leftSize = vectorPoints[leftIndex + 1] - vectorPoints[leftIndex];
+				if (leftSize == 0) {
+					continue;
+				}
+				int size = 0;
+				// 中心化需要第二遍按照共现均值累加
+				for (int pass = 0, passes = centered ? 2 : 1; pass < passes; pass++) {
+					if (pass == 1) {
+						for (int position = 0; position < size; position++) {
+							accumulator.center(touches[position]);
+						}
+					}
+					for (int point = vectorPoints[leftIndex], end = vectorPoints[leftIndex + 1]; point < end; point++) {
+						int term = vectorIndexes[point];
+						int posting = postingKeys[term];
+						float leftScore = values[term] - offset;
+						// 倒排列表按照向量索引升序,只需要访问rightIndex > leftIndex的部分
+						int low = postingPoints[posting], high = postingPoints[posting + 1], limit = high;
+						while (low < high) {
+							int middle = (low + high) >>> 1;
+							if (vectorKeys[postingIndexes[middle]] <= leftIndex) {
+								low = middle + 1;
+							} else {
+								high = middle;
+							}
+						}
+						for (int cursor = low; cursor < limit; cursor++) {
+							int rightTerm = postingIndexes[cursor];
+							int rightIndex = vectorKeys[rightTerm];
+							if (pass == 1) {
+								accumulator.accumulateCenter(rightIndex, leftScore, values[rightTerm] - offset);
+								continue;
+							}
+							if (counts[rightIndex] == 0) {
+								touches[size++] = rightIndex;
+							}
+							accumulator.accumulate(rightIndex, leftScore, values[rightTerm] - offset);
+						}
+					}
+				}
+				for (int position = 0; position < size; position++) {
+					int rightIndex = touches[position];
+					if (counts[rightIndex] >= support) {
+						accumulator.load(rightIndex, statistic);
+						statistic.leftSize = leftSize;
+						statistic.rightSize = vectorPoints[rightIndex + 1] - vectorPoints[rightIndex];
+						statistic.leftNorm = norms[leftIndex];
+						statistic.rightNorm = norms[rightIndex];
+						float correlation = getCorrelation(statistic, scale);
+						if (!Float.isNaN(correlation)) {
+							handler.handle(leftIndex, rightIndex, correlation);
+						}
+					}
+					accumulator.clear(rightIndex);
+				}
+			}
+		};
+		switch (mode) {
+		case SERIAL: {
+			command.execute(0, count);
+			break;
+		}
+		default: {
+			EnvironmentContext context = EnvironmentContext.getContext();
+			context.doStructureByRange(0, count, 0, command);
+			break;
+		}
+		}
+	}
+
+	@Override
+	public SymmetryMatrix makeSimilarityMatrix(SparseMatrix scoreMatrix, boolean transpose, float scale) {
+		int count = transpose ? scoreMatrix.getColumnSize() : scoreMatrix.getRowSize();
+		SymmetryMatrix similarityMatrix = new SymmetryMatrix(count);
+		for (int index = 0; index < count; index++) {
+			int size = transpose ? scoreMatrix.getColumnScope(index) : scoreMatrix.getRowScope(index);
+			if (size != 0) {
+				similarityMatrix.setValue(index, index, getIdentical());
+			}
+		}
+		calculate(scoreMatrix, transpose, scale, MathCalculator.SERIAL, similarityMatrix::setValue);
+		return similarityMatrix;
+	}
+
+	@Override
+	public NeighborMatrix makeNeighborMatrix(SparseMatrix scoreMatrix, boolean transpose, float scale, int neighborSize, MathCalculator mode) {
+		int count = transpose ? scoreMatrix.getColumnSize() : scoreMatrix.getRowSize();
+		NeighborBuilder builder = new NeighborBuilder(count, neighborSize);
+		calculate(scoreMatrix, transpose, scale, mode, (leftIndex, rightIndex, correlation) -> {
+			// 忽略相似度为0的邻居
+			if (correlation != 0F) {
+				builder.offer(leftIndex, rightIndex, correlation);
+				builder.offer(rightIndex, leftIndex, correlation);
+			}
+		});
+		return builder.build();
+	}
+
+}
@@ -1,30 +1,20 @@
 package com.jstarcraft.module.similarity;
 
-import java.util.List;
-
-import com.jstarcraft.core.utility.KeyValue;
-import com.jstarcraft.module.math.structure.vector.MathVector;
-
 /**
  * Dice Coefficient Similarity
  *
  * @author zhanghaidong
  */
-public class DiceCoefficientSimilarity extends AbstractSimilarity {
+public class DiceCoefficientSimilarity extends CoOccurrenceSimilarity {
 
 	@Override
-	public float getCorrelation(MathVector leftVector, MathVector rightVector, float scale) {
-		// compute similarity
-		List<KeyValue<Float, Float>> scoreList = getScoreList(leftVector, rightVector);
-		int count = scoreList.size();
-		float similarity = getSimilarity(count, scoreList);
-		// shrink to account for vector size
-		if (!Double.isNaN(similarity)) {
-			if (scale > 0) {
-				similarity *= count / (count + scale);
-			}
+	protected float getCorrelation(SimilarityStatistic statistic, float scale) {
+		int count = statistic.getCount();
+		if (count == 0) {
+			return Float.NaN;
 		}
-		return similarity;
+		float similarity = 2F * statistic.getProduct() / (statistic.getLeftPower() + statistic.getRightPower());
+		return shrink(similarity, count, scale);
 	}
 
 	@Override
@@ -32,27 +22,4 @@ public class DiceCoefficientSimilarity extends AbstractSimilarity {
 		return 1F;
 	}
 
-	/**
-	 * Calculate the similarity between thisList and thatList.
-	 *
-	 * @param leftScores
-	 *            this list
-	 * @param rightScores
-	 *            that list
-	 * @return similarity
-	 */
-	private float getSimilarity(int count, List<KeyValue<Float, Float>> scoreList) {
-		if (count == 0) {
-			return Float.NaN;
-		}
-		float power = 0F, leftPower = 0F, rightPower = 0F;
-		for (KeyValue<Float, Float> term : scoreList) {
-			float leftScore = term.getKey();
-			float rightScore = term.getValue();
-			power += leftScore * rightScore;
-			leftPower += leftScore * leftScore;
-			rightPower += rightScore * rightScore;
-		}
-		return 2F * power / (leftPower + rightPower);
-	}
 }
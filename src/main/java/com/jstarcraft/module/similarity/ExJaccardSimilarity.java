@@ -1,30 +1,21 @@
 package com.jstarcraft.module.similarity;
 
-import java.util.List;
-
-import com.jstarcraft.core.utility.KeyValue;
-import com.jstarcraft.module.math.structure.vector.MathVector;
-
 /**
  * Extend Jaccard Coefficient
  *
  * @author zhanghaidong
  */
-public class ExJaccardSimilarity extends AbstractSimilarity {
+public class ExJaccardSimilarity extends CoOccurrenceSimilarity {
 
 	@Override
-	public float getCorrelation(MathVector leftVector, MathVector rightVector, float scale) {
-		// compute similarity
-		List<KeyValue<Float, Float>> scoreList = getScoreList(leftVector, rightVector);
-		int count = scoreList.size();
-		float similarity = getSimilarity(count, scoreList);
-		// shrink to account for vector size
-		if (!Double.isNaN(similarity)) {
-			if (scale > 0) {
-				similarity *= count / (count + scale);
-			}
+	protected float getCorrelation(SimilarityStatistic statistic, float scale) {
+		int count = statistic.getCount();
+		if (count == 0) {
+			return Float.NaN;
 		}
-		return similarity;
+		float power = statistic.getProduct();
+		float similarity = power / (statistic.getLeftPower() + statistic.getRightPower() - power);
+		return shrink(similarity, count, scale);
 	}
 
 	@Override
@@ -32,27 +23,4 @@ public class ExJaccardSimilarity extends AbstractSimilarity {
 		return 1F;
 	}
 
-	/**
-	 * Calculate the similarity between thisList and thatList.
-	 *
-	 * @param thisList
-	 *            this list
-	 * @param thatList
-	 *            that list
-	 * @return similarity
-	 */
-	private float getSimilarity(int count, List<KeyValue<Float, Float>> scoreList) {
-		if (count == 0) {
-			return Float.NaN;
-		}
-		float power = 0F, leftPower = 0F, rightPower = 0F;
-		for (KeyValue<Float, Float> term : scoreList) {
-			float leftScore = term.getKey();
-			float rightScore = term.getValue();
-			power += leftScore * rightScore;
-			leftPower += leftScore * leftScore;
-			rightPower += rightScore * rightScore;
-		}
-		return power / (leftPower + rightPower - power);
-	}
 }
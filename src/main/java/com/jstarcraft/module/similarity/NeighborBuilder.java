@@ -0,0 +1,142 @@
+package com.jstarcraft.module.similarity;
+
+import java.util.Arrays;
+
+/**
+ * 邻居构建器
+ * 
+ * <pre>
+ * 每行维护一个容量为K的有界最小堆(int/float数组),流式接收候选邻居.
+ * 相似度相同时索引较小者优先.
+ * 通过分段锁保证线程安全,不同线程可以同时提供任意行的候选.
+ * </pre>
+ * 
+ * @author Birdy
+ *
+ */
+public class NeighborBuilder {
+
+	/** 分段锁数量 */
+	private static final int LOCK_SIZE = 1 << 10;
+
+	/** 行数量 */
+	private final int rowSize;
+
+	/** 邻居数量 */
+	private final int neighborSize;
+
+	/** 每行堆的大小 */
+	private final int[] sizes;
+
+	private final int[] indexes;
+
+	private final float[] values;
+
+	private final Object[] locks;
+
+	public NeighborBuilder(int rowSize, int neighborSize) {
+		if (neighborSize < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.rowSize = rowSize;
+		this.neighborSize = neighborSize;
+		this.sizes = new int[rowSize];
+		this.indexes = new int[rowSize * neighborSize];
+		this.values = new float[rowSize * neighborSize];
+		this.locks = new Object[LOCK_SIZE];
+		for (int index = 0; index < LOCK_SIZE; index++) {
+			locks[index] = new Object();
+		}
+	}
+
+	/**
+	 * 左元素是否比右元素更差
+	 */
+	private static boolean isWorse(int leftIndex, float leftValue, int rightIndex, float rightValue) {
+		return leftValue < rightValue || (leftValue == rightValue && leftIndex > rightIndex);
+	}
+
+	/**
+	 * 提供候选邻居
+	 * 
+	 * @param row
+	 * @param column
+	 * @param value
+	 */
+	public void offer(int row, int column, float value) {
+		if (neighborSize == 0) {
+			return;
+		}
+		int cursor = row * neighborSize;
+		synchronized (locks[row & (LOCK_SIZE - 1)]) {
+			int size = sizes[row];
+			int position;
+			if (size < neighborSize) {
+				// 上浮
+				position = size;
+				while (position > 0) {
+					int parent = (position - 1) >>> 1;
+					if (!isWorse(column, value, indexes[cursor + parent], values[cursor + parent])) {
+						break;
+					}
+					indexes[cursor + position] = indexes[cursor + parent];
+					values[cursor + position] = values[cursor + parent];
+					position = parent;
+				}
+				sizes[row] = size + 1;
+			} else {
+				if (!isWorse(indexes[cursor], values[cursor], column, value)) {
+					return;
+				}
+				// 替换堆顶并下沉
+				position = 0;
+				int half = size >>> 1;
+				while (position < half) {
+					int child = (position << 1) + 1;
+					int right = child + 1;
+					if (right < size && isWorse(indexes[cursor + right], values[cursor + right], indexes[cursor + child], values[cursor + child])) {
+						child = right;
+					}
+					if (isWorse(column, value, indexes[cursor + child], values[cursor + child])) {
+						break;
+					}
+					indexes[cursor + position] = indexes[cursor + child];
+					values[cursor + position] = values[cursor + child];
+					position = child;
+				}
+			}
+			indexes[cursor + position] = column;
+			values[cursor + position] = value;
+		}
+	}
+
+	/**
+	 * 构建邻居矩阵
+	 * 
+	 * @return
+	 */
+	public NeighborMatrix build() {
+		int[] paginations = new int[rowSize + 1];
+		for (int row = 0; row < rowSize; row++) {
+			paginations[row + 1] = paginations[row] + sizes[row];
+		}
+		int[] indexes = new int[paginations[rowSize]];
+		float[] values = new float[paginations[rowSize]];
+		long[] buffer = new long[neighborSize];
+		for (int row = 0; row < rowSize; row++) {
+			int cursor = row * neighborSize;
+			int size = sizes[row];
+			// 索引在高位,相似度在低位,按照索引升序排序
+			for (int position = 0; position < size; position++) {
+				buffer[position] = (((long) this.indexes[cursor + position]) << 32) | (Float.floatToRawIntBits(this.values[cursor + position]) & 0xFFFFFFFFL);
+			}
+			Arrays.sort(buffer, 0, size);
+			for (int position = 0, offset = paginations[row]; position < size; position++, offset++) {
+				indexes[offset] = (int) (buffer[position] >>> 32);
+				values[offset] = Float.intBitsToFloat((int) buffer[position]);
+			}
+		}
+		return new NeighborMatrix(rowSize, paginations, indexes, values);
+	}
+
+}
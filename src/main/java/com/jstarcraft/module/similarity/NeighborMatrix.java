@@ -0,0 +1,94 @@
+package com.jstarcraft.module.similarity;
+
+import java.util.Arrays;
+
+/**
+ * 邻居矩阵
+ * 
+ * <pre>
+ * 每行只保存相似度最高的K个邻居(不包括自身),按照行压缩存储.
+ * 行内邻居按照列索引升序,便于与评分向量做有序合并.
+ * </pre>
+ * 
+ * @author Birdy
+ *
+ */
+public class NeighborMatrix {
+
+	/** 行数量 */
+	private final int rowSize;
+
+	/** 行分页(长度为rowSize+1) */
+	private final int[] paginations;
+
+	/** 邻居索引 */
+	private final int[] indexes;
+
+	/** 邻居相似度 */
+	private final float[] values;
+
+	NeighborMatrix(int rowSize, int[] paginations, int[] indexes, float[] values) {
+		this.rowSize = rowSize;
+		this.paginations = paginations;
+		this.indexes = indexes;
+		this.values = values;
+	}
+
+	public int getRowSize() {
+		return rowSize;
+	}
+
+	/**
+	 * 获取所有邻居的数量
+	 * 
+	 * @return
+	 */
+	public int getElementSize() {
+		return indexes.length;
+	}
+
+	/**
+	 * 获取指定行的邻居数量
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public int getNeighborSize(int row) {
+		return paginations[row + 1] - paginations[row];
+	}
+
+	/**
+	 * 获取指定行指定位置的邻居索引
+	 * 
+	 * @param row
+	 * @param position
+	 * @return
+	 */
+	public int getNeighborIndex(int row, int position) {
+		return indexes[paginations[row] + position];
+	}
+
+	/**
+	 * 获取指定行指定位置的邻居相似度
+	 * 
+	 * @param row
+	 * @param position
+	 * @return
+	 */
+	public float getNeighborValue(int row, int position) {
+		return values[paginations[row] + position];
+	}
+
+	/**
+	 * 获取相似度(不是邻居时为0)
+	 * 
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	public float getValue(int row, int column) {
+		int position = Arrays.binarySearch(indexes, paginations[row], paginations[row + 1], column);
+		return position < 0 ? 0F : values[position];
+	}
+
+}
@@ -1,30 +1,29 @@
 package com.jstarcraft.module.similarity;
 
-import java.util.List;
-
-import com.jstarcraft.core.utility.KeyValue;
-import com.jstarcraft.module.math.structure.vector.MathVector;
-
 /**
  * Pearson Correlation Coefficient (PCC)
  *
  * @author zhanghaidong
  */
-public class PCCSimilarity extends AbstractSimilarity {
+public class PCCSimilarity extends CoOccurrenceSimilarity {
 
+	/**
+	 * 先计算共现均值,再累加减去均值的分数
+	 */
 	@Override
-	public float getCorrelation(MathVector leftVector, MathVector rightVector, float scale) {
-		// compute similarity
-		List<KeyValue<Float, Float>> scoreList = getScoreList(leftVector, rightVector);
-		int count = scoreList.size();
-		float similarity = getSimilarity(count, scoreList);
-		// shrink to account for vector size
-		if (!Double.isNaN(similarity)) {
-			if (scale > 0) {
-				similarity *= count / (count + scale);
-			}
+	protected boolean isCentered() {
+		return true;
+	}
+
+	@Override
+	protected float getCorrelation(SimilarityStatistic statistic, float scale) {
+		int count = statistic.getCount();
+		if (count < 2) {
+			return Float.NaN;
 		}
-		return similarity;
+		float sum = statistic.getProduct(), leftPower = statistic.getLeftPower(), rightPower = statistic.getRightPower();
+		float similarity = (float) (sum / (Math.sqrt(leftPower * rightPower)));
+		return shrink(similarity, count, scale);
 	}
 
 	@Override
@@ -32,36 +31,4 @@ public class PCCSimilarity extends AbstractSimilarity {
 		return 1F;
 	}
 
-	/**
-	 * Calculate the similarity between thisList and thatList.
-	 *
-	 * @param leftScores
-	 *            this list
-	 * @param rightScores
-	 *            that list
-	 * @return similarity
-	 */
-	private float getSimilarity(int count, List<KeyValue<Float, Float>> scoreList) {
-		// compute similarity
-		if (count < 2) {
-			return Float.NaN;
-		}
-		float leftMean = 0F;
-		float rightMean = 0F;
-		for (KeyValue<Float, Float> term : scoreList) {
-			leftMean += term.getKey();
-			rightMean += term.getValue();
-		}
-		leftMean /= count;
-		rightMean /= count;
-		float sum = 0F, leftPower = 0F, rightPower = 0F;
-		for (KeyValue<Float, Float> term : scoreList) {
-			float leftDelta = term.getKey() - leftMean;
-			float rightDelta = term.getValue() - rightMean;
-			sum += leftDelta * rightDelta;
-			leftPower += leftDelta * leftDelta;
-			rightPower += rightDelta * rightDelta;
-		}
-		return (float) (sum / (Math.sqrt(leftPower * rightPower)));
-	}
 }
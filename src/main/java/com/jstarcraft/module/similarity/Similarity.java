@@ -1,5 +1,6 @@
 package com.jstarcraft.module.similarity;
 
+import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.math.structure.matrix.SymmetryMatrix;
 import com.jstarcraft.module.math.structure.vector.MathVector;
@@ -26,4 +27,20 @@ public interface Similarity {
 	 */
 	SymmetryMatrix makeSimilarityMatrix(SparseMatrix scoreMatrix, boolean transpose, float scale);
 
+	/**
+	 * 根据分数矩阵制作邻居矩阵
+	 * 
+	 * <pre>
+	 * 每行只保留相似度最高的neighborSize个邻居,不需要保存完整的相似度矩阵.
+	 * </pre>
+	 * 
+	 * @param scoreMatrix
+	 * @param transpose
+	 * @param scale
+	 * @param neighborSize
+	 * @param mode
+	 * @return
+	 */
+	NeighborMatrix makeNeighborMatrix(SparseMatrix scoreMatrix, boolean transpose, float scale, int neighborSize, MathCalculator mode);
+
 }
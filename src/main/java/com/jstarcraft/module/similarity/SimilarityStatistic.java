@@ -0,0 +1,135 @@
+package com.jstarcraft.module.similarity;
+
+/**
+ * 相似度统计
+ *
+ * <pre>
+ * 一对向量的共现统计,所有共现分数都已经减去偏移量.
+ * 各种相似度只需要根据统计计算,不需要再遍历向量.
+ * 累加按照共现索引的升序进行,与逐对计算的顺序一致.
+ * 统计以double保存,单精度时每一步都按照float舍入(结果与float累加完全一致),双精度时直接按照double累加.
+ * 中心化时乘积与平方和为减去共现均值以后的结果.
+ * </pre>
+ *
+ * @author Birdy
+ *
+ */
+public class SimilarityStatistic {
+
+	/** 共现数量 */
+	int count;
+
+	/** 左/右向量的元素数量 */
+	int leftSize, rightSize;
+
+	/** 左/右向量所有元素的平方和(不减去偏移量) */
+	float leftNorm, rightNorm;
+
+	/** 共现分数的和 */
+	double leftSum, rightSum;
+
+	/** 共现分数的内积 */
+	double product;
+
+	/** 共现分数的平方和 */
+	double leftPower, rightPower;
+
+	/** 共现分数的差的平方和 */
+	double distance;
+
+	static double sum(double sum, float score, boolean precise) {
+		return precise ? sum + score : (float) (sum + score);
+	}
+
+	static double product(double sum, float leftScore, float rightScore, boolean precise) {
+		return precise ? sum + (double) leftScore * rightScore : (float) (sum + leftScore * rightScore);
+	}
+
+	static double distance(double sum, float leftScore, float rightScore, boolean precise) {
+		// 与Math.pow(delta, 2)相同,差的平方按照double计算
+		float delta = leftScore - rightScore;
+		return precise ? sum + (double) delta * delta : (float) (sum + (double) delta * delta);
+	}
+
+	void accumulate(float leftScore, float rightScore, boolean precise) {
+		count++;
+		leftSum = sum(leftSum, leftScore, precise);
+		rightSum = sum(rightSum, rightScore, precise);
+		accumulatePower(leftScore, rightScore, precise);
+		distance = distance(distance, leftScore, rightScore, precise);
+	}
+
+	void accumulatePower(float leftScore, float rightScore, boolean precise) {
+		product = product(product, leftScore, rightScore, precise);
+		leftPower = product(leftPower, leftScore, leftScore, precise);
+		rightPower = product(rightPower, rightScore, rightScore, precise);
+	}
+
+	void clearPower() {
+		product = 0D;
+		leftPower = 0D;
+		rightPower = 0D;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public int getLeftSize() {
+		return leftSize;
+	}
+
+	public int getRightSize() {
+		return rightSize;
+	}
+
+	public float getLeftNorm() {
+		return leftNorm;
+	}
+
+	public float getRightNorm() {
+		return rightNorm;
+	}
+
+	public float getLeftSum() {
+		return (float) leftSum;
+	}
+
+	public float getRightSum() {
+		return (float) rightSum;
+	}
+
+	public float getProduct() {
+		return (float) product;
+	}
+
+	public float getLeftPower() {
+		return (float) leftPower;
+	}
+
+	public float getRightPower() {
+		return (float) rightPower;
+	}
+
+	public float getDistance() {
+		return (float) distance;
+	}
+
+	/**
+	 * 获取双精度的内积(只有双精度累加时才比{@link #getProduct()}精确)
+	 *
+	 * @return
+	 */
+	public double getPreciseProduct() {
+		return product;
+	}
+
+	public double getPreciseLeftPower() {
+		return leftPower;
+	}
+
+	public double getPreciseRightPower() {
+		return rightPower;
+	}
+
+}
@@ -5,6 +5,8 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 import com.jstarcraft.module.data.convertor.ConvertorTestSuite;
+import com.jstarcraft.module.data.dictionary.DataDictionaryTestCase;
+import com.jstarcraft.module.data.processor.DataSorterTestCase;
 import com.jstarcraft.module.data.splitter.SplitterTestSuite;
 
 @RunWith(Suite.class)
@@ -12,8 +14,12 @@ import com.jstarcraft.module.data.splitter.SplitterTestSuite;
 
 		ConvertorTestSuite.class,
 
+		DataDictionaryTestCase.class,
+
 		SplitterTestSuite.class,
 
+		DataSorterTestCase.class,
+
 		DataSpaceTestCase.class })
 public class DataTestSuite {
 
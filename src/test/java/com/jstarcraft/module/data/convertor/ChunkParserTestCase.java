@@ -0,0 +1,104 @@
+package com.jstarcraft.module.data.convertor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jstarcraft.module.data.DataFeature;
+import com.jstarcraft.module.data.DataSpace;
+
+public class ChunkParserTestCase {
+
+	private static final String[] FIELDS = { "user", "item", "tag", "score" };
+
+	/** 覆盖\n,\r\n,空行,字段不足,缺少结尾换行,超出int范围的整数与需要回退的浮点数 */
+	private static final String CONTENT = "1,12345678901,a,0.5\n" //
+			+ "2,9223372036854775807,b,3\r\n" //
+			+ "\n" //
+			+ "-2147483648,-7,a,-2.25\r\n" //
+			+ "\r\n" //
+			+ "1,12345678901,c,1e-3\n" //
+			+ "3,5\n" //
+			+ "2,0,b,123456789.123\n" //
+			+ "4,+8,d,.5\n" //
+			+ "5,17,e,0.30000001";
+
+	private static DataSpace getSpace() {
+		Map<String, Class<?>> discreteFeatures = new HashMap<>();
+		Set<String> continuousFeatures = new HashSet<>();
+		discreteFeatures.put("user", int.class);
+		discreteFeatures.put("item", long.class);
+		discreteFeatures.put("tag", String.class);
+		continuousFeatures.add("score");
+		DataSpace space = new DataSpace(discreteFeatures, continuousFeatures);
+		for (String field : FIELDS) {
+			space.makeFeature(field, field);
+		}
+		return space;
+	}
+
+	private static Map<Integer, DataFeature<?>> getFeatures(DataSpace space) {
+		Map<Integer, DataFeature<?>> features = new HashMap<>();
+		for (int column = 0; column < FIELDS.length; column++) {
+			features.put(column, space.getFeature(FIELDS[column]));
+		}
+		return features;
+	}
+
+	private static List<Object> getValues(DataFeature<?> feature) {
+		List<Object> values = new ArrayList<>(feature.getSize());
+		for (Object value : feature) {
+			values.add(value);
+		}
+		return values;
+	}
+
+	@Test
+	public void testParse() throws Exception {
+		Charset charset = StandardCharsets.UTF_8;
+		File file = File.createTempFile("chunk", ".csv");
+		file.deleteOnExit();
+		Files.write(file.toPath(), CONTENT.getBytes(charset));
+
+		// 串行解析(commons-csv)
+		DataSpace serialSpace = getSpace();
+		Map<Integer, DataFeature<?>> serialFeatures = getFeatures(serialSpace);
+		CsvConvertor convertor = new CsvConvertor("csv", ',', file.getPath(), new HashMap<>());
+		int serialCount;
+		try (InputStreamReader reader = new InputStreamReader(new FileInputStream(file), charset); BufferedReader buffer = new BufferedReader(reader)) {
+			serialCount = convertor.parseData(buffer, serialFeatures);
+		}
+		Assert.assertEquals(7, serialCount);
+
+		// 分块大小覆盖每行一个分块,分块边界落在行中间与单个分块
+		for (int chunkSize : new int[] { 1, 7, 16, 64, ChunkParser.CHUNK_SIZE }) {
+			DataSpace chunkSpace = getSpace();
+			Map<Integer, DataFeature<?>> chunkFeatures = getFeatures(chunkSpace);
+			Assert.assertTrue(ChunkParser.isSupported(',', charset, chunkFeatures));
+			ChunkParser parser = new ChunkParser(',', charset, chunkFeatures, chunkSize);
+			int chunkCount = parser.parse(file, 0L);
+			Assert.assertEquals(serialCount, chunkCount);
+			for (int column = 0; column < FIELDS.length; column++) {
+				// 属性索引与特征值一致
+				Assert.assertEquals(getValues(serialFeatures.get(column)), getValues(chunkFeatures.get(column)));
+			}
+			for (String field : new String[] { "user", "item", "tag" }) {
+				Assert.assertArrayEquals(serialSpace.getDiscreteAttribute(field).getDatas(), chunkSpace.getDiscreteAttribute(field).getDatas());
+			}
+		}
+	}
+
+}
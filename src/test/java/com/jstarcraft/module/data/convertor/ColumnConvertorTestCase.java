@@ -0,0 +1,91 @@
+package com.jstarcraft.module.data.convertor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import com.jstarcraft.module.data.DataSpace;
+import com.jstarcraft.module.data.accessor.ColumnAccessor;
+import com.jstarcraft.module.data.accessor.InstanceAccessor;
+import com.jstarcraft.module.recommendation.configure.Configuration;
+
+public class ColumnConvertorTestCase {
+
+	private DataSpace getSpace() {
+		Map<String, Class<?>> discreteFeatures = new HashMap<>();
+		Set<String> continuousFeatures = new HashSet<>();
+		discreteFeatures.put("user", int.class);
+		discreteFeatures.put("item", int.class);
+		continuousFeatures.add("score");
+		DataSpace space = new DataSpace(discreteFeatures, continuousFeatures);
+
+		// 制造数据特征
+		space.makeFeature("user", "user");
+		space.makeFeature("item", "item");
+		space.makeFeature("score", "score");
+		return space;
+	}
+
+	@Test
+	public void testStoreAndLoad() throws Exception {
+		Configuration configuration = Configuration.valueOf();
+		String path = configuration.getString("dfs.data.dir") + "/test/datamodeltest/ratings-date.txt";
+		Map<String, Integer> fields = new HashMap<>();
+		fields.put("user", 0);
+		fields.put("item", 1);
+		fields.put("score", 2);
+		DataSpace csvSpace = getSpace();
+		CsvConvertor csvConvertor = new CsvConvertor("csv", ' ', path, fields);
+		int count = csvConvertor.convert(csvSpace);
+		InstanceAccessor csvModel = csvSpace.makeModule("model", "user", "item", "score");
+
+		File directory = new File(FileUtils.getTempDirectory(), "column-convertor");
+		FileUtils.deleteQuietly(directory);
+		Map<String, String> columns = new HashMap<>();
+		columns.put("user", "user");
+		columns.put("item", "item");
+		columns.put("score", "score");
+		assertEquals(count, new ColumnConvertor("column", directory.getPath(), columns).store(csvSpace));
+
+		// 加载到堆
+		DataSpace heapSpace = getSpace();
+		assertEquals(count, new ColumnConvertor("column", directory.getPath(), columns).convert(heapSpace));
+		InstanceAccessor heapModel = heapSpace.makeModule("model", "user", "item", "score");
+
+		// 映射到磁盘
+		DataSpace mapSpace = getSpace();
+		ColumnAccessor mapModel = new ColumnConvertor("column", directory.getPath(), columns).map(mapSpace);
+
+		assertEquals(count, heapModel.getSize());
+		assertEquals(count, mapModel.getSize());
+		for (String field : csvModel.getDiscreteFields()) {
+			int csvDimension = csvModel.getDiscreteDimension(field);
+			int heapDimension = heapModel.getDiscreteDimension(field);
+			int mapDimension = mapModel.getDiscreteDimension(field);
+			assertEquals(csvModel.getDiscreteAttribute(csvDimension).getSize(), heapModel.getDiscreteAttribute(heapDimension).getSize());
+			assertEquals(csvModel.getDiscreteAttribute(csvDimension).getSize(), mapModel.getDiscreteAttribute(mapDimension).getSize());
+			for (int position = 0; position < count; position++) {
+				assertEquals(csvModel.getDiscreteFeature(csvDimension, position), heapModel.getDiscreteFeature(heapDimension, position));
+				assertEquals(csvModel.getDiscreteFeature(csvDimension, position), mapModel.getDiscreteFeature(mapDimension, position));
+			}
+		}
+		for (String field : csvModel.getContinuousFields()) {
+			int csvDimension = csvModel.getContinuousDimension(field);
+			int heapDimension = heapModel.getContinuousDimension(field);
+			int mapDimension = mapModel.getContinuousDimension(field);
+			for (int position = 0; position < count; position++) {
+				assertEquals(csvModel.getContinuousFeature(csvDimension, position), heapModel.getContinuousFeature(heapDimension, position), 0F);
+				assertEquals(csvModel.getContinuousFeature(csvDimension, position), mapModel.getContinuousFeature(mapDimension, position), 0F);
+			}
+		}
+		FileUtils.deleteQuietly(directory);
+	}
+
+}
@@ -9,6 +9,10 @@ import org.junit.runners.Suite.SuiteClasses;
 
 		ArffDataConvertorTestCase.class,
 
+		ChunkParserTestCase.class,
+
+		ColumnConvertorTestCase.class,
+
 		CsvDataConvertorTestCase.class,
 
 		JsonDataConvertorTestCase.class })
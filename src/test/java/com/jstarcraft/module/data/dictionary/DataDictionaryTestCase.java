@@ -0,0 +1,110 @@
+package com.jstarcraft.module.data.dictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DataDictionaryTestCase {
+
+	@Test
+	public void testOrder() {
+		IntegerDictionary integerDictionary = new IntegerDictionary();
+		LongDictionary longDictionary = new LongDictionary();
+		StringDictionary stringDictionary = new StringDictionary();
+		ObjectDictionary objectDictionary = new ObjectDictionary();
+		int size = 10000;
+		for (int index = 0; index < size; index++) {
+			// 索引按照首次出现的顺序分配
+			Assert.assertEquals(index, integerDictionary.encode(index * 7919 - 5000));
+			Assert.assertEquals(index, longDictionary.encode(index * 7919L << 32));
+			Assert.assertEquals(index, stringDictionary.encode("键" + index));
+			Assert.assertEquals(index, objectDictionary.encode(Double.valueOf(index)));
+		}
+		for (int index = size - 1; index >= 0; index--) {
+			Assert.assertEquals(index, integerDictionary.encode(index * 7919 - 5000));
+			Assert.assertEquals(index, longDictionary.encode(index * 7919L << 32));
+			Assert.assertEquals(index, stringDictionary.encode("键" + index));
+			Assert.assertEquals(index, objectDictionary.encode(Double.valueOf(index)));
+			Assert.assertEquals(index * 7919 - 5000, integerDictionary.getKey(index));
+			Assert.assertEquals(index * 7919L << 32, longDictionary.getKey(index));
+			Assert.assertEquals("键" + index, stringDictionary.getKey(index));
+		}
+		Assert.assertEquals(-1, integerDictionary.getIndex(Integer.MAX_VALUE));
+		Assert.assertEquals(-1, longDictionary.getIndex(Long.MAX_VALUE));
+		Assert.assertEquals(size, integerDictionary.getSize());
+		Assert.assertEquals(size, longDictionary.getSize());
+		Assert.assertEquals(size, stringDictionary.getSize());
+		Assert.assertEquals(size, objectDictionary.getSize());
+
+		// 键数组被缓存,新增键之后才重新构建
+		Object[] datas = stringDictionary.getDatas();
+		Assert.assertSame(datas, stringDictionary.getDatas());
+		stringDictionary.encode("键" + size);
+		Assert.assertEquals(size + 1, stringDictionary.getDatas().length);
+		Assert.assertEquals("键" + size, stringDictionary.getDatas()[size]);
+	}
+
+	@Test
+	public void testBytes() {
+		StringDictionary dictionary = new StringDictionary();
+		byte[] data = "user,item,user".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		Assert.assertEquals(0, dictionary.encode(buffer, 0, 4));
+		Assert.assertEquals(1, dictionary.encode(buffer, 5, 9));
+		Assert.assertEquals(0, dictionary.encode(buffer, 10, 14));
+		Assert.assertEquals(1, dictionary.encode("item"));
+		Assert.assertEquals(0, buffer.position());
+
+		StringDictionary copy = new StringDictionary(StandardCharsets.ISO_8859_1);
+		copy.encode("item");
+		copy.encode("usér");
+		Assert.assertEquals(1, dictionary.encode(copy, 0));
+		Assert.assertEquals(2, dictionary.encode(copy, 1));
+		Assert.assertEquals("usér", dictionary.getKey(2));
+	}
+
+	@Test
+	public void testConcurrent() throws Exception {
+		int numberOfThreads = Runtime.getRuntime().availableProcessors() * 2;
+		int size = 100000;
+		IntegerDictionary integerDictionary = new IntegerDictionary();
+		StringDictionary stringDictionary = new StringDictionary();
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < numberOfThreads; thread++) {
+				int offset = thread;
+				futures.add(executor.submit(() -> {
+					// 每个线程按照不同的顺序编码相同的键
+					for (int index = 0; index < size; index++) {
+						int key = (index * 31 + offset * 7) % size;
+						Assert.assertEquals(key, integerDictionary.getKey(integerDictionary.encode(key)));
+						Assert.assertEquals(String.valueOf(key), stringDictionary.getKey(stringDictionary.encode(String.valueOf(key))));
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(size, integerDictionary.getSize());
+		Assert.assertEquals(size, stringDictionary.getSize());
+		Set<Object> keys = new HashSet<>();
+		for (int index = 0; index < size; index++) {
+			Assert.assertEquals(index, integerDictionary.getIndex(integerDictionary.getKey(index)));
+			Assert.assertTrue(keys.add(stringDictionary.getKey(index)));
+		}
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.jstarcraft.module.data.processor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nd4j.linalg.factory.Nd4j;
+
+import com.jstarcraft.module.data.DataSpace;
+import com.jstarcraft.module.data.accessor.InstanceAccessor;
+import com.jstarcraft.module.data.convertor.CsvConvertor;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.recommendation.configure.Configuration;
+
+public class DataSorterTestCase {
+
+	private InstanceAccessor getModel() {
+		Map<String, Class<?>> discreteFeatures = new HashMap<>();
+		Set<String> continuousFeatures = new HashSet<>();
+		discreteFeatures.put("user", int.class);
+		discreteFeatures.put("item", int.class);
+		discreteFeatures.put("instant", long.class);
+		continuousFeatures.add("score");
+		DataSpace space = new DataSpace(discreteFeatures, continuousFeatures);
+
+		// 制造数据特征
+		space.makeFeature("user", "user");
+		space.makeFeature("item", "item");
+		space.makeFeature("instant", "instant");
+		space.makeFeature("score", "score");
+
+		Configuration configuration = Configuration.valueOf();
+		String path = configuration.getString("dfs.data.dir") + "/test/datamodeltest/ratings-date.txt";
+		Map<String, Integer> fields = new HashMap<>();
+		fields.put("user", 0);
+		fields.put("item", 1);
+		fields.put("score", 2);
+		fields.put("instant", 3);
+		CsvConvertor csvConvertor = new CsvConvertor("csv", ' ', path, fields);
+		csvConvertor.convert(space);
+
+		// 制造数据模型
+		return space.makeModule("model", "user", "item", "instant", "score");
+	}
+
+	private int compare(InstanceAccessor model, int left, int right) {
+		for (int dimension = 0; dimension < model.getDiscreteOrder(); dimension++) {
+			int value = Integer.compare(model.getDiscreteFeature(dimension, left), model.getDiscreteFeature(dimension, right));
+			if (value != 0) {
+				return value;
+			}
+		}
+		for (int dimension = 0; dimension < model.getContinuousOrder(); dimension++) {
+			int value = Float.compare(model.getContinuousFeature(dimension, left), model.getContinuousFeature(dimension, right));
+			if (value != 0) {
+				return value;
+			}
+		}
+		return 0;
+	}
+
+	private void checkSort(InstanceAccessor model, int[] paginations, int[] positions) {
+		int userDimension = model.getDiscreteDimension("user");
+		boolean[] flags = new boolean[model.getSize()];
+		for (int page = 0; page < paginations.length - 1; page++) {
+			for (int cursor = paginations[page]; cursor < paginations[page + 1]; cursor++) {
+				int position = positions[cursor];
+				Assert.assertFalse(flags[position]);
+				flags[position] = true;
+				Assert.assertEquals(page, model.getDiscreteFeature(userDimension, position));
+				if (cursor > paginations[page]) {
+					Assert.assertTrue(compare(model, positions[cursor - 1], position) <= 0);
+				}
+			}
+		}
+	}
+
+	private void exchangeSort(InstanceAccessor model, int dimension, int[] paginations, int[] positions) {
+		for (int page = 0; page < paginations.length - 1; page++) {
+			int from = paginations[page], to = paginations[page + 1];
+			for (int left = from; left < to; left++) {
+				for (int right = left + 1; right < to; right++) {
+					double leftValue = model.getContinuousFeature(dimension, positions[left]);
+					double rightValue = model.getContinuousFeature(dimension, positions[right]);
+					if (leftValue > rightValue) {
+						int position = positions[left];
+						positions[left] = positions[right];
+						positions[right] = position;
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTie() throws Exception {
+		InstanceAccessor model = getModel();
+		int userDimension = model.getDiscreteDimension("user");
+		int scoreDimension = model.getContinuousDimension("score");
+		int size = model.getSize();
+
+		// 分数存在大量相同的值,相同键的顺序必须与交换排序一致
+		int[][] paginations = new int[2][model.getDiscreteAttribute(userDimension).getSize() + 1];
+		int[][] positions = new int[2][size];
+		for (int index = 0; index < 2; index++) {
+			DataMatcher.discreteOf(model, userDimension).match(paginations[index], positions[index]);
+		}
+		DataSorter.continuousOf(model, scoreDimension).sort(paginations[0], positions[0]);
+		exchangeSort(model, scoreDimension, paginations[1], positions[1]);
+		Assert.assertArrayEquals(positions[1], positions[0]);
+	}
+
+	@Test
+	public void testSort() throws Exception {
+		EnvironmentContext context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		InstanceAccessor model = getModel();
+		int userDimension = model.getDiscreteDimension("user");
+		int itemDimension = model.getDiscreteDimension("item");
+		int size = model.getSize();
+
+		// 串行(非环境线程)与并行(环境线程)的结果必须一致
+		int[][] paginations = new int[2][model.getDiscreteAttribute(userDimension).getSize() + 1];
+		int[][] positions = new int[2][size];
+		Future<?> task = context.doTask(() -> {
+			DataMatcher.discreteOf(model, userDimension).match(paginations[0], positions[0]);
+			DataSorter.discreteOf(model, itemDimension).sort(paginations[0], positions[0]);
+		});
+		task.get();
+		DataMatcher.discreteOf(model, userDimension).match(paginations[1], positions[1]);
+		DataSorter.discreteOf(model, itemDimension).sort(paginations[1], positions[1]);
+		Assert.assertArrayEquals(paginations[0], paginations[1]);
+		Assert.assertArrayEquals(positions[0], positions[1]);
+
+		DataSorter.featureOf(model).sort(paginations[1], positions[1]);
+		checkSort(model, paginations[1], positions[1]);
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.jstarcraft.module.environment;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EnvironmentArenaTestCase {
+
+	@Test
+	public void testMarkAndReset() {
+		EnvironmentArena arena = new EnvironmentArena();
+		int outer = arena.mark();
+		int left = arena.allocateFloats(10);
+		int inner = arena.mark();
+		int right = arena.allocateFloats(20);
+		Assert.assertEquals(0, left);
+		Assert.assertEquals(10, right);
+		arena.reset(inner);
+		Assert.assertEquals(10, arena.allocateFloats(5));
+		arena.reset(outer);
+		Assert.assertEquals(0, arena.allocateIntegers(5));
+		Assert.assertEquals(30, arena.getFloatPeak());
+
+		try {
+			arena.reset(outer);
+			Assert.fail();
+		} catch (IllegalStateException exception) {
+		}
+	}
+
+	@Test
+	public void testExpand() {
+		EnvironmentArena arena = new EnvironmentArena();
+		int mark = arena.mark();
+		int offset = arena.allocateFloats(100);
+		float[] data = arena.getFloats();
+		data[offset] = 1F;
+		// 扩容之后旧切片仍然有效
+		int expand = arena.allocateFloats(EnvironmentArena.RETAIN_CAPACITY);
+		Assert.assertEquals(100, expand);
+		Assert.assertNotSame(data, arena.getFloats());
+		Assert.assertEquals(1F, data[offset], 0F);
+		Assert.assertTrue(arena.getFloatCapacity() > EnvironmentArena.RETAIN_CAPACITY);
+
+		try {
+			arena.release();
+			Assert.fail();
+		} catch (IllegalStateException exception) {
+		}
+		arena.reset(mark);
+		arena.release();
+		Assert.assertEquals(0, arena.getFloatCapacity());
+		Assert.assertEquals(0, arena.getAllocateTimes());
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.jstarcraft.module.environment;
 
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -39,4 +40,28 @@ public class EnvironmentManagerTestCase {
 		}
 	}
 
+	@Test
+	public void testDoStructureByRange() throws Exception {
+		for (EnvironmentContext manager : managers) {
+			Future<?> task = manager.doTask(() -> {
+				int size = 100000;
+				for (int grain : new int[] { 0, 1, 1000, size }) {
+					AtomicLong count = new AtomicLong();
+					AtomicLong sum = new AtomicLong();
+					manager.doStructureByRange(0, size, grain, (from, to) -> {
+						Assert.assertEquals(manager, EnvironmentContext.getContext());
+						Assert.assertTrue(from < to);
+						count.addAndGet(to - from);
+						for (int index = from; index < to; index++) {
+							sum.addAndGet(index);
+						}
+					});
+					Assert.assertEquals(size, count.get());
+					Assert.assertEquals((long) size * (size - 1) / 2, sum.get());
+				}
+			});
+			task.get();
+		}
+	}
+
 }
@@ -0,0 +1,75 @@
+package com.jstarcraft.module.math.structure.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+import com.jstarcraft.core.utility.RandomUtility;
+import com.jstarcraft.module.math.structure.vector.SparseVector;
+
+public class AppendableMatrixTestCase {
+
+	private void assertMatrix(Table<Integer, Integer, Float> table, SparseMatrix matrix) {
+		SparseMatrix expect = SparseMatrix.valueOf(matrix.getRowSize(), matrix.getColumnSize(), table);
+		Assert.assertEquals(expect.getElementSize(), matrix.getElementSize());
+		for (int rowIndex = 0; rowIndex < matrix.getRowSize(); rowIndex++) {
+			SparseVector left = expect.getRowVector(rowIndex);
+			SparseVector right = matrix.getRowVector(rowIndex);
+			Assert.assertEquals(left.getElementSize(), right.getElementSize());
+			for (int position = 0; position < left.getElementSize(); position++) {
+				Assert.assertEquals(left.getIndex(position), right.getIndex(position));
+				Assert.assertEquals(left.getValue(position), right.getValue(position), 0F);
+			}
+		}
+		for (int columnIndex = 0; columnIndex < matrix.getColumnSize(); columnIndex++) {
+			SparseVector left = expect.getColumnVector(columnIndex);
+			SparseVector right = matrix.getColumnVector(columnIndex);
+			Assert.assertEquals(left.getElementSize(), right.getElementSize());
+			for (int position = 0; position < left.getElementSize(); position++) {
+				Assert.assertEquals(left.getIndex(position), right.getIndex(position));
+				Assert.assertEquals(left.getValue(position), right.getValue(position), 0F);
+			}
+		}
+	}
+
+	@Test
+	public void testSnapshot() {
+		int dimension = 50;
+		Table<Integer, Integer, Float> table = HashBasedTable.create();
+		AppendableMatrix matrix = new AppendableMatrix(dimension, dimension);
+		for (int index = 0; index < 1000; index++) {
+			int rowIndex = RandomUtility.randomInteger(dimension);
+			int columnIndex = RandomUtility.randomInteger(dimension);
+			float value = RandomUtility.randomFloat(1F);
+			table.put(rowIndex, columnIndex, value);
+			matrix.setValue(rowIndex, columnIndex, value);
+		}
+		SparseMatrix snapshot = matrix.getSnapshot();
+		assertMatrix(table, snapshot);
+		// 没有变化时返回同一个快照
+		Assert.assertSame(snapshot, matrix.getSnapshot());
+
+		// 只有值变化时共享结构
+		int rowIndex = snapshot.getTermRows()[0];
+		int columnIndex = snapshot.getTermColumns()[0];
+		float value = snapshot.getTermValues()[0];
+		matrix.shiftValue(rowIndex, columnIndex, 1F);
+		table.put(rowIndex, columnIndex, value + 1F);
+		SparseMatrix modified = matrix.getSnapshot();
+		Assert.assertSame(snapshot.getColumnIndexes(), modified.getColumnIndexes());
+		Assert.assertEquals(value, snapshot.getTermValues()[0], 0F);
+		Assert.assertEquals(value + 1F, modified.getTermValues()[0], 0F);
+		assertMatrix(table, modified);
+
+		// 超出大小的索引自动扩展
+		matrix.setValue(dimension, dimension + 5, 1F);
+		table.put(dimension, dimension + 5, 1F);
+		SparseMatrix expanded = matrix.getSnapshot();
+		Assert.assertEquals(dimension + 1, expanded.getRowSize());
+		Assert.assertEquals(dimension + 6, expanded.getColumnSize());
+		assertMatrix(table, expanded);
+		assertMatrix(table, AppendableMatrix.copyOf(expanded).getSnapshot());
+	}
+
+}
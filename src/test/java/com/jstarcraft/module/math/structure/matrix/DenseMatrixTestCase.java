@@ -1,5 +1,8 @@
 package com.jstarcraft.module.math.structure.matrix;
 
+import org.junit.Assert;
+import org.junit.Test;
+
 import com.jstarcraft.module.math.structure.MathCalculator;
 
 public class DenseMatrixTestCase extends MatrixTestCase {
@@ -17,4 +20,22 @@ public class DenseMatrixTestCase extends MatrixTestCase {
 		return matrix;
 	}
 
+	@Test
+	public void testExpand() {
+		DenseMatrix matrix = getRandomMatrix(4);
+		DenseMatrix expand = DenseMatrix.expandOf(matrix, 5, MatrixMapper.constantOf(1F));
+		Assert.assertEquals(5, expand.getRowSize());
+		Assert.assertEquals(4, expand.getColumnSize());
+		for (int row = 0; row < 5; row++) {
+			for (int column = 0; column < 4; column++) {
+				Assert.assertEquals(row < 4 ? matrix.getValue(row, column) : 1F, expand.getValue(row, column), 0F);
+			}
+		}
+		// 预留的容量足够时复用数组
+		DenseMatrix reuse = DenseMatrix.expandOf(expand, 6, MatrixMapper.constantOf(2F));
+		Assert.assertSame(expand.getValues(), reuse.getValues());
+		Assert.assertEquals(2F, reuse.getValue(5, 3), 0F);
+		Assert.assertEquals(1F, reuse.getValue(4, 0), 0F);
+	}
+
 }
@@ -0,0 +1,66 @@
+package com.jstarcraft.module.math.structure.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+import com.jstarcraft.core.utility.RandomUtility;
+import com.jstarcraft.module.math.structure.MathCombiner;
+import com.jstarcraft.module.math.structure.vector.SparseVector;
+
+public class MatrixBuilderTestCase {
+
+	private void assertVector(SparseVector left, SparseVector right) {
+		Assert.assertEquals(left.getElementSize(), right.getElementSize());
+		for (int position = 0; position < left.getElementSize(); position++) {
+			Assert.assertEquals(left.getIndex(position), right.getIndex(position));
+			Assert.assertEquals(left.getValue(position), right.getValue(position), 0F);
+		}
+	}
+
+	@Test
+	public void testBuild() {
+		int rowSize = 40, columnSize = 60;
+		for (MathCombiner combiner : MathCombiner.values()) {
+			Table<Integer, Integer, Float> table = HashBasedTable.create();
+			MatrixBuilder builder = new MatrixBuilder(rowSize, columnSize, combiner, 10);
+			for (int index = 0; index < 2000; index++) {
+				int rowIndex = RandomUtility.randomInteger(rowSize);
+				int columnIndex = RandomUtility.randomInteger(columnSize);
+				float value = RandomUtility.randomFloat(1F);
+				Float oldValue = table.get(rowIndex, columnIndex);
+				table.put(rowIndex, columnIndex, oldValue == null ? value : combiner.combine(oldValue, value));
+				builder.append(rowIndex, columnIndex, value);
+			}
+			SparseMatrix expect = SparseMatrix.valueOf(rowSize, columnSize, table);
+			SparseMatrix matrix = builder.build();
+			Assert.assertEquals(expect.getElementSize(), matrix.getElementSize());
+			for (int rowIndex = 0; rowIndex < rowSize; rowIndex++) {
+				assertVector(expect.getRowVector(rowIndex), matrix.getRowVector(rowIndex));
+			}
+			for (int columnIndex = 0; columnIndex < columnSize; columnIndex++) {
+				assertVector(expect.getColumnVector(columnIndex), matrix.getColumnVector(columnIndex));
+			}
+		}
+	}
+
+	@Test
+	public void testAppend() {
+		MatrixBuilder builder = new MatrixBuilder(3, 3, MathCombiner.SUM);
+		builder.append(new int[] { 2, 0, 2, 1 }, new int[] { 1, 2, 1, 0 }, new float[] { 1F, 2F, 3F, 4F });
+		Assert.assertEquals(4, builder.getElementSize());
+		SparseMatrix matrix = builder.build();
+		Assert.assertEquals(3, matrix.getElementSize());
+		Assert.assertArrayEquals(new int[] { 0, 1, 2 }, matrix.getTermRows());
+		Assert.assertArrayEquals(new int[] { 2, 0, 1 }, matrix.getTermColumns());
+		Assert.assertArrayEquals(new float[] { 2F, 4F, 4F }, matrix.getTermValues(), 0F);
+
+		try {
+			builder.append(3, 0, 1F);
+			Assert.fail();
+		} catch (IndexOutOfBoundsException exception) {
+		}
+	}
+
+}
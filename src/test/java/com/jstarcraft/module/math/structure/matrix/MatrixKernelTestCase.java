@@ -0,0 +1,196 @@
+package com.jstarcraft.module.math.structure.matrix;
+
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nd4j.linalg.factory.Nd4j;
+
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+import com.jstarcraft.core.utility.RandomUtility;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.vector.DenseVector;
+
+public class MatrixKernelTestCase {
+
+	private static DenseMatrix getRandomMatrix(int rowSize, int columnSize) {
+		DenseMatrix matrix = DenseMatrix.valueOf(rowSize, columnSize);
+		matrix.mapValues((row, column, value, message) -> {
+			return RandomUtility.randomFloat(1F);
+		}, null, MathCalculator.SERIAL);
+		return matrix;
+	}
+
+	private static SparseMatrix getSparseMatrix(DenseMatrix matrix) {
+		Table<Integer, Integer, Float> table = HashBasedTable.create();
+		for (int row = 0; row < matrix.getRowSize(); row++) {
+			for (int column = 0; column < matrix.getColumnSize(); column++) {
+				// 保留约十分之一的元素
+				if (RandomUtility.randomInteger(10) == 0) {
+					table.put(row, column, matrix.getValue(row, column));
+				} else {
+					matrix.setValue(row, column, 0F);
+				}
+			}
+		}
+		return SparseMatrix.valueOf(matrix.getRowSize(), matrix.getColumnSize(), table);
+	}
+
+	private static DenseMatrix getLabelMatrix(DenseMatrix leftMatrix, boolean leftTranspose, DenseMatrix rightMatrix, boolean rightTranspose) {
+		int rowSize = leftTranspose ? leftMatrix.getColumnSize() : leftMatrix.getRowSize();
+		int columnSize = rightTranspose ? rightMatrix.getRowSize() : rightMatrix.getColumnSize();
+		int depthSize = leftTranspose ? leftMatrix.getRowSize() : leftMatrix.getColumnSize();
+		DenseMatrix matrix = DenseMatrix.valueOf(rowSize, columnSize);
+		for (int row = 0; row < rowSize; row++) {
+			for (int column = 0; column < columnSize; column++) {
+				double value = 0D;
+				for (int depth = 0; depth < depthSize; depth++) {
+					float left = leftTranspose ? leftMatrix.getValue(depth, row) : leftMatrix.getValue(row, depth);
+					float right = rightTranspose ? rightMatrix.getValue(column, depth) : rightMatrix.getValue(depth, column);
+					value += left * right;
+				}
+				matrix.setValue(row, column, (float) value);
+			}
+		}
+		return matrix;
+	}
+
+	private static void assertMatrix(MathMatrix label, MathMatrix data) {
+		for (MatrixScalar term : label) {
+			float value = data.getValue(term.getRow(), term.getColumn());
+			Assert.assertEquals(term.getValue(), value, Math.abs(term.getValue()) * 1E-4F);
+		}
+	}
+
+	@Test
+	public void testProduct() throws Exception {
+		EnvironmentContext context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		Future<?> task = context.doTask(() -> {
+			// 尺寸跨越分块边界
+			int rowSize = 131, columnSize = 537, depthSize = 301;
+			for (boolean leftTranspose : new boolean[] { false, true }) {
+				for (boolean rightTranspose : new boolean[] { false, true }) {
+					DenseMatrix leftMatrix = leftTranspose ? getRandomMatrix(depthSize, rowSize) : getRandomMatrix(rowSize, depthSize);
+					DenseMatrix rightMatrix = rightTranspose ? getRandomMatrix(columnSize, depthSize) : getRandomMatrix(depthSize, columnSize);
+					DenseMatrix labelMatrix = getLabelMatrix(leftMatrix, leftTranspose, rightMatrix, rightTranspose);
+					for (MathCalculator mode : MathCalculator.values()) {
+						DenseMatrix dataMatrix = DenseMatrix.valueOf(rowSize, columnSize);
+						dataMatrix.dotProduct(leftMatrix, leftTranspose, rightMatrix, rightTranspose, mode);
+						assertMatrix(labelMatrix, dataMatrix);
+
+						dataMatrix.accumulateProduct(leftMatrix, leftTranspose, rightMatrix, rightTranspose, mode);
+						dataMatrix.scaleValues(0.5F);
+						assertMatrix(labelMatrix, dataMatrix);
+					}
+				}
+			}
+		});
+		task.get();
+	}
+
+	@Test
+	public void testVector() throws Exception {
+		EnvironmentContext context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		Future<?> task = context.doTask(() -> {
+			int rowSize = 157, columnSize = 43;
+			DenseMatrix matrix = getRandomMatrix(rowSize, columnSize);
+			for (boolean transpose : new boolean[] { false, true }) {
+				int inputSize = transpose ? rowSize : columnSize;
+				int outputSize = transpose ? columnSize : rowSize;
+				DenseVector inputVector = DenseVector.valueOf(inputSize);
+				inputVector.mapValues((index, value, message) -> {
+					return RandomUtility.randomFloat(1F);
+				}, null, MathCalculator.SERIAL);
+				float[] labels = new float[outputSize];
+				for (int output = 0; output < outputSize; output++) {
+					double value = 0D;
+					for (int input = 0; input < inputSize; input++) {
+						value += (transpose ? matrix.getValue(input, output) : matrix.getValue(output, input)) * inputVector.getValue(input);
+					}
+					labels[output] = (float) value;
+				}
+				for (MathCalculator mode : MathCalculator.values()) {
+					// 矩阵 × 向量
+					DenseVector dataVector = DenseVector.valueOf(outputSize);
+					dataVector.dotProduct(matrix, transpose, inputVector, mode);
+					for (int index = 0; index < outputSize; index++) {
+						Assert.assertEquals(labels[index], dataVector.getValue(index), Math.abs(labels[index]) * 1E-4F);
+					}
+					// 向量 × 矩阵
+					dataVector = DenseVector.valueOf(outputSize);
+					dataVector.dotProduct(inputVector, matrix, !transpose, mode);
+					for (int index = 0; index < outputSize; index++) {
+						Assert.assertEquals(labels[index], dataVector.getValue(index), Math.abs(labels[index]) * 1E-4F);
+					}
+				}
+			}
+		});
+		task.get();
+	}
+
+	@Test
+	public void testSparse() throws Exception {
+		EnvironmentContext context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		Future<?> task = context.doTask(() -> {
+			int rowSize = 97, columnSize = 61, depthSize = 203;
+			for (boolean leftTranspose : new boolean[] { false, true }) {
+				for (boolean rightTranspose : new boolean[] { false, true }) {
+					// 稀疏矩阵 × 稠密矩阵
+					DenseMatrix leftMatrix = leftTranspose ? getRandomMatrix(depthSize, rowSize) : getRandomMatrix(rowSize, depthSize);
+					SparseMatrix sparseMatrix = getSparseMatrix(leftMatrix);
+					DenseMatrix rightMatrix = rightTranspose ? getRandomMatrix(columnSize, depthSize) : getRandomMatrix(depthSize, columnSize);
+					DenseMatrix labelMatrix = getLabelMatrix(leftMatrix, leftTranspose, rightMatrix, rightTranspose);
+					for (MathCalculator mode : MathCalculator.values()) {
+						DenseMatrix dataMatrix = DenseMatrix.valueOf(rowSize, columnSize);
+						dataMatrix.dotProduct(sparseMatrix, leftTranspose, rightMatrix, rightTranspose, mode);
+						assertMatrix(labelMatrix, dataMatrix);
+					}
+
+					// 稠密矩阵 × 稀疏矩阵
+					leftMatrix = leftTranspose ? getRandomMatrix(depthSize, rowSize) : getRandomMatrix(rowSize, depthSize);
+					rightMatrix = rightTranspose ? getRandomMatrix(columnSize, depthSize) : getRandomMatrix(depthSize, columnSize);
+					sparseMatrix = getSparseMatrix(rightMatrix);
+					labelMatrix = getLabelMatrix(leftMatrix, leftTranspose, rightMatrix, rightTranspose);
+					for (MathCalculator mode : MathCalculator.values()) {
+						DenseMatrix dataMatrix = DenseMatrix.valueOf(rowSize, columnSize);
+						dataMatrix.dotProduct(leftMatrix, leftTranspose, sparseMatrix, rightTranspose, mode);
+						assertMatrix(labelMatrix, dataMatrix);
+					}
+				}
+			}
+
+			// 稀疏矩阵 × 稠密向量
+			DenseMatrix denseMatrix = getRandomMatrix(rowSize, depthSize);
+			SparseMatrix sparseMatrix = getSparseMatrix(denseMatrix);
+			DenseVector rowVector = DenseVector.valueOf(depthSize);
+			rowVector.mapValues((index, value, message) -> {
+				return RandomUtility.randomFloat(1F);
+			}, null, MathCalculator.SERIAL);
+			DenseVector columnVector = DenseVector.valueOf(rowSize);
+			columnVector.mapValues((index, value, message) -> {
+				return RandomUtility.randomFloat(1F);
+			}, null, MathCalculator.SERIAL);
+			for (MathCalculator mode : MathCalculator.values()) {
+				DenseVector labelVector = DenseVector.valueOf(rowSize);
+				DenseVector dataVector = DenseVector.valueOf(rowSize);
+				labelVector.dotProduct(denseMatrix, false, rowVector, MathCalculator.SERIAL);
+				dataVector.dotProduct(sparseMatrix, false, rowVector, mode);
+				for (int index = 0; index < rowSize; index++) {
+					Assert.assertEquals(labelVector.getValue(index), dataVector.getValue(index), Math.abs(labelVector.getValue(index)) * 1E-4F);
+				}
+
+				labelVector = DenseVector.valueOf(depthSize);
+				dataVector = DenseVector.valueOf(depthSize);
+				labelVector.dotProduct(columnVector, denseMatrix, false, MathCalculator.SERIAL);
+				dataVector.dotProduct(columnVector, sparseMatrix, false, mode);
+				for (int index = 0; index < depthSize; index++) {
+					Assert.assertEquals(labelVector.getValue(index), dataVector.getValue(index), Math.abs(labelVector.getValue(index)) * 1E-4F);
+				}
+			}
+		});
+		task.get();
+	}
+
+}
@@ -7,18 +7,26 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({
 
+		AppendableMatrixTestCase.class,
+
 		ColumnArrayMatrixTestCase.class,
 
 		ColumnCompositeMatrixTestCase.class,
 
 		DenseMatrixTestCase.class,
 
+		MatrixBuilderTestCase.class,
+
+		MatrixKernelTestCase.class,
+
 		Nd4jMatrixTestCase.class,
 		
 		RowArrayMatrixTestCase.class,
 
 		RowCompositeMatrixTestCase.class,
 
+		RowKernelTestCase.class,
+
 		SparseMatrixTestCase.class,
 
 		SymmetryMatrixTestCase.class })
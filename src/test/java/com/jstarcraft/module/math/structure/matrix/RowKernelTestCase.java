@@ -0,0 +1,71 @@
+package com.jstarcraft.module.math.structure.matrix;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jstarcraft.core.utility.RandomUtility;
+import com.jstarcraft.module.math.structure.MathCalculator;
+
+public class RowKernelTestCase {
+
+	private static DenseMatrix getRandomMatrix(int rowSize, int columnSize) {
+		DenseMatrix matrix = DenseMatrix.valueOf(rowSize, columnSize);
+		matrix.mapValues((row, column, value, message) -> {
+			return RandomUtility.randomFloat(1F) - 0.5F;
+		}, null, MathCalculator.SERIAL);
+		return matrix;
+	}
+
+	private static DenseMatrix getCopyMatrix(DenseMatrix matrix) {
+		return DenseMatrix.copyOf(matrix, (row, column, value, message) -> {
+			return value;
+		});
+	}
+
+	@Test
+	public void testKernel() {
+		// 覆盖展开部分与剩余部分
+		for (int dimension = 1; dimension < 12; dimension++) {
+			DenseMatrix left = getRandomMatrix(3, dimension);
+			DenseMatrix right = getRandomMatrix(3, dimension);
+
+			// 点积必须与逐个元素累加完全一致
+			float dot = 0F;
+			for (int index = 0; index < dimension; index++) {
+				dot += left.getValue(1, index) * right.getValue(2, index);
+			}
+			Assert.assertTrue(dot == RowKernel.dot(left, 1, right, 2));
+
+			DenseMatrix copy = getCopyMatrix(left);
+			RowKernel.axpy(0.5F, right, 0, copy, 1);
+			for (int index = 0; index < dimension; index++) {
+				Assert.assertTrue(left.getValue(1, index) + 0.5F * right.getValue(0, index) == copy.getValue(1, index));
+			}
+
+			copy = getCopyMatrix(left);
+			RowKernel.update(copy, 0, 0.3F, right, 1, right, 2, 0.01F, 0.1F);
+			for (int index = 0; index < dimension; index++) {
+				float value = left.getValue(0, index);
+				value += 0.1F * (0.3F * (right.getValue(1, index) - right.getValue(2, index)) - 0.01F * value);
+				Assert.assertTrue(value == copy.getValue(0, index));
+			}
+
+			// 成对更新使用更新之前的值
+			DenseMatrix leftCopy = getCopyMatrix(left);
+			DenseMatrix rightCopy = getCopyMatrix(right);
+			RowKernel.update(leftCopy, 2, 0.01F, rightCopy, 0, 0.02F, 0.3F, 0.1F);
+			for (int index = 0; index < dimension; index++) {
+				float leftValue = left.getValue(2, index);
+				float rightValue = right.getValue(0, index);
+				Assert.assertTrue(leftValue + 0.1F * (0.3F * rightValue - 0.01F * leftValue) == leftCopy.getValue(2, index));
+				Assert.assertTrue(rightValue + 0.1F * (0.3F * leftValue - 0.02F * rightValue) == rightCopy.getValue(0, index));
+			}
+
+			RowKernel.zero(copy, 2);
+			for (int index = 0; index < dimension; index++) {
+				Assert.assertTrue(0F == copy.getValue(2, index));
+			}
+		}
+	}
+
+}
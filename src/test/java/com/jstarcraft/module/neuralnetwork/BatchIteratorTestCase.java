@@ -0,0 +1,60 @@
+package com.jstarcraft.module.neuralnetwork;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nd4j.linalg.factory.Nd4j;
+
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.math.structure.matrix.MathMatrix;
+
+public class BatchIteratorTestCase {
+
+	@Test
+	public void testIterate() throws Exception {
+		EnvironmentContext context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		Future<?> task = context.doTask(() -> {
+			int numberOfSamples = 10;
+			BatchLoader loader = (row, index, samples, labels) -> {
+				samples[0].setValue(row, 0, index);
+				labels[0].setValue(row, 0, -index);
+			};
+			BatchIterator iterator = new BatchIterator(numberOfSamples, 4, true, new DenseMatrixFactory(), new int[] { 1 }, new int[] { 1 }, loader);
+			Assert.assertEquals(3, iterator.getNumberOfBatches());
+			for (int epoch = 0; epoch < 2; epoch++) {
+				Set<Integer> epochIndexes = new HashSet<>();
+				int count = 0;
+				iterator.reset();
+				while (iterator.hasNext()) {
+					iterator.next();
+					int[] indexes = iterator.getIndexes();
+					MathMatrix samples = iterator.getSamples()[0];
+					MathMatrix labels = iterator.getLabels()[0];
+					Set<Integer> batchIndexes = new HashSet<>();
+					// 最后一个批次不足时,之后的行置0并且索引为-1
+					for (int row = iterator.getSize(); row < iterator.getBatchSize(); row++) {
+						Assert.assertEquals(-1, indexes[row]);
+						Assert.assertEquals(0F, samples.getValue(row, 0), 0F);
+						Assert.assertEquals(0F, labels.getValue(row, 0), 0F);
+					}
+					for (int row = 0; row < iterator.getSize(); row++) {
+						// 缓冲的内容与样本索引一致,并且批次内的样本不重复
+						Assert.assertEquals(indexes[row], samples.getValue(row, 0), 0F);
+						Assert.assertEquals(-indexes[row], labels.getValue(row, 0), 0F);
+						Assert.assertTrue(batchIndexes.add(indexes[row]));
+						epochIndexes.add(indexes[row]);
+						count++;
+					}
+				}
+				// 每个周期恰好覆盖全部样本一次
+				Assert.assertEquals(numberOfSamples, epochIndexes.size());
+				Assert.assertEquals(numberOfSamples, count);
+			}
+		});
+		task.get();
+	}
+
+}
@@ -13,6 +13,8 @@ import com.jstarcraft.module.neuralnetwork.vertex.VertexTestSuite;
 @RunWith(Suite.class)
 @SuiteClasses({
 
+		BatchIteratorTestCase.class,
+
 		GraphTestCase.class,
 
 		ActivationFunctionTestSuite.class,
@@ -13,9 +13,11 @@ import org.nd4j.linalg.learning.GradientUpdater;
 
 import com.jstarcraft.module.environment.EnvironmentContext;
 import com.jstarcraft.module.math.algorithm.MathUtility;
+import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.MathMatrix;
 import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
 import com.jstarcraft.module.model.ModelCodec;
+import com.jstarcraft.module.neuralnetwork.SparseRows;
 
 public abstract class LearnerTestCase {
 
@@ -66,6 +68,48 @@ public abstract class LearnerTestCase {
 		task.get();
 	}
 
+	@Test
+	public void testSparse() throws Exception {
+		EnvironmentContext context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		Future<?> task = context.doTask(() -> {
+			int[] shape = { 5, 2 };
+			// 未被触及的行梯度为0时,稀疏学习与稠密学习的结果必须一致
+			SparseRows rows = new SparseRows(shape[0]);
+			rows.mark(0);
+			rows.mark(2);
+			rows.mark(4);
+			MathMatrix denseGradient = DenseMatrix.valueOf(shape[0], shape[1]);
+			MathMatrix sparseGradient = DenseMatrix.valueOf(shape[0], shape[1]);
+			Map<String, MathMatrix> denseGradients = new HashMap<>();
+			denseGradients.put("gradients", denseGradient);
+			Map<String, MathMatrix> sparseGradients = new HashMap<>();
+			sparseGradients.put("gradients", sparseGradient);
+			Map<String, SparseRows> sparses = new HashMap<>();
+			sparses.put("gradients", rows);
+			Learner denseFunction = getNewFunction(shape);
+			denseFunction.doCache(denseGradients);
+			Learner sparseFunction = getNewFunction(shape);
+			sparseFunction.doCache(sparseGradients);
+
+			for (int iteration = 0; iteration < 10; iteration++) {
+				int seed = iteration;
+				denseGradient.mapValues((row, column, value, message) -> {
+					return rows.isMarked(row) ? (row * shape[1] + column + seed) * 0.25F - 2.5F : 0F;
+				}, null, MathCalculator.SERIAL);
+				sparseGradient.copyMatrix(denseGradient, false);
+				denseFunction.learn(denseGradients, iteration, 0);
+				sparseFunction.learn(sparseGradients, sparses, iteration, 0);
+
+				for (int row = 0; row < shape[0]; row++) {
+					for (int column = 0; column < shape[1]; column++) {
+						Assert.assertTrue(MathUtility.equal(denseGradient.getValue(row, column), sparseGradient.getValue(row, column)));
+					}
+				}
+			}
+		});
+		task.get();
+	}
+
 	@Test
 	public void testModel() {
 		int[] shape = { 5, 2 };
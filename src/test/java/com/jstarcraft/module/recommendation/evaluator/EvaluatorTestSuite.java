@@ -18,6 +18,8 @@ import com.jstarcraft.module.recommendation.evaluator.rate.MSEEvaluatorTestCase;
 @RunWith(Suite.class)
 @SuiteClasses({
 		// 评估器测试集
+		RankingListTestCase.class,
+
 		AUCEvaluatorTestCase.class,
 
 		MAPEvaluatorTestCase.class,
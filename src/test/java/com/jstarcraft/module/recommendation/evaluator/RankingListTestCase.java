@@ -0,0 +1,67 @@
+package com.jstarcraft.module.recommendation.evaluator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jstarcraft.core.utility.KeyValue;
+import com.jstarcraft.core.utility.RandomUtility;
+
+public class RankingListTestCase {
+
+	@Test
+	public void testSort() {
+		int numberOfItems = 1000;
+		for (int capacity : new int[] { 0, 1, 10, numberOfItems, numberOfItems * 2 }) {
+			List<KeyValue<Integer, Float>> labelList = new ArrayList<>(numberOfItems);
+			RankingList dataList = new RankingList(capacity);
+			for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+				// 制造大量相同的分数
+				float score = RandomUtility.randomInteger(50);
+				labelList.add(new KeyValue<>(itemIndex, score));
+				dataList.offer(itemIndex, score);
+			}
+			Collections.sort(labelList, (left, right) -> {
+				return right.getValue().compareTo(left.getValue());
+			});
+			dataList.sort();
+
+			Assert.assertEquals(numberOfItems, dataList.getCount());
+			Assert.assertEquals(Math.min(capacity, numberOfItems), dataList.size());
+			for (int position = 0; position < dataList.size(); position++) {
+				Assert.assertEquals(labelList.get(position).getKey().intValue(), dataList.getKey(position));
+				Assert.assertEquals(labelList.get(position).getValue(), dataList.getValue(position), 0F);
+			}
+
+			RankingList copyList = RankingList.valueOf(capacity, labelList);
+			Assert.assertEquals(dataList, copyList);
+			Assert.assertEquals(dataList.getCount(), copyList.getCount());
+		}
+	}
+
+	@Test
+	public void testNaN() {
+		int numberOfItems = 1000;
+		List<KeyValue<Integer, Float>> labelList = new ArrayList<>(numberOfItems);
+		RankingList dataList = new RankingList(100);
+		for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+			// NaN与Float.compareTo一致,视为最大
+			float score = itemIndex % 7 == 0 ? Float.NaN : RandomUtility.randomInteger(50);
+			labelList.add(new KeyValue<>(itemIndex, score));
+			dataList.offer(itemIndex, score);
+		}
+		Collections.sort(labelList, (left, right) -> {
+			return right.getValue().compareTo(left.getValue());
+		});
+		dataList.sort();
+
+		for (int position = 0; position < dataList.size(); position++) {
+			Assert.assertEquals(labelList.get(position).getKey().intValue(), dataList.getKey(position));
+			Assert.assertEquals(labelList.get(position).getValue(), dataList.getValue(position), 0F);
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.jstarcraft.module.recommendation.recommender;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jstarcraft.module.recommendation.configure.Configuration;
+import com.jstarcraft.module.recommendation.task.RatingTask;
+
+public class FactorizationMachineRecommenderTestCase {
+
+	/**
+	 * 按照定义计算得分(二阶项逐对求和,复杂度为O(n^2*k))
+	 */
+	private static float predictPairs(FactorizationMachineRecommender recommender, int[] dicreteFeatures) {
+		int size = dicreteFeatures.length;
+		int[] featureIndexes = new int[size];
+		for (int dimension = 0; dimension < size; dimension++) {
+			featureIndexes[dimension] = recommender.featureOffsets[dimension] + dicreteFeatures[dimension];
+		}
+		double value = recommender.globalBias;
+		for (int left = 0; left < size; left++) {
+			value += recommender.weightVector.getValue(featureIndexes[left]);
+			for (int right = left + 1; right < size; right++) {
+				for (int factorIndex = 0; factorIndex < recommender.numberOfFactors; factorIndex++) {
+					value += recommender.featureFactors.getValue(featureIndexes[left], factorIndex) * recommender.featureFactors.getValue(featureIndexes[right], factorIndex);
+				}
+			}
+		}
+		return recommender.limitScore((float) value);
+	}
+
+	@Test
+	public void testPredict() throws Exception {
+		Configuration configuration = Configuration.valueOf("rec/collaborative/rating/fmsgd-test.properties");
+		RatingTask job = new RatingTask(configuration);
+		job.execute();
+		FactorizationMachineRecommender recommender = (FactorizationMachineRecommender) job.getRecommender();
+		int numberOfOrders = recommender.trainTensor.getOrderSize();
+		int itemDimension = recommender.itemDimension;
+		int numberOfItems = recommender.trainTensor.getDimensionSize(itemDimension);
+		float[] continuousFeatures = new float[0];
+		Random random = new Random(0L);
+		for (int times = 0; times < 10; times++) {
+			int[] dicreteFeatures = new int[numberOfOrders];
+			for (int dimension = 0; dimension < numberOfOrders; dimension++) {
+				dicreteFeatures[dimension] = random.nextInt(recommender.trainTensor.getDimensionSize(dimension));
+			}
+
+			// 线性复杂度的二阶项与逐对求和一致
+			for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+				dicreteFeatures[itemDimension] = itemIndex;
+				Assert.assertEquals(predictPairs(recommender, dicreteFeatures), recommender.predict(dicreteFeatures, continuousFeatures), 1E-4F);
+			}
+
+			// 批量预测与逐个预测的得分相同
+			int[] itemIndexes = new int[numberOfItems];
+			for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+				itemIndexes[itemIndex] = numberOfItems - 1 - itemIndex;
+			}
+			float[] indexScores = new float[numberOfItems];
+			float[] allScores = new float[numberOfItems];
+			recommender.predict(dicreteFeatures.clone(), continuousFeatures, itemDimension, itemIndexes, indexScores);
+			recommender.predict(dicreteFeatures.clone(), continuousFeatures, itemDimension, allScores);
+			for (int position = 0; position < numberOfItems; position++) {
+				int itemIndex = itemIndexes[position];
+				dicreteFeatures[itemDimension] = itemIndex;
+				float score = recommender.predict(dicreteFeatures, continuousFeatures);
+				Assert.assertEquals(score, indexScores[position], 0F);
+				Assert.assertEquals(score, allScores[itemIndex], 0F);
+			}
+		}
+	}
+
+}
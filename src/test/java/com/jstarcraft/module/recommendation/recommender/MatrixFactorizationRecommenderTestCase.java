@@ -0,0 +1,48 @@
+package com.jstarcraft.module.recommendation.recommender;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jstarcraft.module.recommendation.configure.Configuration;
+import com.jstarcraft.module.recommendation.recommender.collaborative.rating.BiasedMFRecommender;
+import com.jstarcraft.module.recommendation.task.RatingTask;
+
+public class MatrixFactorizationRecommenderTestCase {
+
+	private static void assertScores(MatrixFactorizationRecommender recommender, int userIndex, float[] scores) {
+		int[] dicreteFeatures = new int[Math.max(recommender.userDimension, recommender.itemDimension) + 1];
+		float[] continuousFeatures = new float[0];
+		dicreteFeatures[recommender.userDimension] = userIndex;
+		recommender.predict(dicreteFeatures, continuousFeatures, recommender.itemDimension, scores);
+		for (int itemIndex = 0; itemIndex < scores.length; itemIndex++) {
+			dicreteFeatures[recommender.itemDimension] = itemIndex;
+			Assert.assertEquals(recommender.predict(dicreteFeatures, continuousFeatures), scores[itemIndex], 1E-4F);
+		}
+	}
+
+	@Test
+	public void testPredictAfterUpdate() throws Exception {
+		Configuration configuration = Configuration.valueOf("rec/collaborative/rating/biasedmf-test.properties");
+		RatingTask job = new RatingTask(configuration);
+		job.execute();
+		BiasedMFRecommender recommender = (BiasedMFRecommender) job.getRecommender();
+		int numberOfUsers = recommender.numberOfUsers;
+		int numberOfItems = recommender.numberOfItems;
+		// 在扩展模型之前按照原来的物品数量分配得分
+		float[] scores = new float[numberOfItems];
+		assertScores(recommender, 0, scores);
+
+		// 增量数据包含新用户与新物品
+		recommender.update(new int[] { 0, numberOfUsers, numberOfUsers }, new int[] { numberOfItems, 0, numberOfItems + 1 }, new float[] { 4F, 3F, 5F });
+		Assert.assertEquals(numberOfUsers + 1, recommender.numberOfUsers);
+		Assert.assertEquals(numberOfItems + 2, recommender.numberOfItems);
+
+		// 原来的数组只预测前scores.length个物品
+		assertScores(recommender, 0, scores);
+		assertScores(recommender, numberOfUsers, scores);
+		// 新的数组覆盖新物品
+		assertScores(recommender, 0, new float[recommender.numberOfItems]);
+		assertScores(recommender, numberOfUsers, new float[recommender.numberOfItems]);
+	}
+
+}
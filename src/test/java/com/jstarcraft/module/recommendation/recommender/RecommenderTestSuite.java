@@ -21,7 +21,11 @@ import com.jstarcraft.module.recommendation.recommender.extend.ExtendTestSuite;
 
 		ContextTestSuite.class,
 
-		ExtendTestSuite.class, })
+		ExtendTestSuite.class,
+
+		FactorizationMachineRecommenderTestCase.class,
+
+		MatrixFactorizationRecommenderTestCase.class, })
 public class RecommenderTestSuite {
 
 }
@@ -32,4 +32,17 @@ public class CDAETestCase {
 		Assert.assertThat(measures.get(RecallEvaluator.class.getSimpleName()), CoreMatchers.equalTo(0.40102106F));
 	}
 
+	@Test
+	public void testBatch() throws Exception {
+		// 批次大小小于用户数量,补齐的行不能参与训练
+		Configuration configuration = Configuration.valueOf("rec/collaborative/ranking/cdae-batch-test.properties");
+		RankingTask job = new RankingTask(configuration);
+		Map<String, Float> measures = job.execute();
+		for (Float measure : measures.values()) {
+			Assert.assertFalse(Float.isNaN(measure) || Float.isInfinite(measure));
+		}
+		Assert.assertTrue(measures.get(AUCEvaluator.class.getSimpleName()) > 0.5F);
+		Assert.assertTrue(measures.get(PrecisionEvaluator.class.getSimpleName()) > 0F);
+	}
+
 }
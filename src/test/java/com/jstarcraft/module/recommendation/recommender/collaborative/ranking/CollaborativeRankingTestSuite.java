@@ -56,6 +56,8 @@ import org.junit.runners.Suite.SuiteClasses;
 
 		RankVFCDTestCase.class,
 
+		SLIMDescentTestCase.class,
+
 		SLIMTestCase.class,
 
 		UserKNNRankingTestCase.class,
@@ -0,0 +1,78 @@
+package com.jstarcraft.module.recommendation.recommender.collaborative.ranking;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jstarcraft.module.math.structure.vector.ArrayVector;
+
+public class SLIMDescentTestCase {
+
+	/** 用户 x 物品 */
+	private static final float[][] RATES = { //
+			{ 5F, 3F, 0F, 1F, 0F }, //
+			{ 4F, 0F, 0F, 1F, 2F }, //
+			{ 1F, 1F, 0F, 5F, 0F }, //
+			{ 0F, 0F, 5F, 4F, 0F }, //
+			{ 0F, 1F, 5F, 4F, 3F }, //
+			{ 2F, 0F, 3F, 0F, 5F } };
+
+	private static ArrayVector[] getVectors(boolean transpose) {
+		int rowSize = transpose ? RATES[0].length : RATES.length;
+		int columnSize = transpose ? RATES.length : RATES[0].length;
+		ArrayVector[] vectors = new ArrayVector[rowSize];
+		for (int row = 0; row < rowSize; row++) {
+			int size = 0;
+			for (int column = 0; column < columnSize; column++) {
+				if ((transpose ? RATES[column][row] : RATES[row][column]) != 0F) {
+					size++;
+				}
+			}
+			int[] indexes = new int[size];
+			float[] values = new float[size];
+			for (int column = 0, position = 0; column < columnSize; column++) {
+				float value = transpose ? RATES[column][row] : RATES[row][column];
+				if (value != 0F) {
+					indexes[position] = column;
+					values[position++] = value;
+				}
+			}
+			vectors[row] = new ArrayVector(columnSize, indexes, values);
+		}
+		return vectors;
+	}
+
+	@Test
+	public void testDescent() {
+		ArrayVector[] userVectors = getVectors(false);
+		ArrayVector[] itemVectors = getVectors(true);
+		int numberOfUsers = userVectors.length, numberOfItems = itemVectors.length;
+		float regL1Norm = 0.01F, regL2Norm = 0.1F;
+		Random random = new Random(0L);
+		for (int itemIndex = 0; itemIndex < numberOfItems; itemIndex++) {
+			// 与原来的相似度矩阵一致,邻居包括物品自身(初始系数为0)
+			int[] neighbors = new int[numberOfItems];
+			float[] predictionCoefficients = new float[numberOfItems];
+			for (int neighborIndex = 0; neighborIndex < numberOfItems; neighborIndex++) {
+				neighbors[neighborIndex] = neighborIndex;
+				predictionCoefficients[neighborIndex] = neighborIndex == itemIndex ? 0F : random.nextFloat();
+			}
+			float[] residualCoefficients = predictionCoefficients.clone();
+			float[] predictionLosses = new float[numberOfItems];
+			float[] residualLosses = new float[numberOfItems];
+			float[] rates = new float[numberOfUsers];
+			float[] residuals = new float[numberOfUsers];
+			for (int iterationStep = 0; iterationStep < 10; iterationStep++) {
+				SLIMRecommender.practiceByPrediction(userVectors, itemVectors, itemIndex, neighbors, predictionCoefficients, predictionLosses, regL1Norm, regL2Norm, rates);
+				SLIMRecommender.practiceByResidual(itemVectors, itemIndex, neighbors, residualCoefficients, residualLosses, regL1Norm, regL2Norm, residuals);
+				Assert.assertArrayEquals(predictionCoefficients, residualCoefficients, 1E-4F);
+				Assert.assertArrayEquals(predictionLosses, residualLosses, 1E-3F);
+				// 缓存恢复为0
+				Assert.assertArrayEquals(new float[numberOfUsers], rates, 0F);
+				Assert.assertArrayEquals(new float[numberOfUsers], residuals, 0F);
+			}
+		}
+	}
+
+}
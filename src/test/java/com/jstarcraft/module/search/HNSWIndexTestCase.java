@@ -0,0 +1,61 @@
+package com.jstarcraft.module.search;
+
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nd4j.linalg.factory.Nd4j;
+
+import com.jstarcraft.core.utility.RandomUtility;
+import com.jstarcraft.module.environment.EnvironmentContext;
+import com.jstarcraft.module.math.structure.MathCalculator;
+import com.jstarcraft.module.math.structure.matrix.DenseMatrix;
+
+public class HNSWIndexTestCase {
+
+	private static DenseMatrix getRandomMatrix(int rowSize, int columnSize) {
+		DenseMatrix matrix = DenseMatrix.valueOf(rowSize, columnSize);
+		matrix.mapValues((row, column, value, message) -> {
+			return RandomUtility.randomFloat(1F) - 0.5F;
+		}, null, MathCalculator.SERIAL);
+		return matrix;
+	}
+
+	@Test
+	public void testSearch() throws Exception {
+		EnvironmentContext context = Nd4j.getAffinityManager().getClass().getSimpleName().equals("CpuAffinityManager") ? EnvironmentContext.CPU : EnvironmentContext.GPU;
+		Future<?> task = context.doTask(() -> {
+			DenseMatrix itemMatrix = getRandomMatrix(2000, 16);
+			DenseMatrix queryMatrix = getRandomMatrix(50, 16);
+			for (HNSWMetric metric : HNSWMetric.values()) {
+				for (MathCalculator mode : MathCalculator.values()) {
+					HNSWIndex index = new HNSWIndex(itemMatrix, metric, 16, 100, 50, 0L).build(mode);
+					HNSWReport report = HNSWReport.valueOf(index, queryMatrix, 10, 10, 50, 200);
+					// 召回率随搜索候选数量单调增加
+					for (int position = 1; position < report.getSize(); position++) {
+						Assert.assertTrue(report.getRecall(position) >= report.getRecall(position - 1) - 0.05F);
+					}
+					Assert.assertTrue(report.toString(), report.getRecall(report.getSize() - 1) > 0.95F);
+
+					// 精确扫描按照距离升序
+					int[] indexes = new int[10];
+					float[] distances = new float[10];
+					float[] query = new float[16];
+					for (int column = 0; column < 16; column++) {
+						query[column] = queryMatrix.getValue(0, column);
+					}
+					Assert.assertEquals(10, index.scan(query, 10, indexes, distances));
+					for (int position = 1; position < 10; position++) {
+						Assert.assertTrue(distances[position - 1] <= distances[position]);
+					}
+					Assert.assertEquals(10, index.search(query, 10, indexes, distances));
+					for (int position = 1; position < 10; position++) {
+						Assert.assertTrue(distances[position - 1] <= distances[position]);
+					}
+				}
+			}
+		});
+		task.get();
+	}
+
+}
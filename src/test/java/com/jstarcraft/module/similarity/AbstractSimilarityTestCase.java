@@ -3,8 +3,11 @@ package com.jstarcraft.module.similarity;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -18,10 +21,12 @@ import com.jstarcraft.module.data.accessor.AttributeMarker;
 import com.jstarcraft.module.data.accessor.InstanceAccessor;
 import com.jstarcraft.module.data.accessor.SampleAccessor;
 import com.jstarcraft.module.data.convertor.CsvConvertor;
+import com.jstarcraft.module.math.structure.MathCalculator;
 import com.jstarcraft.module.math.structure.matrix.MatrixScalar;
 import com.jstarcraft.module.math.structure.matrix.SparseMatrix;
 import com.jstarcraft.module.math.structure.matrix.SymmetryMatrix;
 import com.jstarcraft.module.math.structure.tensor.SparseTensor;
+import com.jstarcraft.module.math.structure.vector.SparseVector;
 import com.jstarcraft.module.recommendation.configure.Configuration;
 
 public abstract class AbstractSimilarityTestCase {
@@ -32,6 +37,62 @@ public abstract class AbstractSimilarityTestCase {
 
 	protected abstract Similarity getSimilarity();
 
+	/**
+	 * 邻居矩阵每行应该等于相似度矩阵该行(不包括自身与0)的TopK
+	 */
+	private void checkNeighbor(Similarity similarity, SymmetryMatrix similarityMatrix, SparseMatrix scoreMatrix, boolean transpose, float scale) {
+		int neighborSize = 10;
+		NeighborMatrix neighborMatrix = similarity.makeNeighborMatrix(scoreMatrix, transpose, scale, neighborSize, MathCalculator.SERIAL);
+		assertEquals(similarityMatrix.getRowSize(), neighborMatrix.getRowSize());
+		for (int row = 0, size = similarityMatrix.getRowSize(); row < size; row++) {
+			List<Float> values = new ArrayList<>();
+			for (int column = 0; column < size; column++) {
+				float value = similarityMatrix.getValue(row, column);
+				if (row != column && value != 0F) {
+					values.add(value);
+				}
+			}
+			Collections.sort(values, Collections.reverseOrder());
+			int count = Math.min(neighborSize, values.size());
+			assertEquals(count, neighborMatrix.getNeighborSize(row));
+			List<Float> neighbors = new ArrayList<>();
+			for (int position = 0; position < count; position++) {
+				int column = neighborMatrix.getNeighborIndex(row, position);
+				if (position > 0) {
+					assertTrue(neighborMatrix.getNeighborIndex(row, position - 1) < column);
+				}
+				assertEquals(similarityMatrix.getValue(row, column), neighborMatrix.getNeighborValue(row, position), 0F);
+				assertEquals(similarityMatrix.getValue(row, column), neighborMatrix.getValue(row, column), 0F);
+				neighbors.add(neighborMatrix.getNeighborValue(row, position));
+			}
+			Collections.sort(neighbors, Collections.reverseOrder());
+			assertEquals(values.subList(0, count), neighbors);
+		}
+	}
+
+	/**
+	 * 倒排索引计算的相似度矩阵应该等于逐对计算的相似度(累加顺序相同,结果完全一致)
+	 */
+	private void checkPair(Similarity similarity, SymmetryMatrix similarityMatrix, SparseMatrix scoreMatrix, boolean transpose, float scale) {
+		for (int leftIndex = 0, size = Math.min(50, similarityMatrix.getRowSize()); leftIndex < size; leftIndex++) {
+			SparseVector leftVector = transpose ? scoreMatrix.getColumnVector(leftIndex) : scoreMatrix.getRowVector(leftIndex);
+			if (leftVector.getElementSize() == 0) {
+				continue;
+			}
+			for (int rightIndex = leftIndex + 1; rightIndex < similarityMatrix.getRowSize(); rightIndex++) {
+				SparseVector rightVector = transpose ? scoreMatrix.getColumnVector(rightIndex) : scoreMatrix.getRowVector(rightIndex);
+				if (rightVector.getElementSize() == 0) {
+					continue;
+				}
+				float correlation = similarity.getCorrelation(leftVector, rightVector, scale);
+				if (Float.isNaN(correlation)) {
+					correlation = 0F;
+				}
+				assertEquals(correlation, similarityMatrix.getValue(leftIndex, rightIndex), 0F);
+			}
+		}
+	}
+
 	@Test
 	public void test() {
 		Map<String, Class<?>> discreteFeatures = new HashMap<>();
@@ -90,6 +151,9 @@ public abstract class AbstractSimilarityTestCase {
 			Assert.assertThat(similarityMatrix.getValue(index, index), CoreMatchers.equalTo(getIdentical()));
 		}
 
+		checkPair(similarity, similarityMatrix, scoreMatrix, false, configuration.getFloat("rec.similarity.shrinkage", 0F));
+		checkNeighbor(similarity, similarityMatrix, scoreMatrix, false, configuration.getFloat("rec.similarity.shrinkage", 0F));
+
 		similarityMatrix = similarity.makeSimilarityMatrix(scoreMatrix, true, configuration.getFloat("rec.similarity.shrinkage", 0F));
 		assertEquals(space.getDiscreteAttribute(itemField).getSize(), similarityMatrix.getRowSize());
 		for (MatrixScalar term : similarityMatrix) {
@@ -98,6 +162,8 @@ public abstract class AbstractSimilarityTestCase {
 		for (int index = 0, size = space.getDiscreteAttribute(itemField).getSize(); index < size; index++) {
 			Assert.assertThat(similarityMatrix.getValue(index, index), CoreMatchers.equalTo(getIdentical()));
 		}
+		checkPair(similarity, similarityMatrix, scoreMatrix, true, configuration.getFloat("rec.similarity.shrinkage", 0F));
+		checkNeighbor(similarity, similarityMatrix, scoreMatrix, true, configuration.getFloat("rec.similarity.shrinkage", 0F));
 	}
 
 }